@@ -0,0 +1,88 @@
+/**
+ ** File: ConnectionMapBenchmark.java
+ **
+ ** Description : Benchmarks for GenericConnectionMap listener dispatch
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ */
+package com.goffersoft.common.net;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConnectionMapBenchmark {
+    private static final Logger log = Logger
+            .getLogger(ConnectionMapBenchmark.class);
+
+    @Param({ "1", "16", "256" })
+    public int listeners;
+
+    @Param({ "64", "1500" })
+    public int dataLength;
+
+    private GenericConnectionMap<TcpConnectionListener> map;
+    private byte[] hit;
+    private byte[] miss;
+
+    @Setup
+    public void setUp() {
+        Random r = new Random(1);
+        GenericConnectionMap.SearchType[] types = {
+                GenericConnectionMap.SearchType.CONTAINS,
+                GenericConnectionMap.SearchType.STARTSWITH,
+                GenericConnectionMap.SearchType.ENDSWITH };
+        TcpConnectionListener listener = new TcpConnectionListenerImpl();
+
+        map = new GenericConnectionMap<TcpConnectionListener>();
+        for (int i = 0; i < listeners; i++) {
+            map.addListener(("pattern-" + i).getBytes(),
+                    listener,
+                    types[i % types.length]);
+        }
+
+        // the last registered pattern is the only match
+        miss = new byte[dataLength];
+        for (int i = 0; i < dataLength; i++) {
+            miss[i] = (byte) ('a' + r.nextInt(26));
+        }
+        hit = miss.clone();
+        byte[] last = ("pattern-" + (listeners - 1)).getBytes();
+        int offset;
+        switch (types[(listeners - 1) % types.length]) {
+            case STARTSWITH:
+                offset = 0;
+                break;
+            case ENDSWITH:
+                offset = dataLength - last.length;
+                break;
+            default:
+                offset = dataLength / 2;
+                break;
+        }
+        System.arraycopy(last, 0, hit, offset, last.length);
+    }
+
+    @Benchmark
+    public TcpConnectionListener dispatchHit() {
+        return map.getConnectionListener(hit, 0, hit.length);
+    }
+
+    @Benchmark
+    public TcpConnectionListener dispatchMiss() {
+        return map.getConnectionListener(miss, 0, miss.length);
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ ** File: LoopbackBenchmark.java
+ **
+ ** Description : Echo round trips over loopback through a TcpConnection
+ **               (thread and event loop mode) and a UdpConnection
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ */
+package com.goffersoft.common.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Throughput gives round trips per second, SampleTime the round trip
+ * latency distribution (percentiles in the json results).
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LoopbackBenchmark {
+    private static final Logger log = Logger
+            .getLogger(LoopbackBenchmark.class);
+
+    /** echo server on a TcpConnection and a plain socket client */
+    @State(Scope.Thread)
+    public static class TcpEcho {
+        /** server event loop threads, 0 ==> thread per connection */
+        @Param({ "0", "1" })
+        public int eventLoopThreads;
+
+        @Param({ "64", "1024" })
+        public int messageLength;
+
+        private TcpServer server;
+        private Socket client;
+        private OutputStream out;
+        private InputStream in;
+        private byte[] message;
+        private byte[] reply;
+
+        @Setup
+        public void setUp() throws IOException {
+            InetAddress loopback = InetAddress.getByName("127.0.0.1");
+
+            message = new byte[messageLength];
+            reply = new byte[messageLength];
+
+            TcpServerContext sc = new TcpServerContext();
+            sc.setEventLoopThreads(eventLoopThreads);
+            sc.setDefaultListener(new TcpServerListenerImpl());
+            TcpConnectionContext cc = new TcpConnectionContext();
+            cc.setDefaultListener(new TcpConnectionListenerImpl() {
+                @Override
+                public void onReceivedData(
+                        TcpConnection tcp,
+                        byte[] data,
+                        int offset,
+                        int length) {
+                    try {
+                        tcp.send(data, offset, length);
+                    } catch (IOException e) {
+                        log.error("echo failed", e);
+                    }
+                }
+
+                @Override
+                public void onConnectionTerminated(
+                        TcpConnection tcp,
+                        Exception error) {
+                }
+            });
+            server = new TcpServerFactory(sc, cc).createServer(0, loopback);
+            client = new Socket(loopback, server.getLocalPort());
+            client.setTcpNoDelay(true);
+            out = client.getOutputStream();
+            in = client.getInputStream();
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            client.close();
+            server.stop();
+        }
+    }
+
+    /** echo server on a UdpConnection and a plain socket client */
+    @State(Scope.Thread)
+    public static class UdpEcho {
+        @Param({ "64", "1024" })
+        public int messageLength;
+
+        private UdpConnection server;
+        private DatagramSocket client;
+        private DatagramPacket request;
+        private DatagramPacket reply;
+
+        @Setup
+        public void setUp() throws IOException {
+            InetAddress loopback = InetAddress.getByName("127.0.0.1");
+
+            UdpConnectionContext uc = new UdpConnectionContext();
+            uc.setDefaultListener(new UdpConnectionListenerImpl() {
+                @Override
+                public void onReceivedPacket(
+                        UdpConnection udp,
+                        DatagramPacket packet) {
+                    try {
+                        udp.send(packet.getData(),
+                                packet.getOffset(),
+                                packet.getLength(),
+                                packet.getSocketAddress());
+                    } catch (IOException e) {
+                        log.error("echo failed", e);
+                    }
+                }
+            });
+            server = new UdpConnectionFactory(uc).createConnection(0, loopback);
+            client = new DatagramSocket();
+            client.setSoTimeout(100);
+            request = new DatagramPacket(new byte[messageLength],
+                    messageLength,
+                    new InetSocketAddress(loopback, server.getLocalPort()));
+            reply = new DatagramPacket(new byte[messageLength], messageLength);
+        }
+
+        @TearDown
+        public void tearDown() {
+            client.close();
+            server.stop();
+        }
+    }
+
+    @Benchmark
+    public int tcpEcho(TcpEcho tcp) throws IOException {
+        int n = 0;
+
+        tcp.out.write(tcp.message);
+        tcp.out.flush();
+        while (n < tcp.messageLength) {
+            int len = tcp.in.read(tcp.reply, n, tcp.messageLength - n);
+            if (len < 0) {
+                throw new IOException("connection closed");
+            }
+            n += len;
+        }
+        return n;
+    }
+
+    /** a lost datagram is resent, which shows up as a latency outlier */
+    @Benchmark
+    public int udpEcho(UdpEcho udp) throws IOException {
+        while (true) {
+            udp.client.send(udp.request);
+            try {
+                udp.reply.setLength(udp.messageLength);
+                udp.client.receive(udp.reply);
+                return udp.reply.getLength();
+            } catch (SocketTimeoutException e) {
+                log.debug("udp echo lost, resending");
+            }
+        }
+    }
+}
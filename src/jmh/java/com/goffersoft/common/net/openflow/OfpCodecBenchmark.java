@@ -0,0 +1,129 @@
+/**
+ ** File: OfpCodecBenchmark.java
+ **
+ ** Description : Benchmarks for encoding/decoding OfpHeader, OfpPort and
+ **               OfpHelloMsg to/from byte[] and streams
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ */
+package com.goffersoft.common.net.openflow;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.goffersoft.common.utils.net.MacAddress;
+
+/**
+ * Decoding starts from canonical wire format messages (as received from a
+ * switch) rather than from the output of the encoders.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OfpCodecBenchmark {
+    private static final Logger log = Logger
+            .getLogger(OfpCodecBenchmark.class);
+
+    /** OFPT_HELLO, xid 9, version bitmap element (1.0, 1.3, 1.4) */
+    private static final byte[] HELLO_WIRE = {
+            0x05, 0x00, 0x00, 0x10, 0x00, 0x00, 0x00, 0x09,
+            0x00, 0x01, 0x00, 0x08, 0x00, 0x00, 0x00, 0x32 };
+
+    /** port 1, 00:11:22:33:44:55, "eth1", live */
+    private static final byte[] PORT_WIRE = {
+            0x00, 0x00, 0x00, 0x01, 0x00, 0x28, 0x00, 0x00,
+            0x00, 0x11, 0x22, 0x33, 0x44, 0x55, 0x00, 0x00,
+            'e', 't', 'h', '1', 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x04 };
+
+    private OfpHeader header;
+    private OfpPort port;
+    private OfpHelloMsg hello;
+    private byte[] headerWire;
+    private final byte[] out = new byte[64];
+    private ByteArrayInputStream headerStream;
+    private ByteArrayInputStream portStream;
+    private ByteArrayInputStream helloStream;
+
+    @Setup
+    public void setUp() {
+        LinkedList<OfpHelloGenericElement> elements =
+                new LinkedList<OfpHelloGenericElement>();
+
+        header = new OfpHeader(OfpType.OFPT_HELLO, 7);
+        port = new OfpPort(OfpPortNum.getEnum(1),
+                new MacAddress("00:11:22:33:44:55"),
+                "eth1",
+                0,
+                0,
+                null);
+        elements.add(new OfpHelloVersionBitmapElement(
+                new byte[] { 0, 0, 0, 0x32 }, 0, 4));
+        hello = new OfpHelloMsg(9, elements);
+
+        headerWire = header.toByteArray();
+        headerStream = new ByteArrayInputStream(headerWire);
+        portStream = new ByteArrayInputStream(PORT_WIRE);
+        helloStream = new ByteArrayInputStream(HELLO_WIRE);
+    }
+
+    @Benchmark
+    public byte[] encodeHeader() {
+        return header.toByteArray(out, 0);
+    }
+
+    @Benchmark
+    public OfpHeader decodeHeader() {
+        return new OfpHeader(headerWire, 0);
+    }
+
+    @Benchmark
+    public OfpHeader decodeHeaderStream() throws IOException {
+        headerStream.reset();
+        return OfpHeader.readFromInputStream(headerStream);
+    }
+
+    @Benchmark
+    public byte[] encodePort() {
+        return port.toByteArray(out, 0);
+    }
+
+    @Benchmark
+    public OfpPort decodePort() {
+        return new OfpPort(PORT_WIRE, 0);
+    }
+
+    @Benchmark
+    public OfpPort decodePortStream() throws IOException {
+        portStream.reset();
+        return OfpPort.readFromInputStream(portStream);
+    }
+
+    @Benchmark
+    public byte[] encodeHello() {
+        return hello.toByteArray(out, 0);
+    }
+
+    @Benchmark
+    public OfpHelloMsg decodeHello() {
+        return new OfpHelloMsg(HELLO_WIRE, 0);
+    }
+
+    @Benchmark
+    public OfpHelloMsg decodeHelloStream() throws IOException {
+        helloStream.reset();
+        return OfpHelloMsg.readFromInputStream(helloStream);
+    }
+}
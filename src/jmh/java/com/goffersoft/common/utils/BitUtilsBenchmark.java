@@ -0,0 +1,70 @@
+/**
+ ** File: BitUtilsBenchmark.java
+ **
+ ** Description : Benchmarks for the BitUtils bit scans
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ */
+package com.goffersoft.common.utils;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BitUtilsBenchmark {
+    private static final Logger log = Logger.getLogger(BitUtilsBenchmark.class);
+
+    private static final int MASK = 1023;
+
+    private final long[] longs = new long[MASK + 1];
+    private final int[] ints = new int[MASK + 1];
+    private int index;
+
+    @Setup
+    public void setUp() {
+        Random r = new Random(1);
+
+        for (int i = 0; i <= MASK; i++) {
+            // sparse bitmaps, so the scans do not stop at bit 0
+            longs[i] = r.nextLong() & r.nextLong() & r.nextLong();
+            ints[i] = (int) longs[i];
+        }
+    }
+
+    @Benchmark
+    public int getFirstBitPosLong() {
+        return BitUtils.getFirstBitPos(longs[index++ & MASK]);
+    }
+
+    @Benchmark
+    public int getLastBitPosLong() {
+        return BitUtils.getLastBitPos(longs[index++ & MASK]);
+    }
+
+    @Benchmark
+    public int getFirstBitPosInt() {
+        return BitUtils.getFirstBitPos(ints[index++ & MASK]);
+    }
+
+    @Benchmark
+    public int getLastBitPosInt() {
+        return BitUtils.getLastBitPos(ints[index++ & MASK]);
+    }
+
+    @Benchmark
+    public int getNumBitsSetLong() {
+        return BitUtils.getNumBitsSet(longs[index++ & MASK]);
+    }
+}
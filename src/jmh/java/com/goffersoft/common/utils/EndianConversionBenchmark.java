@@ -0,0 +1,87 @@
+/**
+ ** File: EndianConversionBenchmark.java
+ **
+ ** Description : Benchmarks for EndianConversion
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ */
+package com.goffersoft.common.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EndianConversionBenchmark {
+    private static final Logger log = Logger
+            .getLogger(EndianConversionBenchmark.class);
+
+    private final byte[] data = new byte[8];
+    private ByteArrayInputStream is;
+    private int intValue = 0x11020304;
+    private long longValue = 0x1102030405060708L;
+
+    @Setup
+    public void setUp() {
+        EndianConversion.longToByteArrayBE(data, longValue);
+        is = new ByteArrayInputStream(data);
+    }
+
+    @Benchmark
+    public byte[] intToByteArrayBE() {
+        return EndianConversion.intToByteArrayBE(data, intValue++);
+    }
+
+    @Benchmark
+    public byte[] intToByteArrayLE() {
+        return EndianConversion.intToByteArrayLE(data, intValue++);
+    }
+
+    @Benchmark
+    public byte[] longToByteArrayBE() {
+        return EndianConversion.longToByteArrayBE(data, longValue++);
+    }
+
+    @Benchmark
+    public byte[] longToByteArrayLE() {
+        return EndianConversion.longToByteArrayLE(data, longValue++);
+    }
+
+    @Benchmark
+    public int byteArrayToIntBE() {
+        return EndianConversion.byteArrayToIntBE(data, 0);
+    }
+
+    @Benchmark
+    public int byteArrayToIntLE() {
+        return EndianConversion.byteArrayToIntLE(data, 0);
+    }
+
+    @Benchmark
+    public long byteArrayToLongBE() {
+        return EndianConversion.byteArrayToLongBE(data, 0);
+    }
+
+    @Benchmark
+    public long byteArrayToLongLE() {
+        return EndianConversion.byteArrayToLongLE(data, 0);
+    }
+
+    @Benchmark
+    public int inputStreamToIntBE() throws IOException {
+        is.reset();
+        return EndianConversion.inputStreamToIntBE(is);
+    }
+}
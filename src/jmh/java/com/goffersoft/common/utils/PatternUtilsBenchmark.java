@@ -0,0 +1,92 @@
+/**
+ ** File: PatternUtilsBenchmark.java
+ **
+ ** Description : Benchmarks for PatternUtils and MultiPatternMatcher
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ */
+package com.goffersoft.common.utils;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PatternUtilsBenchmark {
+    private static final Logger log = Logger
+            .getLogger(PatternUtilsBenchmark.class);
+
+    @Param({ "64", "1500" })
+    public int dataLength;
+
+    private byte[] data;
+    private byte[] prefix;
+    private byte[] suffix;
+    private byte[] middle;
+    private byte[] absent;
+    private MultiPatternMatcher matcher;
+
+    @Setup
+    public void setUp() {
+        Random r = new Random(1);
+
+        data = new byte[dataLength];
+        r.nextBytes(data);
+        prefix = slice(0, 8);
+        suffix = slice(dataLength - 8, 8);
+        middle = slice(dataLength / 2, 8);
+        absent = new byte[8];
+
+        matcher = new MultiPatternMatcher();
+        matcher.addContains(absent, 0);
+        matcher.addContains(middle, 1);
+        matcher.addStartsWith(prefix, 2);
+        matcher.addEndsWith(suffix, 3);
+        matcher.compile();
+    }
+
+    private byte[] slice(int offset, int length) {
+        byte[] b = new byte[length];
+
+        System.arraycopy(data, offset, b, 0, length);
+        return b;
+    }
+
+    @Benchmark
+    public int containsHit() {
+        return PatternUtils.contains(data, 0, data.length, middle);
+    }
+
+    @Benchmark
+    public int containsMiss() {
+        return PatternUtils.contains(data, 0, data.length, absent);
+    }
+
+    @Benchmark
+    public int startsWith() {
+        return PatternUtils.startsWith(data, 0, data.length, prefix);
+    }
+
+    @Benchmark
+    public int endsWith() {
+        return PatternUtils.endsWith(data, 0, data.length, suffix);
+    }
+
+    /** all four patterns in one pass (the miss forces a full scan) */
+    @Benchmark
+    public int multiPatternMatch() {
+        return matcher.match(data, 0, data.length);
+    }
+}
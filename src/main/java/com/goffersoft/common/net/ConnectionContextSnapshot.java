@@ -0,0 +1,204 @@
+/**
+ ** File: ConnectionContextSnapshot.java
+ **
+ ** Description : ConnectionContextSnapshot class - an immutable copy of the
+ **               settings of a connection context, shared by the
+ **               connections created from it
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.log4j.Logger;
+
+import com.goffersoft.common.net.GenericConnectionMap.ListenerInfo;
+import com.goffersoft.common.net.GenericConnectionMap.Registry;
+import com.goffersoft.common.utils.BufferPool;
+
+/**
+ * Holds the listeners of the context already compiled, so that a new
+ * connection adopts them by reference instead of registering and compiling
+ * them one at a time; a connection copies the listeners only if its own are
+ * changed later. A snapshot never changes; GenericConnectionContext
+ * replaces it when the context is found to differ from it
+ */
+//@formatter:off
+public final class ConnectionContextSnapshot<
+                                ListenerType
+                                    extends
+                                    GenericConnectionListener> {
+//@formatter:on
+    private static final Logger log = Logger
+            .getLogger(ConnectionContextSnapshot.class);
+
+    private final int socketTimeout;
+    private final long inactivityTimeout;
+    private final boolean autoStart;
+    private final ListenerType defaultListener;
+    private final ThreadFactory threadFactory;
+    private final int rxBufferSize;
+    private final int minRxPktLength;
+    private final int maxRxPktLength;
+    private final BufferPool rxBufferPool;
+    private final TrafficRecorder trafficRecorder;
+
+    /** the list the listeners were compiled from and its contents then */
+    private final List<ListenerInfo<ListenerType>> source;
+    private final Object[] sourceEntries;
+
+    private final Registry<ListenerType> listeners;
+
+    /**
+     * Copies the settings of the context, compiling its listeners unless
+     * they are unchanged since the previous snapshot (null ==> none)
+     */
+    ConnectionContextSnapshot(
+            GenericConnectionContext<ListenerType> context,
+            ConnectionContextSnapshot<ListenerType> previous) {
+        socketTimeout = context.getSocketTimeout();
+        inactivityTimeout = context.getInactivityTimeout();
+        autoStart = context.isAutoStart();
+        defaultListener = context.getDefaultListener();
+        threadFactory = context.getThreadFactory();
+        rxBufferSize = context.getRxBufferSize();
+        minRxPktLength = context.getMinRxPktLength();
+        maxRxPktLength = context.getMaxRxPktLength();
+        rxBufferPool = context.getRxBufferPool();
+        trafficRecorder = context.getTrafficRecorder();
+        source = context.getListOfListeners();
+        sourceEntries = getEntries(source);
+        if (previous != null
+                && previous.isListenerListCurrent(source) == true) {
+            listeners = previous.listeners;
+        } else {
+            listeners = GenericConnectionMap.compile(source);
+        }
+    }
+
+    /** listener, pattern and type of each entry, in order */
+    private static Object[] getEntries(List<? extends ListenerInfo<?>> list) {
+        if (list == null) {
+            return null;
+        }
+
+        Object[] entries = new Object[list.size() * 3];
+        int i = 0;
+        for (ListenerInfo<?> info : list) {
+            entries[i++] = info.getListener();
+            entries[i++] = info.getPattern();
+            entries[i++] = info.getType();
+        }
+        return entries;
+    }
+
+    /**
+     * Checks whether the context still has the settings of the snapshot;
+     * the patterns are compared by reference, their contents must not be
+     * modified once added to the context
+     */
+    boolean isCurrent(GenericConnectionContext<ListenerType> context) {
+        return (socketTimeout == context.getSocketTimeout()
+                && inactivityTimeout == context.getInactivityTimeout()
+                && autoStart == context.isAutoStart()
+                && defaultListener == context.getDefaultListener()
+                && threadFactory == context.getThreadFactory()
+                && rxBufferSize == context.getRxBufferSize()
+                && minRxPktLength == context.getMinRxPktLength()
+                && maxRxPktLength == context.getMaxRxPktLength()
+                && rxBufferPool == context.getRxBufferPool()
+                && trafficRecorder == context.getTrafficRecorder()
+                && isListenerListCurrent(context.getListOfListeners()));
+    }
+
+    private boolean isListenerListCurrent(
+            List<ListenerInfo<ListenerType>> list) {
+        if (list != source) {
+            return false;
+        }
+        if (list == null) {
+            return true;
+        }
+        if (list.size() * 3 != sourceEntries.length) {
+            return false;
+        }
+
+        int i = 0;
+        for (ListenerInfo<ListenerType> info : list) {
+            if (sourceEntries[i++] != info.getListener()
+                    || sourceEntries[i++] != info.getPattern()
+                    || sourceEntries[i++] != info.getType()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    public long getInactivityTimeout() {
+        return inactivityTimeout;
+    }
+
+    public boolean isAutoStart() {
+        return autoStart;
+    }
+
+    public ListenerType getDefaultListener() {
+        return defaultListener;
+    }
+
+    public ThreadFactory getThreadFactory() {
+        return threadFactory;
+    }
+
+    public int getRxBufferSize() {
+        return rxBufferSize;
+    }
+
+    public int getMinRxPktLength() {
+        return minRxPktLength;
+    }
+
+    public int getMaxRxPktLength() {
+        return maxRxPktLength;
+    }
+
+    public BufferPool getRxBufferPool() {
+        return rxBufferPool;
+    }
+
+    public TrafficRecorder getTrafficRecorder() {
+        return trafficRecorder;
+    }
+
+    /** Gets the number of compiled listeners */
+    public int getListenerCount() {
+        return listeners.size();
+    }
+
+    /**
+     * Gives the connection the listeners and the settings that are not
+     * constructor arguments
+     */
+    void apply(GenericConnection<?, ListenerType> conn) {
+        conn.adoptListeners(listeners);
+        conn.setReceiveBufferPool(rxBufferPool);
+        conn.setThreadFactory(threadFactory);
+        conn.setTrafficRecorder(trafficRecorder);
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return ("ConnectionContextSnapshot: SocketTimeout=" + socketTimeout
+                + ", InactivityTimeout=" + inactivityTimeout + ", AutoStart="
+                + autoStart + ", RxBufferSize=" + rxBufferSize
+                + ", Listeners=" + getListenerCount());
+    }
+}
@@ -0,0 +1,529 @@
+/**
+ ** File: ConnectionMetrics.java
+ **
+ ** Description : ConnectionMetrics class - traffic, error and listener
+ **               dispatch counters of a connection (or of all connections
+ **               of a server)
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.log4j.Logger;
+
+import com.goffersoft.common.utils.LatencyHistogram;
+
+/**
+ * Counters are striped so that the I/O thread and any number of sending
+ * threads can update them without contending; reading them sums the
+ * stripes. Bytes are counted as read from or handed to the socket, packets
+ * as frames (or datagrams) passed to the listeners and as send() calls
+ */
+public class ConnectionMetrics {
+    private static final Logger log = Logger.getLogger(ConnectionMetrics.class);
+
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder packetsReceived = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder packetsSent = new LongAdder();
+    private final LongAdder smallPacketErrors = new LongAdder();
+    private final LongAdder largePacketErrors = new LongAdder();
+    private final LongAdder droppedDispatches = new LongAdder();
+    private final LongAdder reconnectAttempts = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+
+    /** time from losing the connection to setting it up again, in ms */
+    private final LongAdder outageTime = new LongAdder();
+
+    /** time spent in the listeners per dispatch, in nanoseconds */
+    private final LatencyHistogram dispatchLatency = new LatencyHistogram();
+
+    public ConnectionMetrics() {
+    }
+
+    /** Records bytes read from the socket */
+    public void recordBytesReceived(int length) {
+        bytesReceived.add(length);
+    }
+
+    /** Records a frame or datagram passed to the listeners */
+    public void recordPacketReceived() {
+        packetsReceived.increment();
+    }
+
+    /** Records a send of length bytes */
+    public void recordSent(int length) {
+        packetsSent.increment();
+        bytesSent.add(length);
+    }
+
+    /** Records bytes sent without a send() call, e.g. from a file */
+    public void recordBytesSent(long length) {
+        bytesSent.add(length);
+    }
+
+    /** Records a packet shorter than the minimum receive packet length */
+    public void recordSmallPacketError() {
+        smallPacketErrors.increment();
+    }
+
+    /** Records a packet longer than the maximum receive packet length */
+    public void recordLargePacketError() {
+        largePacketErrors.increment();
+    }
+
+    /** Records a frame discarded because a dispatch queue was full */
+    public void recordDroppedDispatch() {
+        droppedDispatches.increment();
+    }
+
+    /** Records a dispatch to the listeners started at startNanos */
+    public void recordDispatch(long startNanos) {
+        dispatchLatency.record(System.nanoTime() - startNanos);
+    }
+
+    /** Records an attempt to set up a lost connection again */
+    public void recordReconnectAttempt() {
+        reconnectAttempts.increment();
+    }
+
+    /** Records a lost connection set up again after outage milliseconds */
+    public void recordReconnect(long outage) {
+        reconnects.increment();
+        outageTime.add(outage);
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    public long getPacketsReceived() {
+        return packetsReceived.sum();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    public long getPacketsSent() {
+        return packetsSent.sum();
+    }
+
+    public long getSmallPacketErrors() {
+        return smallPacketErrors.sum();
+    }
+
+    public long getLargePacketErrors() {
+        return largePacketErrors.sum();
+    }
+
+    public long getDroppedDispatches() {
+        return droppedDispatches.sum();
+    }
+
+    public long getReconnectAttempts() {
+        return reconnectAttempts.sum();
+    }
+
+    public long getReconnects() {
+        return reconnects.sum();
+    }
+
+    /** Gets the total time the connection was down, in milliseconds */
+    public long getOutageTime() {
+        return outageTime.sum();
+    }
+
+    /** Gets the listener dispatch latency histogram (in nanoseconds) */
+    public LatencyHistogram getDispatchLatency() {
+        return dispatchLatency;
+    }
+
+    /** Adds the counts of other to these, e.g. to sum up connections */
+    public void add(ConnectionMetrics other) {
+        bytesReceived.add(other.getBytesReceived());
+        packetsReceived.add(other.getPacketsReceived());
+        bytesSent.add(other.getBytesSent());
+        packetsSent.add(other.getPacketsSent());
+        smallPacketErrors.add(other.getSmallPacketErrors());
+        largePacketErrors.add(other.getLargePacketErrors());
+        droppedDispatches.add(other.getDroppedDispatches());
+        reconnectAttempts.add(other.getReconnectAttempts());
+        reconnects.add(other.getReconnects());
+        outageTime.add(other.getOutageTime());
+        dispatchLatency.add(other.dispatchLatency);
+    }
+
+    /**
+     * Gets the current values; connections is the number of connections
+     * counted and sendQueueBytes the bytes waiting to be written
+     */
+    public Snapshot getSnapshot(int connections, long sendQueueBytes) {
+        return getSnapshot(connections, sendQueueBytes, 0);
+    }
+
+    /**
+     * Gets the current values; dispatchQueueLength is the number of frames
+     * waiting for the listeners
+     */
+    public Snapshot getSnapshot(
+            int connections,
+            long sendQueueBytes,
+            long dispatchQueueLength) {
+        return new Snapshot(this,
+                connections,
+                sendQueueBytes,
+                dispatchQueueLength);
+    }
+
+    /** Clears all counts; counts recorded concurrently may be lost */
+    public void reset() {
+        bytesReceived.reset();
+        packetsReceived.reset();
+        bytesSent.reset();
+        packetsSent.reset();
+        smallPacketErrors.reset();
+        largePacketErrors.reset();
+        droppedDispatches.reset();
+        reconnectAttempts.reset();
+        reconnects.reset();
+        outageTime.reset();
+        dispatchLatency.reset();
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return ("ConnectionMetrics: BytesReceived=" + getBytesReceived()
+                + ", PacketsReceived=" + getPacketsReceived()
+                + ", BytesSent=" + getBytesSent() + ", PacketsSent="
+                + getPacketsSent() + ", SmallPacketErrors="
+                + getSmallPacketErrors() + ", LargePacketErrors="
+                + getLargePacketErrors() + ", DroppedDispatches="
+                + getDroppedDispatches() + ", ReconnectAttempts="
+                + getReconnectAttempts() + ", Reconnects=" + getReconnects()
+                + ", OutageTime(ms)=" + getOutageTime()
+                + ", DispatchLatency(ns)="
+                + dispatchLatency);
+    }
+
+    /**
+     * The JMX view of a connection; the attributes are read from a snapshot
+     * taken at most once per SNAPSHOT_MAX_AGE so that reading all of them
+     * sums up a server's connections once
+     */
+    static final class MXBeanView
+            implements
+            ConnectionMetricsMXBean {
+        /** milliseconds a snapshot is reused for */
+        private static final long SNAPSHOT_MAX_AGE = 1000;
+
+        private final GenericConnection<?, ?> connection;
+
+        private Snapshot snapshot;
+
+        MXBeanView(GenericConnection<?, ?> connection) {
+            this.connection = connection;
+        }
+
+        private synchronized Snapshot snapshot() {
+            if (snapshot == null
+                    || System.currentTimeMillis() - snapshot.getTimestamp()
+                            >= SNAPSHOT_MAX_AGE) {
+                snapshot = connection.getMetricsSnapshot();
+            }
+            return snapshot;
+        }
+
+        @Override
+        public long getTimestamp() {
+            return snapshot().getTimestamp();
+        }
+
+        @Override
+        public int getConnections() {
+            return snapshot().getConnections();
+        }
+
+        @Override
+        public long getBytesReceived() {
+            return snapshot().getBytesReceived();
+        }
+
+        @Override
+        public long getPacketsReceived() {
+            return snapshot().getPacketsReceived();
+        }
+
+        @Override
+        public long getBytesSent() {
+            return snapshot().getBytesSent();
+        }
+
+        @Override
+        public long getPacketsSent() {
+            return snapshot().getPacketsSent();
+        }
+
+        @Override
+        public long getSmallPacketErrors() {
+            return snapshot().getSmallPacketErrors();
+        }
+
+        @Override
+        public long getLargePacketErrors() {
+            return snapshot().getLargePacketErrors();
+        }
+
+        @Override
+        public long getSendQueueBytes() {
+            return snapshot().getSendQueueBytes();
+        }
+
+        @Override
+        public long getDispatchQueueLength() {
+            return snapshot().getDispatchQueueLength();
+        }
+
+        @Override
+        public long getDroppedDispatches() {
+            return snapshot().getDroppedDispatches();
+        }
+
+        @Override
+        public long getReconnectAttempts() {
+            return snapshot().getReconnectAttempts();
+        }
+
+        @Override
+        public long getReconnects() {
+            return snapshot().getReconnects();
+        }
+
+        @Override
+        public long getOutageMillis() {
+            return snapshot().getOutageMillis();
+        }
+
+        @Override
+        public long getDispatchCount() {
+            return snapshot().getDispatchCount();
+        }
+
+        @Override
+        public double getDispatchMeanNanos() {
+            return snapshot().getDispatchMeanNanos();
+        }
+
+        @Override
+        public long getDispatchP50Nanos() {
+            return snapshot().getDispatchP50Nanos();
+        }
+
+        @Override
+        public long getDispatchP99Nanos() {
+            return snapshot().getDispatchP99Nanos();
+        }
+
+        @Override
+        public long getDispatchP999Nanos() {
+            return snapshot().getDispatchP999Nanos();
+        }
+
+        @Override
+        public long getDispatchMaxNanos() {
+            return snapshot().getDispatchMaxNanos();
+        }
+    }
+
+    /** The values of a ConnectionMetrics at one point in time */
+    public static final class Snapshot
+            implements
+            ConnectionMetricsMXBean {
+        private final long timestamp;
+        private final int connections;
+        private final long bytesReceived;
+        private final long packetsReceived;
+        private final long bytesSent;
+        private final long packetsSent;
+        private final long smallPacketErrors;
+        private final long largePacketErrors;
+        private final long sendQueueBytes;
+        private final long dispatchQueueLength;
+        private final long droppedDispatches;
+        private final long reconnectAttempts;
+        private final long reconnects;
+        private final long outageMillis;
+        private final long dispatchCount;
+        private final double dispatchMean;
+        private final long dispatchP50;
+        private final long dispatchP99;
+        private final long dispatchP999;
+        private final long dispatchMax;
+
+        private Snapshot(
+                ConnectionMetrics m,
+                int connections,
+                long sendQueueBytes,
+                long dispatchQueueLength) {
+            LatencyHistogram h = m.dispatchLatency;
+
+            this.timestamp = System.currentTimeMillis();
+            this.connections = connections;
+            this.bytesReceived = m.getBytesReceived();
+            this.packetsReceived = m.getPacketsReceived();
+            this.bytesSent = m.getBytesSent();
+            this.packetsSent = m.getPacketsSent();
+            this.smallPacketErrors = m.getSmallPacketErrors();
+            this.largePacketErrors = m.getLargePacketErrors();
+            this.sendQueueBytes = sendQueueBytes;
+            this.dispatchQueueLength = dispatchQueueLength;
+            this.droppedDispatches = m.getDroppedDispatches();
+            this.reconnectAttempts = m.getReconnectAttempts();
+            this.reconnects = m.getReconnects();
+            this.outageMillis = m.getOutageTime();
+            this.dispatchCount = h.getCount();
+            this.dispatchMean = h.getMean();
+            this.dispatchP50 = h.getValueAtPercentile(50);
+            this.dispatchP99 = h.getValueAtPercentile(99);
+            this.dispatchP999 = h.getValueAtPercentile(99.9);
+            this.dispatchMax = h.getMax();
+        }
+
+        /** Gets the time the snapshot was taken, in milliseconds */
+        @Override
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public int getConnections() {
+            return connections;
+        }
+
+        @Override
+        public long getBytesReceived() {
+            return bytesReceived;
+        }
+
+        @Override
+        public long getPacketsReceived() {
+            return packetsReceived;
+        }
+
+        @Override
+        public long getBytesSent() {
+            return bytesSent;
+        }
+
+        @Override
+        public long getPacketsSent() {
+            return packetsSent;
+        }
+
+        @Override
+        public long getSmallPacketErrors() {
+            return smallPacketErrors;
+        }
+
+        @Override
+        public long getLargePacketErrors() {
+            return largePacketErrors;
+        }
+
+        @Override
+        public long getSendQueueBytes() {
+            return sendQueueBytes;
+        }
+
+        @Override
+        public long getDispatchQueueLength() {
+            return dispatchQueueLength;
+        }
+
+        @Override
+        public long getDroppedDispatches() {
+            return droppedDispatches;
+        }
+
+        @Override
+        public long getReconnectAttempts() {
+            return reconnectAttempts;
+        }
+
+        @Override
+        public long getReconnects() {
+            return reconnects;
+        }
+
+        @Override
+        public long getOutageMillis() {
+            return outageMillis;
+        }
+
+        @Override
+        public long getDispatchCount() {
+            return dispatchCount;
+        }
+
+        @Override
+        public double getDispatchMeanNanos() {
+            return dispatchMean;
+        }
+
+        @Override
+        public long getDispatchP50Nanos() {
+            return dispatchP50;
+        }
+
+        @Override
+        public long getDispatchP99Nanos() {
+            return dispatchP99;
+        }
+
+        @Override
+        public long getDispatchP999Nanos() {
+            return dispatchP999;
+        }
+
+        @Override
+        public long getDispatchMaxNanos() {
+            return dispatchMax;
+        }
+
+        /** Gets a String representation of the Object */
+        @Override
+        public String toString() {
+            return String.format(
+                    "Snapshot: Connections=%d, BytesReceived=%d, "
+                            + "PacketsReceived=%d, BytesSent=%d, "
+                            + "PacketsSent=%d, SmallPacketErrors=%d, "
+                            + "LargePacketErrors=%d, SendQueueBytes=%d, "
+                            + "DispatchQueueLength=%d, "
+                            + "DroppedDispatches=%d, ReconnectAttempts=%d, "
+                            + "Reconnects=%d, OutageMillis=%d, "
+                            + "Dispatches=%d, DispatchMean(ns)=%.1f, "
+                            + "DispatchP99(ns)=%d, DispatchMax(ns)=%d",
+                    connections,
+                    bytesReceived,
+                    packetsReceived,
+                    bytesSent,
+                    packetsSent,
+                    smallPacketErrors,
+                    largePacketErrors,
+                    sendQueueBytes,
+                    dispatchQueueLength,
+                    droppedDispatches,
+                    reconnectAttempts,
+                    reconnects,
+                    outageMillis,
+                    dispatchCount,
+                    dispatchMean,
+                    dispatchP99,
+                    dispatchMax);
+        }
+    }
+}
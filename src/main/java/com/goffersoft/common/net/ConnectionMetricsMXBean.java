@@ -0,0 +1,57 @@
+/**
+ ** File: ConnectionMetricsMXBean.java
+ **
+ ** Description : ConnectionMetricsMXBean interface - the JMX view of the
+ **               metrics of a connection or server
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+/**
+ * Registered with GenericConnection.registerMetricsMBean(); latencies are
+ * the time spent in the listeners per dispatch, outages the time lost
+ * connections were down
+ */
+public interface ConnectionMetricsMXBean {
+    long getTimestamp();
+
+    int getConnections();
+
+    long getBytesReceived();
+
+    long getPacketsReceived();
+
+    long getBytesSent();
+
+    long getPacketsSent();
+
+    long getSmallPacketErrors();
+
+    long getLargePacketErrors();
+
+    long getSendQueueBytes();
+
+    long getDispatchQueueLength();
+
+    long getDroppedDispatches();
+
+    long getReconnectAttempts();
+
+    long getReconnects();
+
+    long getOutageMillis();
+
+    long getDispatchCount();
+
+    double getDispatchMeanNanos();
+
+    long getDispatchP50Nanos();
+
+    long getDispatchP99Nanos();
+
+    long getDispatchP999Nanos();
+
+    long getDispatchMaxNanos();
+}
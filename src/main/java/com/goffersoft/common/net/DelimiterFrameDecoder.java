@@ -0,0 +1,100 @@
+/**
+ ** File: DelimiterFrameDecoder.java
+ **
+ ** Description : DelimiterFrameDecoder class - frames a tcp byte stream on a
+ **               delimiter byte sequence (e.g. CRLF)
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.io.IOException;
+
+import org.apache.log4j.Logger;
+
+public class DelimiterFrameDecoder
+        implements
+        FrameDecoder {
+    private static final Logger log = Logger
+            .getLogger(DelimiterFrameDecoder.class);
+
+    private final byte[] delimiter;
+    private final int maxFrameLength;
+    private final boolean stripDelimiter;
+
+    /**
+     * Frames end with the delimiter, which is passed on to the listeners
+     * unless stripDelimiter is set. maxFrameLength includes the delimiter
+     */
+    public DelimiterFrameDecoder(
+            byte[] delimiter,
+            int maxFrameLength,
+            boolean stripDelimiter) {
+        if (delimiter == null || delimiter.length == 0
+                || maxFrameLength < delimiter.length) {
+            throw new IllegalArgumentException("invalid delimiter framing");
+        }
+        this.delimiter = delimiter.clone();
+        this.maxFrameLength = maxFrameLength;
+        this.stripDelimiter = stripDelimiter;
+    }
+
+    public DelimiterFrameDecoder(
+            String delimiter,
+            int maxFrameLength,
+            boolean stripDelimiter) {
+        this(delimiter.getBytes(), maxFrameLength, stripDelimiter);
+    }
+
+    public byte[] getDelimiter() {
+        return delimiter.clone();
+    }
+
+    public int getMaxFrameLength() {
+        return maxFrameLength;
+    }
+
+    public boolean isStripDelimiter() {
+        return stripDelimiter;
+    }
+
+    @Override
+    public int decode(byte[] data, int offset, int length) throws IOException {
+        int limit = offset + Math.min(length, maxFrameLength)
+                - delimiter.length;
+        byte first = delimiter[0];
+
+        for (int i = offset; i <= limit; i++) {
+            if (data[i] != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < delimiter.length && data[i + j] == delimiter[j]) {
+                j++;
+            }
+            if (j == delimiter.length) {
+                return i - offset + delimiter.length;
+            }
+        }
+
+        if (length >= maxFrameLength) {
+            throw new IOException("no delimiter found within "
+                    + maxFrameLength + " bytes");
+        }
+        return 0;
+    }
+
+    @Override
+    public int getTrailerLength() {
+        return (stripDelimiter == true) ? delimiter.length : 0;
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return ("DelimiterFrameDecoder: DelimiterLength=" + delimiter.length
+                + ", MaxFrameLength=" + getMaxFrameLength()
+                + ", StripDelimiter=" + isStripDelimiter());
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ ** File: FixedLengthFrameDecoder.java
+ **
+ ** Description : FixedLengthFrameDecoder class - frames a tcp byte stream
+ **               into frames of the same size
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import org.apache.log4j.Logger;
+
+public class FixedLengthFrameDecoder
+        implements
+        FrameDecoder {
+    private static final Logger log = Logger
+            .getLogger(FixedLengthFrameDecoder.class);
+
+    private final int frameLength;
+
+    public FixedLengthFrameDecoder(int frameLength) {
+        if (frameLength <= 0) {
+            throw new IllegalArgumentException("invalid frame length : "
+                    + frameLength);
+        }
+        this.frameLength = frameLength;
+    }
+
+    public int getFrameLength() {
+        return frameLength;
+    }
+
+    @Override
+    public int decode(byte[] data, int offset, int length) {
+        return (length >= frameLength) ? frameLength : 0;
+    }
+
+    @Override
+    public int getTrailerLength() {
+        return 0;
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return ("FixedLengthFrameDecoder: FrameLength=" + getFrameLength());
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ ** File: FrameDecoder.java
+ **
+ ** Description : FrameDecoder interface - splits a tcp byte stream into
+ **               frames (messages) before they are passed to the listeners
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.io.IOException;
+
+/**
+ * Implementations must be stateless, a single decoder is shared by all
+ * connections created from the same context.
+ */
+public interface FrameDecoder {
+    /**
+     * Gets the number of bytes taken up by the frame starting at
+     * data[offset], including any trailer; 0 if the length bytes available
+     * do not hold a complete frame yet. An IOException closes the connection
+     */
+    public int decode(byte[] data, int offset, int length) throws IOException;
+
+    /**
+     * Gets the number of bytes at the end of every frame (e.g. a delimiter)
+     * that are consumed but not passed on to the listeners
+     */
+    public int getTrailerLength();
+}
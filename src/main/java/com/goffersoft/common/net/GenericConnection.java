@@ -9,10 +9,19 @@
 package com.goffersoft.common.net;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.SocketTimeoutException;
 import java.util.Iterator;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 import org.apache.log4j.Logger;
 
+import com.goffersoft.common.utils.BufferPool;
+import com.goffersoft.common.utils.PooledBuffer;
 import com.goffersoft.common.utils.PrintUtils;
 
 /**
@@ -45,10 +54,10 @@ abstract public class GenericConnection<
     public static final long DEFAULT_INACTIVITY_TIMEOUT_VALUE = 0;
 
     /**
-     * Default value for the maximum time that the receiver can remain active
-     * after been halted (in milliseconds)
+     * Default socket timeout in milliseconds. 0 ==> reads block until data
+     * arrives or the socket is closed by stop() or the inactivity timer
      */
-    public static final int DEFAULT_SOCKET_TIMEOUT = 2000; // 2sec
+    public static final int DEFAULT_SOCKET_TIMEOUT = 0;
 
     /** Default value for the minimum receive packet length in bytes */
     public static final int DEFAULT_MINIMUM_RX_PACKET_LENGTH = 0;
@@ -56,10 +65,7 @@ abstract public class GenericConnection<
     /** Default value for the maximum receive packet length in bytes */
     public static final int DEFAULT_MAXIMUM_RX_PACKET_LENGTH = 65535;
 
-    /**
-     * Maximum time that the receiver can remain active after been halted (in
-     * milliseconds)
-     */
+    /** socket timeout applied once when the service thread starts */
     volatile private int socket_timeout = DEFAULT_SOCKET_TIMEOUT;
 
     /** the buffer size of incoming packets */
@@ -89,6 +95,33 @@ abstract public class GenericConnection<
      */
     volatile private int maximum_rx_length = DEFAULT_MAXIMUM_RX_PACKET_LENGTH;
 
+    /** pool receive buffers are leased from, null ==> allocate per read */
+    volatile private BufferPool receiveBufferPool;
+
+    /** pooled buffer holding the data currently being dispatched */
+    volatile private PooledBuffer currentReceiveBuffer;
+
+    /** factory the connection thread is created from, null ==> new Thread */
+    volatile private ThreadFactory threadFactory;
+
+    /** timer the inactivity timeout is scheduled on */
+    volatile private HashedWheelTimer inactivityTimer;
+
+    /** pending inactivity timeout, null ==> none */
+    volatile private HashedWheelTimer.Timeout inactivityTimeout;
+
+    /** Whether the inactivity timeout has fired */
+    volatile private boolean inactivityExpired;
+
+    /** captures the received data, null ==> no capture */
+    volatile private TrafficRecorder trafficRecorder;
+
+    /** traffic and dispatch counters */
+    private final ConnectionMetrics metrics = new ConnectionMetrics();
+
+    /** name the metrics are registered under with JMX, null ==> none */
+    volatile private ObjectName metricsObjectName;
+
     /** connection thread */
     volatile protected Thread connectionThread;
 
@@ -117,6 +150,74 @@ abstract public class GenericConnection<
         bufferSize = bufSize;
     }
 
+    /** Gets the pool receive buffers are leased from (null ==> not pooled) */
+    public BufferPool getReceiveBufferPool() {
+        return receiveBufferPool;
+    }
+
+    /**
+     * Sets the pool receive buffers are leased from; null allocates a new
+     * buffer for every read. Must be set before the connection is started
+     */
+    public void setReceiveBufferPool(BufferPool pool) {
+        receiveBufferPool = pool;
+    }
+
+    /**
+     * Gets the pooled buffer holding the data passed to the listener callback
+     * currently in progress (null if the data is not held in a pooled
+     * buffer). The data is
+     * only valid until the callback returns; a listener that needs it longer
+     * must retain() the buffer here and release() it when done
+     */
+    public PooledBuffer getCurrentReceiveBuffer() {
+        return currentReceiveBuffer;
+    }
+
+    /**
+     * Sets the pooled buffer reported by getCurrentReceiveBuffer(), e.g. null
+     * while dispatching data that was copied out of it
+     */
+    protected void setCurrentReceiveBuffer(PooledBuffer buf) {
+        currentReceiveBuffer = buf;
+    }
+
+    /**
+     * Gets a buffer for the next read, at least getReceiveBufferSize() bytes
+     * long. Every call must be followed by releaseReceiveBuffer()
+     */
+    protected byte[] acquireReceiveBuffer() {
+        if (receiveBufferPool == null) {
+            return new byte[getReceiveBufferSize()];
+        }
+        currentReceiveBuffer = receiveBufferPool.lease(getReceiveBufferSize());
+        return currentReceiveBuffer.array();
+    }
+
+    /** Drops the reference taken by acquireReceiveBuffer() */
+    protected void releaseReceiveBuffer() {
+        PooledBuffer buf = currentReceiveBuffer;
+
+        if (buf != null) {
+            currentReceiveBuffer = null;
+            buf.release();
+        }
+    }
+
+    /** Gets the factory the service thread is created from */
+    public ThreadFactory getThreadFactory() {
+        return threadFactory;
+    }
+
+    /**
+     * Sets the factory the service thread is created from, e.g. a
+     * VirtualThreadFactory; null ==> a new platform thread. Takes effect the
+     * next time the service is started
+     */
+    public void setThreadFactory(ThreadFactory factory) {
+        threadFactory = factory;
+    }
+
     /** Gets the socket timeout in milliseconds */
     public int getSoTimeout() {
         return socket_timeout;
@@ -143,6 +244,91 @@ abstract public class GenericConnection<
         inactivity_time = itimeinms;
     }
 
+    /** Gets the timer inactivity timeouts are scheduled on */
+    public HashedWheelTimer getInactivityTimer() {
+        HashedWheelTimer timer = inactivityTimer;
+
+        return (timer == null) ? HashedWheelTimer.getDefault() : timer;
+    }
+
+    /**
+     * Sets the timer inactivity timeouts are scheduled on; null ==> the
+     * shared default timer. Takes effect the next time the service is started
+     */
+    public void setInactivityTimer(HashedWheelTimer timer) {
+        inactivityTimer = timer;
+    }
+
+    /**
+     * Schedules the inactivity timeout (if enabled); called by the service
+     * thread before it starts reading
+     */
+    protected void startInactivityTimer() {
+        HashedWheelTimer.Timeout t;
+
+        inactivityExpired = false;
+        cancelInactivityTimer();
+        if (getInactivityTime() > 0) {
+            t = getInactivityTimer().newTimeout(new Runnable() {
+                @Override
+                public void run() {
+                    onInactivityTimeout();
+                }
+            }, getInactivityTime());
+            inactivityTimeout = t;
+        }
+    }
+
+    /** Pushes the inactivity deadline back after activity, O(1) */
+    protected void refreshInactivityTimer() {
+        HashedWheelTimer.Timeout t = inactivityTimeout;
+
+        if (t != null) {
+            t.refresh(getInactivityTime());
+        }
+    }
+
+    /** Cancels the inactivity timeout */
+    protected void cancelInactivityTimer() {
+        HashedWheelTimer.Timeout t = inactivityTimeout;
+
+        if (t != null) {
+            inactivityTimeout = null;
+            t.cancel();
+        }
+    }
+
+    /** Whether the service is ending because the inactivity timeout fired */
+    protected boolean isInactivityExpired() {
+        return inactivityExpired;
+    }
+
+    /**
+     * Gets the error reported when the service ends: an inactivity timeout
+     * if the timer fired, null if it was stopped, else the error itself
+     */
+    protected Exception getTerminationError(Exception error) {
+        if (inactivityExpired == true) {
+            return new SocketTimeoutException("Inactivity Timeout");
+        }
+        return (isStarted() == true) ? error : null;
+    }
+
+    /**
+     * Called on the timer thread when nothing was received for
+     * getInactivityTime() milliseconds; closes the socket, which ends the
+     * blocked service thread
+     */
+    protected void onInactivityTimeout() {
+        inactivityExpired = true;
+        inactivityTimeout = null;
+        try {
+            socketClose();
+        } catch (IOException e) {
+            log.warn("unable to close socket on inactivity", e);
+        }
+    }
+
     /** Whether the service is running */
     public boolean isRunning() {
         return isRunning;
@@ -185,14 +371,106 @@ abstract public class GenericConnection<
         return maximum_rx_length;
     }
 
+    /** Gets the recorder capturing the received data (null ==> none) */
+    public TrafficRecorder getTrafficRecorder() {
+        return trafficRecorder;
+    }
+
+    /**
+     * Captures the data received from now on with the recorder; null stops
+     * capturing. The recorder may be shared by several connections
+     */
+    public void setTrafficRecorder(TrafficRecorder recorder) {
+        trafficRecorder = recorder;
+    }
+
+    /** Gets the live traffic and dispatch counters */
+    public ConnectionMetrics getMetrics() {
+        return metrics;
+    }
+
+    /** Gets the current values of the metrics */
+    public ConnectionMetrics.Snapshot getMetricsSnapshot() {
+        return metrics.getSnapshot(1,
+                getSendQueueBytes(),
+                getDispatchQueueLength());
+    }
+
+    /** Gets the number of bytes waiting to be written (0 ==> no queue) */
+    protected long getSendQueueBytes() {
+        return 0;
+    }
+
+    /** Gets the number of frames waiting for the listeners (0 ==> no queue) */
+    protected int getDispatchQueueLength() {
+        return 0;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server under
+     * com.goffersoft.common.net:type=&lt;class&gt;,name=&lt;name&gt;. They
+     * are unregistered when the connection terminates
+     */
+    public ObjectName registerMetricsMBean(String name) throws JMException {
+        return registerMetricsMBean(new ObjectName(
+                getClass().getPackage().getName() + ":type="
+                        + getClass().getSimpleName() + ",name="
+                        + ObjectName.quote(name)));
+    }
+
+    /** Registers the metrics with the platform MBean server under name */
+    public synchronized ObjectName registerMetricsMBean(ObjectName name)
+            throws JMException {
+        unregisterMetricsMBean();
+        ManagementFactory.getPlatformMBeanServer().registerMBean(
+                new ConnectionMetrics.MXBeanView(this),
+                name);
+        metricsObjectName = name;
+        return name;
+    }
+
+    /** Unregisters the metrics from the platform MBean server, if needed */
+    public synchronized void unregisterMetricsMBean() {
+        ObjectName name = metricsObjectName;
+
+        if (name == null) {
+            return;
+        }
+        metricsObjectName = null;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException e) {
+            log.debug("unable to unregister " + name, e);
+        }
+    }
+
+    /** Gets the name the metrics are registered under (null ==> none) */
+    public ObjectName getMetricsObjectName() {
+        return metricsObjectName;
+    }
+
     /** Stops running */
     public void stop() {
-        start = false;
+        Thread t = connectionThread;
 
-        if (connectionThread != Thread.currentThread()) {
-            while (isRunning()) {
+        start = false;
+        cancelInactivityTimer();
+
+        if (t != null && t != Thread.currentThread()) {
+            // wakes a service thread parked until its next reconnect attempt
+            LockSupport.unpark(t);
+            // closing the socket ends a service thread blocked in a read;
+            // it may not have set isRunning yet, so go by the thread itself
+            if (t.isAlive() == true) {
                 try {
-                    connectionThread.join();
+                    socketClose();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            while (t.isAlive() == true) {
+                try {
+                    t.join();
                 } catch (InterruptedException e) {
                 }
             }
@@ -207,15 +485,19 @@ abstract public class GenericConnection<
     }
 
     /** starts running */
-    public void start() {
+    public synchronized void start() {
         if (start == false) {
-            connectionThread = new Thread(this);
-            connectionThread.setName(connectionThread.getClass().getName()
-                    + ".T"
-                    + connectionThread.getName().replaceAll("Thread-", ""));
+            start = true;
+            if (threadFactory != null) {
+                connectionThread = threadFactory.newThread(this);
+            } else {
+                connectionThread = new Thread(this);
+                connectionThread.setName(connectionThread.getClass().getName()
+                        + ".T"
+                        + connectionThread.getName().replaceAll("Thread-", ""));
+            }
             connectionThread.start();
         }
-        start = true;
     }
 
     public SocketType getSocket() {
@@ -234,6 +516,14 @@ abstract public class GenericConnection<
         connectionThread = t;
     }
 
+    protected void setStartedFlag() {
+        start = true;
+    }
+
+    protected void clearStartedFlag() {
+        start = false;
+    }
+
     protected void setIsRunningFlag() {
         isRunning = true;
     }
@@ -16,6 +16,7 @@ import org.apache.log4j.Logger;
 
 import com.goffersoft.common.net.GenericConnectionMap.ListenerInfo;
 import com.goffersoft.common.net.GenericConnectionMap.SearchType;
+import com.goffersoft.common.utils.BufferPool;
 import com.goffersoft.common.utils.PatternUtils;
 import com.goffersoft.common.utils.PrintUtils;
 
@@ -30,38 +31,41 @@ public class GenericConnectionContext< ListenerType extends GenericConnectionLis
             GenericConnection.DEFAULT_MINIMUM_RX_PACKET_LENGTH;
     private int maxRxPktLength =
             GenericConnection.DEFAULT_MAXIMUM_RX_PACKET_LENGTH;
+    private BufferPool rxBufferPool = null;
+
+    /** captures the data received by the connections, null ==> none */
+    private TrafficRecorder trafficRecorder = null;
+
+    /** sets lost client tcp connections up again, null ==> none */
+    private ReconnectPolicy reconnectPolicy = null;
     private LinkedList<ListenerInfo<ListenerType>> listOfListeners =
             null;
+
+    /** the settings the last connections were created with */
+    volatile private ConnectionContextSnapshot<ListenerType> snapshot = null;
     public static final String PROVIDER_LIST_PROP_KEY;
-    private static LinkedList<String> contextProviderList;
+
+    /** context providers by name, resolved once */
+    private static final ProviderRegistry<GenericConnectionContext<?>>
+            contextProviders =
+            new ProviderRegistry<GenericConnectionContext<?>>(
+                    GenericConnectionContext.class);
     static {
         PROVIDER_LIST_PROP_KEY =
                 "com.goffersoft.common.net.connectionProviderList";
-        getContextProviderList().add(TcpConnectionContext.class.getName());
-        getContextProviderList().add(TcpSSLConnectionContext.class.getName());
-        getContextProviderList().add(UdpConnectionContext.class.getName());
-
-        String props;
-        String[] propsList = null;
-        if ((props = System.getProperty(PROVIDER_LIST_PROP_KEY)) != null) {
-            propsList = props.split(",");
-            if (propsList != null) {
-                for (int i = 0; i < propsList.length; i++) {
-                    getContextProviderList().add(propsList[i]);
-                }
-            }
-        }
+        contextProviders.register(TcpConnectionContext.class.getName());
+        contextProviders.register(TcpSSLConnectionContext.class.getName());
+        contextProviders.register(UdpConnectionContext.class.getName());
+        contextProviders.registerAll(System.getProperty(PROVIDER_LIST_PROP_KEY));
     };
 
-    protected static void setContextProviderList(LinkedList<String> cplist) {
-        contextProviderList = cplist;
-    }
-
-    protected static LinkedList<String> getContextProviderList() {
-        if (contextProviderList == null) {
-            contextProviderList = new LinkedList<String>();
-        }
-        return contextProviderList;
+    /**
+     * Gets the registry getContext() creates contexts from; providers may be
+     * added at any time, see ProviderRegistry.discover()
+     */
+    public static ProviderRegistry<GenericConnectionContext<?>>
+            getContextProviderRegistry() {
+        return contextProviders;
     }
 
     public int getRxBufferSize() {
@@ -88,6 +92,35 @@ public class GenericConnectionContext< ListenerType extends GenericConnectionLis
         this.maxRxPktLength = maxRxPktLength;
     }
 
+    /** Gets the receive buffer pool, null ==> a new buffer per read */
+    public BufferPool getRxBufferPool() {
+        return rxBufferPool;
+    }
+
+    public void setRxBufferPool(BufferPool rxBufferPool) {
+        this.rxBufferPool = rxBufferPool;
+    }
+
+    public TrafficRecorder getTrafficRecorder() {
+        return trafficRecorder;
+    }
+
+    public void setTrafficRecorder(TrafficRecorder trafficRecorder) {
+        this.trafficRecorder = trafficRecorder;
+    }
+
+    public ReconnectPolicy getReconnectPolicy() {
+        return reconnectPolicy;
+    }
+
+    /**
+     * Sets the reconnect settings of the tcp connections the factories
+     * connect (not of accepted or event loop connections); null ==> none
+     */
+    public void setReconnectPolicy(ReconnectPolicy reconnectPolicy) {
+        this.reconnectPolicy = reconnectPolicy;
+    }
+
     public LinkedList<ListenerInfo<ListenerType>>
             getListOfListeners() {
         return listOfListeners;
@@ -269,6 +302,22 @@ public class GenericConnectionContext< ListenerType extends GenericConnectionLis
                 SearchType.NONE));
     }
 
+    /**
+     * Gets an immutable copy of the settings with the listeners compiled.
+     * The copy is shared until the context is changed, so creating a
+     * connection does not recompile the listeners; checking for changes
+     * costs a comparison per setting and listener
+     */
+    public ConnectionContextSnapshot<ListenerType> getSnapshot() {
+        ConnectionContextSnapshot<ListenerType> s = snapshot;
+
+        if (s == null || s.isCurrent(this) == false) {
+            s = new ConnectionContextSnapshot<ListenerType>(this, s);
+            snapshot = s;
+        }
+        return s;
+    }
+
     public static GenericConnectionContext<?> getContext(
             String provider)
             throws ClassNotFoundException,
@@ -276,20 +325,7 @@ public class GenericConnectionContext< ListenerType extends GenericConnectionLis
             InvocationTargetException,
             IllegalAccessException,
             InstantiationException {
-        Iterator<String> it = getContextProviderList().iterator();
-
-        String tmpProvider;
-        while (it.hasNext()) {
-            tmpProvider = it.next();
-            if (provider.equals(tmpProvider) == true) {
-                Class<?> clazz = Class.forName(provider);
-                return (GenericConnectionContext<?>) clazz
-                        .getConstructor()
-                        .newInstance();
-            }
-        }
-
-        return null;
+        return contextProviders.newInstance(provider);
     }
 
     @Override
@@ -297,10 +333,15 @@ public class GenericConnectionContext< ListenerType extends GenericConnectionLis
         StringBuffer str = new StringBuffer();
         str.append(super.toString());
         str.append(String.format(
-                " ,RxBufferSize=%d, MinRxPktLength=%d, MaxRxPktLength=%d \n",
+                " ,RxBufferSize=%d, MinRxPktLength=%d, MaxRxPktLength=%d, "
+                        + "RxBufferPool=%s, TrafficRecorder=%s, "
+                        + "ReconnectPolicy=%s \n",
                 getRxBufferSize(),
                 getMinRxPktLength(),
-                getMaxRxPktLength()
+                getMaxRxPktLength(),
+                getRxBufferPool(),
+                getTrafficRecorder(),
+                getReconnectPolicy()
                 ));
 
         if (getListOfListeners() == null) {
@@ -330,8 +371,8 @@ public class GenericConnectionContext< ListenerType extends GenericConnectionLis
             }
         }
 
-        if (getContextProviderList() != null) {
-            Iterator<String> it = getContextProviderList().iterator();
+        if (contextProviders != null) {
+            Iterator<String> it = contextProviders.getNames().iterator();
 
             String prov;
             int i = 1;
@@ -357,6 +398,9 @@ public class GenericConnectionContext< ListenerType extends GenericConnectionLis
                 && getMaxRxPktLength() == ctxt.getMaxRxPktLength()
                 && getMinRxPktLength() == ctxt.getMinRxPktLength()
                 && getRxBufferSize() == ctxt.getRxBufferSize()
+                && getRxBufferPool() == ctxt.getRxBufferPool()
+                && getTrafficRecorder() == ctxt.getTrafficRecorder()
+                && getReconnectPolicy() == ctxt.getReconnectPolicy()
                 && getListOfListeners().equals(ctxt.getListOfListeners())
                 && super.equals(ctxt));
     }
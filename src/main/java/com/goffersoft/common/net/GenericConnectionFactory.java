@@ -11,8 +11,6 @@ package com.goffersoft.common.net;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.InetAddress;
-import java.util.Iterator;
-import java.util.LinkedList;
 
 import org.apache.log4j.Logger;
 
@@ -34,26 +32,19 @@ public abstract class GenericConnectionFactory <
 
     private ConnectionContextType connectionContext;
 
-    private static LinkedList<String> factoryProviderList;
+    /** factory providers by name, resolved once */
+    private static final ProviderRegistry<GenericConnectionFactory<?, ?, ?, ?>>
+            factoryProviders =
+            new ProviderRegistry<GenericConnectionFactory<?, ?, ?, ?>>(
+                    GenericConnectionFactory.class);
     public static final String FACTORY_LIST_PROP_KEY;
     static {
         FACTORY_LIST_PROP_KEY =
                 "com.goffersoft.common.net.connectionFactoryList";
-        factoryProviderList = new LinkedList<String>();
-        factoryProviderList.add(UdpConnectionFactory.class.getName());
-        factoryProviderList.add(TcpConnectionFactory.class.getName());
-        factoryProviderList.add(TcpSSLConnectionFactory.class.getName());
-
-        String props;
-        String[] propsList = null;
-        if ((props = System.getProperty(FACTORY_LIST_PROP_KEY)) != null) {
-            propsList = props.split(",");
-            if (propsList != null) {
-                for (int i = 0; i < propsList.length; i++) {
-                    factoryProviderList.add(propsList[i]);
-                }
-            }
-        }
+        factoryProviders.register(UdpConnectionFactory.class.getName());
+        factoryProviders.register(TcpConnectionFactory.class.getName());
+        factoryProviders.register(TcpSSLConnectionFactory.class.getName());
+        factoryProviders.registerAll(System.getProperty(FACTORY_LIST_PROP_KEY));
     };
 
     protected GenericConnectionFactory(
@@ -74,6 +65,24 @@ public abstract class GenericConnectionFactory <
                 connectionContext;
     }
 
+    /**
+     * Gives the connection the listeners of the context snapshot, applies
+     * the settings that are not constructor arguments and starts the
+     * connection if the context asks for it. Connections must be
+     * constructed with startOnInit == false and without listeners before
+     * being passed in
+     */
+    protected ConnectionType initConnection(ConnectionType conn) {
+        ConnectionContextSnapshot<ListenerType> snapshot =
+                getContext().getSnapshot();
+
+        snapshot.apply(conn);
+        if (snapshot.isAutoStart() == true) {
+            conn.start();
+        }
+        return conn;
+    }
+
     public abstract ConnectionType
             createConnection(
                     int local_port) throws IOException;
@@ -100,20 +109,16 @@ public abstract class GenericConnectionFactory <
             InvocationTargetException,
             IllegalAccessException,
             InstantiationException {
-        Iterator<String> it = factoryProviderList.iterator();
-
-        String tmpProvider;
-        while (it.hasNext()) {
-            tmpProvider = it.next();
-            if (provider.equals(tmpProvider) == true) {
-                Class<?> clazz = Class.forName(provider);
-                return (GenericConnectionFactory<?, ?, ?, ?>) clazz
-                        .getConstructor()
-                        .newInstance();
-            }
-        }
+        return factoryProviders.newInstance(provider);
+    }
 
-        return null;
+    /**
+     * Gets the registry getFactory() creates factories from; providers may
+     * be added at any time, see ProviderRegistry.discover()
+     */
+    public static ProviderRegistry<GenericConnectionFactory<?, ?, ?, ?>>
+            getFactoryProviderRegistry() {
+        return factoryProviders;
     }
 
     @Override
@@ -10,14 +10,20 @@
 
 package com.goffersoft.common.net;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.log4j.Logger;
 
-import com.goffersoft.common.utils.PatternUtils;
+import com.goffersoft.common.utils.MultiPatternMatcher;
 
 //@formatter:off
 public class GenericConnectionMap<
@@ -32,10 +38,14 @@ public class GenericConnectionMap<
         NONE,
     }
 
+    /**
+     * A listener and its pattern; immutable, as the compiled registries
+     * share them between snapshots (and contexts)
+     */
     public static class ListenerInfo < LisType extends GenericConnectionListener > {
-        private byte[] pattern;
-        private SearchType type;
-        private LisType listener;
+        private final byte[] pattern;
+        private final SearchType type;
+        private final LisType listener;
 
         ListenerInfo(byte[] pattern, LisType listener, SearchType type) {
             this.pattern = pattern;
@@ -47,33 +57,24 @@ public class GenericConnectionMap<
             return type;
         }
 
-        public void setType(SearchType type) {
-            this.type = type;
-        }
-
         public LisType getListener() {
             return listener;
         }
 
-        public void setListener(LisType listener) {
-            this.listener = listener;
-        }
-
+        /** Gets the pattern; the array is shared and must not be modified */
         public byte[] getPattern() {
             return pattern;
         }
-
-        public void setPattern(byte[] pattern) {
-            this.pattern = pattern;
-        }
     }
 
     private static final Logger log = Logger
             .getLogger(GenericConnectionMap.class);
 
-    volatile private LinkedList<ListenerInfo<ListenerType>> connectionMapList;
-
-    volatile private HashMap<byte[], ListenerInfo<ListenerType>> connectionMapHash;
+    /**
+     * listeners in registration order plus their compiled patterns; an
+     * immutable snapshot that is replaced as a whole on every change
+     */
+    private final AtomicReference<Registry<ListenerType>> registry;
 
     /**
      * if there are no listeners in the connectinMap or if a match is not found
@@ -81,27 +82,92 @@ public class GenericConnectionMap<
      */
     volatile private ListenerType defaultListener;
 
-    static private GenericConnectionListener factoryDefaultListener;
+    /**
+     * the factory default listener of each class, installed by its static
+     * initializer, so that TcpConnection, TcpServer, UdpConnection etc each
+     * get their own rather than that of the class loaded last
+     */
+    static private final ConcurrentHashMap<Class<?>, GenericConnectionListener> factoryDefaultListeners =
+            new ConcurrentHashMap<Class<?>, GenericConnectionListener>();
 
     static protected < ListenerType extends GenericConnectionListener >
             void
-            setFactoryDefaultListener(ListenerType listener) {
-        factoryDefaultListener = listener;
+            setFactoryDefaultListener(Class<?> owner, ListenerType listener) {
+        if (listener == null) {
+            factoryDefaultListeners.remove(owner);
+        } else {
+            factoryDefaultListeners.put(owner, listener);
+        }
     }
 
+    /**
+     * Gets the factory default listener installed for the class of this
+     * object, or else for the closest superclass that has one
+     */
     @SuppressWarnings("unchecked")
-    static protected < ListenerType extends GenericConnectionListener >
-            ListenerType
-            getFactoryDefaultListener() {
-        return (ListenerType) factoryDefaultListener;
+    protected ListenerType getFactoryDefaultListener() {
+        for (Class<?> c = getClass(); c != null; c = c.getSuperclass()) {
+            GenericConnectionListener listener = factoryDefaultListeners
+                    .get(c);
+            if (listener != null) {
+                return (ListenerType) listener;
+            }
+        }
+        return null;
     }
 
+    @SuppressWarnings("unchecked")
     public GenericConnectionMap() {
-        connectionMapList = new LinkedList<ListenerInfo<ListenerType>>();
-        connectionMapHash = new HashMap<byte[], ListenerInfo<ListenerType>>();
+        registry = new AtomicReference<Registry<ListenerType>>(
+                (Registry<ListenerType>) EMPTY_REGISTRY);
         setDefaultListener(null);
     }
 
+    /**
+     * Compiles the listeners the way addListener() would register them one
+     * by one: entries without a pattern or listener are skipped and a later
+     * entry replaces an earlier one with the same pattern in its position
+     */
+    static < ListenerType extends GenericConnectionListener >
+            Registry<ListenerType>
+            compile(Iterable<ListenerInfo<ListenerType>> listOfListeners) {
+        ArrayList<ListenerInfo<ListenerType>> list =
+                new ArrayList<ListenerInfo<ListenerType>>();
+        TreeMap<byte[], Integer> positions =
+                new TreeMap<byte[], Integer>(PATTERN_ORDER);
+
+        if (listOfListeners != null) {
+            for (ListenerInfo<ListenerType> info : listOfListeners) {
+                if (info.getPattern() == null || info.getListener() == null) {
+                    continue;
+                }
+                ListenerInfo<ListenerType> copy =
+                        new ListenerInfo<ListenerType>(info.getPattern()
+                                .clone(), info.getListener(), info.getType());
+                Integer pos = positions.get(copy.getPattern());
+                if (pos == null) {
+                    positions.put(copy.getPattern(), list.size());
+                    list.add(copy);
+                } else {
+                    list.set(pos, copy);
+                }
+            }
+        }
+        return new Registry<ListenerType>(list);
+    }
+
+    /**
+     * Replaces all listeners with a compiled (and possibly shared) registry;
+     * later changes to this map copy it instead of modifying it
+     */
+    void adoptListeners(Registry<ListenerType> listeners) {
+        registry.set(listeners);
+    }
+
+    /**
+     * Adds (or replaces) the listener for the pattern. Safe to call while
+     * data is being received; lookups in progress use the previous snapshot
+     */
     public void addListener(
             byte[] pattern,
             ListenerType listener,
@@ -114,23 +180,51 @@ public class GenericConnectionMap<
             return;
         }
 
-        ListenerInfo<ListenerType> info = connectionMapHash.get(pattern);
+        ListenerInfo<ListenerType> info =
+                new ListenerInfo<ListenerType>(pattern.clone(), listener, type);
+        Registry<ListenerType> current;
+        Registry<ListenerType> next;
+
+        do {
+            current = registry.get();
+            ArrayList<ListenerInfo<ListenerType>> list =
+                    new ArrayList<ListenerInfo<ListenerType>>(current.list);
+            ListenerInfo<ListenerType> old = current.map.get(pattern);
+            if (old == null) {
+                list.add(info);
+            } else {
+                // keeps the position (and so the priority) of the pattern
+                list.set(list.indexOf(old), info);
+            }
+            next = new Registry<ListenerType>(list);
+        } while (registry.compareAndSet(current, next) == false);
+    }
 
-        if (info == null) {
-            info = new ListenerInfo<ListenerType>(pattern, listener, type);
-            connectionMapList.add(info);
-            connectionMapHash.put(pattern, info);
-        } else {
-            info.setListener(listener);
-            info.setType(type);
+    /** Removes the listener registered for the pattern (compared by content) */
+    public void removeListener(byte[] pattern) {
+        if (pattern == null) {
+            return;
         }
+
+        Registry<ListenerType> current;
+        Registry<ListenerType> next;
+
+        do {
+            current = registry.get();
+            ListenerInfo<ListenerType> old = current.map.get(pattern);
+            if (old == null) {
+                return;
+            }
+            ArrayList<ListenerInfo<ListenerType>> list =
+                    new ArrayList<ListenerInfo<ListenerType>>(current.list);
+            list.remove(old);
+            next = new Registry<ListenerType>(list);
+        } while (registry.compareAndSet(current, next) == false);
     }
 
     public void removeListener(String pattern) {
-        ListenerInfo<ListenerType> info = connectionMapHash.get(pattern);
-        if (info != null) {
-            connectionMapHash.remove(pattern);
-            connectionMapList.remove(info);
+        if (pattern != null) {
+            removeListener(pattern.getBytes());
         }
     }
 
@@ -151,23 +245,27 @@ public class GenericConnectionMap<
         return defaultListener;
     }
 
+    /** Iterates over a snapshot of the listeners in registration order */
     protected Iterator<ListenerInfo<ListenerType>>
             getConnectionMapListIterator() {
-        return connectionMapList.iterator();
+        return registry.get().list.iterator();
     }
 
+    /** Iterates over a snapshot of the listeners keyed by pattern */
     protected Iterator<Entry<byte[], ListenerInfo<ListenerType>>>
             getConnectionMapHashIterator() {
-        return connectionMapHash.entrySet().iterator();
+        return registry.get().map.entrySet().iterator();
     }
 
-    protected HashMap<byte[], ListenerInfo<ListenerType>>
+    /** Gets a read only snapshot of the listeners keyed by pattern content */
+    protected Map<byte[], ListenerInfo<ListenerType>>
             getConnectionMapHash() {
-        return connectionMapHash;
+        return registry.get().map;
     }
 
-    protected LinkedList<ListenerInfo<ListenerType>> getConnectionMapList() {
-        return connectionMapList;
+    /** Gets a read only snapshot of the listeners in registration order */
+    protected List<ListenerInfo<ListenerType>> getConnectionMapList() {
+        return registry.get().list;
     }
 
     protected ListenerInfo<ListenerType> getNextConnectionMapHashEntry(
@@ -192,53 +290,20 @@ public class GenericConnectionMap<
         return it.next();
     }
 
+    /**
+     * Gets the first registered entry whose pattern matches the data. All
+     * patterns are matched in a single pass over the data using the current
+     * registry snapshot; no locks are taken
+     */
     protected ListenerInfo<ListenerType> getConnectionMapEntry(
             byte[] data,
             int dataoffset,
             int datalength) {
-        Iterator<ListenerInfo<ListenerType>> it = connectionMapList.iterator();
-
         if (data == null) {
             return null;
         }
 
-        while (it.hasNext()) {
-            ListenerInfo<ListenerType> entry = it.next();
-
-            switch (entry.getType()) {
-                case CONTAINS:
-                    if (PatternUtils.contains(
-                            data,
-                            dataoffset,
-                            datalength,
-                            entry.getPattern()) != -1) {
-                        return entry;
-                    }
-                    break;
-                case ENDSWITH:
-                    if (PatternUtils.endsWith(
-                            data,
-                            dataoffset,
-                            datalength,
-                            entry.getPattern()) != -1) {
-                        return entry;
-                    }
-                    break;
-                case STARTSWITH:
-                    if (PatternUtils.startsWith(
-                            data,
-                            dataoffset,
-                            datalength,
-                            entry.getPattern()) != -1) {
-                        return entry;
-                    }
-                    break;
-                case NONE:
-                    break;
-            }
-        }
-
-        return null;
+        return registry.get().match(data, dataoffset, datalength);
     }
 
     protected ListenerType getConnectionListener(
@@ -254,4 +319,75 @@ public class GenericConnectionMap<
 
         return info.getListener();
     }
+
+    /** orders byte[] keys by content so that equal patterns are one key */
+    private static final Comparator<byte[]> PATTERN_ORDER =
+            new Comparator<byte[]>() {
+                @Override
+                public int compare(byte[] a, byte[] b) {
+                    int n = Math.min(a.length, b.length);
+                    for (int i = 0; i < n; i++) {
+                        if (a[i] != b[i]) {
+                            return (a[i] & 0xff) - (b[i] & 0xff);
+                        }
+                    }
+                    return a.length - b.length;
+                }
+            };
+
+    /** the registry of every map without listeners */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static final Registry EMPTY_REGISTRY = new Registry(
+            new ArrayList());
+
+    /**
+     * immutable snapshot of the listeners with their patterns compiled; the
+     * matcher ids are the positions in the list (first registered wins).
+     * Registered ListenerInfo objects must not be modified. A registry may be
+     * shared by any number of maps
+     */
+    static final class Registry<
+            ListenerType extends GenericConnectionListener> {
+        private final List<ListenerInfo<ListenerType>> list;
+        private final Map<byte[], ListenerInfo<ListenerType>> map;
+        private final MultiPatternMatcher matcher;
+
+        Registry(ArrayList<ListenerInfo<ListenerType>> entries) {
+            TreeMap<byte[], ListenerInfo<ListenerType>> byPattern =
+                    new TreeMap<byte[], ListenerInfo<ListenerType>>(
+                            PATTERN_ORDER);
+
+            matcher = new MultiPatternMatcher();
+            for (int i = 0; i < entries.size(); i++) {
+                ListenerInfo<ListenerType> info = entries.get(i);
+                byPattern.put(info.getPattern(), info);
+                switch (info.getType()) {
+                    case CONTAINS:
+                        matcher.addContains(info.getPattern(), i);
+                        break;
+                    case STARTSWITH:
+                        matcher.addStartsWith(info.getPattern(), i);
+                        break;
+                    case ENDSWITH:
+                        matcher.addEndsWith(info.getPattern(), i);
+                        break;
+                    case NONE:
+                        break;
+                }
+            }
+            matcher.compile();
+            list = Collections.unmodifiableList(entries);
+            map = Collections.unmodifiableMap(byPattern);
+        }
+
+        int size() {
+            return list.size();
+        }
+
+        ListenerInfo<ListenerType> match(byte[] data, int offset, int length) {
+            int id = matcher.match(data, offset, length);
+
+            return (id < 0) ? null : list.get(id);
+        }
+    }
 }
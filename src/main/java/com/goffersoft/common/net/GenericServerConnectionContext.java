@@ -8,6 +8,8 @@
  **/
 package com.goffersoft.common.net;
 
+import java.util.concurrent.ThreadFactory;
+
 import org.apache.log4j.Logger;
 
 public class GenericServerConnectionContext< ListenerType > {
@@ -18,6 +20,7 @@ public class GenericServerConnectionContext< ListenerType > {
     private int socketTimeout = GenericConnection.DEFAULT_SOCKET_TIMEOUT;
     private boolean autoStart = true;
     private ListenerType defaultListener = null;
+    private ThreadFactory threadFactory = null;
 
     public ListenerType getDefaultListener() {
         return defaultListener;
@@ -55,16 +58,30 @@ public class GenericServerConnectionContext< ListenerType > {
         this.autoStart = false;
     }
 
+    /** Gets the factory for service threads, null ==> new Thread() */
+    public ThreadFactory getThreadFactory() {
+        return threadFactory;
+    }
+
+    /**
+     * Sets the factory service threads are created from, e.g. a
+     * VirtualThreadFactory. null ==> a new platform thread per service
+     */
+    public void setThreadFactory(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+    }
+
     @Override
     public String toString() {
         StringBuffer str = new StringBuffer();
         str
                 .append(String
                         .format(
-                                "SocketTimeout=%d, InactivityTimeout=%d, StartType=%s",
+                                "SocketTimeout=%d, InactivityTimeout=%d, StartType=%s, ThreadFactory=%s",
                                 getSocketTimeout(),
                                 getInactivityTimeout(),
-                                isAutoStart() ? "Auto Start" : "Manual Start"));
+                                isAutoStart() ? "Auto Start" : "Manual Start",
+                                getThreadFactory()));
 
         if (getDefaultListener() != null) {
             str.append("DefaultListener: \n"
@@ -80,6 +97,7 @@ public class GenericServerConnectionContext< ListenerType > {
                 && isAutoStart() == o.isAutoStart()
                 && getInactivityTimeout() == o.getInactivityTimeout()
                 && getSocketTimeout() == o.getSocketTimeout()
+                && getThreadFactory() == o.getThreadFactory()
                 && isAutoStart() == o.isAutoStart()) {
             return true;
         }
@@ -22,38 +22,33 @@ public class GenericServerContext< ListenerType extends GenericConnectionListene
     private static final Logger log = Logger
             .getLogger(GenericServerContext.class);
     private int backlog;
+    /** 0 ==> one thread per connection, > 0 ==> selector event loops */
+    private int eventLoopThreads = 0;
     private LinkedList<ListenerType> listOfListeners =
             null;
 
     public static final String PROVIDER_LIST_PROP_KEY;
-    private static LinkedList<String> contextProviderList;
+
+    /** context providers by name, resolved once */
+    private static final ProviderRegistry<GenericServerContext<?>>
+            contextProviders =
+            new ProviderRegistry<GenericServerContext<?>>(
+                    GenericServerContext.class);
     static {
         PROVIDER_LIST_PROP_KEY =
                 "com.goffersoft.common.net.serverProviderList";
-        getContextProviderList().add(TcpServerContext.class.getName());
-        getContextProviderList().add(TcpSSLServerContext.class.getName());
-
-        String props;
-        String[] propsList = null;
-        if ((props = System.getProperty(PROVIDER_LIST_PROP_KEY)) != null) {
-            propsList = props.split(",");
-            if (propsList != null) {
-                for (int i = 0; i < propsList.length; i++) {
-                    getContextProviderList().add(propsList[i]);
-                }
-            }
-        }
+        contextProviders.register(TcpServerContext.class.getName());
+        contextProviders.register(TcpSSLServerContext.class.getName());
+        contextProviders.registerAll(System.getProperty(PROVIDER_LIST_PROP_KEY));
     };
 
-    protected static void setContextProviderList(LinkedList<String> cplist) {
-        contextProviderList = cplist;
-    }
-
-    protected static LinkedList<String> getContextProviderList() {
-        if (contextProviderList == null) {
-            contextProviderList = new LinkedList<String>();
-        }
-        return contextProviderList;
+    /**
+     * Gets the registry getContext() creates contexts from; providers may be
+     * added at any time, see ProviderRegistry.discover()
+     */
+    public static ProviderRegistry<GenericServerContext<?>>
+            getContextProviderRegistry() {
+        return contextProviders;
     }
 
     public int getBacklog() {
@@ -64,6 +59,14 @@ public class GenericServerContext< ListenerType extends GenericConnectionListene
         this.backlog = backlog;
     }
 
+    public int getEventLoopThreads() {
+        return eventLoopThreads;
+    }
+
+    public void setEventLoopThreads(int eventLoopThreads) {
+        this.eventLoopThreads = eventLoopThreads;
+    }
+
     public LinkedList<ListenerType> getListOfListeners() {
         return listOfListeners;
     }
@@ -123,27 +126,15 @@ public class GenericServerContext< ListenerType extends GenericConnectionListene
             InvocationTargetException,
             IllegalAccessException,
             InstantiationException {
-        Iterator<String> it = getContextProviderList().iterator();
-
-        String tmpProvider;
-        while (it.hasNext()) {
-            tmpProvider = it.next();
-            if (provider.equals(tmpProvider) == true) {
-                Class<?> clazz = Class.forName(provider);
-                return (GenericServerContext<?>) clazz
-                        .getConstructor()
-                        .newInstance();
-            }
-        }
-
-        return null;
+        return contextProviders.newInstance(provider);
     }
 
     @Override
     public String toString() {
         StringBuffer str = new StringBuffer();
 
-        str.append(super.toString() + " Server Backlog=" + backlog);
+        str.append(super.toString() + " Server Backlog=" + backlog
+                + " EventLoopThreads=" + eventLoopThreads);
 
         if (getListOfListeners() == null) {
             return str.toString();
@@ -175,8 +166,8 @@ public class GenericServerContext< ListenerType extends GenericConnectionListene
             }
         }
 
-        if (getContextProviderList() != null) {
-            Iterator<String> it = getContextProviderList().iterator();
+        if (contextProviders != null) {
+            Iterator<String> it = contextProviders.getNames().iterator();
 
             String prov;
             int i = 1;
@@ -200,6 +191,7 @@ public class GenericServerContext< ListenerType extends GenericConnectionListene
 
     public boolean equals(GenericServerContext<?> o) {
         if (getBacklog() == o.getBacklog() &&
+                getEventLoopThreads() == o.getEventLoopThreads() &&
                 (getListOfListeners().equals(o.getListOfListeners()))) {
             return super.equals(o);
         }
@@ -11,8 +11,6 @@ package com.goffersoft.common.net;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.InetAddress;
-import java.util.Iterator;
-import java.util.LinkedList;
 
 import org.apache.log4j.Logger;
 
@@ -41,25 +39,18 @@ public abstract class GenericServerFactory<
     private ConnectionContextType connectionContext;
     private ServerContextType serverContext;
 
-    private static LinkedList<String> factoryProviderList;
+    /** factory providers by name, resolved once */
+    private static final ProviderRegistry<GenericServerFactory<?, ?, ?, ?, ?, ?>>
+            factoryProviders =
+            new ProviderRegistry<GenericServerFactory<?, ?, ?, ?, ?, ?>>(
+                    GenericServerFactory.class);
     public static final String FACTORY_LIST_PROP_KEY;
     static {
         FACTORY_LIST_PROP_KEY =
                 "com.goffersoft.common.net.serverFactoryList";
-        factoryProviderList = new LinkedList<String>();
-        factoryProviderList.add(TcpServerFactory.class.getName());
-        factoryProviderList.add(TcpSSLServerFactory.class.getName());
-
-        String props;
-        String[] propsList = null;
-        if ((props = System.getProperty(FACTORY_LIST_PROP_KEY)) != null) {
-            propsList = props.split(",");
-            if (propsList != null) {
-                for (int i = 0; i < propsList.length; i++) {
-                    factoryProviderList.add(propsList[i]);
-                }
-            }
-        }
+        factoryProviders.register(TcpServerFactory.class.getName());
+        factoryProviders.register(TcpSSLServerFactory.class.getName());
+        factoryProviders.registerAll(System.getProperty(FACTORY_LIST_PROP_KEY));
     };
 
     protected GenericServerFactory(
@@ -89,6 +80,19 @@ public abstract class GenericServerFactory<
                 connectionContext;
     }
 
+    /**
+     * Applies the server context settings that are not constructor arguments
+     * and starts the server if the context asks for it. Servers must be
+     * constructed with startOnInit == false before being passed in
+     */
+    protected ServerType initServer(ServerType server) {
+        server.setThreadFactory(getServerContext().getThreadFactory());
+        if (getServerContext().isAutoStart() == true) {
+            server.start();
+        }
+        return server;
+    }
+
     public abstract ServerType
             createServer(
                     int local_port,
@@ -104,20 +108,16 @@ public abstract class GenericServerFactory<
             InvocationTargetException,
             IllegalAccessException,
             InstantiationException {
-        Iterator<String> it = factoryProviderList.iterator();
-
-        String tmpProvider;
-        while (it.hasNext()) {
-            tmpProvider = it.next();
-            if (provider.equals(tmpProvider) == true) {
-                Class<?> clazz = Class.forName(provider);
-                return (GenericServerFactory<?, ?, ?, ?, ?, ?>) clazz
-                        .getConstructor()
-                        .newInstance();
-            }
-        }
+        return factoryProviders.newInstance(provider);
+    }
 
-        return null;
+    /**
+     * Gets the registry getFactory() creates factories from; providers may
+     * be added at any time, see ProviderRegistry.discover()
+     */
+    public static ProviderRegistry<GenericServerFactory<?, ?, ?, ?, ?, ?>>
+            getFactoryProviderRegistry() {
+        return factoryProviders;
     }
 
     @Override
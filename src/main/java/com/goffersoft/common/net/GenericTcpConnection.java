@@ -8,15 +8,37 @@
  **/
 package com.goffersoft.common.net;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import org.apache.log4j.Logger;
 
+import com.goffersoft.common.utils.BufferPool;
+import com.goffersoft.common.utils.PooledBuffer;
+
 //@formatter:off
 abstract public class GenericTcpConnection<
                                     TcpConnectionSocketType, 
@@ -39,6 +61,11 @@ abstract public class GenericTcpConnection<
     private static final Logger log = Logger
             .getLogger(GenericTcpConnection.class);
 
+    /** source of connection ids, unique within the process */
+    private static final AtomicLong connectionIdCounter = new AtomicLong();
+
+    private final long connectionId = connectionIdCounter.incrementAndGet();
+
     volatile private InputStream istream;
     volatile private OutputStream ostream;
     volatile private int local_port;
@@ -46,6 +73,89 @@ abstract public class GenericTcpConnection<
     volatile private int remote_port;
     volatile private InetAddress remote_addr;
 
+    /** splits the byte stream into frames, null ==> reads are passed as is */
+    volatile private FrameDecoder frameDecoder;
+
+    /** holds a partial frame across reads (reader thread only) */
+    private byte[] frameBuffer;
+    private int frameBufferLength;
+
+    /** most buffers handed to a single gathering write */
+    protected static final int MAX_GATHER_BUFFERS = 64;
+
+    /** Bytes sent per step of a file transfer (and progress callback) */
+    public static final int TRANSFER_CHUNK_SIZE = 64 * 1024;
+
+    /** Default number of threads running sendFile() transfers */
+    public static final int DEFAULT_TRANSFER_THREADS = 4;
+
+    /** Default number of sendFile() transfers waiting for a thread */
+    public static final int DEFAULT_TRANSFER_QUEUE_LENGTH = 1024;
+
+    /** Default connectAsync() timeout in milliseconds, 0 ==> none */
+    public static final long DEFAULT_CONNECT_TIMEOUT = 30000;
+
+    private static volatile ThreadPoolExecutor defaultTransferExecutor;
+
+    /** runs sendFile() transfers, null ==> the shared default */
+    volatile private Executor transferExecutor;
+
+    /** one file transfer at a time */
+    private final Object transferLock = new Object();
+
+    /** kinds of frames passed to the listeners */
+    private static final int FRAME_DATA = 0;
+    private static final int FRAME_SMALL = 1;
+    private static final int FRAME_LARGE = 2;
+
+    /** listener dispatch settings, null ==> listeners run on the I/O thread */
+    volatile private TcpDispatchPolicy dispatchPolicy;
+
+    /** dispatch queue of each listener that has been passed frames */
+    private final ConcurrentHashMap<TcpConnectionListenerType, TcpDispatchQueue>
+            dispatchQueues =
+            new ConcurrentHashMap<TcpConnectionListenerType, TcpDispatchQueue>();
+
+    /** frames queued for all listeners */
+    private final AtomicInteger dispatchQueueLength = new AtomicInteger();
+
+    /** dispatch queues that have stopped the connection reading */
+    private final AtomicInteger fullDispatchQueues = new AtomicInteger();
+
+    /** sets a lost connection up again, null ==> the connection ends */
+    volatile private ReconnectPolicy reconnectPolicy;
+
+    /** asynchronous send settings, null ==> send() writes synchronously */
+    volatile private TcpSendPolicy sendPolicy;
+
+    volatile private TcpWritabilityListener writabilityListener;
+
+    /** messages waiting for the I/O thread (many producers, one consumer) */
+    private final ConcurrentLinkedQueue<ByteBuffer> sendQueue =
+            new ConcurrentLinkedQueue<ByteBuffer>();
+
+    /** bytes queued and not yet written to the socket */
+    private final AtomicLong queuedSendBytes = new AtomicLong();
+
+    private final AtomicBoolean writable = new AtomicBoolean(true);
+
+    /** time the queue last went from empty to non empty */
+    volatile private long sendQueueTime;
+
+    volatile private boolean flushRequested;
+
+    /** writes the queue in thread per connection mode */
+    volatile private Thread sendThread;
+
+    volatile private boolean sendThreadParked;
+
+    private final Runnable sendTask = new Runnable() {
+        @Override
+        public void run() {
+            runSendQueue();
+        }
+    };
+
     protected GenericTcpConnection() {
         super(null, null);
     }
@@ -54,6 +164,11 @@ abstract public class GenericTcpConnection<
         super(s, t);
     }
 
+    /** Gets the id of the connection, unique within the process */
+    public long getConnectionId() {
+        return connectionId;
+    }
+
     protected InputStream getInputStream() {
         return istream;
     }
@@ -122,12 +237,765 @@ abstract public class GenericTcpConnection<
         return setSocketAddress(null, new InetSocketAddress(ipaddr, port));
     }
 
+    /** Gets the frame decoder (null ==> no framing) */
+    public FrameDecoder getFrameDecoder() {
+        return frameDecoder;
+    }
+
+    /**
+     * Sets the decoder splitting the received byte stream into frames; each
+     * frame is passed to the listeners in a callback of its own. null passes
+     * the data on as read. Must be set before the connection is started
+     */
+    public void setFrameDecoder(FrameDecoder decoder) {
+        frameDecoder = decoder;
+    }
+
+    /** Discards any partially received frame */
+    protected void clearFrameBuffer() {
+        frameBufferLength = 0;
+    }
+
+    private void appendFrameBuffer(byte[] data, int offset, int length) {
+        int needed = frameBufferLength + length;
+
+        if (frameBuffer == null || frameBuffer.length < needed) {
+            int capacity = (frameBuffer == null) ? 256 : frameBuffer.length;
+            while (capacity < needed) {
+                capacity <<= 1;
+            }
+            byte[] tmp = new byte[capacity];
+            if (frameBufferLength > 0) {
+                System.arraycopy(frameBuffer, 0, tmp, 0, frameBufferLength);
+            }
+            frameBuffer = tmp;
+        }
+        System.arraycopy(data, offset, frameBuffer, frameBufferLength, length);
+        frameBufferLength = needed;
+    }
+
+    /**
+     * routes one frame (or read) applying the minimum/maximum lengths, on
+     * this thread or through the dispatch queue of the listener
+     */
+    private void dispatchFrame(
+            TcpConnectionType tcp,
+            byte[] data,
+            int offset,
+            int length) {
+        ConnectionMetrics metrics = getMetrics();
+        TcpDispatchPolicy policy = dispatchPolicy;
+        int kind;
+
+        if (length < getMinimumReceivePacketLength()) {
+            metrics.recordSmallPacketError();
+            kind = FRAME_SMALL;
+        } else if (length > getMaximumReceivePacketLength()) {
+            metrics.recordLargePacketError();
+            kind = FRAME_LARGE;
+        } else {
+            metrics.recordPacketReceived();
+            kind = FRAME_DATA;
+        }
+
+        if (policy != null) {
+            TcpConnectionListenerType listener =
+                    getConnectionListener(data, offset, length);
+            if (listener == null) {
+                listener = getDefaultListener();
+            }
+            getDispatchQueue(policy, listener).offer(
+                    new DispatchedFrame(listener,
+                            tcp,
+                            kind,
+                            data,
+                            offset,
+                            length));
+            return;
+        }
+
+        long dispatchStart = System.nanoTime();
+        if (kind == FRAME_SMALL) {
+            onErrorReceivedSmallPacket(tcp, data, offset, length);
+        } else if (kind == FRAME_LARGE) {
+            onErrorReceivedLargePacket(tcp, data, offset, length);
+        } else {
+            onReceivedData(tcp, data, offset, length);
+        }
+        metrics.recordDispatch(dispatchStart);
+    }
+
+    /** Gets (creating it if needed) the dispatch queue of the listener */
+    private TcpDispatchQueue getDispatchQueue(
+            TcpDispatchPolicy policy,
+            TcpConnectionListenerType listener) {
+        TcpDispatchQueue queue = dispatchQueues.get(listener);
+
+        if (queue == null) {
+            TcpDispatchQueue tmp = new TcpDispatchQueue(policy,
+                    listener,
+                    this,
+                    dispatchQueueLength);
+            queue = dispatchQueues.putIfAbsent(listener, tmp);
+            if (queue == null) {
+                queue = tmp;
+            }
+        }
+        return queue;
+    }
+
+    /** a frame copied out of the receive buffer, waiting for its listener */
+    private final class DispatchedFrame extends TcpDispatchQueue.Task {
+        private final TcpConnectionListenerType listener;
+        private final TcpConnectionType tcp;
+        private final int kind;
+        private final PooledBuffer buffer;
+        private final int length;
+
+        DispatchedFrame(
+                TcpConnectionListenerType listener,
+                TcpConnectionType tcp,
+                int kind,
+                byte[] data,
+                int offset,
+                int length) {
+            this.listener = listener;
+            this.tcp = tcp;
+            this.kind = kind;
+            this.length = length;
+            this.buffer = BufferPool.getDefault().lease(length);
+            System.arraycopy(data, offset, buffer.array(), 0, length);
+        }
+
+        @Override
+        void run() {
+            long dispatchStart = System.nanoTime();
+
+            try {
+                byte[] data = buffer.array();
+                if (kind == FRAME_SMALL) {
+                    listener.onErrorReceivedSmallPacket(tcp, data, 0, length);
+                } else if (kind == FRAME_LARGE) {
+                    listener.onErrorReceivedLargePacket(tcp, data, 0, length);
+                } else {
+                    listener.onReceivedData(tcp, data, 0, length);
+                }
+            } finally {
+                buffer.release();
+                getMetrics().recordDispatch(dispatchStart);
+            }
+        }
+
+        @Override
+        void discard() {
+            buffer.release();
+        }
+    }
+
+    /** routes all complete frames in place; returns the bytes consumed */
+    private int dispatchFrames(
+            TcpConnectionType tcp,
+            FrameDecoder decoder,
+            byte[] data,
+            int offset,
+            int length) throws IOException {
+        int pos = offset;
+        int end = offset + length;
+        int frameLength;
+
+        while (pos < end
+                && (frameLength = decoder.decode(data, pos, end - pos)) > 0) {
+            dispatchFrame(tcp,
+                    data,
+                    pos,
+                    frameLength - decoder.getTrailerLength());
+            pos += frameLength;
+        }
+        return pos - offset;
+    }
+
+    /**
+     * Routes data read from the socket to the listeners, split into frames
+     * if there is a frame decoder. Frames contained in buff are passed on in
+     * place; only a frame spanning reads is assembled in the frame buffer
+     */
+    protected void dispatchReceivedData(
+            TcpConnectionType tcp,
+            byte[] buff,
+            int len) throws IOException {
+        FrameDecoder decoder = frameDecoder;
+        int pos = 0;
+
+        getMetrics().recordBytesReceived(len);
+        TrafficRecorder recorder = getTrafficRecorder();
+        if (recorder != null) {
+            recorder.record(connectionId, buff, 0, len);
+        }
+        if (decoder == null) {
+            dispatchFrame(tcp, buff, 0, len);
+            return;
+        }
+
+        if (frameBufferLength > 0) {
+            // complete the pending frame, copying no more than about twice
+            // its size out of buff
+            int frameLength;
+            while ((frameLength =
+                    decoder.decode(frameBuffer, 0, frameBufferLength)) == 0) {
+                if (pos == len) {
+                    return;
+                }
+                int n = Math.min(len - pos, Math.max(frameBufferLength, 256));
+                appendFrameBuffer(buff, pos, n);
+                pos += n;
+            }
+
+            // bytes copied beyond the end of the frame are taken from buff
+            pos -= frameBufferLength - frameLength;
+            frameBufferLength = 0;
+
+            PooledBuffer rxBuffer = getCurrentReceiveBuffer();
+            setCurrentReceiveBuffer(null);
+            try {
+                dispatchFrame(tcp,
+                        frameBuffer,
+                        0,
+                        frameLength - decoder.getTrailerLength());
+            } finally {
+                setCurrentReceiveBuffer(rxBuffer);
+            }
+        }
+
+        pos += dispatchFrames(tcp, decoder, buff, pos, len - pos);
+        if (pos < len) {
+            appendFrameBuffer(buff, pos, len - pos);
+        }
+    }
+
+    /** Gets the asynchronous send settings (null ==> synchronous sends) */
+    public TcpSendPolicy getSendPolicy() {
+        return sendPolicy;
+    }
+
+    /**
+     * Makes send() queue the data for the I/O thread instead of writing it
+     * on the calling thread; null restores synchronous sends. Must be set
+     * before the connection is started
+     */
+    public void setSendPolicy(TcpSendPolicy policy) {
+        sendPolicy = policy;
+    }
+
+    /** Whether send() queues data instead of writing it */
+    public boolean isAsyncSend() {
+        return sendPolicy != null;
+    }
+
+    /** Gets the listener dispatch settings (null ==> on the I/O thread) */
+    public TcpDispatchPolicy getDispatchPolicy() {
+        return dispatchPolicy;
+    }
+
+    /**
+     * Makes the listeners run on the executor of the policy, see
+     * TcpDispatchPolicy; null calls them on the I/O thread. Must be set
+     * before the connection is started
+     */
+    public void setDispatchPolicy(TcpDispatchPolicy policy) {
+        dispatchPolicy = policy;
+    }
+
+    /** Gets the reconnect settings (null ==> no reconnect) */
+    public ReconnectPolicy getReconnectPolicy() {
+        return reconnectPolicy;
+    }
+
+    /**
+     * Makes a client connection served by a thread of its own connect again
+     * to the same remote address when the connection is lost, see
+     * ReconnectPolicy; null ends the connection instead
+     */
+    public void setReconnectPolicy(ReconnectPolicy policy) {
+        reconnectPolicy = policy;
+    }
+
+    /** Whether a lost connection is set up again */
+    protected boolean isReconnectEnabled() {
+        return reconnectPolicy != null && getEventLoop() == null;
+    }
+
+    /**
+     * Called by the service thread when the peer closed the connection or it
+     * failed; returns true if it is to be reconnected, which leaves it
+     * started with the socket closed. Otherwise (or if the inactivity
+     * timeout closed it) the connection is stopped
+     */
+    protected boolean onConnectionLost() {
+        if (isReconnectEnabled() == false || isInactivityExpired() == true) {
+            stop();
+            return false;
+        }
+        cancelInactivityTimer();
+        try {
+            socketClose();
+        } catch (IOException e) {
+            log.debug("error closing socket", e);
+        }
+        return true;
+    }
+
+    /**
+     * Sets the lost connection up again as the reconnect policy allows; run
+     * by the service thread, which stays running meanwhile so that stop()
+     * ends the wait. Returns false, having stopped the connection, if it
+     * was stopped or the policy gave up
+     */
+    protected boolean reconnect() {
+        ReconnectPolicy policy = reconnectPolicy;
+        InetSocketAddress remote = new InetSocketAddress(
+                getRemoteAddressInternal(),
+                getRemotePortInternal());
+        long lostTime = System.currentTimeMillis();
+        int attempts = 0;
+
+        while (policy != null && isStarted() == true) {
+            if (policy.getMaxAttempts() > 0
+                    && attempts >= policy.getMaxAttempts()) {
+                policy.recordGiveUp();
+                log.warn("giving up reconnecting to " + remote + " after "
+                        + attempts + " attempts");
+                break;
+            }
+            if (awaitReconnect(policy.getDelay(remote, attempts)) == false) {
+                break;
+            }
+            if (policy.tryAttempt(remote) == false) {
+                continue;
+            }
+            attempts++;
+            getMetrics().recordReconnectAttempt();
+            try {
+                reconnectSocket(remote, policy.getConnectTimeout());
+            } catch (IOException e) {
+                policy.recordFailure(remote);
+                log.debug("reconnect to " + remote + " failed", e);
+                continue;
+            }
+            policy.recordSuccess(remote);
+            getMetrics().recordReconnect(System.currentTimeMillis()
+                    - lostTime);
+            if (isStarted() == true) {
+                return true;
+            }
+        }
+        stop();
+        unregisterMetricsMBean();
+        return false;
+    }
+
+    /**
+     * waits while started, stop() unparks the thread; false if the
+     * connection was stopped
+     */
+    private boolean awaitReconnect(long delay) {
+        long deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(delay);
+        long left;
+
+        while (isStarted() == true) {
+            left = deadline - System.nanoTime();
+            if (left <= 0) {
+                return true;
+            }
+            LockSupport.parkNanos(this, left);
+        }
+        return false;
+    }
+
+    /**
+     * Connects a new socket to the remote address (from the local address
+     * of the lost one) and makes it the socket of the connection; the
+     * socket is set before it connects so that stop() aborts the connect
+     */
+    protected abstract void reconnectSocket(
+            InetSocketAddress remote,
+            int connectTimeout) throws IOException;
+
+    /** Gets the number of frames waiting for the listeners */
+    @Override
+    public int getDispatchQueueLength() {
+        return dispatchQueueLength.get();
+    }
+
+    /** called on the I/O thread by a dispatch queue that filled up */
+    void onDispatchQueueFull() {
+        if (fullDispatchQueues.getAndIncrement() == 0) {
+            onReceiveSuspendedChanged();
+        }
+    }
+
+    /** called by a full dispatch queue that has drained */
+    void onDispatchQueueDrained() {
+        if (fullDispatchQueues.decrementAndGet() == 0) {
+            onReceiveSuspendedChanged();
+        }
+    }
+
+    /**
+     * Whether reading has been stopped until the listeners catch up (event
+     * loop connections with the BLOCK dispatch policy)
+     */
+    public boolean isReceiveSuspended() {
+        return fullDispatchQueues.get() > 0;
+    }
+
+    /**
+     * Called on any thread when isReceiveSuspended() changes; event loop
+     * connections update their read interest to match
+     */
+    protected void onReceiveSuspendedChanged() {
+    }
+
+    /** Gets the event loop serving this connection (null ==> own thread) */
+    public NioEventLoop getEventLoop() {
+        return null;
+    }
+
+    public TcpWritabilityListener getWritabilityListener() {
+        return writabilityListener;
+    }
+
+    /** Sets the listener told when the send queue crosses its watermarks */
+    public void setWritabilityListener(TcpWritabilityListener listener) {
+        writabilityListener = listener;
+    }
+
+    /** Gets the number of bytes queued and not yet written */
+    public long getQueuedSendBytes() {
+        return queuedSendBytes.get();
+    }
+
+    @Override
+    protected long getSendQueueBytes() {
+        return queuedSendBytes.get();
+    }
+
+    /**
+     * Whether the send queue is below its high watermark (or has since
+     * drained to the low watermark); always true for synchronous sends
+     */
+    public boolean isWritable() {
+        return writable.get();
+    }
+
+    /**
+     * Writes out the queued data regardless of the flush policy; a no-op for
+     * synchronous sends which are flushed as they are written
+     */
+    public void flush() {
+        if (sendPolicy != null && queuedSendBytes.get() > 0) {
+            flushRequested = true;
+            onSendQueued(false, true);
+        }
+    }
+
+    /** Whether the queued data should be written now */
+    protected boolean isFlushDue(long currentTimeMillis) {
+        TcpSendPolicy policy = sendPolicy;
+        long queued = queuedSendBytes.get();
+
+        if (policy == null || queued <= 0) {
+            return false;
+        }
+        if (flushRequested == true) {
+            return true;
+        }
+        switch (policy.getFlushPolicy()) {
+        case BATCH_SIZE:
+            return queued >= policy.getFlushBatchSize();
+        case MAX_LATENCY:
+            return queued >= policy.getFlushBatchSize()
+                    || currentTimeMillis - sendQueueTime >= policy
+                            .getFlushMaxLatency();
+        default:
+            return true;
+        }
+    }
+
+    private void enqueueSend(ByteBuffer buf) {
+        TcpSendPolicy policy = sendPolicy;
+        int length = buf.remaining();
+
+        if (isStarted() == false || length == 0) {
+            return;
+        }
+
+        getMetrics().recordSent(length);
+        long queued = queuedSendBytes.addAndGet(length);
+        boolean first = (queued == length);
+        if (first == true) {
+            sendQueueTime = System.currentTimeMillis();
+        }
+        sendQueue.offer(buf);
+
+        if (queued > policy.getHighWatermark()
+                && writable.compareAndSet(true, false)) {
+            notifyWritabilityChanged(false);
+            // the I/O thread may have drained the queue in the meantime
+            updateWritability();
+        }
+        onSendQueued(first, isFlushDue(System.currentTimeMillis()));
+    }
+
+    private void updateWritability() {
+        TcpSendPolicy policy = sendPolicy;
+
+        if (policy != null
+                && queuedSendBytes.get() <= policy.getLowWatermark()
+                && writable.compareAndSet(false, true)) {
+            notifyWritabilityChanged(true);
+        }
+    }
+
+    private void notifyWritabilityChanged(boolean isWritable) {
+        TcpWritabilityListener listener = writabilityListener;
+
+        if (listener != null) {
+            listener.onWritabilityChanged(this, isWritable);
+        }
+    }
+
+    /**
+     * Called after a message is queued to wake the I/O thread; first is set
+     * if the queue was empty, flushDue if the data should be written now
+     */
+    protected void onSendQueued(boolean first, boolean flushDue) {
+        Thread t = sendThread;
+
+        if (t != null
+                && sendThreadParked == true
+                && (flushDue == true || (first == true && sendPolicy
+                        .getFlushPolicy() == TcpSendPolicy.FlushPolicy.MAX_LATENCY))) {
+            LockSupport.unpark(t);
+        }
+    }
+
+    /** Takes the next queued message; I/O thread only */
+    protected ByteBuffer pollSendQueue() {
+        return sendQueue.poll();
+    }
+
+    /** Accounts for queued bytes written to the socket; I/O thread only */
+    protected void onSendQueueWritten(long written) {
+        if (written > 0 && queuedSendBytes.addAndGet(-written) <= 0) {
+            flushRequested = false;
+        }
+        updateWritability();
+    }
+
+    /** Drops the queued data (connection closed) */
+    protected void clearSendQueue() {
+        ByteBuffer buf;
+        long dropped = 0;
+
+        while ((buf = sendQueue.poll()) != null) {
+            dropped += buf.remaining();
+        }
+        onSendQueueWritten(dropped);
+    }
+
+    /**
+     * Gets the channel to write the queue to with gathering writes; null
+     * ==> the data is coalesced in the output stream instead
+     */
+    protected GatheringByteChannel getGatheringChannel() {
+        return null;
+    }
+
+    /**
+     * Starts the thread writing the send queue; called by the connection
+     * thread when it starts running
+     */
+    protected void startSendQueue() {
+        if (sendPolicy == null) {
+            return;
+        }
+
+        Thread t;
+        if (getThreadFactory() != null) {
+            t = getThreadFactory().newThread(sendTask);
+        } else {
+            t = new Thread(sendTask);
+        }
+        t.setName(Thread.currentThread().getName() + ".Tx");
+        sendThread = t;
+        t.start();
+    }
+
+    /**
+     * Stops the thread writing the send queue and drops the queued data;
+     * called by the connection thread when it stops running
+     */
+    protected void stopSendQueue() {
+        Thread t = sendThread;
+
+        sendThread = null;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+        clearSendQueue();
+    }
+
+    private void runSendQueue() {
+        Thread self = Thread.currentThread();
+        ByteBuffer[] gather = new ByteBuffer[MAX_GATHER_BUFFERS];
+        long now;
+        long wait;
+
+        try {
+            while (isStarted() && sendThread == self) {
+                now = System.currentTimeMillis();
+                if (isFlushDue(now)) {
+                    writeSendQueue(gather);
+                    continue;
+                }
+
+                wait = (getSoTimeout() > 0) ? getSoTimeout() : 1000;
+                TcpSendPolicy policy = sendPolicy;
+                if (policy.getFlushPolicy() == TcpSendPolicy.FlushPolicy.MAX_LATENCY
+                        && queuedSendBytes.get() > 0) {
+                    wait = Math.max(1, sendQueueTime
+                            + policy.getFlushMaxLatency() - now);
+                }
+
+                // producers only unpark a parked thread, so check again
+                // after parking is announced
+                sendThreadParked = true;
+                if (isFlushDue(now) == false) {
+                    LockSupport.parkNanos(this, wait * 1000000L);
+                }
+                sendThreadParked = false;
+            }
+        } catch (IOException e) {
+            if (isStarted()) {
+                // closing the socket makes the reader report the error
+                log.error("send failed, closing connection", e);
+                try {
+                    socketClose();
+                } catch (IOException ce) {
+                    log.debug("socket close failed", ce);
+                }
+            }
+        }
+    }
+
+    /** writes out what is queued at the time of the call */
+    private void writeSendQueue(ByteBuffer[] gather) throws IOException {
+        GatheringByteChannel channel = getGatheringChannel();
+        long limit = queuedSendBytes.get();
+        long written = 0;
+        ByteBuffer buf;
+
+        try {
+            if (channel != null) {
+                int count = 0;
+                while (written < limit
+                        && (buf = pollSendQueue()) != null) {
+                    gather[count++] = buf;
+                    written += buf.remaining();
+                    if (count == gather.length) {
+                        writeFully(channel, gather, count);
+                        count = 0;
+                    }
+                }
+                writeFully(channel, gather, count);
+            } else {
+                OutputStream os = ostream;
+                while (written < limit
+                        && (buf = pollSendQueue()) != null) {
+                    int length = buf.remaining();
+                    if (buf.hasArray()) {
+                        os.write(buf.array(),
+                                buf.arrayOffset() + buf.position(),
+                                length);
+                    } else {
+                        byte[] tmp = new byte[length];
+                        buf.get(tmp);
+                        os.write(tmp);
+                    }
+                    written += length;
+                }
+                os.flush();
+            }
+        } finally {
+            onSendQueueWritten(written);
+        }
+    }
+
+    private static void writeFully(
+            GatheringByteChannel channel,
+            ByteBuffer[] gather,
+            int count) throws IOException {
+        int i = 0;
+
+        while (i < count) {
+            channel.write(gather, i, count - i);
+            while (i < count && gather[i].hasRemaining() == false) {
+                i++;
+            }
+        }
+        Arrays.fill(gather, 0, count, null);
+    }
+
     /** Sends data */
     public void send(byte[] buff, int offset, int len) throws IOException {
+        if (sendPolicy != null) {
+            enqueueSend(ByteBuffer.wrap(Arrays.copyOfRange(
+                    buff,
+                    offset,
+                    offset + len)));
+            return;
+        }
         if (isStarted() && ostream != null) {
             ostream.write(buff, offset, len);
             ostream.flush();
+            getMetrics().recordSent(len);
+        }
+    }
+
+    /**
+     * Sends the remaining bytes of buf. With a send policy set the buffer
+     * itself is queued (not copied) and must not be modified by the caller
+     * afterwards. Direct (e.g. mapped) buffers are written straight to the
+     * socket channel if there is one
+     */
+    public void send(ByteBuffer buf) throws IOException {
+        if (sendPolicy != null) {
+            enqueueSend(buf);
+            return;
+        }
+
+        GatheringByteChannel channel;
+        if (buf.hasArray() == false
+                && (channel = getGatheringChannel()) != null) {
+            if (isStarted()) {
+                int length = buf.remaining();
+                while (buf.hasRemaining()) {
+                    channel.write(buf);
+                }
+                getMetrics().recordSent(length);
+            }
+            return;
+        }
+        if (buf.hasArray()) {
+            send(buf.array(), buf.arrayOffset() + buf.position(),
+                    buf.remaining());
+        } else {
+            byte[] tmp = new byte[buf.remaining()];
+            buf.duplicate().get(tmp);
+            send(tmp, 0, tmp.length);
         }
+        buf.position(buf.limit());
     }
 
     /** Sends data */
@@ -140,6 +1008,243 @@ abstract public class GenericTcpConnection<
         send(buff, 0, length);
     }
 
+    /**
+     * Sends count bytes of src starting at position, blocking until they
+     * have been handed to the socket; returns the bytes sent. Plain
+     * connections with a socket channel send straight from the file cache
+     * (FileChannel.transferTo), others copy through a pooled buffer.
+     * Data sent earlier is written first; data sent by other threads
+     * during the transfer may be interleaved with it. Progress and
+     * completion are reported to the listener (null ==> none)
+     */
+    public long transferFrom(
+            FileChannel src,
+            long position,
+            long count,
+            TcpTransferListener listener) throws IOException {
+        long sent = 0;
+
+        if (position < 0 || count < 0) {
+            throw new IllegalArgumentException("invalid position/count : "
+                    + position + "/" + count);
+        }
+        NioEventLoop loop = getEventLoop();
+        if (loop != null && loop.inEventLoop()) {
+            throw new IllegalStateException(
+                    "file transfers block, not allowed on the event loop");
+        }
+
+        synchronized (transferLock) {
+            PooledBuffer scratch =
+                    BufferPool.getDefault().lease(TRANSFER_CHUNK_SIZE);
+            try {
+                if (sendPolicy != null) {
+                    flush();
+                    awaitSendQueueDrained();
+                }
+                while (sent < count) {
+                    if (isStarted() == false) {
+                        throw new IOException("connection closed");
+                    }
+                    long n = transferChunk(src,
+                            position + sent,
+                            (int) Math.min(count - sent, TRANSFER_CHUNK_SIZE),
+                            scratch.array());
+                    if (n <= 0) {
+                        if (position + sent >= src.size()) {
+                            throw new EOFException("end of file after "
+                                    + sent + " of " + count + " bytes");
+                        }
+                        continue;
+                    }
+                    sent += n;
+                    if (listener != null) {
+                        listener.onTransferProgress(this, sent, count);
+                    }
+                }
+                if (sendPolicy != null) {
+                    // copied chunks may still be queued behind the policy
+                    flush();
+                    awaitSendQueueDrained();
+                }
+            } catch (IOException e) {
+                if (listener != null) {
+                    listener.onTransferCompleted(this, sent, e);
+                }
+                throw e;
+            } catch (RuntimeException e) {
+                if (listener != null) {
+                    listener.onTransferCompleted(this, sent, e);
+                }
+                throw e;
+            } finally {
+                endTransfer();
+                scratch.release();
+            }
+        }
+        if (listener != null) {
+            listener.onTransferCompleted(this, sent, null);
+        }
+        return sent;
+    }
+
+    /** Sends count bytes of src from position, see transferFrom() */
+    public long transferFrom(FileChannel src, long position, long count)
+            throws IOException {
+        return transferFrom(src, position, count, null);
+    }
+
+    /**
+     * Sends length bytes of the file starting at offset on the transfer
+     * executor and returns at once; the outcome is reported to the
+     * listener, see transferFrom()
+     */
+    public void sendFile(
+            final Path path,
+            final long offset,
+            final long length,
+            final TcpTransferListener listener) {
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                FileChannel src = null;
+
+                try {
+                    src = FileChannel.open(path, StandardOpenOption.READ);
+                } catch (IOException e) {
+                    listener.onTransferCompleted(
+                            GenericTcpConnection.this, 0, e);
+                    return;
+                }
+                try {
+                    transferFrom(src, offset, length, listener);
+                } catch (Exception e) {
+                    log.debug("transfer of " + path + " failed", e);
+                } finally {
+                    try {
+                        src.close();
+                    } catch (IOException e) {
+                        log.debug("unable to close " + path, e);
+                    }
+                }
+            }
+        };
+
+        if (listener == null) {
+            throw new IllegalArgumentException("listener is null");
+        }
+        try {
+            getTransferExecutor().execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    /**
+     * Sends one chunk of a transfer; returns the bytes sent, 0 if none
+     * could be sent yet. scratch may be used to copy the data through
+     */
+    protected long transferChunk(
+            FileChannel src,
+            long position,
+            int length,
+            byte[] scratch) throws IOException {
+        GatheringByteChannel channel = getGatheringChannel();
+
+        if (channel != null) {
+            long n = src.transferTo(position, length, channel);
+            getMetrics().recordBytesSent(n);
+            return n;
+        }
+
+        if (sendPolicy != null) {
+            awaitWritable();
+        }
+        ByteBuffer buf = ByteBuffer.wrap(scratch, 0, length);
+        int n = src.read(buf, position);
+        if (n > 0) {
+            // send() copies whatever it cannot write at once
+            send(scratch, 0, n);
+        }
+        return n;
+    }
+
+    /** releases whatever a transfer set up; called when it ends */
+    protected void endTransfer() {
+    }
+
+    /** waits until the send queue is below its high watermark */
+    private void awaitWritable() throws IOException {
+        while (writable.get() == false) {
+            if (isStarted() == false) {
+                throw new IOException("connection closed");
+            }
+            LockSupport.parkNanos(this, 1000000L);
+        }
+    }
+
+    /** waits until the asynchronous send queue has been written */
+    private void awaitSendQueueDrained() throws IOException {
+        while (queuedSendBytes.get() > 0) {
+            if (isStarted() == false) {
+                throw new IOException("connection closed");
+            }
+            LockSupport.parkNanos(this, 1000000L);
+        }
+    }
+
+    /** Gets the executor running sendFile() transfers */
+    public Executor getTransferExecutor() {
+        Executor executor = transferExecutor;
+
+        return (executor == null) ? getDefaultTransferExecutor() : executor;
+    }
+
+    /** Sets the executor running sendFile() transfers, null ==> shared */
+    public void setTransferExecutor(Executor executor) {
+        transferExecutor = executor;
+    }
+
+    /**
+     * Creates a bounded pool of daemon threads for sendFile() transfers.
+     * Transfers that do not fit into the queue are run on the caller
+     */
+    public static ThreadPoolExecutor newTransferExecutor(int nThreads) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                nThreads,
+                nThreads,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(
+                        DEFAULT_TRANSFER_QUEUE_LENGTH),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r);
+                        t.setName(GenericTcpConnection.class.getName()
+                                + ".Transfer" + threadCount.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /** Gets the transfer pool shared by connections without one */
+    public static Executor getDefaultTransferExecutor() {
+        if (defaultTransferExecutor == null) {
+            synchronized (GenericTcpConnection.class) {
+                if (defaultTransferExecutor == null) {
+                    defaultTransferExecutor =
+                            newTransferExecutor(DEFAULT_TRANSFER_THREADS);
+                }
+            }
+        }
+        return defaultTransferExecutor;
+    }
+
     @Override
     public void onReceivedData(
             TcpConnectionType tcp,
@@ -147,7 +1252,7 @@ abstract public class GenericTcpConnection<
             int offset,
             int length) {
         TcpConnectionListenerType listener =
-                getConnectionListener(data, 0, length);
+                getConnectionListener(data, offset, length);
 
         if (listener == null) {
             getDefaultListener().onReceivedData(tcp, data, offset, length);
@@ -164,9 +1269,37 @@ abstract public class GenericTcpConnection<
         ListenerInfo<TcpConnectionListenerType> linfo;
 
         while ((linfo = getNextConnectionMapListEntry(it)) != null) {
-            linfo.getListener().onConnectionTerminated(tcp, error);
+            terminated(linfo.getListener(), tcp, error);
+        }
+        terminated(getDefaultListener(), tcp, error);
+        // kept while reconnecting
+        if (isStarted() == false || isReconnectEnabled() == false) {
+            unregisterMetricsMBean();
+        }
+    }
+
+    /** tells the listener, after the frames queued for it if there are any */
+    private void terminated(
+            final TcpConnectionListenerType listener,
+            final TcpConnectionType tcp,
+            final Exception error) {
+        TcpDispatchQueue queue = dispatchQueues.get(listener);
+
+        if (queue == null) {
+            listener.onConnectionTerminated(tcp, error);
+            return;
         }
-        getDefaultListener().onConnectionTerminated(tcp, error);
+        queue.offer(new TcpDispatchQueue.Task() {
+            @Override
+            void run() {
+                listener.onConnectionTerminated(tcp, error);
+            }
+
+            @Override
+            boolean isDroppable() {
+                return false;
+            }
+        });
     }
 
     @Override
@@ -176,7 +1309,7 @@ abstract public class GenericTcpConnection<
             int offset,
             int length) {
         TcpConnectionListenerType listener =
-                getConnectionListener(data, 0, length);
+                getConnectionListener(data, offset, length);
 
         if (listener == null) {
             getDefaultListener().onErrorReceivedSmallPacket(
@@ -196,7 +1329,7 @@ abstract public class GenericTcpConnection<
             int offset,
             int length) {
         TcpConnectionListenerType listener =
-                getConnectionListener(data, 0, length);
+                getConnectionListener(data, offset, length);
 
         if (listener == null) {
             getDefaultListener().onErrorReceivedLargePacket(
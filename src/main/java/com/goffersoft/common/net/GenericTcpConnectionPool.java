@@ -0,0 +1,678 @@
+/**
+ ** File: GenericTcpConnectionPool.java
+ **
+ ** Description : GenericTcpConnectionPool class - client connections kept
+ **               open per remote address and leased out again
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Connections are created with connect() on demand, up to getMaxTotal() per
+ * remote address, and returned to the pool by release(). Idle connections
+ * are leased most recently used first. A sweep on the timer (the shared
+ * inactivity timer unless set) drops idle connections that have been
+ * closed, e.g. by the peer or the context inactivity timeout, closes the
+ * ones idle for longer than getIdleTimeout() beyond getMinIdle() and opens
+ * connections to addresses that have fewer than getMinIdle(). A lease that
+ * finds the address at getMaxTotal() waits for a release for up to
+ * getLeaseTimeout(). Futures are completed on the timer, event loop or
+ * releasing thread
+ */
+//@formatter:off
+public abstract class GenericTcpConnectionPool<
+                                ConnectionType
+                                    extends
+                                    GenericTcpConnection<?, ?, ?>> {
+//@formatter:on
+    private static final Logger log = Logger
+            .getLogger(GenericTcpConnectionPool.class);
+
+    /** Default number of connections (leased, idle or opening) per address */
+    public static final int DEFAULT_MAX_TOTAL = 8;
+
+    /** Default number of idle connections kept open per address */
+    public static final int DEFAULT_MIN_IDLE = 0;
+
+    /** Default number of idle connections per address, more are closed */
+    public static final int DEFAULT_MAX_IDLE = 8;
+
+    /** Default time in milliseconds a connection may stay idle */
+    public static final long DEFAULT_IDLE_TIMEOUT = 60000;
+
+    /** Default time in milliseconds a lease waits for a connection */
+    public static final long DEFAULT_LEASE_TIMEOUT = 30000;
+
+    /** Default time in milliseconds between sweeps of the idle connections */
+    public static final long DEFAULT_EVICTION_INTERVAL = 5000;
+
+    volatile private int maxTotal = DEFAULT_MAX_TOTAL;
+    volatile private int minIdle = DEFAULT_MIN_IDLE;
+    volatile private int maxIdle = DEFAULT_MAX_IDLE;
+    volatile private long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+    volatile private long leaseTimeout = DEFAULT_LEASE_TIMEOUT;
+    volatile private long evictionInterval = DEFAULT_EVICTION_INTERVAL;
+    volatile private HashedWheelTimer timer;
+
+    private final ConcurrentHashMap<InetSocketAddress, KeyPool> pools =
+            new ConcurrentHashMap<InetSocketAddress, KeyPool>();
+
+    /** the pool each leased connection belongs to */
+    private final ConcurrentHashMap<ConnectionType, KeyPool> leases =
+            new ConcurrentHashMap<ConnectionType, KeyPool>();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder createCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder leaseTimeoutCount = new LongAdder();
+    private final LongAdder connectFailureCount = new LongAdder();
+
+    /** the next sweep, null until the first lease (guarded by this) */
+    private HashedWheelTimer.Timeout evictionTimeout;
+
+    /** increased to stop the previous sweeps (guarded by this) */
+    private int sweepGeneration;
+
+    volatile private boolean closed;
+
+    protected GenericTcpConnectionPool() {
+    }
+
+    /** Opens a connection to the remote address */
+    protected abstract CompletableFuture<ConnectionType> connect(
+            InetSocketAddress remote);
+
+    /** Gets the most connections per address (leased, idle or opening) */
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(int maxTotal) {
+        if (maxTotal <= 0) {
+            throw new IllegalArgumentException("invalid max total : "
+                    + maxTotal);
+        }
+        this.maxTotal = maxTotal;
+    }
+
+    /** Gets the number of idle connections the sweep keeps per address */
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public void setMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+    }
+
+    /** Gets the most idle connections per address */
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+
+    public void setMaxIdle(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    /** Gets the time in milliseconds a connection may stay idle, 0 ==> any */
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    /** Gets the time in milliseconds a lease waits, 0 ==> no limit */
+    public long getLeaseTimeout() {
+        return leaseTimeout;
+    }
+
+    public void setLeaseTimeout(long leaseTimeout) {
+        this.leaseTimeout = leaseTimeout;
+    }
+
+    public long getEvictionInterval() {
+        return evictionInterval;
+    }
+
+    /** Reschedules the next sweep */
+    public synchronized void setEvictionInterval(long evictionInterval) {
+        if (evictionInterval <= 0) {
+            throw new IllegalArgumentException("invalid eviction interval : "
+                    + evictionInterval);
+        }
+        this.evictionInterval = evictionInterval;
+        if (evictionTimeout != null) {
+            stopEvictionTimer();
+            scheduleSweep();
+        }
+    }
+
+    /** Gets the timer of the sweeps and lease timeouts */
+    public HashedWheelTimer getTimer() {
+        HashedWheelTimer t = timer;
+
+        return (t == null) ? HashedWheelTimer.getDefault() : t;
+    }
+
+    /** Sets the timer, null ==> the shared default; set before first use */
+    public void setTimer(HashedWheelTimer timer) {
+        this.timer = timer;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Leases a connection to the remote address: an idle one if there is
+     * one, a new one if the address has fewer than getMaxTotal(), otherwise
+     * the next one released. Fails with a SocketTimeoutException after
+     * getLeaseTimeout()
+     */
+    public CompletableFuture<ConnectionType> leaseAsync(
+            InetSocketAddress remote) {
+        if (closed == true) {
+            return failed(new IllegalStateException("pool is closed"));
+        }
+
+        KeyPool p = getKeyPool(remote);
+        ConnectionType conn = null;
+        List<ConnectionType> dead = null;
+        CompletableFuture<ConnectionType> f = null;
+        boolean create = false;
+
+        synchronized (p) {
+            Idle idle;
+            while ((idle = p.idle.pollFirst()) != null) {
+                if (isAlive(idle.conn) == true) {
+                    conn = idle.conn;
+                    p.leased++;
+                    break;
+                }
+                dead = add(dead, idle.conn);
+            }
+            if (conn == null) {
+                f = new CompletableFuture<ConnectionType>();
+                if (p.getTotal() < maxTotal) {
+                    p.pending++;
+                    create = true;
+                } else {
+                    p.waiters.add(f);
+                }
+            }
+        }
+        evict(dead);
+        if (conn != null) {
+            leases.put(conn, p);
+            hitCount.increment();
+            return CompletableFuture.completedFuture(conn);
+        }
+        startLeaseTimer(p, f);
+        if (create == true) {
+            create(p, f);
+        }
+        return f;
+    }
+
+    /** Leases a connection, blocking the caller; see leaseAsync() */
+    public ConnectionType lease(InetSocketAddress remote) throws IOException {
+        try {
+            return leaseAsync(remote).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("lease interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Returns a leased connection; it is passed to a waiting lease, kept idle
+     * or, if closed or there are getMaxIdle() idle ones already, closed
+     */
+    public void release(ConnectionType conn) {
+        KeyPool p = leases.remove(conn);
+
+        if (p == null) {
+            log.warn("released connection is not leased from the pool : "
+                    + conn);
+            return;
+        }
+        if (closed == true || isAlive(conn) == false) {
+            discard(p, conn);
+            return;
+        }
+
+        while (true) {
+            CompletableFuture<ConnectionType> waiter;
+            boolean keep = false;
+
+            synchronized (p) {
+                waiter = p.waiters.pollFirst();
+                if (waiter == null) {
+                    p.leased--;
+                    if (p.idle.size() < maxIdle) {
+                        p.idle.addFirst(new Idle(conn));
+                        keep = true;
+                    }
+                }
+            }
+            if (waiter == null) {
+                if (keep == false) {
+                    evict(conn);
+                }
+                return;
+            }
+            leases.put(conn, p);
+            if (waiter.complete(conn) == true) {
+                hitCount.increment();
+                return;
+            }
+            leases.remove(conn);
+        }
+    }
+
+    /** Closes a leased connection that must not be reused */
+    public void invalidate(ConnectionType conn) {
+        KeyPool p = leases.remove(conn);
+
+        if (p == null) {
+            conn.stop();
+            return;
+        }
+        discard(p, conn);
+    }
+
+    /**
+     * Closes the idle connections and fails the waiting leases; leased
+     * connections are closed when released
+     */
+    public void close() {
+        closed = true;
+        synchronized (this) {
+            stopEvictionTimer();
+        }
+        for (KeyPool p : pools.values()) {
+            List<ConnectionType> idle = new ArrayList<ConnectionType>();
+            List<CompletableFuture<ConnectionType>> waiters;
+
+            synchronized (p) {
+                for (Idle i : p.idle) {
+                    idle.add(i.conn);
+                }
+                p.idle.clear();
+                waiters = new ArrayList<CompletableFuture<ConnectionType>>(
+                        p.waiters);
+                p.waiters.clear();
+            }
+            evict(idle);
+            for (CompletableFuture<ConnectionType> w : waiters) {
+                w.completeExceptionally(new IllegalStateException(
+                        "pool is closed"));
+            }
+        }
+    }
+
+    /** Whether the connection is still open */
+    protected boolean isAlive(ConnectionType conn) {
+        return conn.isStarted();
+    }
+
+    private KeyPool getKeyPool(InetSocketAddress remote) {
+        KeyPool p = pools.get(remote);
+
+        if (p == null) {
+            KeyPool tmp = new KeyPool(remote);
+            p = pools.putIfAbsent(remote, tmp);
+            if (p == null) {
+                p = tmp;
+                startEvictionTimer();
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Opens a connection for the lease, or to be kept idle if f is null
+     * (p.pending has been counted)
+     */
+    private void create(
+            final KeyPool p,
+            final CompletableFuture<ConnectionType> f) {
+        CompletableFuture<ConnectionType> c;
+
+        try {
+            c = connect(p.remote);
+        } catch (RuntimeException e) {
+            c = failed(e);
+        }
+        c.whenComplete(new BiConsumer<ConnectionType, Throwable>() {
+            @Override
+            public void accept(ConnectionType conn, Throwable error) {
+                if (error != null) {
+                    connectFailureCount.increment();
+                    synchronized (p) {
+                        p.pending--;
+                    }
+                    if (f != null) {
+                        f.completeExceptionally(error);
+                    }
+                    serveWaiters(p);
+                    return;
+                }
+                createCount.increment();
+                if (conn.isStarted() == false) {
+                    conn.start();
+                }
+                synchronized (p) {
+                    p.pending--;
+                    p.leased++;
+                }
+                leases.put(conn, p);
+                if (f == null || f.complete(conn) == false) {
+                    release(conn);
+                }
+            }
+        });
+    }
+
+    /** opens connections for waiting leases while the address has room */
+    private void serveWaiters(KeyPool p) {
+        List<CompletableFuture<ConnectionType>> served = null;
+
+        synchronized (p) {
+            while (p.getTotal() < maxTotal && p.waiters.isEmpty() == false) {
+                CompletableFuture<ConnectionType> w = p.waiters.pollFirst();
+                if (w.isDone() == false) {
+                    p.pending++;
+                    served = add(served, w);
+                }
+            }
+        }
+        if (served != null) {
+            for (CompletableFuture<ConnectionType> w : served) {
+                create(p, w);
+            }
+        }
+    }
+
+    private void discard(KeyPool p, ConnectionType conn) {
+        synchronized (p) {
+            p.leased--;
+        }
+        conn.stop();
+        serveWaiters(p);
+    }
+
+    private void startLeaseTimer(
+            final KeyPool p,
+            final CompletableFuture<ConnectionType> f) {
+        long timeout = leaseTimeout;
+
+        if (timeout <= 0) {
+            return;
+        }
+
+        final HashedWheelTimer.Timeout t = getTimer().newTimeout(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        // counted first, the caller may look once it fails
+                        leaseTimeoutCount.increment();
+                        if (f.completeExceptionally(new SocketTimeoutException(
+                                "lease of " + p.remote + " timed out"))) {
+                            synchronized (p) {
+                                p.waiters.remove(f);
+                            }
+                        } else {
+                            leaseTimeoutCount.decrement();
+                        }
+                    }
+                }, timeout);
+        f.whenComplete(new BiConsumer<ConnectionType, Throwable>() {
+            @Override
+            public void accept(ConnectionType conn, Throwable error) {
+                t.cancel();
+            }
+        });
+    }
+
+    private synchronized void startEvictionTimer() {
+        if (evictionTimeout != null || closed == true) {
+            return;
+        }
+        scheduleSweep();
+    }
+
+    /** (holding this) */
+    private void scheduleSweep() {
+        evictionTimeout = getTimer().newTimeout(new Sweeper(sweepGeneration),
+                evictionInterval);
+    }
+
+    /** (holding this) */
+    private void stopEvictionTimer() {
+        if (evictionTimeout != null) {
+            evictionTimeout.cancel();
+        }
+        sweepGeneration++;
+    }
+
+    /**
+     * Drops the closed idle connections, closes the ones idle for too long
+     * beyond getMinIdle() and tops the addresses up to getMinIdle()
+     */
+    private void sweep() {
+        long now = System.currentTimeMillis();
+
+        for (KeyPool p : pools.values()) {
+            List<ConnectionType> evicted = null;
+            int deficit;
+
+            synchronized (p) {
+                Iterator<Idle> it = p.idle.descendingIterator();
+                while (it.hasNext()) {
+                    Idle idle = it.next();
+                    if (isAlive(idle.conn) == false
+                            || (idleTimeout > 0
+                                    && now - idle.since > idleTimeout
+                                    && p.idle.size() > minIdle)) {
+                        it.remove();
+                        evicted = add(evicted, idle.conn);
+                    }
+                }
+                deficit = Math.min(minIdle - p.idle.size() - p.pending,
+                        maxTotal - p.getTotal());
+                if (deficit > 0) {
+                    p.pending += deficit;
+                }
+            }
+            evict(evicted);
+            for (int i = 0; i < deficit; i++) {
+                create(p, null);
+            }
+        }
+    }
+
+    private void evict(ConnectionType conn) {
+        evictionCount.increment();
+        conn.stop();
+    }
+
+    private void evict(List<ConnectionType> list) {
+        if (list != null) {
+            for (ConnectionType conn : list) {
+                evict(conn);
+            }
+        }
+    }
+
+    private static < T > List<T> add(List<T> list, T item) {
+        if (list == null) {
+            list = new ArrayList<T>();
+        }
+        list.add(item);
+        return list;
+    }
+
+    private static < T > CompletableFuture<T> failed(Throwable error) {
+        CompletableFuture<T> f = new CompletableFuture<T>();
+
+        f.completeExceptionally(error);
+        return f;
+    }
+
+    /** Gets the number of leases served by an open connection */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /** Gets the number of connections opened */
+    public long getCreateCount() {
+        return createCount.sum();
+    }
+
+    /**
+     * Gets the number of connections closed by the pool: idle for too long,
+     * found closed or beyond getMaxIdle()
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /** Gets the number of leases that timed out */
+    public long getLeaseTimeoutCount() {
+        return leaseTimeoutCount.sum();
+    }
+
+    /** Gets the number of connects that failed */
+    public long getConnectFailureCount() {
+        return connectFailureCount.sum();
+    }
+
+    /** Gets the number of idle connections to all addresses */
+    public int getIdleCount() {
+        int count = 0;
+
+        for (KeyPool p : pools.values()) {
+            synchronized (p) {
+                count += p.idle.size();
+            }
+        }
+        return count;
+    }
+
+    /** Gets the number of idle connections to the address */
+    public int getIdleCount(InetSocketAddress remote) {
+        KeyPool p = pools.get(remote);
+
+        if (p == null) {
+            return 0;
+        }
+        synchronized (p) {
+            return p.idle.size();
+        }
+    }
+
+    /** Gets the number of leased connections */
+    public int getLeasedCount() {
+        return leases.size();
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return ("GenericTcpConnectionPool: Addresses=" + pools.size()
+                + ", Idle=" + getIdleCount() + ", Leased=" + getLeasedCount()
+                + ", Hits=" + getHitCount() + ", Creates=" + getCreateCount()
+                + ", Evictions=" + getEvictionCount() + ", LeaseTimeouts="
+                + getLeaseTimeoutCount() + ", ConnectFailures="
+                + getConnectFailureCount());
+    }
+
+    /** runs a sweep and schedules the next one, unless stopped */
+    private final class Sweeper
+            implements
+            Runnable {
+        private final int generation;
+
+        Sweeper(int generation) {
+            this.generation = generation;
+        }
+
+        @Override
+        public void run() {
+            synchronized (GenericTcpConnectionPool.this) {
+                if (generation != sweepGeneration) {
+                    return;
+                }
+            }
+            try {
+                sweep();
+            } catch (RuntimeException e) {
+                log.error("connection pool sweep failed", e);
+            }
+            synchronized (GenericTcpConnectionPool.this) {
+                if (generation == sweepGeneration && closed == false) {
+                    scheduleSweep();
+                }
+            }
+        }
+    }
+
+    /** an idle connection and when it was released */
+    private final class Idle {
+        private final ConnectionType conn;
+        private final long since = System.currentTimeMillis();
+
+        Idle(ConnectionType conn) {
+            this.conn = conn;
+        }
+    }
+
+    /** the connections to one address (guarded by itself) */
+    private final class KeyPool {
+        private final InetSocketAddress remote;
+
+        /** most recently released first */
+        private final ArrayDeque<Idle> idle = new ArrayDeque<Idle>();
+
+        private final ArrayDeque<CompletableFuture<ConnectionType>> waiters =
+                new ArrayDeque<CompletableFuture<ConnectionType>>();
+
+        private int leased;
+
+        /** connects in progress */
+        private int pending;
+
+        KeyPool(InetSocketAddress remote) {
+            this.remote = remote;
+        }
+
+        int getTotal() {
+            return idle.size() + leased + pending;
+        }
+    }
+}
@@ -11,9 +11,10 @@ package com.goffersoft.common.net;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.log4j.Logger;
 
@@ -60,7 +61,13 @@ abstract public class GenericTcpServer <
 
     static final public int DEFAULT_SERVER_SOCKET_BACKLOG = 50;
 
-    volatile private List<TcpConnectionType> tcpConnectionList;
+    /** live connections, added by the acceptor or setup threads and removed
+     * by the connections as they terminate */
+    private final TcpConnectionRegistry<TcpConnectionType> connectionRegistry =
+            new TcpConnectionRegistry<TcpConnectionType>();
+
+    /** counts of the connections that have terminated */
+    private final ConnectionMetrics terminatedMetrics = new ConnectionMetrics();
     volatile private int local_port;
 
     volatile private InetAddress local_addr;
@@ -76,24 +83,137 @@ abstract public class GenericTcpServer <
 
     protected GenericTcpServer() {
         super(null, null);
-        tcpConnectionList = new LinkedList<TcpConnectionType>();
     }
 
     protected GenericTcpServer(TcpServerSocketType s, Thread t) {
         super(s, t);
     }
 
+    /** Gets a weakly consistent iterator over the live connections */
     protected Iterator<TcpConnectionType> getTcpConnectionListIterator() {
-        return tcpConnectionList.iterator();
+        return connectionRegistry.iterator();
+    }
+
+    /** Gets the registry of live connections */
+    protected TcpConnectionRegistry<TcpConnectionType> getConnectionRegistry() {
+        return connectionRegistry;
+    }
+
+    /** Gets the live connection with the id (null ==> none) */
+    public TcpConnectionType getConnection(long connectionId) {
+        return connectionRegistry.get(connectionId);
+    }
+
+    /** Gets the live connection from the remote address (null ==> none) */
+    public TcpConnectionType getConnection(InetSocketAddress remoteAddress) {
+        return connectionRegistry.get(remoteAddress);
+    }
+
+    /** Gets the number of live connections */
+    public int getConnectionCount() {
+        return connectionRegistry.size();
+    }
+
+    /**
+     * Gets the metrics of all connections accepted so far: the counts of the
+     * terminated connections plus those of the live ones. Takes time in
+     * proportion to the number of live connections
+     */
+    @Override
+    public ConnectionMetrics.Snapshot getMetricsSnapshot() {
+        ConnectionMetrics total = new ConnectionMetrics();
+        int connections = 0;
+        long queued = 0;
+        long dispatchQueued = 0;
+
+        total.add(terminatedMetrics);
+        for (TcpConnectionType conn : connectionRegistry) {
+            total.add(conn.getMetrics());
+            queued += conn.getQueuedSendBytes();
+            dispatchQueued += conn.getDispatchQueueLength();
+            connections++;
+        }
+        return total.getSnapshot(connections, queued, dispatchQueued);
     }
 
-    protected List<TcpConnectionType> getTcpConnectionList() {
-        return tcpConnectionList;
+    /** Sends data to all live connections, see broadcast(ByteBuffer) */
+    public TcpBroadcastResult<TcpConnectionType> broadcast(byte[] buff) {
+        return broadcast(ByteBuffer.wrap(buff), null);
     }
 
-    protected void setTcpConnectionList(
-            List<TcpConnectionType> tcpConnectionList) {
-        this.tcpConnectionList = tcpConnectionList;
+    /** Sends data to all live connections, see broadcast(ByteBuffer) */
+    public TcpBroadcastResult<TcpConnectionType> broadcast(byte[] buff,
+            int offset, int len) {
+        return broadcast(ByteBuffer.wrap(buff, offset, len), null);
+    }
+
+    /** Sends the remaining bytes of buf to all live connections */
+    public TcpBroadcastResult<TcpConnectionType> broadcast(ByteBuffer buf) {
+        return broadcast(buf, null);
+    }
+
+    /**
+     * Sends the remaining bytes of buf to all live connections. The bytes
+     * are shared by all connections (each gets its own view, not a copy) and
+     * must not be modified until the returned result is done, or, with
+     * asynchronous sends, until the queued data has been written. Event loop
+     * connections are written on their event loops; connections with their
+     * own threads are written on the executor (null ==> the calling thread),
+     * and connections with a send policy just queue the data. Failures are
+     * reported per connection in the result rather than thrown
+     */
+    public TcpBroadcastResult<TcpConnectionType> broadcast(ByteBuffer buf,
+            Executor executor) {
+        final ByteBuffer data = buf.slice();
+        final TcpBroadcastResult<TcpConnectionType> result =
+                new TcpBroadcastResult<TcpConnectionType>();
+        Iterator<TcpConnectionType> it = connectionRegistry.iterator();
+
+        buf.position(buf.limit());
+        while (it.hasNext()) {
+            TcpConnectionType conn = it.next();
+            if (conn == null || conn.isStarted() == false) {
+                continue;
+            }
+            result.onDispatched();
+            dispatchBroadcast(conn, data.duplicate(), result, executor);
+        }
+        result.onDispatchCompleted();
+        return result;
+    }
+
+    private void dispatchBroadcast(final TcpConnectionType conn,
+            final ByteBuffer data,
+            final TcpBroadcastResult<TcpConnectionType> result,
+            Executor executor) {
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    conn.send(data);
+                    result.onSucceeded(conn);
+                } catch (Exception e) {
+                    log.debug("broadcast to " + conn + " failed", e);
+                    result.onFailed(conn, e);
+                }
+            }
+        };
+        NioEventLoop loop = conn.getEventLoop();
+
+        if (conn.isAsyncSend() == true) {
+            // only queues the data
+            task.run();
+        } else if (loop != null) {
+            loop.execute(task);
+        } else if (executor != null) {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.run();
+            }
+        } else {
+            task.run();
+        }
     }
 
     protected TcpConnectionType getNextTcpConnectionListEntry(
@@ -183,7 +303,9 @@ abstract public class GenericTcpServer <
 
     @Override
     public void onConnectionTerminated(TcpConnectionType tcp, Exception error) {
-        getTcpConnectionList().remove(tcp);
+        if (connectionRegistry.remove(tcp) == true) {
+            terminatedMetrics.add(tcp.getMetrics());
+        }
     }
 
     @Override
@@ -200,7 +322,8 @@ abstract public class GenericTcpServer <
 
     @Override
     public void onServerTerminated(TcpServerType tcp_server, Exception error) {
-        Iterator<TcpConnectionType> it_conn = getTcpConnectionListIterator();
+        // connections remove themselves from the registry as they terminate
+        Iterator<TcpConnectionType> it_conn = connectionRegistry.iterator();
 
         while (it_conn.hasNext()) {
             TcpConnectionType tcpConn = it_conn.next();
@@ -217,6 +340,7 @@ abstract public class GenericTcpServer <
             info.getListener().onServerTerminated(tcp_server, error);
         }
         getDefaultListener().onServerTerminated(tcp_server, error);
+        unregisterMetricsMBean();
     }
 
     @Override
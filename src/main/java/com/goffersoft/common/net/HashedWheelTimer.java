@@ -0,0 +1,424 @@
+/**
+ ** File: HashedWheelTimer.java
+ **
+ ** Description : HashedWheelTimer class - a single thread serving a large
+ **               number of coarse timeouts (inactivity, state machines)
+ **               from a hashed wheel
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Timeouts are hashed onto a wheel of getWheelSize() slots that advances
+ * one slot every getTickDuration() milliseconds, so adding, cancelling and
+ * refreshing a timeout are O(1) and a timeout fires at most one tick after
+ * its deadline. Refreshing a timeout to a later deadline only updates the
+ * deadline; the timeout is moved when its slot comes around. Tasks run on
+ * the timer thread and must not block
+ */
+public class HashedWheelTimer
+        implements
+        Runnable {
+
+    private static final Logger log = Logger.getLogger(HashedWheelTimer.class);
+
+    /** Default tick duration (in milliseconds), the timer resolution */
+    public static final long DEFAULT_TICK_DURATION = 100;
+
+    /** Default number of slots on the wheel */
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private static HashedWheelTimer defaultTimer;
+
+    private final long tickDuration;
+
+    private final Slot[] wheel;
+
+    private final int mask;
+
+    /** timeouts added, cancelled or moved to an earlier deadline */
+    private final ConcurrentLinkedQueue<Timeout> changes;
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    /** time the wheel started turning (timer thread only) */
+    private long startTime;
+
+    /** next tick to be processed (timer thread only) */
+    private long tick;
+
+    /** Whether it has been halted */
+    volatile private boolean start;
+
+    /** Whether it has been stopped for good */
+    volatile private boolean stopped;
+
+    /** Whether the thread is running or not */
+    volatile private boolean isRunning;
+
+    /** timer thread */
+    volatile private Thread timerThread;
+
+    public HashedWheelTimer() {
+        this(DEFAULT_TICK_DURATION, DEFAULT_WHEEL_SIZE);
+    }
+
+    /** wheelSize is rounded up to a power of two */
+    public HashedWheelTimer(long tickDuration, int wheelSize) {
+        if (tickDuration <= 0 || wheelSize <= 0 || wheelSize > (1 << 20)) {
+            throw new IllegalArgumentException("invalid tick duration/"
+                    + "wheel size : " + tickDuration + "/" + wheelSize);
+        }
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize) {
+            size <<= 1;
+        }
+        this.tickDuration = tickDuration;
+        this.wheel = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Slot();
+        }
+        this.mask = size - 1;
+        this.changes = new ConcurrentLinkedQueue<Timeout>();
+    }
+
+    /** Gets the timer shared by all connections, started on first use */
+    public static synchronized HashedWheelTimer getDefault() {
+        if (defaultTimer == null) {
+            defaultTimer = new HashedWheelTimer();
+        }
+        return defaultTimer;
+    }
+
+    /** Gets the tick duration (and resolution) in milliseconds */
+    public long getTickDuration() {
+        return tickDuration;
+    }
+
+    /** Gets the number of slots on the wheel */
+    public int getWheelSize() {
+        return wheel.length;
+    }
+
+    /** Gets the number of timeouts that have neither fired nor been cancelled */
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /** Whether the timer thread is running */
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    /** Whether the timer has been started */
+    public boolean isStarted() {
+        return start;
+    }
+
+    /**
+     * Runs the task on the timer thread once delayMillis have elapsed, unless
+     * the returned timeout is cancelled first. Starts the timer if needed
+     */
+    public Timeout newTimeout(Runnable task, long delayMillis) {
+        if (task == null) {
+            throw new IllegalArgumentException("task is null");
+        }
+        if (start == false) {
+            start();
+        }
+
+        Timeout t = new Timeout(this, task, System.currentTimeMillis()
+                + Math.max(0, delayMillis));
+
+        pendingCount.incrementAndGet();
+        changes.add(t);
+        return t;
+    }
+
+    /** starts running; a stopped timer cannot be restarted */
+    public synchronized void start() {
+        if (stopped == true) {
+            throw new IllegalStateException("timer has been stopped");
+        }
+        if (start == false) {
+            start = true;
+            timerThread = new Thread(this);
+            timerThread.setName(getClass().getName()
+                    + ".T"
+                    + timerThread.getName().replaceAll("Thread-", ""));
+            timerThread.setDaemon(true);
+            timerThread.start();
+        }
+    }
+
+    /**
+     * Stops running; timeouts that have not fired are dropped. Returns once
+     * the timer thread has exited, unless called from a task on it
+     */
+    public void stop() {
+        Thread t = timerThread;
+
+        synchronized (this) {
+            stopped = true;
+            start = false;
+        }
+        if (t != null && t != Thread.currentThread()) {
+            t.interrupt();
+            while (t.isAlive() == true) {
+                try {
+                    t.join();
+                } catch (InterruptedException e) {
+                }
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        long tickTime;
+        long now;
+
+        setIsRunning(true);
+        startTime = System.currentTimeMillis();
+        tick = 0;
+        try {
+            while (start == true) {
+                tickTime = startTime + (tick + 1) * tickDuration;
+                while ((now = System.currentTimeMillis()) < tickTime
+                        && start == true) {
+                    try {
+                        Thread.sleep(tickTime - now);
+                    } catch (InterruptedException e) {
+                    }
+                }
+                if (start == false) {
+                    break;
+                }
+                processChanges();
+                expireSlot(wheel[(int) (tick & mask)], tickTime);
+                tick++;
+            }
+        } finally {
+            dropAll();
+            setIsRunning(false);
+        }
+    }
+
+    private void setIsRunning(boolean running) {
+        isRunning = running;
+    }
+
+    /** moves the queued timeouts onto the wheel (timer thread only) */
+    private void processChanges() {
+        Timeout t;
+
+        while ((t = changes.poll()) != null) {
+            if (t.slot != null) {
+                t.slot.remove(t);
+            }
+            if (t.isPending() == true) {
+                place(t);
+            }
+        }
+    }
+
+    /** puts the timeout into the slot of the tick its deadline falls in */
+    private void place(Timeout t) {
+        long ticks = (t.deadline - startTime) / tickDuration;
+
+        wheel[(int) (Math.max(ticks, tick) & mask)].add(t);
+    }
+
+    /** fires the timeouts in the slot that are due by tickTime */
+    private void expireSlot(Slot slot, long tickTime) {
+        Timeout t = slot.detach();
+        Timeout next;
+
+        while (t != null) {
+            next = t.next;
+            t.prev = null;
+            t.next = null;
+            t.slot = null;
+            if (t.isPending() == true) {
+                if (t.deadline > tickTime) {
+                    // refreshed, or a later round of the wheel
+                    place(t);
+                } else {
+                    t.expire();
+                }
+            }
+            t = next;
+        }
+    }
+
+    /** forgets all timeouts when the timer stops (timer thread only) */
+    private void dropAll() {
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i].detach();
+        }
+        changes.clear();
+        pendingCount.set(0);
+    }
+
+    /** a doubly linked list of timeouts (timer thread only) */
+    private static final class Slot {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout t) {
+            t.slot = this;
+            t.prev = tail;
+            t.next = null;
+            if (tail == null) {
+                head = t;
+            } else {
+                tail.next = t;
+            }
+            tail = t;
+        }
+
+        void remove(Timeout t) {
+            if (t.prev == null) {
+                head = t.next;
+            } else {
+                t.prev.next = t.next;
+            }
+            if (t.next == null) {
+                tail = t.prev;
+            } else {
+                t.next.prev = t.prev;
+            }
+            t.prev = null;
+            t.next = null;
+            t.slot = null;
+        }
+
+        /** empties the slot, returning the former head */
+        Timeout detach() {
+            Timeout t = head;
+
+            head = null;
+            tail = null;
+            return t;
+        }
+    }
+
+    /** A handle to a task scheduled on a HashedWheelTimer */
+    public static final class Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        volatile private long deadline;
+
+        /** wheel linkage (timer thread only) */
+        private Slot slot;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /** Gets the timer this timeout was scheduled on */
+        public HashedWheelTimer getTimer() {
+            return timer;
+        }
+
+        /** Gets the task run on expiry */
+        public Runnable getTask() {
+            return task;
+        }
+
+        /** Gets the deadline in milliseconds since the epoch */
+        public long getDeadline() {
+            return deadline;
+        }
+
+        /** Whether the timeout has neither fired nor been cancelled */
+        public boolean isPending() {
+            return state.get() == PENDING;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        /**
+         * Moves the deadline to delayMillis from now; false if the timeout
+         * has already fired or been cancelled
+         */
+        public boolean refresh(long delayMillis) {
+            long d = System.currentTimeMillis() + Math.max(0, delayMillis);
+            long old = deadline;
+
+            if (isPending() == false) {
+                return false;
+            }
+            deadline = d;
+            if (d < old) {
+                // the current slot would fire too late
+                timer.changes.add(this);
+            }
+            return true;
+        }
+
+        /**
+         * Cancels the timeout; false if it has already fired or been
+         * cancelled
+         */
+        public boolean cancel() {
+            if (state.compareAndSet(PENDING, CANCELLED) == false) {
+                return false;
+            }
+            timer.pendingCount.decrementAndGet();
+            timer.changes.add(this);
+            return true;
+        }
+
+        private void expire() {
+            if (state.compareAndSet(PENDING, EXPIRED) == false) {
+                return;
+            }
+            timer.pendingCount.decrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable e) {
+                log.error("timeout task failed : " + task, e);
+            }
+        }
+
+        /** Gets a String representation of the Object */
+        @Override
+        public String toString() {
+            return ("Timeout: Deadline=" + getDeadline() + ", Pending="
+                    + isPending() + ", Cancelled=" + isCancelled()
+                    + ", Task=" + getTask());
+        }
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return ("HashedWheelTimer: TickDuration=" + getTickDuration()
+                + ", WheelSize=" + getWheelSize() + ", Pending="
+                + getPendingCount() + ", isRunning=" + isRunning());
+    }
+}
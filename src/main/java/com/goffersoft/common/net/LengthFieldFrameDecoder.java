@@ -0,0 +1,114 @@
+/**
+ ** File: LengthFieldFrameDecoder.java
+ **
+ ** Description : LengthFieldFrameDecoder class - frames a tcp byte stream
+ **               using a big endian length field in the frame header
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.io.IOException;
+
+import org.apache.log4j.Logger;
+
+import com.goffersoft.common.net.openflow.OfpHeader;
+
+public class LengthFieldFrameDecoder
+        implements
+        FrameDecoder {
+    private static final Logger log = Logger
+            .getLogger(LengthFieldFrameDecoder.class);
+
+    private final int lengthFieldOffset;
+    private final int lengthFieldSize;
+    private final int lengthAdjustment;
+    private final int maxFrameLength;
+
+    /**
+     * The frame length is the value of the lengthFieldSize (1, 2, 3 or 4)
+     * byte big endian field at lengthFieldOffset plus lengthAdjustment. Use
+     * an adjustment of 0 if the field holds the length of the whole frame
+     * and the header length if it only counts the payload
+     */
+    public LengthFieldFrameDecoder(
+            int lengthFieldOffset,
+            int lengthFieldSize,
+            int lengthAdjustment,
+            int maxFrameLength) {
+        if (lengthFieldOffset < 0 || lengthFieldSize < 1
+                || lengthFieldSize > 4 || maxFrameLength <= 0) {
+            throw new IllegalArgumentException("invalid length field : "
+                    + lengthFieldOffset + "/" + lengthFieldSize + "/"
+                    + maxFrameLength);
+        }
+        this.lengthFieldOffset = lengthFieldOffset;
+        this.lengthFieldSize = lengthFieldSize;
+        this.lengthAdjustment = lengthAdjustment;
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    /** Gets a decoder for OpenFlow messages (length at offset 2 of OfpHeader) */
+    public static LengthFieldFrameDecoder newOfpDecoder() {
+        return new LengthFieldFrameDecoder(
+                OfpHeader.OFP_HDR_LENGTH_OFFSET,
+                2,
+                0,
+                0xffff);
+    }
+
+    public int getLengthFieldOffset() {
+        return lengthFieldOffset;
+    }
+
+    public int getLengthFieldSize() {
+        return lengthFieldSize;
+    }
+
+    public int getLengthAdjustment() {
+        return lengthAdjustment;
+    }
+
+    public int getMaxFrameLength() {
+        return maxFrameLength;
+    }
+
+    @Override
+    public int decode(byte[] data, int offset, int length) throws IOException {
+        int headerLength = lengthFieldOffset + lengthFieldSize;
+
+        if (length < headerLength) {
+            return 0;
+        }
+
+        long frameLength = 0;
+        for (int i = offset + lengthFieldOffset; i < offset + headerLength; i++) {
+            frameLength = (frameLength << 8) | (data[i] & 0xff);
+        }
+        frameLength += lengthAdjustment;
+
+        if (frameLength < headerLength || frameLength > maxFrameLength) {
+            throw new IOException("invalid frame length : " + frameLength);
+        }
+        if (frameLength > length) {
+            return 0;
+        }
+        return (int) frameLength;
+    }
+
+    @Override
+    public int getTrailerLength() {
+        return 0;
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return ("LengthFieldFrameDecoder: LengthFieldOffset="
+                + getLengthFieldOffset() + ", LengthFieldSize="
+                + getLengthFieldSize() + ", LengthAdjustment="
+                + getLengthAdjustment() + ", MaxFrameLength="
+                + getMaxFrameLength());
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ ** File: NioEventHandler.java
+ **
+ ** Description : NioEventHandler interface - callbacks invoked by a
+ **               NioEventLoop for a registered selectable channel
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+
+public interface NioEventHandler {
+    /** when the channel has been registered with the event loop selector */
+    public void onRegistered(NioEventLoop loop, SelectionKey key);
+
+    /**
+     * when the channel is ready for one or more of its interest ops.
+     * an exception closes the channel and is passed on to onDeregistered
+     */
+    public void onSelected(SelectionKey key) throws IOException;
+
+    /** invoked once every select timeout; used for inactivity checks */
+    public void onTick(long currentTimeMillis);
+
+    /** when the channel has been closed and removed from the event loop */
+    public void onDeregistered(Exception error);
+}
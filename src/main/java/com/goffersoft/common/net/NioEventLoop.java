@@ -0,0 +1,371 @@
+/**
+ ** File: NioEventLoop.java
+ **
+ ** Description : NioEventLoop class - a single thread multiplexing many
+ **               non-blocking channels over one Selector
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.log4j.Logger;
+
+public class NioEventLoop
+        implements
+        Runnable {
+
+    private static final Logger log = Logger.getLogger(NioEventLoop.class);
+
+    /** Default select timeout (in milliseconds), also the tick interval */
+    public static final long DEFAULT_SELECT_TIMEOUT = 1000;
+
+    private final Selector selector;
+
+    private final ConcurrentLinkedQueue<Runnable> taskQueue;
+
+    /** delayed tasks ordered by deadline (event loop thread only) */
+    private final PriorityQueue<ScheduledTask> scheduledTasks;
+
+    volatile private long selectTimeout = DEFAULT_SELECT_TIMEOUT;
+
+    /** Whether it has been halted */
+    volatile private boolean start;
+
+    /** Whether the thread is running or not */
+    volatile private boolean isRunning;
+
+    /** event loop thread */
+    volatile private Thread eventLoopThread;
+
+    private final LongAdder failureCount = new LongAdder();
+
+    public NioEventLoop() throws IOException {
+        selector = Selector.open();
+        taskQueue = new ConcurrentLinkedQueue<Runnable>();
+        scheduledTasks = new PriorityQueue<ScheduledTask>();
+    }
+
+    /** Gets the select timeout (and tick interval) in milliseconds */
+    public long getSelectTimeout() {
+        return selectTimeout;
+    }
+
+    /** Sets the select timeout (and tick interval) in milliseconds */
+    public void setSelectTimeout(long timeout) {
+        selectTimeout = timeout;
+    }
+
+    /** Whether the event loop is running */
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    /** Whether the event loop has been started */
+    public boolean isStarted() {
+        return start;
+    }
+
+    /**
+     * Gets the number of tasks and channel close callbacks that failed with
+     * an exception; they are logged and the loop carries on
+     */
+    public long getFailureCount() {
+        return failureCount.sum();
+    }
+
+    /** Whether the caller is running on the event loop thread */
+    public boolean inEventLoop() {
+        return eventLoopThread == Thread.currentThread();
+    }
+
+    /** Gets the number of channels currently registered */
+    public int getRegisteredCount() {
+        try {
+            return selector.keys().size();
+        } catch (ClosedSelectorException e) {
+            return 0;
+        }
+    }
+
+    /** starts running; a stopped event loop cannot be restarted */
+    public synchronized void start() {
+        if (selector.isOpen() == false) {
+            throw new IllegalStateException("event loop has been stopped");
+        }
+        if (start == false) {
+            start = true;
+            eventLoopThread = new Thread(this);
+            eventLoopThread.setName(getClass().getName()
+                    + ".T"
+                    + eventLoopThread.getName().replaceAll("Thread-", ""));
+            eventLoopThread.start();
+        }
+    }
+
+    /**
+     * Stops running; all registered channels are closed and their handlers
+     * notified before this method returns. Called on the event loop thread
+     * (e.g. from a handler) it returns at once, and the channels are closed
+     * when the current iteration of the loop ends
+     */
+    public void stop() {
+        Thread t = eventLoopThread;
+
+        start = false;
+        selector.wakeup();
+        if (t == null) {
+            try {
+                selector.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        } else if (t != Thread.currentThread()) {
+            // run() may not have set isRunning yet, so go by the thread
+            while (t.isAlive() == true) {
+                try {
+                    t.join();
+                } catch (InterruptedException e) {
+                }
+            }
+        }
+    }
+
+    /** Runs a task on the event loop thread */
+    public void execute(Runnable task) {
+        taskQueue.add(task);
+        if (inEventLoop() == false) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Runs a task on the event loop thread once delayMillis have elapsed.
+     * Tasks are checked on every wakeup, so they are run late rather than
+     * early
+     */
+    public void schedule(final Runnable task, long delayMillis) {
+        final long deadline = System.currentTimeMillis() + delayMillis;
+
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                scheduledTasks.add(new ScheduledTask(deadline, task));
+            }
+        });
+    }
+
+    /**
+     * Registers a channel with this event loop. The channel is switched to
+     * non-blocking mode and the handler is notified on the event loop thread
+     */
+    public void register(
+            final SelectableChannel channel,
+            final int ops,
+            final NioEventHandler handler) {
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                SelectionKey key;
+                try {
+                    channel.configureBlocking(false);
+                    key = channel.register(selector, ops, handler);
+                } catch (Exception e) {
+                    try {
+                        channel.close();
+                    } catch (IOException ioe) {
+                    }
+                    handler.onDeregistered(e);
+                    return;
+                }
+                handler.onRegistered(NioEventLoop.this, key);
+            }
+        });
+    }
+
+    /** Closes the channel associated with the key (event loop thread only) */
+    public void close(SelectionKey key, Exception error) {
+        if (key == null) {
+            return;
+        }
+
+        NioEventHandler handler = (NioEventHandler) key.attachment();
+
+        key.attach(null);
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            log.debug("error closing channel", e);
+        }
+
+        if (handler != null) {
+            try {
+                handler.onDeregistered(error);
+            } catch (RuntimeException e) {
+                failureCount.increment();
+                log.error("event handler close failed", e);
+            }
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+
+        while ((task = taskQueue.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                failureCount.increment();
+                log.error("event loop task failed", e);
+            }
+        }
+    }
+
+    /** runs the delayed tasks that are due; returns the next deadline */
+    private long runScheduledTasks(long now) {
+        ScheduledTask st;
+
+        while ((st = scheduledTasks.peek()) != null && st.deadline <= now) {
+            scheduledTasks.poll();
+            try {
+                st.task.run();
+            } catch (Exception e) {
+                failureCount.increment();
+                log.error("event loop scheduled task failed", e);
+            }
+        }
+        return (st == null) ? Long.MAX_VALUE : st.deadline;
+    }
+
+    private void processSelectedKeys() {
+        Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+
+        while (it.hasNext()) {
+            SelectionKey key = it.next();
+            it.remove();
+
+            NioEventHandler handler = (NioEventHandler) key.attachment();
+            if (handler == null || key.isValid() == false) {
+                continue;
+            }
+            try {
+                handler.onSelected(key);
+            } catch (CancelledKeyException e) {
+                close(key, null);
+            } catch (Exception e) {
+                close(key, e);
+            }
+        }
+    }
+
+    private void tick(long now) {
+        Iterator<SelectionKey> it =
+                new ArrayList<SelectionKey>(selector.keys()).iterator();
+
+        while (it.hasNext()) {
+            SelectionKey key = it.next();
+            NioEventHandler handler = (NioEventHandler) key.attachment();
+            if (handler != null && key.isValid()) {
+                try {
+                    handler.onTick(now);
+                } catch (Exception e) {
+                    close(key, e);
+                }
+            }
+        }
+    }
+
+    /** The main thread */
+    @Override
+    public void run() {
+        long lastTick = System.currentTimeMillis();
+        long nextDeadline = Long.MAX_VALUE;
+        long timeout;
+        long now;
+
+        isRunning = true;
+        try {
+            while (start) {
+                try {
+                    timeout = getSelectTimeout();
+                    if (nextDeadline != Long.MAX_VALUE) {
+                        timeout = Math.min(timeout, Math.max(1, nextDeadline
+                                - System.currentTimeMillis()));
+                    }
+                    if (taskQueue.isEmpty()) {
+                        selector.select(timeout);
+                    } else {
+                        selector.selectNow();
+                    }
+                } catch (IOException e) {
+                    log.error("select failed", e);
+                }
+                processSelectedKeys();
+                runTasks();
+
+                now = System.currentTimeMillis();
+                nextDeadline = runScheduledTasks(now);
+                if (now - lastTick >= getSelectTimeout()) {
+                    tick(now);
+                    lastTick = now;
+                }
+            }
+
+            Iterator<SelectionKey> it =
+                    new ArrayList<SelectionKey>(selector.keys()).iterator();
+            while (it.hasNext()) {
+                close(it.next(), null);
+            }
+            runTasks();
+        } catch (ClosedSelectorException e) {
+            log.error("selector closed", e);
+        } finally {
+            try {
+                selector.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            isRunning = false;
+        }
+    }
+
+    /** a task waiting for its deadline */
+    private static final class ScheduledTask
+            implements
+            Comparable<ScheduledTask> {
+        private final long deadline;
+        private final Runnable task;
+
+        ScheduledTask(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(ScheduledTask o) {
+            return (deadline < o.deadline) ? -1
+                    : ((deadline == o.deadline) ? 0 : 1);
+        }
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return ("NioEventLoop: isStarted=" + isStarted() + ", isRunning="
+                + isRunning() + ", Channels=" + getRegisteredCount()
+                + ", Failures=" + getFailureCount());
+    }
+}
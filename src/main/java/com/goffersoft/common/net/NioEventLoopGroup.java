@@ -0,0 +1,102 @@
+/**
+ ** File: NioEventLoopGroup.java
+ **
+ ** Description : NioEventLoopGroup class - a fixed set of NioEventLoops
+ **               channels are assigned to in round robin order
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+public class NioEventLoopGroup {
+    private static final Logger log = Logger
+            .getLogger(NioEventLoopGroup.class);
+
+    private final NioEventLoop[] eventLoops;
+
+    private final AtomicInteger nextIndex;
+
+    public NioEventLoopGroup(int nThreads) throws IOException {
+        if (nThreads <= 0) {
+            throw new IllegalArgumentException(
+                    "number of event loop threads must be > 0 : " + nThreads);
+        }
+        eventLoops = new NioEventLoop[nThreads];
+        nextIndex = new AtomicInteger();
+        try {
+            for (int i = 0; i < nThreads; i++) {
+                eventLoops[i] = new NioEventLoop();
+            }
+        } catch (IOException e) {
+            stop();
+            throw e;
+        }
+    }
+
+    /** Gets the number of event loops in the group */
+    public int getEventLoopCount() {
+        return eventLoops.length;
+    }
+
+    /** Gets the event loop at the specified index */
+    public NioEventLoop getEventLoop(int index) {
+        return eventLoops[index];
+    }
+
+    /** Gets the next event loop in round robin order */
+    public NioEventLoop next() {
+        int index = nextIndex.getAndIncrement() & Integer.MAX_VALUE;
+        return eventLoops[index % eventLoops.length];
+    }
+
+    /** Gets the number of channels registered across all event loops */
+    public int getRegisteredCount() {
+        int count = 0;
+        for (int i = 0; i < eventLoops.length; i++) {
+            if (eventLoops[i] != null) {
+                count += eventLoops[i].getRegisteredCount();
+            }
+        }
+        return count;
+    }
+
+    /** Gets the number of failed tasks and callbacks of all event loops */
+    public long getFailureCount() {
+        long count = 0;
+        for (int i = 0; i < eventLoops.length; i++) {
+            if (eventLoops[i] != null) {
+                count += eventLoops[i].getFailureCount();
+            }
+        }
+        return count;
+    }
+
+    /** starts all event loops */
+    public void start() {
+        for (int i = 0; i < eventLoops.length; i++) {
+            eventLoops[i].start();
+        }
+    }
+
+    /** stops all event loops, closing every registered channel */
+    public void stop() {
+        for (int i = 0; i < eventLoops.length; i++) {
+            if (eventLoops[i] != null) {
+                eventLoops[i].stop();
+            }
+        }
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return ("NioEventLoopGroup: EventLoops=" + getEventLoopCount()
+                + ", Channels=" + getRegisteredCount());
+    }
+}
@@ -0,0 +1,299 @@
+/**
+ ** File: ProviderRegistry.java
+ **
+ ** Description : ProviderRegistry class - creates contexts and factories by
+ **               provider name
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Maps provider names (class names unless registered with a Supplier) to
+ * constructors. A class name is resolved to a MethodHandle of its public
+ * no-arg constructor the first time it is used; later lookups are a hash
+ * lookup and a direct constructor call. Registration may happen at any time
+ * from any thread
+ */
+public class ProviderRegistry<T> {
+    private static final Logger log = Logger.getLogger(ProviderRegistry.class);
+
+    /** where the implementations of a service are listed, by type name */
+    private static final String SERVICES_PREFIX = "META-INF/services/";
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType
+            .methodType(void.class);
+
+    private static final MethodType GENERIC_TYPE = MethodType
+            .methodType(Object.class);
+
+    private final Class<? super T> type;
+
+    private final ConcurrentHashMap<String, Provider<T>> providers =
+            new ConcurrentHashMap<String, Provider<T>>();
+
+    /** names in registration order */
+    private final CopyOnWriteArrayList<String> names =
+            new CopyOnWriteArrayList<String>();
+
+    /**
+     * Creates a registry of providers of the type; a generic type may be
+     * given as its raw class
+     */
+    public ProviderRegistry(Class<? super T> type) {
+        this.type = type;
+    }
+
+    /** Gets the type the providers create */
+    public Class<? super T> getType() {
+        return type;
+    }
+
+    /**
+     * Registers the class with the name; it is loaded when first used.
+     * Replaces any provider registered with the name
+     */
+    public void register(String className) {
+        put(new Provider<T>(className, type, null));
+    }
+
+    /** Registers the class under its name, resolving its constructor now */
+    public void register(Class<? extends T> clazz)
+            throws NoSuchMethodException,
+            IllegalAccessException,
+            InstantiationException {
+        Provider<T> provider = new Provider<T>(clazz.getName(), type, null);
+
+        provider.resolve(clazz);
+        put(provider);
+    }
+
+    /** Registers the supplier under the name */
+    public void register(String name, Supplier<? extends T> supplier) {
+        if (supplier == null) {
+            throw new IllegalArgumentException("supplier is null");
+        }
+        put(new Provider<T>(name, type, supplier));
+    }
+
+    /** Registers each name of a comma separated list of class names */
+    public void registerAll(String classNames) {
+        if (classNames == null) {
+            return;
+        }
+        String[] list = classNames.split(",");
+        for (int i = 0; i < list.length; i++) {
+            register(list[i]);
+        }
+    }
+
+    private void put(Provider<T> provider) {
+        if (providers.put(provider.name, provider) == null) {
+            names.addIfAbsent(provider.name);
+        }
+    }
+
+    /** Removes the provider; returns false if there was none */
+    public boolean unregister(String name) {
+        if (providers.remove(name) == null) {
+            return false;
+        }
+        names.remove(name);
+        return true;
+    }
+
+    public boolean isRegistered(String name) {
+        return providers.containsKey(name);
+    }
+
+    /** Gets the provider names in registration order */
+    public List<String> getNames() {
+        return new ArrayList<String>(names);
+    }
+
+    /**
+     * Registers the implementations of the type listed in
+     * META-INF/services by the class loader (null ==> the loader of the
+     * type) that are not registered yet; the classes are loaded but not
+     * instantiated. Returns the number of providers added
+     */
+    @SuppressWarnings("unchecked")
+    public int discover(ClassLoader loader) {
+        ClassLoader cl = (loader == null) ? type.getClassLoader() : loader;
+        Enumeration<URL> resources;
+        int count = 0;
+
+        try {
+            resources = cl.getResources(SERVICES_PREFIX + type.getName());
+        } catch (IOException e) {
+            log.warn("unable to read the service providers of "
+                    + type.getName(), e);
+            return 0;
+        }
+        while (resources.hasMoreElements() == true) {
+            for (String name : readServiceFile(resources.nextElement())) {
+                if (isRegistered(name) == true) {
+                    continue;
+                }
+                try {
+                    register((Class<? extends T>) Class.forName(name,
+                            false,
+                            cl));
+                    count++;
+                } catch (ReflectiveOperationException e) {
+                    log.warn("ignoring service provider " + name, e);
+                } catch (ClassCastException e) {
+                    log.warn("ignoring service provider " + name, e);
+                }
+            }
+        }
+        return count;
+    }
+
+    /** the class names listed in a service file, without the comments */
+    private static List<String> readServiceFile(URL url) {
+        List<String> names = new ArrayList<String>();
+        BufferedReader in = null;
+
+        try {
+            in = new BufferedReader(new InputStreamReader(url.openStream(),
+                    StandardCharsets.UTF_8));
+            String line;
+            while ((line = in.readLine()) != null) {
+                int comment = line.indexOf('#');
+                if (comment >= 0) {
+                    line = line.substring(0, comment);
+                }
+                line = line.trim();
+                if (line.isEmpty() == false && names.contains(line) == false) {
+                    names.add(line);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("unable to read " + url, e);
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    log.debug("error closing " + url, e);
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Creates an instance with the provider registered under the name;
+     * null if there is none. Exceptions thrown by the constructor or
+     * supplier are wrapped in an InvocationTargetException
+     */
+    public T newInstance(String name)
+            throws ClassNotFoundException,
+            NoSuchMethodException,
+            InvocationTargetException,
+            IllegalAccessException,
+            InstantiationException {
+        Provider<T> provider = providers.get(name);
+
+        if (provider == null) {
+            return null;
+        }
+        return provider.newInstance();
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return ("ProviderRegistry: Type=" + type.getName() + ", Providers="
+                + names);
+    }
+
+    /** a provider name and its (lazily resolved) constructor */
+    private static final class Provider<T> {
+        private final String name;
+        private final Class<? super T> type;
+        private final Supplier<? extends T> supplier;
+
+        /** constructor returning Object, null until resolved */
+        volatile private MethodHandle constructor;
+
+        Provider(
+                String name,
+                Class<? super T> type,
+                Supplier<? extends T> supplier) {
+            this.name = name;
+            this.type = type;
+            this.supplier = supplier;
+        }
+
+        void resolve(Class<?> clazz)
+                throws NoSuchMethodException,
+                IllegalAccessException,
+                InstantiationException {
+            if (type.isAssignableFrom(clazz) == false) {
+                throw new ClassCastException(clazz.getName()
+                        + " is not a " + type.getName());
+            }
+            if (Modifier.isAbstract(clazz.getModifiers()) == true) {
+                throw new InstantiationException(clazz.getName());
+            }
+            constructor = MethodHandles.publicLookup()
+                    .findConstructor(clazz, CONSTRUCTOR_TYPE)
+                    .asType(GENERIC_TYPE);
+        }
+
+        @SuppressWarnings("unchecked")
+        T newInstance()
+                throws ClassNotFoundException,
+                NoSuchMethodException,
+                InvocationTargetException,
+                IllegalAccessException,
+                InstantiationException {
+            if (supplier != null) {
+                try {
+                    return supplier.get();
+                } catch (RuntimeException e) {
+                    throw new InvocationTargetException(e);
+                }
+            }
+
+            MethodHandle handle = constructor;
+            if (handle == null) {
+                synchronized (this) {
+                    if (constructor == null) {
+                        resolve(Class.forName(name));
+                    }
+                    handle = constructor;
+                }
+            }
+            Object instance;
+            try {
+                instance = handle.invokeExact();
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+            return (T) type.cast(instance);
+        }
+    }
+}
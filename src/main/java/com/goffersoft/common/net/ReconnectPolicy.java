@@ -0,0 +1,385 @@
+/**
+ ** File: ReconnectPolicy.java
+ **
+ ** Description : ReconnectPolicy class - settings for setting up a lost tcp
+ **               connection again, with exponential backoff, jitter and a
+ **               circuit breaker per remote address
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Applies to client connections served by a thread of their own. Attempt n
+ * (from 0) waits a random time between 0 and min(maxDelay, initialDelay *
+ * multiplier^n) (full jitter), so that connections lost together do not
+ * come back together. A policy may be shared by any number of connections;
+ * it keeps a circuit per remote address which opens after failureThreshold
+ * consecutive failed attempts (by any of them). While open, the connections
+ * wait for openDuration; then one attempt is let through and closes the
+ * circuit if it succeeds or opens it again if it fails
+ */
+public class ReconnectPolicy {
+    /** Default delay bound of the first attempt in milliseconds */
+    public static final long DEFAULT_INITIAL_DELAY = 100;
+
+    /** Default upper bound of the delay in milliseconds */
+    public static final long DEFAULT_MAX_DELAY = 30000;
+
+    public static final double DEFAULT_MULTIPLIER = 2.0;
+
+    /** Default attempts per outage before giving up, 0 ==> unlimited */
+    public static final int DEFAULT_MAX_ATTEMPTS = 0;
+
+    /** Default connect timeout of an attempt in milliseconds */
+    public static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+
+    /** Default consecutive failures that open a circuit, 0 ==> never */
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+    /** Default milliseconds a circuit stays open */
+    public static final long DEFAULT_OPEN_DURATION = 30000;
+
+    /** the state of the circuit of a remote address */
+    public static enum CircuitState {
+        /** attempts are made as the backoff allows */
+        CLOSED,
+        /** no attempts are made until the open duration has passed */
+        OPEN,
+        /** one attempt is in progress, the others wait for its outcome */
+        HALF_OPEN;
+    }
+
+    private long initialDelay;
+    private long maxDelay;
+    private double multiplier;
+    private boolean jitter = true;
+    private int maxAttempts;
+    private int connectTimeout;
+    private int failureThreshold;
+    private long openDuration;
+
+    /** draws the jitter, null ==> ThreadLocalRandom */
+    private final Random random;
+
+    /** the time in milliseconds, null ==> System.currentTimeMillis() */
+    private final LongSupplier clock;
+
+    private final ConcurrentHashMap<InetSocketAddress, Circuit> circuits =
+            new ConcurrentHashMap<InetSocketAddress, Circuit>();
+
+    private final LongAdder attemptCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+    private final LongAdder giveUpCount = new LongAdder();
+    private final LongAdder circuitOpenCount = new LongAdder();
+
+    public ReconnectPolicy() {
+        this(null, null);
+    }
+
+    /**
+     * Creates a policy drawing the jitter from random and reading the time
+     * from clock (null ==> the defaults), e.g. to replay a sequence in tests
+     */
+    ReconnectPolicy(Random random, LongSupplier clock) {
+        this.random = random;
+        this.clock = clock;
+        setInitialDelay(DEFAULT_INITIAL_DELAY);
+        setMaxDelay(DEFAULT_MAX_DELAY);
+        setMultiplier(DEFAULT_MULTIPLIER);
+        setMaxAttempts(DEFAULT_MAX_ATTEMPTS);
+        setConnectTimeout(DEFAULT_CONNECT_TIMEOUT);
+        setFailureThreshold(DEFAULT_FAILURE_THRESHOLD);
+        setOpenDuration(DEFAULT_OPEN_DURATION);
+    }
+
+    /** Gets the delay bound of the first attempt in milliseconds */
+    public long getInitialDelay() {
+        return initialDelay;
+    }
+
+    public void setInitialDelay(long initialDelay) {
+        if (initialDelay < 0) {
+            throw new IllegalArgumentException("invalid initial delay : "
+                    + initialDelay);
+        }
+        this.initialDelay = initialDelay;
+    }
+
+    /** Gets the upper bound of the delay in milliseconds */
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    public void setMaxDelay(long maxDelay) {
+        if (maxDelay < 0) {
+            throw new IllegalArgumentException("invalid max delay : "
+                    + maxDelay);
+        }
+        this.maxDelay = maxDelay;
+    }
+
+    /** Gets the factor the delay bound grows by per attempt */
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    public void setMultiplier(double multiplier) {
+        if (multiplier < 1.0 || Double.isNaN(multiplier) == true) {
+            throw new IllegalArgumentException("invalid multiplier : "
+                    + multiplier);
+        }
+        this.multiplier = multiplier;
+    }
+
+    /** Whether the delay is random up to its bound (or the bound itself) */
+    public boolean isJitter() {
+        return jitter;
+    }
+
+    public void setJitter(boolean jitter) {
+        this.jitter = jitter;
+    }
+
+    /** Gets the attempts per outage before giving up, 0 ==> unlimited */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        if (maxAttempts < 0) {
+            throw new IllegalArgumentException("invalid max attempts : "
+                    + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+    }
+
+    /** Gets the connect timeout of an attempt in milliseconds, 0 ==> none */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        if (connectTimeout < 0) {
+            throw new IllegalArgumentException("invalid connect timeout : "
+                    + connectTimeout);
+        }
+        this.connectTimeout = connectTimeout;
+    }
+
+    /** Gets the consecutive failures that open a circuit, 0 ==> never */
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(int failureThreshold) {
+        if (failureThreshold < 0) {
+            throw new IllegalArgumentException("invalid failure threshold : "
+                    + failureThreshold);
+        }
+        this.failureThreshold = failureThreshold;
+    }
+
+    /** Gets the milliseconds a circuit stays open */
+    public long getOpenDuration() {
+        return openDuration;
+    }
+
+    public void setOpenDuration(long openDuration) {
+        if (openDuration < 0) {
+            throw new IllegalArgumentException("invalid open duration : "
+                    + openDuration);
+        }
+        this.openDuration = openDuration;
+    }
+
+    /** Gets the backoff of attempt n (from 0) in milliseconds */
+    public long getBackoffDelay(int attempt) {
+        double bound = initialDelay * Math.pow(multiplier, attempt);
+        long delay = (bound >= maxDelay) ? maxDelay : (long) bound;
+
+        if (jitter == false || delay <= 0) {
+            return delay;
+        }
+
+        Random r = (random == null) ? ThreadLocalRandom.current() : random;
+        return (long) (r.nextDouble() * (delay + 1));
+    }
+
+    private long currentTimeMillis() {
+        return (clock == null) ? System.currentTimeMillis() : clock
+                .getAsLong();
+    }
+
+    /**
+     * Gets the milliseconds to wait before attempt n to the remote address:
+     * its backoff, plus the time left until the circuit half opens if it is
+     * open (or the initial delay while another attempt probes it)
+     */
+    public long getDelay(InetSocketAddress remote, int attempt) {
+        Circuit c = circuits.get(remote);
+        long delay = getBackoffDelay(attempt);
+
+        if (c != null) {
+            delay += c.getWaitTime(currentTimeMillis());
+        }
+        return delay;
+    }
+
+    /**
+     * Whether an attempt to the remote address may be made now; the first
+     * caller after the open duration makes the circuit half open and must
+     * report the outcome of its attempt
+     */
+    public boolean tryAttempt(InetSocketAddress remote) {
+        Circuit c = circuits.get(remote);
+
+        if (c != null && c.tryAcquire(currentTimeMillis()) == false) {
+            return false;
+        }
+        attemptCount.increment();
+        return true;
+    }
+
+    /** Records a successful attempt, closing the circuit */
+    public void recordSuccess(InetSocketAddress remote) {
+        Circuit c = circuits.get(remote);
+
+        if (c != null) {
+            c.onSuccess();
+        }
+    }
+
+    /** Records a failed attempt, which may open the circuit */
+    public void recordFailure(InetSocketAddress remote) {
+        Circuit c = circuits.get(remote);
+
+        failureCount.increment();
+        if (c == null) {
+            Circuit tmp = new Circuit();
+            c = circuits.putIfAbsent(remote, tmp);
+            if (c == null) {
+                c = tmp;
+            }
+        }
+        if (c.onFailure(currentTimeMillis()) == true) {
+            circuitOpenCount.increment();
+        }
+    }
+
+    /** Records a connection that stopped reconnecting */
+    void recordGiveUp() {
+        giveUpCount.increment();
+    }
+
+    /** Gets the state of the circuit of the remote address */
+    public CircuitState getCircuitState(InetSocketAddress remote) {
+        Circuit c = circuits.get(remote);
+
+        return (c == null) ? CircuitState.CLOSED : c.getState();
+    }
+
+    /** Closes the circuit of the remote address, e.g. once it is known up */
+    public void resetCircuit(InetSocketAddress remote) {
+        circuits.remove(remote);
+    }
+
+    /** Gets the number of attempts made */
+    public long getAttemptCount() {
+        return attemptCount.sum();
+    }
+
+    /** Gets the number of attempts that failed */
+    public long getFailureCount() {
+        return failureCount.sum();
+    }
+
+    /** Gets the number of connections that gave up after maxAttempts */
+    public long getGiveUpCount() {
+        return giveUpCount.sum();
+    }
+
+    /** Gets the number of times a circuit opened */
+    public long getCircuitOpenCount() {
+        return circuitOpenCount.sum();
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return ("ReconnectPolicy: InitialDelay=" + getInitialDelay()
+                + ", MaxDelay=" + getMaxDelay() + ", Multiplier="
+                + getMultiplier() + ", Jitter=" + isJitter()
+                + ", MaxAttempts=" + getMaxAttempts() + ", ConnectTimeout="
+                + getConnectTimeout() + ", FailureThreshold="
+                + getFailureThreshold() + ", OpenDuration="
+                + getOpenDuration() + ", Attempts=" + getAttemptCount()
+                + ", Failures=" + getFailureCount() + ", GiveUps="
+                + getGiveUpCount() + ", CircuitOpens="
+                + getCircuitOpenCount());
+    }
+
+    /** the circuit of one remote address (guarded by itself) */
+    private final class Circuit {
+        private CircuitState state = CircuitState.CLOSED;
+        private int failures;
+        private long openTime;
+
+        synchronized CircuitState getState() {
+            return state;
+        }
+
+        synchronized long getWaitTime(long now) {
+            switch (state) {
+            case OPEN:
+                return Math.max(0, openTime + openDuration - now);
+            case HALF_OPEN:
+                return Math.max(1, initialDelay);
+            default:
+                return 0;
+            }
+        }
+
+        synchronized boolean tryAcquire(long now) {
+            switch (state) {
+            case OPEN:
+                if (now - openTime < openDuration) {
+                    return false;
+                }
+                state = CircuitState.HALF_OPEN;
+                return true;
+            case HALF_OPEN:
+                return false;
+            default:
+                return true;
+            }
+        }
+
+        synchronized void onSuccess() {
+            state = CircuitState.CLOSED;
+            failures = 0;
+        }
+
+        /** returns true if the circuit opened */
+        synchronized boolean onFailure(long now) {
+            failures++;
+            if (state == CircuitState.HALF_OPEN
+                    || (state == CircuitState.CLOSED
+                            && failureThreshold > 0
+                            && failures >= failureThreshold)) {
+                state = CircuitState.OPEN;
+                openTime = now;
+                return true;
+            }
+            return false;
+        }
+    }
+}
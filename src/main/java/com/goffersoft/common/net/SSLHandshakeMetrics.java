@@ -0,0 +1,82 @@
+/**
+ ** File: SSLHandshakeMetrics.java
+ **
+ ** Description : SSLHandshakeMetrics class - counts the full, resumed and
+ **               failed TLS handshakes of a server and their latency
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+import com.goffersoft.common.utils.LatencyHistogram;
+
+public class SSLHandshakeMetrics {
+    private static final Logger log = Logger
+            .getLogger(SSLHandshakeMetrics.class);
+
+    private final AtomicLong fullHandshakes = new AtomicLong();
+    private final AtomicLong resumedHandshakes = new AtomicLong();
+    private final AtomicLong failedHandshakes = new AtomicLong();
+
+    /** accept to handshake completed, in microseconds */
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public SSLHandshakeMetrics() {
+    }
+
+    /** Records a completed handshake that took latencyMicros */
+    public void recordHandshake(boolean resumed, long latencyMicros) {
+        if (resumed == true) {
+            resumedHandshakes.incrementAndGet();
+        } else {
+            fullHandshakes.incrementAndGet();
+        }
+        latency.record(latencyMicros);
+    }
+
+    /** Records a connection closed before its handshake completed */
+    public void recordFailure() {
+        failedHandshakes.incrementAndGet();
+    }
+
+    /** Gets the number of handshakes that created a new session */
+    public long getFullHandshakes() {
+        return fullHandshakes.get();
+    }
+
+    /** Gets the number of handshakes that resumed a cached session */
+    public long getResumedHandshakes() {
+        return resumedHandshakes.get();
+    }
+
+    /** Gets the number of connections closed before their handshake */
+    public long getFailedHandshakes() {
+        return failedHandshakes.get();
+    }
+
+    /** Gets the handshake latency histogram (in microseconds) */
+    public LatencyHistogram getHandshakeLatency() {
+        return latency;
+    }
+
+    /** Clears all counts */
+    public void reset() {
+        fullHandshakes.set(0);
+        resumedHandshakes.set(0);
+        failedHandshakes.set(0);
+        latency.reset();
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return ("SSLHandshakeMetrics: Full=" + getFullHandshakes()
+                + ", Resumed=" + getResumedHandshakes() + ", Failed="
+                + getFailedHandshakes() + ", Latency(us)=" + latency);
+    }
+}
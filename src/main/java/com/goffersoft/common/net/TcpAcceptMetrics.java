@@ -0,0 +1,163 @@
+/**
+ ** File: TcpAcceptMetrics.java
+ **
+ ** Description : TcpAcceptMetrics class - counts the connections accepted
+ **               by a server, their accept rate and the connections lost
+ **               before or during setup
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+public class TcpAcceptMetrics {
+    private static final Logger log = Logger.getLogger(TcpAcceptMetrics.class);
+
+    /** kernel tcp counters (linux only) */
+    private static final String NETSTAT_FILE = "/proc/net/netstat";
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong setupOverflows = new AtomicLong();
+    private final AtomicLong setupFailures = new AtomicLong();
+
+    /** accepted count and time of the previous getAcceptRate() */
+    private long rateCount;
+    private long rateTime = System.currentTimeMillis();
+
+    public TcpAcceptMetrics() {
+    }
+
+    /** Records an accepted connection */
+    public void recordAccept() {
+        accepted.incrementAndGet();
+    }
+
+    /**
+     * Records a connection set up on the acceptor thread because the setup
+     * queue was full
+     */
+    public void recordSetupOverflow() {
+        setupOverflows.incrementAndGet();
+    }
+
+    /** Records an accepted connection that could not be set up */
+    public void recordSetupFailure() {
+        setupFailures.incrementAndGet();
+    }
+
+    /** Gets the number of connections accepted */
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    /** Gets the number of connections set up on the acceptor thread */
+    public long getSetupOverflows() {
+        return setupOverflows.get();
+    }
+
+    /** Gets the number of accepted connections that could not be set up */
+    public long getSetupFailures() {
+        return setupFailures.get();
+    }
+
+    /**
+     * Gets the connections accepted per second since the previous call (or
+     * since the metrics were created or reset)
+     */
+    public synchronized double getAcceptRate() {
+        long now = System.currentTimeMillis();
+        long count = accepted.get();
+        double rate = 0;
+
+        if (now > rateTime) {
+            rate = (count - rateCount) * 1000.0 / (now - rateTime);
+        }
+        rateCount = count;
+        rateTime = now;
+        return rate;
+    }
+
+    /**
+     * Gets the number of times a listen queue overflowed on this host, i.e.
+     * connections dropped because the backlog was full; -1 if the kernel
+     * does not report it. The count covers all listening sockets
+     */
+    public static long getListenOverflows() {
+        return readTcpExtCounter("ListenOverflows");
+    }
+
+    /**
+     * Gets the number of connections dropped by the listening sockets of
+     * this host for any reason (overflows included); -1 if the kernel does
+     * not report it
+     */
+    public static long getListenDrops() {
+        return readTcpExtCounter("ListenDrops");
+    }
+
+    /** reads a counter of the TcpExt section of /proc/net/netstat */
+    private static long readTcpExtCounter(String name) {
+        BufferedReader in = null;
+        String header = null;
+        String line;
+
+        try {
+            in = new BufferedReader(new FileReader(NETSTAT_FILE));
+            // a line of counter names followed by a line of values
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("TcpExt:") == false) {
+                    continue;
+                }
+                if (header == null) {
+                    header = line;
+                    continue;
+                }
+                String[] names = header.trim().split("\\s+");
+                String[] values = line.trim().split("\\s+");
+                for (int i = 1; i < names.length && i < values.length; i++) {
+                    if (names[i].equals(name)) {
+                        return Long.parseLong(values[i]);
+                    }
+                }
+                return -1;
+            }
+        } catch (IOException e) {
+            log.debug("unable to read " + NETSTAT_FILE, e);
+        } catch (NumberFormatException e) {
+            log.debug("unable to parse " + NETSTAT_FILE, e);
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+        return -1;
+    }
+
+    /** Clears all counts */
+    public synchronized void reset() {
+        accepted.set(0);
+        setupOverflows.set(0);
+        setupFailures.set(0);
+        rateCount = 0;
+        rateTime = System.currentTimeMillis();
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return ("TcpAcceptMetrics: Accepted=" + getAccepted()
+                + ", SetupOverflows=" + getSetupOverflows()
+                + ", SetupFailures=" + getSetupFailures()
+                + ", ListenOverflows=" + getListenOverflows());
+    }
+}
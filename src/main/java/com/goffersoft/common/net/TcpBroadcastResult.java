@@ -0,0 +1,118 @@
+/**
+ ** File: TcpBroadcastResult.java
+ **
+ ** Description : TcpBroadcastResult class - outcome of sending the same
+ **               data to all connections of a server
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+/**
+ * The sends complete on the I/O threads of the connections; the result is
+ * done once every connection has either accepted the data (written it, or
+ * queued it with an asynchronous send policy) or failed. Data lost after it
+ * was queued is reported through the connection's termination instead
+ */
+//@formatter:off
+public class TcpBroadcastResult<
+                        TcpConnectionType
+                            extends
+                            GenericTcpConnection<?, ?, ?>> {
+//@formatter:on
+    private static final Logger log = Logger
+            .getLogger(TcpBroadcastResult.class);
+
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final AtomicInteger succeeded = new AtomicInteger();
+
+    /** sends outstanding, plus one until all of them have been dispatched */
+    private final AtomicInteger outstanding = new AtomicInteger(1);
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private final ConcurrentHashMap<TcpConnectionType, Exception> failures =
+            new ConcurrentHashMap<TcpConnectionType, Exception>();
+
+    protected TcpBroadcastResult() {
+    }
+
+    /** counts a send about to be dispatched */
+    void onDispatched() {
+        connectionCount.incrementAndGet();
+        outstanding.incrementAndGet();
+    }
+
+    /** all sends have been dispatched */
+    void onDispatchCompleted() {
+        complete();
+    }
+
+    void onSucceeded(TcpConnectionType conn) {
+        succeeded.incrementAndGet();
+        complete();
+    }
+
+    void onFailed(TcpConnectionType conn, Exception error) {
+        failures.put(conn, error);
+        complete();
+    }
+
+    private void complete() {
+        if (outstanding.decrementAndGet() == 0) {
+            done.countDown();
+        }
+    }
+
+    /** Gets the number of connections the data was sent to */
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    /** Gets the number of connections that accepted the data so far */
+    public int getSucceeded() {
+        return succeeded.get();
+    }
+
+    /** Gets the number of connections that failed so far */
+    public int getFailed() {
+        return failures.size();
+    }
+
+    /** Gets the connections that failed so far and why */
+    public Map<TcpConnectionType, Exception> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    /** Whether every connection has accepted the data or failed */
+    public boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    /** Waits until every connection has accepted the data or failed */
+    public void await() throws InterruptedException {
+        done.await();
+    }
+
+    /** Waits up to timeoutMillis; false if the broadcast is not done */
+    public boolean await(long timeoutMillis) throws InterruptedException {
+        return done.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return ("TcpBroadcastResult: Connections=" + getConnectionCount()
+                + ", Succeeded=" + getSucceeded() + ", Failed="
+                + getFailed() + ", Done=" + isDone());
+    }
+}
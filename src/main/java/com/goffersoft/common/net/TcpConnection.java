@@ -15,8 +15,18 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 import org.apache.log4j.Logger;
 
@@ -33,9 +43,61 @@ public class TcpConnection
      * send all packets to this listener
      */
     static {
-        setFactoryDefaultListener(new TcpConnectionListenerImpl());
+        setFactoryDefaultListener(TcpConnection.class, new TcpConnectionListenerImpl());
     }
 
+    /** event loop serving this connection, null ==> thread per connection */
+    volatile private NioEventLoop eventLoop;
+
+    volatile private SelectionKey selectionKey;
+
+    volatile private long lastRxTime;
+
+    /** data not yet written to a non-blocking channel (event loop mode) */
+    private final ArrayDeque<ByteBuffer> pendingWrites =
+            new ArrayDeque<ByteBuffer>();
+
+    /** gathering write batch (guarded by pendingWrites) */
+    private final ByteBuffer[] gatherBuffers =
+            new ByteBuffer[MAX_GATHER_BUFFERS];
+
+    /** waits for the socket to drain during a transfer (transfer only) */
+    private Selector transferSelector;
+
+    /** whether flushTask is already queued on the event loop */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final NioHandler nioHandler = new NioHandler();
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flushScheduled.set(false);
+            try {
+                flushPendingWrites();
+            } catch (IOException e) {
+                getEventLoop().close(selectionKey, e);
+            }
+        }
+    };
+
+    /** matches the read interest to isReceiveSuspended() */
+    private final Runnable receiveInterestTask = new Runnable() {
+        @Override
+        public void run() {
+            SelectionKey key = selectionKey;
+
+            if (key == null || key.isValid() == false) {
+                return;
+            }
+            if (isReceiveSuspended() == true) {
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            } else {
+                key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            }
+        }
+    };
+
     /** Costructs a new TcpConnection */
     public TcpConnection(
             Socket socket,
@@ -322,16 +384,385 @@ public class TcpConnection
 
     @Override
     protected void socketClose() throws IOException {
-        getSocket().close();
+        Socket sock = getSocket();
+
+        if (sock != null) {
+            sock.close();
+        }
+    }
+
+    @Override
+    protected void reconnectSocket(InetSocketAddress remote, int connectTimeout)
+            throws IOException {
+        Socket sock = new Socket();
+
+        setSocket(sock);
+        try {
+            sock.bind(new InetSocketAddress(getLocalAddressInternal(), 0));
+            sock.connect(remote, connectTimeout);
+        } catch (IOException e) {
+            sock.close();
+            throw e;
+        }
+        setLocalPortInternal(sock.getLocalPort());
+        setLocalAddressInternal(sock.getLocalAddress());
+        setInputStream(new BufferedInputStream(sock.getInputStream()));
+        setOutputStream(new BufferedOutputStream(sock.getOutputStream()));
+    }
+
+    /** Gets the event loop serving this connection (null ==> own thread) */
+    @Override
+    public NioEventLoop getEventLoop() {
+        return eventLoop;
+    }
+
+    /**
+     * Serves this connection from an event loop instead of a dedicated
+     * thread. Must be set before the connection is started and requires a
+     * socket obtained from a SocketChannel
+     */
+    protected void setEventLoop(NioEventLoop eventLoop) {
+        this.eventLoop = eventLoop;
+    }
+
+    /** starts running */
+    @Override
+    public void start() {
+        if (getEventLoop() != null && getSocket() != null
+                && getSocket().getChannel() == null) {
+            setEventLoop(null);
+        }
+
+        if (getEventLoop() == null) {
+            super.start();
+            return;
+        }
+
+        synchronized (this) {
+            if (isStarted() == false) {
+                setStartedFlag();
+                getEventLoop().register(
+                        getSocket().getChannel(),
+                        SelectionKey.OP_READ,
+                        nioHandler);
+            }
+        }
+    }
+
+    /** Stops running */
+    @Override
+    public void stop() {
+        if (getEventLoop() == null) {
+            super.stop();
+            return;
+        }
+
+        final NioEventLoop loop = getEventLoop();
+
+        clearStartedFlag();
+        if (loop.inEventLoop()) {
+            loop.close(selectionKey, null);
+        } else {
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    loop.close(selectionKey, null);
+                }
+            });
+        }
+    }
+
+    /** Sends data */
+    @Override
+    public void send(byte[] buff, int offset, int len) throws IOException {
+        if (getEventLoop() == null || isAsyncSend()) {
+            super.send(buff, offset, len);
+            return;
+        }
+
+        if (isStarted() == false) {
+            return;
+        }
+
+        getMetrics().recordSent(len);
+        ByteBuffer src = ByteBuffer.wrap(buff, offset, len);
+        synchronized (pendingWrites) {
+            if (pendingWrites.isEmpty()) {
+                getSocket().getChannel().write(src);
+                if (src.hasRemaining() == false) {
+                    return;
+                }
+            }
+            ByteBuffer pending = ByteBuffer.allocate(src.remaining());
+            pending.put(src);
+            pending.flip();
+            pendingWrites.add(pending);
+        }
+
+        if (getEventLoop().inEventLoop()) {
+            flushPendingWrites();
+        } else {
+            getEventLoop().execute(flushTask);
+        }
+    }
+
+    /**
+     * In event loop mode the file is sent straight to the non-blocking
+     * channel, in turn with the event loop's writes
+     */
+    @Override
+    protected long transferChunk(
+            FileChannel src,
+            long position,
+            int length,
+            byte[] scratch) throws IOException {
+        SelectionKey key = selectionKey;
+        boolean pending;
+        long n = 0;
+
+        if (getEventLoop() == null) {
+            return super.transferChunk(src, position, length, scratch);
+        }
+        if (key == null && isStarted() == true) {
+            // started, not registered with the event loop yet
+            LockSupport.parkNanos(this, 100000L);
+            return 0;
+        }
+        if (key == null || key.isValid() == false) {
+            throw new IOException("connection closed");
+        }
+
+        SocketChannel channel = (SocketChannel) key.channel();
+        synchronized (pendingWrites) {
+            pending = (pendingWrites.isEmpty() == false);
+            if (pending == false) {
+                n = src.transferTo(position, length, channel);
+            }
+        }
+        if (n > 0) {
+            getMetrics().recordBytesSent(n);
+        } else if (pending == true) {
+            // the event loop is writing earlier data
+            LockSupport.parkNanos(this, 100000L);
+        } else {
+            // socket buffer is full
+            if (transferSelector == null) {
+                transferSelector = Selector.open();
+            }
+            channel.register(transferSelector, SelectionKey.OP_WRITE);
+            transferSelector.select(100);
+            transferSelector.selectedKeys().clear();
+        }
+        return n;
+    }
+
+    @Override
+    protected void endTransfer() {
+        Selector selector = transferSelector;
+
+        transferSelector = null;
+        if (selector != null) {
+            try {
+                selector.close();
+            } catch (IOException e) {
+                log.debug("unable to close transfer selector", e);
+            }
+        }
+    }
+
+    @Override
+    protected GatheringByteChannel getGatheringChannel() {
+        Socket socket = getSocket();
+        SocketChannel channel = (socket == null) ? null : socket.getChannel();
+
+        return (channel != null && channel.isBlocking()) ? channel : null;
+    }
+
+    @Override
+    protected void onSendQueued(boolean first, boolean flushDue) {
+        NioEventLoop loop = getEventLoop();
+
+        if (loop == null) {
+            super.onSendQueued(first, flushDue);
+        } else if (flushDue == true) {
+            if (flushScheduled.compareAndSet(false, true)) {
+                loop.execute(flushTask);
+            }
+        } else if (first == true
+                && getSendPolicy().getFlushPolicy() == TcpSendPolicy.FlushPolicy.MAX_LATENCY) {
+            loop.schedule(flushTask, getSendPolicy().getFlushMaxLatency());
+        }
+    }
+
+    /**
+     * writes queued data with gathering writes, taking in the send queue if
+     * it is due; event loop thread only
+     */
+    private void flushPendingWrites() throws IOException {
+        SelectionKey key = selectionKey;
+
+        if (key == null || key.isValid() == false) {
+            return;
+        }
+
+        SocketChannel channel = (SocketChannel) key.channel();
+        long written = 0;
+        boolean drained;
+        synchronized (pendingWrites) {
+            if (isFlushDue(System.currentTimeMillis())) {
+                long limit = getQueuedSendBytes();
+                long taken = 0;
+                ByteBuffer buf;
+                while (taken < limit && (buf = pollSendQueue()) != null) {
+                    taken += buf.remaining();
+                    pendingWrites.add(buf);
+                }
+            }
+
+            while (pendingWrites.isEmpty() == false) {
+                int count = 0;
+                Iterator<ByteBuffer> it = pendingWrites.iterator();
+                while (count < gatherBuffers.length && it.hasNext()) {
+                    gatherBuffers[count++] = it.next();
+                }
+                written += channel.write(gatherBuffers, 0, count);
+                Arrays.fill(gatherBuffers, 0, count, null);
+                ByteBuffer buf;
+                while ((buf = pendingWrites.peek()) != null
+                        && buf.hasRemaining() == false) {
+                    pendingWrites.poll();
+                }
+                if (buf != null && buf.hasRemaining()) {
+                    // socket buffer is full, wait for OP_WRITE
+                    break;
+                }
+            }
+            drained = pendingWrites.isEmpty();
+            if (drained == true) {
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            } else {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            }
+        }
+        if (isAsyncSend()) {
+            onSendQueueWritten(written);
+            // messages queued while this write was in progress did not see
+            // an empty queue and have not scheduled a flush of their own
+            if (drained == true && getQueuedSendBytes() > 0) {
+                onSendQueued(true, isFlushDue(System.currentTimeMillis()));
+            }
+        }
+    }
+
+    @Override
+    protected void onReceiveSuspendedChanged() {
+        NioEventLoop loop = getEventLoop();
+
+        if (loop != null) {
+            loop.execute(receiveInterestTask);
+        }
+    }
+
+    /** reads once from a ready channel; event loop thread only */
+    private void readChannel(SelectionKey key) throws IOException {
+        byte[] buff = acquireReceiveBuffer();
+
+        try {
+            ByteBuffer dst = (getCurrentReceiveBuffer() != null)
+                    ? getCurrentReceiveBuffer().byteBuffer(
+                            getReceiveBufferSize())
+                    : ByteBuffer.wrap(buff, 0, getReceiveBufferSize());
+            int len = ((SocketChannel) key.channel()).read(dst);
+
+            if (len < 0) {
+                getEventLoop().close(key, null);
+            } else if (len > 0) {
+                lastRxTime = System.currentTimeMillis();
+                dispatchReceivedData(this, buff, len);
+            }
+        } finally {
+            releaseReceiveBuffer();
+        }
+    }
+
+    /** event loop callbacks for connections served by a NioEventLoop */
+    private final class NioHandler
+            implements
+            NioEventHandler {
+
+        @Override
+        public void onRegistered(NioEventLoop loop, SelectionKey key) {
+            selectionKey = key;
+            lastRxTime = System.currentTimeMillis();
+            clearFrameBuffer();
+            setIsRunningFlag();
+            if (isStarted() == false) {
+                loop.close(key, null);
+                return;
+            }
+            try {
+                flushPendingWrites();
+            } catch (IOException e) {
+                loop.close(key, e);
+            }
+        }
+
+        @Override
+        public void onSelected(SelectionKey key) throws IOException {
+            if (key.isWritable()) {
+                flushPendingWrites();
+            }
+            if (key.isValid() && key.isReadable()) {
+                readChannel(key);
+            }
+        }
+
+        @Override
+        public void onTick(long currentTimeMillis) {
+            if (getInactivityTime() > 0
+                    && currentTimeMillis - lastRxTime > getInactivityTime()) {
+                getEventLoop().close(
+                        selectionKey,
+                        new SocketTimeoutException("Inactivity Timeout"));
+            }
+        }
+
+        @Override
+        public void onDeregistered(Exception error) {
+            selectionKey = null;
+            clearStartedFlag();
+            long dropped = 0;
+            synchronized (pendingWrites) {
+                for (ByteBuffer buf : pendingWrites) {
+                    dropped += buf.remaining();
+                }
+                pendingWrites.clear();
+            }
+            if (isAsyncSend()) {
+                onSendQueueWritten(dropped);
+                clearSendQueue();
+            }
+            onConnectionTerminated(TcpConnection.this, error);
+            clearIsRunningFlag();
+        }
     }
 
     @Override
     public void run() {
+        while (service() == true && reconnect() == true) {
+        }
+        clearIsRunningFlag();
+    }
+
+    /**
+     * Serves the socket until the connection is stopped or lost; returns
+     * true if it was lost and is to be reconnected
+     */
+    private boolean service() {
         byte[] buff = null;
         Exception error = null;
+        boolean lost = false;
         int len = 0;
-        long expire = 0;
-        boolean intr = false;
 
         if (getSocket() == null) {
             try {
@@ -347,53 +778,44 @@ public class TcpConnection
             }
         }
 
+        clearFrameBuffer();
         setIsRunningFlag();
+        startSendQueue();
+        startInactivityTimer();
         try {
+            getSocket().setSoTimeout(getSoTimeout());
             // loop
-            while (isStarted()) {
+            while (isStarted() && lost == false) {
                 try {
-                    if (intr == false) {
-                        if (getInactivityTime() > 0) {
-                            expire = System.currentTimeMillis()
-                                    + getInactivityTime();
-                        }
-                    }
-                    getSocket().setSoTimeout(getSoTimeout());
-                    buff = new byte[getReceiveBufferSize()];
-                    len = getInputStream().read(buff);
+                    buff = acquireReceiveBuffer();
+                    len = getInputStream().read(
+                            buff,
+                            0,
+                            getReceiveBufferSize());
                 } catch (SocketTimeoutException ie) {
-                    if (getInactivityTime() > 0
-                            && System.currentTimeMillis() > expire) {
-                        stop();
-                        error = ie;
-                    }
-                    intr = true;
+                    releaseReceiveBuffer();
                     continue;
                 }
-                if (len < 0) {
-                    stop();
-                } else if (len < getMinimumReceivePacketLength()) {
-                    onErrorReceivedSmallPacket(this, buff, 0, len);
-                    if (getInactivityTime() > 0)
-                        expire = System.currentTimeMillis()
-                                + getInactivityTime();
-                } else if (len > getMaximumReceivePacketLength()) {
-                    onErrorReceivedLargePacket(this, buff, 0, len);
-                    if (getInactivityTime() > 0)
-                        expire = System.currentTimeMillis()
-                                + getInactivityTime();
-                } else {
-                    onReceivedData(this, buff, 0, len);
-                    if (getInactivityTime() > 0)
-                        expire = System.currentTimeMillis()
-                                + getInactivityTime();
+                try {
+                    if (len < 0) {
+                        lost = onConnectionLost();
+                    } else {
+                        refreshInactivityTimer();
+                        dispatchReceivedData(this, buff, len);
+                    }
+                } finally {
+                    releaseReceiveBuffer();
                 }
             }
         } catch (Exception e) {
-            error = e;
-            stop();
+            releaseReceiveBuffer();
+            error = getTerminationError(e);
+            if (isStarted() == true) {
+                lost = onConnectionLost();
+            }
         }
 
+        stopSendQueue();
         try {
             getInputStream().close();
             getOutputStream().close();
@@ -401,7 +823,7 @@ public class TcpConnection
             e.printStackTrace();
         }
         onConnectionTerminated(this, error);
-        clearIsRunningFlag();
+        return lost;
     }
 
     /** Gets a String representation of the Object */
@@ -12,7 +12,51 @@ package com.goffersoft.common.net;
 public class TcpConnectionContext
         extends
         GenericConnectionContext<TcpConnectionListener> {
+    private FrameDecoder frameDecoder = null;
+    private TcpSendPolicy sendPolicy = null;
+    private TcpDispatchPolicy dispatchPolicy = null;
+    private long connectTimeout = GenericTcpConnection.DEFAULT_CONNECT_TIMEOUT;
+
     public TcpConnectionContext() {
 
     }
+
+    /** Gets the frame decoder, null ==> reads are passed on as is */
+    public FrameDecoder getFrameDecoder() {
+        return frameDecoder;
+    }
+
+    public void setFrameDecoder(FrameDecoder frameDecoder) {
+        this.frameDecoder = frameDecoder;
+    }
+
+    /** Gets the asynchronous send settings, null ==> synchronous sends */
+    public TcpSendPolicy getSendPolicy() {
+        return sendPolicy;
+    }
+
+    public void setSendPolicy(TcpSendPolicy sendPolicy) {
+        this.sendPolicy = sendPolicy;
+    }
+
+    /**
+     * Gets the listener dispatch settings, null ==> the listeners are called
+     * on the I/O thread
+     */
+    public TcpDispatchPolicy getDispatchPolicy() {
+        return dispatchPolicy;
+    }
+
+    public void setDispatchPolicy(TcpDispatchPolicy dispatchPolicy) {
+        this.dispatchPolicy = dispatchPolicy;
+    }
+
+    /** Gets the connectAsync() timeout in milliseconds, 0 ==> none */
+    public long getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(long connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
 }
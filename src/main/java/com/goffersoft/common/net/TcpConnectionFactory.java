@@ -10,8 +10,11 @@ package com.goffersoft.common.net;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
 
 //@formatter:off
 public class TcpConnectionFactory
@@ -31,6 +34,14 @@ public class TcpConnectionFactory
         super(socketContext);
     }
 
+    @Override
+    protected TcpConnection initConnection(TcpConnection tcpConn) {
+        tcpConn.setFrameDecoder(getContext().getFrameDecoder());
+        tcpConn.setSendPolicy(getContext().getSendPolicy());
+        tcpConn.setDispatchPolicy(getContext().getDispatchPolicy());
+        return super.initConnection(tcpConn);
+    }
+
     @Override
     public TcpConnection createConnection(int local_port)
             throws SocketException {
@@ -51,7 +62,7 @@ public class TcpConnectionFactory
             InetAddress local_addr,
             int remote_port,
             InetAddress remote_addr) throws IOException {
-        return new TcpConnection(
+        TcpConnection tcpConn = new TcpConnection(
                 remote_port,
                 remote_addr,
                 local_port,
@@ -62,20 +73,85 @@ public class TcpConnectionFactory
                 getContext().getMinRxPktLength(),
                 getContext().getMaxRxPktLength(),
                 getContext().getDefaultListener(),
-                getContext().getListOfListeners(),
-                getContext().isAutoStart());
+                null,
+                false);
+        // only connections set up from this side can be set up again
+        tcpConn.setReconnectPolicy(getContext().getReconnectPolicy());
+        return initConnection(tcpConn);
     }
 
     @Override
     public TcpConnection createConnection(Socket socket) throws SocketException {
-        return new TcpConnection(socket,
+        return initConnection(new TcpConnection(socket,
+                getContext().getSocketTimeout(),
+                getContext().getRxBufferSize(),
+                getContext().getInactivityTimeout(),
+                getContext().getMinRxPktLength(),
+                getContext().getMaxRxPktLength(),
+                getContext().getDefaultListener(),
+                null,
+                false));
+    }
+
+    /**
+     * Creates a connection served by the specified event loop instead of a
+     * thread of its own. The socket must have been obtained from a
+     * SocketChannel.
+     */
+    public TcpConnection createConnection(
+            Socket socket,
+            NioEventLoop eventLoop) throws SocketException {
+        TcpConnection tcpConn = new TcpConnection(socket,
                 getContext().getSocketTimeout(),
                 getContext().getRxBufferSize(),
                 getContext().getInactivityTimeout(),
                 getContext().getMinRxPktLength(),
                 getContext().getMaxRxPktLength(),
                 getContext().getDefaultListener(),
-                getContext().getListOfListeners(),
-                getContext().isAutoStart());
+                null,
+                false);
+        tcpConn.setEventLoop(eventLoop);
+        return initConnection(tcpConn);
+    }
+
+    /**
+     * Connects to the remote address without blocking the caller; the
+     * connection is served by the event loop, which must be running. The
+     * context connect timeout applies
+     */
+    public CompletableFuture<TcpConnection> connectAsync(
+            InetSocketAddress remote,
+            NioEventLoop eventLoop) {
+        return connectAsync(remote,
+                null,
+                eventLoop,
+                getContext().getConnectTimeout());
+    }
+
+    /**
+     * Connects from the local address (null ==> any) to the remote address
+     * without blocking the caller. The future is completed on the event
+     * loop thread with a connection served by that loop, or fails if the
+     * connect fails or takes longer than connectTimeout milliseconds
+     * (0 ==> no timeout)
+     */
+    public CompletableFuture<TcpConnection> connectAsync(
+            InetSocketAddress remote,
+            InetSocketAddress local,
+            final NioEventLoop eventLoop,
+            long connectTimeout) {
+        return new TcpConnector<TcpConnection>(eventLoop,
+                remote,
+                local,
+                connectTimeout) {
+            @Override
+            protected TcpConnection onConnected(SocketChannel channel)
+                    throws IOException {
+                TcpConnection tcpConn =
+                        createConnection(channel.socket(), eventLoop);
+                future.complete(tcpConn);
+                return tcpConn;
+            }
+        }.connect();
     }
 }
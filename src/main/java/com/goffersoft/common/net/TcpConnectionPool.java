@@ -0,0 +1,45 @@
+/**
+ ** File: TcpConnectionPool.java
+ **
+ ** Description : TcpConnectionPool class - pool of client TcpConnections
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The connections are opened with TcpConnectionFactory.connectAsync() on
+ * the event loops of the group, in turn
+ */
+public class TcpConnectionPool
+        extends
+        GenericTcpConnectionPool<TcpConnection> {
+    private final TcpConnectionFactory factory;
+
+    private final NioEventLoopGroup eventLoops;
+
+    public TcpConnectionPool(
+            TcpConnectionFactory factory,
+            NioEventLoopGroup eventLoops) {
+        this.factory = factory;
+        this.eventLoops = eventLoops;
+    }
+
+    public TcpConnectionFactory getFactory() {
+        return factory;
+    }
+
+    public NioEventLoopGroup getEventLoops() {
+        return eventLoops;
+    }
+
+    @Override
+    protected CompletableFuture<TcpConnection> connect(
+            InetSocketAddress remote) {
+        return factory.connectAsync(remote, eventLoops.next());
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ ** File: TcpConnectionRegistry.java
+ **
+ ** Description : TcpConnectionRegistry class - the live connections of a
+ **               server, indexed by connection id and remote address
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.net.InetSocketAddress;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+
+/**
+ * add(), remove() and the lookups are O(1) and may be called from any
+ * thread. Iterators are weakly consistent: they never throw
+ * ConcurrentModificationException and may or may not see connections added
+ * or removed while iterating, so connections can be stopped (and remove
+ * themselves) during an iteration
+ */
+//@formatter:off
+public class TcpConnectionRegistry<
+                            TcpConnectionType
+                                extends
+                                GenericTcpConnection<?, ?, ?>>
+//@formatter:on
+        implements
+        Iterable<TcpConnectionType> {
+    private static final Logger log = Logger
+            .getLogger(TcpConnectionRegistry.class);
+
+    private final ConcurrentHashMap<Long, Entry<TcpConnectionType>> byId;
+
+    private final ConcurrentHashMap<InetSocketAddress, TcpConnectionType> byRemoteAddress;
+
+    public TcpConnectionRegistry() {
+        byId = new ConcurrentHashMap<Long, Entry<TcpConnectionType>>();
+        byRemoteAddress =
+                new ConcurrentHashMap<InetSocketAddress, TcpConnectionType>();
+    }
+
+    /**
+     * Adds a connection, indexed by its remote address if it is connected;
+     * false if it is already registered
+     */
+    public boolean add(TcpConnectionType conn) {
+        InetSocketAddress remote = remoteAddressOf(conn);
+        Entry<TcpConnectionType> e = new Entry<TcpConnectionType>(conn, remote);
+
+        if (byId.putIfAbsent(conn.getConnectionId(), e) != null) {
+            return false;
+        }
+        if (remote != null) {
+            byRemoteAddress.put(remote, conn);
+        }
+        return true;
+    }
+
+    /** Removes a connection; false if it is not registered */
+    public boolean remove(TcpConnectionType conn) {
+        Entry<TcpConnectionType> e = byId.remove(conn.getConnectionId());
+
+        if (e == null) {
+            return false;
+        }
+        if (e.remoteAddress != null) {
+            // the address may have been reused by a newer connection
+            byRemoteAddress.remove(e.remoteAddress, conn);
+        }
+        return true;
+    }
+
+    /** Whether the connection is registered */
+    public boolean contains(TcpConnectionType conn) {
+        return byId.containsKey(conn.getConnectionId());
+    }
+
+    /** Gets the connection with the id (null ==> none) */
+    public TcpConnectionType get(long connectionId) {
+        Entry<TcpConnectionType> e = byId.get(connectionId);
+
+        return (e == null) ? null : e.connection;
+    }
+
+    /** Gets the connection from the remote address (null ==> none) */
+    public TcpConnectionType get(InetSocketAddress remoteAddress) {
+        return byRemoteAddress.get(remoteAddress);
+    }
+
+    /** Gets the number of connections */
+    public int size() {
+        return byId.size();
+    }
+
+    public boolean isEmpty() {
+        return byId.isEmpty();
+    }
+
+    /** Gets a weakly consistent iterator over the connections */
+    @Override
+    public Iterator<TcpConnectionType> iterator() {
+        final Iterator<Entry<TcpConnectionType>> it = byId.values().iterator();
+
+        return new Iterator<TcpConnectionType>() {
+            private TcpConnectionType last;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public TcpConnectionType next() {
+                last = it.next().connection;
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                TcpConnectionRegistry.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    /** Removes all connections (without stopping them) */
+    public void clear() {
+        byId.clear();
+        byRemoteAddress.clear();
+    }
+
+    private static InetSocketAddress remoteAddressOf(
+            GenericTcpConnection<?, ?, ?> conn) {
+        InetSocketAddress sa;
+
+        try {
+            sa = conn.getRemoteSocketAddress();
+        } catch (RuntimeException e) {
+            return null;
+        }
+        // an unconnected socket reports the wildcard address and port 0
+        return (sa == null || sa.getPort() == 0) ? null : sa;
+    }
+
+    /** the connection and the address it was indexed under */
+    private static final class Entry<TcpConnectionType> {
+        private final TcpConnectionType connection;
+        private final InetSocketAddress remoteAddress;
+
+        Entry(TcpConnectionType connection, InetSocketAddress remoteAddress) {
+            this.connection = connection;
+            this.remoteAddress = remoteAddress;
+        }
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return ("TcpConnectionRegistry: Connections=" + size());
+    }
+}
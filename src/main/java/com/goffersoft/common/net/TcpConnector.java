@@ -0,0 +1,190 @@
+/**
+ ** File: TcpConnector.java
+ **
+ ** Description : TcpConnector class - connects a tcp channel on an event
+ **               loop without blocking the caller
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+import org.apache.log4j.Logger;
+
+/**
+ * The channel is registered with the event loop before it connects, so any
+ * number of connects may be pending on one loop thread. Once connected,
+ * onConnected() creates the connection, which takes over the selection key
+ * when it is started. The future fails when the connect fails or the
+ * timeout (covering onConnected() up to the completion of the future)
+ * expires; cancelling the future closes the channel. The future is
+ * completed on the event loop thread
+ */
+//@formatter:off
+abstract class TcpConnector<
+                    ConnectionType
+                        extends
+                        GenericConnection<?, ?>>
+        implements
+        NioEventHandler {
+//@formatter:on
+    private static final Logger log = Logger.getLogger(TcpConnector.class);
+
+    protected final NioEventLoop loop;
+
+    protected final CompletableFuture<ConnectionType> future =
+            new CompletableFuture<ConnectionType>();
+
+    private final SocketAddress remote;
+
+    private final SocketAddress local;
+
+    private final long timeout;
+
+    private SocketChannel channel;
+
+    /** event loop thread only */
+    private SelectionKey key;
+
+    /** the connection once connected (event loop thread only) */
+    private ConnectionType connection;
+
+    TcpConnector(
+            NioEventLoop loop,
+            SocketAddress remote,
+            SocketAddress local,
+            long timeout) {
+        this.loop = loop;
+        this.remote = remote;
+        this.local = local;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Creates the connection for the connected channel (served by the
+     * loop); the future is to be completed with it
+     */
+    protected abstract ConnectionType onConnected(SocketChannel channel)
+            throws IOException;
+
+    /** Starts connecting; the future is completed with the connection */
+    CompletableFuture<ConnectionType> connect() {
+        try {
+            channel = SocketChannel.open();
+            if (local != null) {
+                channel.bind(local);
+            }
+        } catch (IOException e) {
+            close();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        future.whenComplete(new BiConsumer<ConnectionType, Throwable>() {
+            @Override
+            public void accept(ConnectionType conn, Throwable error) {
+                if (error == null) {
+                    return;
+                }
+                loop.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        abort();
+                    }
+                });
+            }
+        });
+        loop.register(channel, 0, this);
+        if (timeout > 0) {
+            loop.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    future.completeExceptionally(new SocketTimeoutException(
+                            "connect to " + remote + " timed out"));
+                }
+            }, timeout);
+        }
+        return future;
+    }
+
+    /** closes the channel of a failed or cancelled connect */
+    private void abort() {
+        if (connection != null) {
+            connection.stop();
+        } else if (key != null) {
+            loop.close(key, null);
+        } else {
+            close();
+        }
+    }
+
+    private void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("error closing channel", e);
+        }
+    }
+
+    private void connected() throws IOException {
+        key.interestOps(0);
+        connection = onConnected(channel);
+    }
+
+    @Override
+    public void onRegistered(NioEventLoop loop, SelectionKey key) {
+        this.key = key;
+        if (future.isDone() == true) {
+            loop.close(key, null);
+            return;
+        }
+        try {
+            if (channel.connect(remote) == true) {
+                connected();
+            } else {
+                key.interestOps(SelectionKey.OP_CONNECT);
+            }
+        } catch (IOException e) {
+            loop.close(key, e);
+        } catch (RuntimeException e) {
+            // e.g. an unresolved address
+            loop.close(key, e);
+        }
+    }
+
+    @Override
+    public void onSelected(SelectionKey key) throws IOException {
+        if (key.isConnectable() == true && channel.finishConnect() == true) {
+            connected();
+        }
+    }
+
+    @Override
+    public void onTick(long currentTimeMillis) {
+    }
+
+    @Override
+    public void onDeregistered(Exception error) {
+        future.completeExceptionally((error == null)
+                ? new ClosedChannelException() : error);
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return ("TcpConnector: Remote=" + remote + ", Local=" + local
+                + ", Timeout=" + timeout + ", Done=" + future.isDone());
+    }
+}
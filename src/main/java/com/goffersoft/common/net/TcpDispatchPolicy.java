@@ -0,0 +1,212 @@
+/**
+ ** File: TcpDispatchPolicy.java
+ **
+ ** Description : TcpDispatchPolicy class - settings for passing received
+ **               frames to the listeners on a worker pool instead of the
+ **               I/O thread
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Each connection keeps a bounded queue per listener; the queues are
+ * drained on the executor one at a time, so a listener sees the frames of a
+ * connection in order while different connections and listeners run in
+ * parallel. The listeners get a copy of each frame, valid until the
+ * callback returns (getCurrentReceiveBuffer() does not apply to them).
+ * onConnectionTerminated() is queued behind the frames of a listener that
+ * has any. A policy may be shared by any number of connections; the queue
+ * depths it reports are summed over them
+ */
+public class TcpDispatchPolicy {
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    /** Default number of threads running the listeners */
+    public static final int DEFAULT_DISPATCH_THREADS = Runtime.getRuntime()
+            .availableProcessors();
+
+    /** Default number of queues waiting for a thread */
+    public static final int DEFAULT_DISPATCH_QUEUE_LENGTH = 4096;
+
+    private static volatile ThreadPoolExecutor defaultDispatchExecutor;
+
+    /** what happens to a frame received while the queue is full */
+    public static enum OverflowPolicy {
+        /** the I/O thread waits for room, so the peer is slowed down */
+        BLOCK,
+        /** the oldest queued frame is discarded */
+        DROP_OLDEST,
+        /** the frame is discarded */
+        DROP_NEWEST;
+    }
+
+    private OverflowPolicy overflowPolicy;
+    private int queueCapacity;
+    private Executor executor;
+
+    /** frames queued per listener, over all connections */
+    private final ConcurrentHashMap<GenericConnectionListener, AtomicInteger>
+            queueDepths =
+            new ConcurrentHashMap<GenericConnectionListener, AtomicInteger>();
+
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    public TcpDispatchPolicy() {
+        this(OverflowPolicy.BLOCK);
+    }
+
+    public TcpDispatchPolicy(OverflowPolicy overflowPolicy) {
+        setOverflowPolicy(overflowPolicy);
+        setQueueCapacity(DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("overflow policy is null");
+        }
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /** Gets the most frames queued per connection and listener */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("invalid queue capacity : "
+                    + queueCapacity);
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    /** Gets the executor running the listeners */
+    public Executor getExecutor() {
+        Executor e = executor;
+
+        return (e == null) ? getDefaultDispatchExecutor() : e;
+    }
+
+    /**
+     * Sets the executor running the listeners, null ==> the shared default.
+     * A queue the executor rejects is offered to it again later, meanwhile
+     * the overflow policy applies; see TcpDispatchQueue
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /** Gets the counter of the frames queued for the listener */
+    AtomicInteger getQueueDepthCounter(GenericConnectionListener listener) {
+        AtomicInteger depth = queueDepths.get(listener);
+
+        if (depth == null) {
+            AtomicInteger tmp = new AtomicInteger();
+            depth = queueDepths.putIfAbsent(listener, tmp);
+            if (depth == null) {
+                depth = tmp;
+            }
+        }
+        return depth;
+    }
+
+    /** Gets the number of frames queued for the listener */
+    public int getQueueDepth(GenericConnectionListener listener) {
+        AtomicInteger depth = queueDepths.get(listener);
+
+        return (depth == null) ? 0 : depth.get();
+    }
+
+    /** Gets the number of frames queued for all listeners */
+    public int getQueueDepth() {
+        int total = 0;
+
+        for (AtomicInteger depth : queueDepths.values()) {
+            total += depth.get();
+        }
+        return total;
+    }
+
+    void recordDropped() {
+        droppedCount.increment();
+    }
+
+    /** Gets the number of frames discarded because a queue was full */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    void recordRejected() {
+        rejectedCount.increment();
+    }
+
+    /** Gets the number of times the executor rejected a queue */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * Creates a bounded pool of daemon threads running the listeners.
+     * Queues that do not fit into the pool's queue wait for room
+     */
+    public static ThreadPoolExecutor newDispatchExecutor(int nThreads) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                nThreads,
+                nThreads,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(
+                        DEFAULT_DISPATCH_QUEUE_LENGTH),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r);
+                        t.setName(TcpDispatchPolicy.class.getName()
+                                + ".Dispatch" + threadCount.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /** Gets the dispatch pool shared by policies without an executor */
+    public static Executor getDefaultDispatchExecutor() {
+        if (defaultDispatchExecutor == null) {
+            synchronized (TcpDispatchPolicy.class) {
+                if (defaultDispatchExecutor == null) {
+                    defaultDispatchExecutor =
+                            newDispatchExecutor(DEFAULT_DISPATCH_THREADS);
+                }
+            }
+        }
+        return defaultDispatchExecutor;
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return ("TcpDispatchPolicy: OverflowPolicy=" + getOverflowPolicy()
+                + ", QueueCapacity=" + getQueueCapacity() + ", QueueDepth="
+                + getQueueDepth() + ", Dropped=" + getDroppedCount()
+                + ", Rejected=" + getRejectedCount());
+    }
+}
@@ -0,0 +1,235 @@
+/**
+ ** File: TcpDispatchQueue.java
+ **
+ ** Description : TcpDispatchQueue class - the bounded queue of callbacks of
+ **               one listener of one tcp connection
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Filled by the I/O thread of the connection; drained by one executor
+ * thread at a time, which keeps the callbacks in order. A queue gives up
+ * its thread after DRAIN_BATCH callbacks so that busy connections do not
+ * starve the others. With the BLOCK policy a connection with a thread of
+ * its own waits for room; an event loop connection, whose thread serves
+ * other connections too, stops reading instead until the queue has drained
+ * to half its capacity. A queue the executor rejects stays queued under
+ * the same policy and is offered again after RETRY_DELAY; the listeners
+ * never run on the I/O thread. The frames queued for a shut down executor
+ * are discarded
+ */
+final class TcpDispatchQueue implements Runnable {
+    private static final Logger log = Logger.getLogger(TcpDispatchQueue.class);
+
+    /** callbacks run before the queue is rescheduled */
+    private static final int DRAIN_BATCH = 64;
+
+    /** milliseconds before a rejected queue is offered to the executor again */
+    static final long RETRY_DELAY = 10;
+
+    /** a queued callback */
+    static abstract class Task {
+        abstract void run();
+
+        /** whether the task may be discarded when the queue is full */
+        boolean isDroppable() {
+            return true;
+        }
+
+        /** called instead of run() when the task is discarded */
+        void discard() {
+        }
+    }
+
+    private final TcpDispatchPolicy policy;
+
+    private final GenericTcpConnection<?, ?, ?> connection;
+
+    /** frames queued for the listener, over all connections */
+    private final AtomicInteger listenerDepth;
+
+    /** frames queued for all listeners of the connection */
+    private final AtomicInteger connectionDepth;
+
+    private final ConnectionMetrics metrics;
+
+    /** guarded by itself */
+    private final ArrayDeque<Task> tasks = new ArrayDeque<Task>();
+
+    /** whether the queue has been handed to the executor (guarded by tasks) */
+    private boolean scheduled;
+
+    /** whether the queue has stopped the reads (guarded by tasks) */
+    private boolean receiveSuspended;
+
+    TcpDispatchQueue(
+            TcpDispatchPolicy policy,
+            GenericConnectionListener listener,
+            GenericTcpConnection<?, ?, ?> connection,
+            AtomicInteger connectionDepth) {
+        this.policy = policy;
+        this.listenerDepth = policy.getQueueDepthCounter(listener);
+        this.connection = connection;
+        this.connectionDepth = connectionDepth;
+        this.metrics = connection.getMetrics();
+    }
+
+    /**
+     * Queues the task, applying the overflow policy to droppable tasks if
+     * the queue is full
+     */
+    void offer(Task task) {
+        Task dropped = null;
+        boolean schedule;
+
+        synchronized (tasks) {
+            if (tasks.size() >= policy.getQueueCapacity()
+                    && task.isDroppable() == true) {
+                switch (policy.getOverflowPolicy()) {
+                case DROP_NEWEST:
+                    dropped = task;
+                    break;
+                case DROP_OLDEST:
+                    dropped = tasks.poll();
+                    countDequeued();
+                    break;
+                default:
+                    if (connection.getEventLoop() != null) {
+                        // the rest of the read is queued beyond capacity
+                        if (receiveSuspended == false) {
+                            receiveSuspended = true;
+                            connection.onDispatchQueueFull();
+                        }
+                        break;
+                    }
+                    try {
+                        while (tasks.size() >= policy.getQueueCapacity()) {
+                            tasks.wait();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        dropped = task;
+                    }
+                    break;
+                }
+            }
+            if (dropped != task) {
+                tasks.add(task);
+                listenerDepth.incrementAndGet();
+                connectionDepth.incrementAndGet();
+            }
+            schedule = (scheduled == false && tasks.isEmpty() == false);
+            if (schedule == true) {
+                scheduled = true;
+            }
+        }
+        if (dropped != null) {
+            dropped.discard();
+            metrics.recordDroppedDispatch();
+            policy.recordDropped();
+        }
+        if (schedule == true) {
+            schedule();
+        }
+    }
+
+    private final Runnable retryTask = new Runnable() {
+        @Override
+        public void run() {
+            schedule();
+        }
+    };
+
+    private void schedule() {
+        Executor executor = policy.getExecutor();
+
+        try {
+            executor.execute(this);
+        } catch (RejectedExecutionException e) {
+            policy.recordRejected();
+            if (executor instanceof ExecutorService
+                    && ((ExecutorService) executor).isShutdown() == true) {
+                discardAll();
+            } else {
+                // still scheduled: offer() keeps applying the overflow policy
+                HashedWheelTimer.getDefault().newTimeout(retryTask,
+                        RETRY_DELAY);
+            }
+        }
+    }
+
+    /** drops the queued tasks, e.g. when the executor has been shut down */
+    private void discardAll() {
+        ArrayDeque<Task> dropped;
+
+        synchronized (tasks) {
+            dropped = new ArrayDeque<Task>(tasks);
+            for (int i = tasks.size(); i > 0; i--) {
+                countDequeued();
+            }
+            tasks.clear();
+            scheduled = false;
+            if (receiveSuspended == true) {
+                receiveSuspended = false;
+                connection.onDispatchQueueDrained();
+            }
+            tasks.notifyAll();
+        }
+        for (Task task : dropped) {
+            if (task.isDroppable() == false) {
+                log.warn("dispatch executor shut down, listener of "
+                        + connection.getConnectionId()
+                        + " not told of its termination");
+            }
+            task.discard();
+            metrics.recordDroppedDispatch();
+            policy.recordDropped();
+        }
+    }
+
+    /** (holding tasks) */
+    private void countDequeued() {
+        listenerDepth.decrementAndGet();
+        connectionDepth.decrementAndGet();
+    }
+
+    @Override
+    public void run() {
+        for (int i = 0; i < DRAIN_BATCH; i++) {
+            Task task;
+
+            synchronized (tasks) {
+                task = tasks.poll();
+                if (task == null) {
+                    scheduled = false;
+                    return;
+                }
+                countDequeued();
+                if (receiveSuspended == true
+                        && tasks.size() <= policy.getQueueCapacity() / 2) {
+                    receiveSuspended = false;
+                    connection.onDispatchQueueDrained();
+                }
+                // wakes up a blocked I/O thread
+                tasks.notifyAll();
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("listener failed", e);
+            }
+        }
+        schedule();
+    }
+}
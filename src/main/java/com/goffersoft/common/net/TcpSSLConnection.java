@@ -11,19 +11,50 @@ package com.goffersoft.common.net;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.InterruptedIOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 import javax.net.ssl.HandshakeCompletedEvent;
 import javax.net.ssl.HandshakeCompletedListener;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
 import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 
 import org.apache.log4j.Logger;
 
+import com.goffersoft.common.net.GenericConnectionMap.ListenerInfo;
+import com.goffersoft.common.utils.BufferPool;
+import com.goffersoft.common.utils.PooledBuffer;
+
 //@formatter:off
 public class TcpSSLConnection
         extends
@@ -43,9 +74,137 @@ public class TcpSSLConnection
      * send all new connections to this listener
      */
     static {
-        setFactoryDefaultListener(new TcpSSLConnectionListenerImpl());
+        setFactoryDefaultListener(TcpSSLConnection.class, new TcpSSLConnectionListenerImpl());
     }
 
+    /** Default number of handshake tasks waiting for a pool thread */
+    public static final int DEFAULT_HANDSHAKE_QUEUE_LENGTH = 1024;
+
+    private static final ByteBuffer[] NO_BUFFERS = new ByteBuffer[0];
+
+    /** handshake task pool of connections not given one of their own */
+    private static volatile ThreadPoolExecutor defaultHandshakeExecutor;
+
+    /**
+     * unconnected socket the handshake events of the engines of an
+     * SSLContext carry (guarded by itself)
+     */
+    private static final Map<SSLContext, SSLSocket> eventSockets =
+            new WeakHashMap<SSLContext, SSLSocket>();
+
+    /**
+     * event loop serving this connection, null ==> SSLSocket and a thread of
+     * its own
+     */
+    volatile private NioEventLoop eventLoop;
+
+    /** channel and engine of a connection served by an event loop */
+    volatile private SocketChannel channel;
+    volatile private SSLContext sslContext;
+    volatile private SSLEngine sslEngine;
+
+    /** runs the handshake delegated tasks, null ==> default pool */
+    volatile private Executor handshakeExecutor;
+
+    volatile private SelectionKey selectionKey;
+
+    volatile private long lastRxTime;
+
+    volatile private boolean handshakeCompleted;
+
+    /** when the connection was set up; the handshake is timed from here */
+    volatile private long handshakeStartTime;
+    volatile private long handshakeStartNanos;
+
+    /** how long the last handshake took in microseconds */
+    volatile private long handshakeLatency = -1;
+
+    volatile private boolean sessionResumed;
+
+    /** completed by the first handshake, null ==> none (connectAsync()) */
+    volatile private CompletableFuture<TcpSSLConnection> handshakeFuture;
+
+    /** session the listeners were last notified of (event loop thread only) */
+    private SSLSession notifiedSession;
+
+    /** received records not yet unwrapped (event loop thread only) */
+    private PooledBuffer netIn;
+    private ByteBuffer netInBuffer;
+
+    /** records not yet written to the channel (event loop thread only) */
+    private final ArrayDeque<PooledBuffer> pendingNet =
+            new ArrayDeque<PooledBuffer>();
+    private final ArrayDeque<ByteBuffer> pendingNetBuffers =
+            new ArrayDeque<ByteBuffer>();
+    private final ByteBuffer[] netGatherBuffers =
+            new ByteBuffer[MAX_GATHER_BUFFERS];
+
+    /** data waiting for the handshake or a wrap (guarded by appOut) */
+    private final ArrayDeque<ByteBuffer> appOut = new ArrayDeque<ByteBuffer>();
+    private final ByteBuffer[] appGatherBuffers =
+            new ByteBuffer[MAX_GATHER_BUFFERS];
+
+    /** whether delegated tasks are running (event loop thread only) */
+    private boolean taskRunning;
+
+    /** whether flushTask is already queued on the event loop */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final NioHandler nioHandler = new NioHandler();
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flushScheduled.set(false);
+            try {
+                processEngine();
+            } catch (IOException e) {
+                getEventLoop().close(selectionKey, e);
+            }
+        }
+    };
+
+    /** picks up where the engine left off once its tasks have run */
+    private final Runnable resumeTask = new Runnable() {
+        @Override
+        public void run() {
+            SelectionKey key = selectionKey;
+
+            taskRunning = false;
+            if (key == null || key.isValid() == false) {
+                return;
+            }
+            if (isReceiveSuspended() == false) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            }
+            try {
+                processEngine();
+            } catch (IOException e) {
+                getEventLoop().close(key, e);
+            }
+        }
+    };
+
+    /**
+     * matches the read interest to isReceiveSuspended(), leaving it off
+     * while delegated tasks run
+     */
+    private final Runnable receiveInterestTask = new Runnable() {
+        @Override
+        public void run() {
+            SelectionKey key = selectionKey;
+
+            if (key == null || key.isValid() == false) {
+                return;
+            }
+            if (isReceiveSuspended() == true) {
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            } else if (taskRunning == false) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            }
+        }
+    };
+
     /** Costructs a new TcpSSLConnection */
     public TcpSSLConnection(
             SSLSocket socket,
@@ -112,6 +271,43 @@ public class TcpSSLConnection
         );
     }
 
+    /**
+     * Costructs a new TcpSSLConnection served by an event loop; TLS runs in
+     * an SSLEngine over the connected channel instead of an SSLSocket.
+     * clientMode selects the side of the handshake, a null sslContext
+     * selects SSLContext.getDefault()
+     * 
+     * @throws IOException
+     */
+    public TcpSSLConnection(
+            SocketChannel channel,
+            SSLContext sslContext,
+            boolean clientMode,
+            NioEventLoop eventLoop,
+            int sotimeout,
+            int rxBufferSize,
+            long inactivity_time,
+            int minRxPacketLength,
+            int maxRxPacketLength,
+            TcpSSLConnectionListener defaultListener,
+            List<GenericConnectionMap.ListenerInfo<TcpSSLConnectionListener>>
+            listOfListeners,
+            boolean startOnInit) throws IOException {
+        super(null, null);
+        init(channel,
+                sslContext,
+                clientMode,
+                eventLoop,
+                sotimeout,
+                rxBufferSize,
+                inactivity_time,
+                minRxPacketLength,
+                maxRxPacketLength,
+                defaultListener,
+                listOfListeners,
+                startOnInit);
+    }
+
     /** Inits the TcpConnection */
     protected void init(
             SSLSocket conn_socket,
@@ -125,6 +321,8 @@ public class TcpSSLConnection
             listOfListeners,
             boolean startOnInit) {
         setSocket(conn_socket);
+        conn_socket.addHandshakeCompletedListener(this);
+        startHandshakeTimer();
         setLocalPortInternal(conn_socket.getLocalPort());
         setLocalAddressInternal(conn_socket.getLocalAddress());
         setRemotePortInternal(conn_socket.getPort());
@@ -206,6 +404,72 @@ public class TcpSSLConnection
                 startOnInit);
     }
 
+    /**
+     * Inits a TcpConnection served by an event loop
+     * 
+     * @throws IOException
+     */
+    protected void init(
+            SocketChannel conn_channel,
+            SSLContext sslContext,
+            boolean clientMode,
+            NioEventLoop eventLoop,
+            int sotimeout,
+            int bufferSize,
+            long inactivity_time,
+            int minRxPacketLength,
+            int maxRxPacketLength,
+            TcpSSLConnectionListener defaultListener,
+            List<GenericConnectionMap.ListenerInfo<TcpSSLConnectionListener>>
+            listOfListeners,
+            boolean startOnInit) throws IOException {
+        if (sslContext == null) {
+            try {
+                sslContext = SSLContext.getDefault();
+            } catch (NoSuchAlgorithmException e) {
+                throw new SSLException(e);
+            }
+        }
+        Socket sock = conn_channel.socket();
+
+        this.channel = conn_channel;
+        this.sslContext = sslContext;
+        this.eventLoop = eventLoop;
+        startHandshakeTimer();
+        sslEngine = sslContext.createSSLEngine(
+                sock.getInetAddress().getHostAddress(),
+                sock.getPort());
+        sslEngine.setUseClientMode(clientMode);
+
+        setLocalPortInternal(sock.getLocalPort());
+        setLocalAddressInternal(sock.getLocalAddress());
+        setRemotePortInternal(sock.getPort());
+        setRemoteAddressInternal(sock.getInetAddress());
+
+        setSoTimeout(sotimeout);
+        setReceiveBufferSize(bufferSize);
+        setMinimumReceivePacketLength(minRxPacketLength);
+        setMaximumReceivePacketLength(maxRxPacketLength);
+        setInactivityTime(inactivity_time);
+        setDefaultListener(defaultListener);
+        if (listOfListeners != null) {
+            Iterator<GenericConnectionMap.ListenerInfo<TcpSSLConnectionListener>> it =
+                    listOfListeners.iterator();
+            while (it.hasNext()) {
+                GenericConnectionMap.ListenerInfo<TcpSSLConnectionListener> info =
+                        it.next();
+                if ((info.getPattern() != null) && (info.getListener() != null))
+                    addListener(
+                            info.getPattern(),
+                            info.getListener(),
+                            info.getType());
+            }
+        }
+        if (startOnInit == true) {
+            start();
+        }
+    }
+
     public SSLSocketFactory getSSLFactory() {
         return sslFactory;
     }
@@ -214,25 +478,726 @@ public class TcpSSLConnection
         this.sslFactory = sslFactory;
     }
 
+    /** Gets the event loop serving this connection (null ==> own thread) */
+    @Override
+    public NioEventLoop getEventLoop() {
+        return eventLoop;
+    }
+
+    /** Gets the engine running TLS (null ==> SSLSocket) */
+    public SSLEngine getSSLEngine() {
+        return sslEngine;
+    }
+
+    /** Gets the pool running the handshake tasks (null ==> default pool) */
+    public Executor getHandshakeExecutor() {
+        return handshakeExecutor;
+    }
+
+    /**
+     * Sets the pool running the handshake tasks (certificate validation, key
+     * exchange) of a connection served by an event loop; null selects the
+     * default pool. Must be set before the connection is started
+     */
+    public void setHandshakeExecutor(Executor executor) {
+        handshakeExecutor = executor;
+    }
+
+    /** Whether a handshake has completed on this connection */
+    public boolean isHandshakeCompleted() {
+        return handshakeCompleted;
+    }
+
+    /** Gets the time the connection was set up (and its handshake began) */
+    public long getHandshakeStartTime() {
+        return handshakeStartTime;
+    }
+
+    /**
+     * Gets the microseconds from connection set up to the completion of the
+     * last handshake; -1 ==> no handshake has completed
+     */
+    public long getHandshakeLatency() {
+        return handshakeLatency;
+    }
+
+    /** Whether the last handshake resumed a session instead of a new one */
+    public boolean isSessionResumed() {
+        return sessionResumed;
+    }
+
+    private void startHandshakeTimer() {
+        handshakeStartTime = System.currentTimeMillis();
+        handshakeStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Records the outcome of a handshake; a session created before this
+     * connection was set up has been resumed
+     */
+    private void recordHandshake(SSLSession session) {
+        handshakeLatency = (System.nanoTime() - handshakeStartNanos) / 1000;
+        sessionResumed = session.getCreationTime() < handshakeStartTime;
+        handshakeCompleted = true;
+
+        CompletableFuture<TcpSSLConnection> f = handshakeFuture;
+        if (f != null) {
+            f.complete(this);
+        }
+    }
+
+    /**
+     * Sets the future completed with this connection by the first
+     * handshake, or failed if the connection is closed before; set before
+     * the connection is started
+     */
+    void setHandshakeFuture(CompletableFuture<TcpSSLConnection> future) {
+        handshakeFuture = future;
+    }
+
+    /**
+     * Creates a bounded pool of daemon threads for handshake tasks. Tasks
+     * that do not fit into the queue are run on the event loop instead
+     */
+    public static ThreadPoolExecutor newHandshakeExecutor(int nThreads) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                nThreads,
+                nThreads,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(
+                        DEFAULT_HANDSHAKE_QUEUE_LENGTH),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r);
+                        t.setName(TcpSSLConnection.class.getName()
+                                + ".Handshake" + threadCount.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /** Gets the handshake task pool shared by connections without one */
+    public static Executor getDefaultHandshakeExecutor() {
+        if (defaultHandshakeExecutor == null) {
+            synchronized (TcpSSLConnection.class) {
+                if (defaultHandshakeExecutor == null) {
+                    defaultHandshakeExecutor =
+                            newHandshakeExecutor(Runtime.getRuntime()
+                                    .availableProcessors());
+                }
+            }
+        }
+        return defaultHandshakeExecutor;
+    }
+
+    @Override
     public void onHandshakeCompleted(
             TcpSSLConnection tcp,
             HandshakeCompletedEvent event) {
+        Iterator<ListenerInfo<TcpSSLConnectionListener>> it =
+                getConnectionMapListIterator();
+        ListenerInfo<TcpSSLConnectionListener> linfo;
+
+        while ((linfo = getNextConnectionMapListEntry(it)) != null) {
+            linfo.getListener().onHandshakeCompleted(tcp, event);
+        }
         getDefaultListener().onHandshakeCompleted(tcp, event);
     }
 
     @Override
     public void handshakeCompleted(HandshakeCompletedEvent event) {
-        // TODO Auto-generated method stub
+        recordHandshake(event.getSession());
+        onHandshakeCompleted(this, event);
+    }
+
+    /** starts running */
+    @Override
+    public void start() {
+        if (getEventLoop() == null) {
+            super.start();
+            return;
+        }
+
+        synchronized (this) {
+            if (isStarted() == false) {
+                setStartedFlag();
+                getEventLoop().register(
+                        channel,
+                        SelectionKey.OP_READ,
+                        nioHandler);
+            }
+        }
+    }
+
+    /** Stops running */
+    @Override
+    public void stop() {
+        if (getEventLoop() == null) {
+            super.stop();
+            return;
+        }
+
+        clearStartedFlag();
+        if (getEventLoop().inEventLoop()) {
+            closeEngine();
+        } else {
+            getEventLoop().execute(new Runnable() {
+                @Override
+                public void run() {
+                    closeEngine();
+                }
+            });
+        }
+    }
+
+    /**
+     * The file is encrypted so it is always copied; in event loop mode a
+     * chunk is only copied once the previous one has been wrapped
+     */
+    @Override
+    protected long transferChunk(
+            FileChannel src,
+            long position,
+            int length,
+            byte[] scratch) throws IOException {
+        if (getEventLoop() != null && isAsyncSend() == false) {
+            while (true) {
+                synchronized (appOut) {
+                    if (appOut.isEmpty()) {
+                        break;
+                    }
+                }
+                if (isStarted() == false) {
+                    throw new IOException("connection closed");
+                }
+                LockSupport.parkNanos(this, 100000L);
+            }
+        }
+        return super.transferChunk(src, position, length, scratch);
+    }
+
+    /** Sends data */
+    @Override
+    public void send(byte[] buff, int offset, int len) throws IOException {
+        if (getEventLoop() == null || isAsyncSend()) {
+            super.send(buff, offset, len);
+            return;
+        }
+
+        if (isStarted() == false) {
+            return;
+        }
 
+        getMetrics().recordSent(len);
+        ByteBuffer data = ByteBuffer.allocate(len);
+        data.put(buff, offset, len);
+        data.flip();
+        synchronized (appOut) {
+            appOut.add(data);
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            getEventLoop().execute(flushTask);
+        }
+    }
+
+    @Override
+    protected void onSendQueued(boolean first, boolean flushDue) {
+        NioEventLoop loop = getEventLoop();
+
+        if (loop == null) {
+            super.onSendQueued(first, flushDue);
+        } else if (flushDue == true) {
+            if (flushScheduled.compareAndSet(false, true)) {
+                loop.execute(flushTask);
+            }
+        } else if (first == true
+                && getSendPolicy().getFlushPolicy() == TcpSendPolicy.FlushPolicy.MAX_LATENCY) {
+            loop.schedule(flushTask, getSendPolicy().getFlushMaxLatency());
+        }
+    }
+
+    /** buffers are leased from the receive buffer pool, if there is one */
+    private BufferPool getEnginePool() {
+        BufferPool pool = getReceiveBufferPool();
+
+        return (pool == null) ? BufferPool.getDefault() : pool;
+    }
+
+    /**
+     * Drives the handshake, the received records and the data to send as
+     * far as the engine and the channel allow; event loop thread only
+     */
+    private void processEngine() throws IOException {
+        SelectionKey key = selectionKey;
+        boolean progress = true;
+
+        if (key == null) {
+            return;
+        }
+
+        while (progress == true && taskRunning == false && key.isValid()) {
+            HandshakeStatus hs = sslEngine.getHandshakeStatus();
+            if (hs == HandshakeStatus.NEED_TASK) {
+                progress = runDelegatedTasks(key);
+            } else if (hs == HandshakeStatus.NEED_WRAP) {
+                progress = wrapEngine(key, true);
+            } else if (hs == HandshakeStatus.NEED_UNWRAP) {
+                progress = unwrapEngine(key);
+            } else {
+                boolean unwrapped = unwrapEngine(key);
+                progress = wrapEngine(key, false) | unwrapped;
+            }
+        }
+
+        if (key.isValid() == false) {
+            return;
+        }
+        if (sslEngine.isOutboundDone() && pendingNetBuffers.isEmpty()) {
+            // close_notify has been sent
+            getEventLoop().close(key, null);
+        } else if (isAsyncSend() && getQueuedSendBytes() > 0) {
+            // messages queued while this write was in progress did not see
+            // an empty queue and have not scheduled a flush of their own
+            boolean drained;
+            synchronized (appOut) {
+                drained = appOut.isEmpty();
+            }
+            if (drained == true && pendingNetBuffers.isEmpty()) {
+                onSendQueued(true, isFlushDue(System.currentTimeMillis()));
+            }
+        }
+    }
+
+    /**
+     * Hands the delegated tasks to the handshake pool, reading is suspended
+     * until they are done; returns true if they had to be run in place
+     */
+    private boolean runDelegatedTasks(SelectionKey key) {
+        Executor executor = handshakeExecutor;
+        final SSLEngine engine = sslEngine;
+        final NioEventLoop loop = getEventLoop();
+
+        if (executor == null) {
+            executor = getDefaultHandshakeExecutor();
+        }
+
+        taskRunning = true;
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Runnable task;
+                        while ((task = engine.getDelegatedTask()) != null) {
+                            task.run();
+                        }
+                    } finally {
+                        loop.execute(resumeTask);
+                    }
+                }
+            });
+            return false;
+        } catch (RejectedExecutionException e) {
+            Runnable task;
+            while ((task = engine.getDelegatedTask()) != null) {
+                task.run();
+            }
+            taskRunning = false;
+            if (isReceiveSuspended() == false) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Wraps handshake data or the data waiting to be sent into one record
+     * and writes it; returns true if the engine made progress
+     */
+    private boolean wrapEngine(SelectionKey key, boolean handshake)
+            throws IOException {
+        if (flushNet(key) == false || sslEngine.isOutboundDone()) {
+            return false;
+        }
+
+        ByteBuffer[] srcs = NO_BUFFERS;
+        int count = 0;
+        if (handshake == false) {
+            synchronized (appOut) {
+                if (isAsyncSend() && isFlushDue(System.currentTimeMillis())) {
+                    long limit = getQueuedSendBytes();
+                    long taken = 0;
+                    ByteBuffer buf;
+                    while (taken < limit && (buf = pollSendQueue()) != null) {
+                        taken += buf.remaining();
+                        appOut.add(buf);
+                    }
+                }
+                Iterator<ByteBuffer> it = appOut.iterator();
+                while (count < appGatherBuffers.length && it.hasNext()) {
+                    appGatherBuffers[count++] = it.next();
+                }
+            }
+            if (count == 0) {
+                return false;
+            }
+            srcs = appGatherBuffers;
+        }
+
+        PooledBuffer net = getEnginePool().lease(
+                sslEngine.getSession().getPacketBufferSize());
+        ByteBuffer dst = net.byteBuffer(net.capacity());
+        SSLEngineResult result;
+        try {
+            result = sslEngine.wrap(srcs, 0, count, dst);
+        } catch (SSLException e) {
+            net.release();
+            throw e;
+        } finally {
+            Arrays.fill(appGatherBuffers, 0, count, null);
+        }
+
+        dst.flip();
+        if (dst.hasRemaining()) {
+            pendingNet.add(net);
+            pendingNetBuffers.add(dst);
+        } else {
+            net.release();
+        }
+        if (result.bytesConsumed() > 0) {
+            synchronized (appOut) {
+                ByteBuffer buf;
+                while ((buf = appOut.peek()) != null
+                        && buf.hasRemaining() == false) {
+                    appOut.poll();
+                }
+            }
+            if (isAsyncSend()) {
+                onSendQueueWritten(result.bytesConsumed());
+            }
+        }
+        if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+            throw new SSLException("record larger than the packet buffer");
+        }
+        if (result.getHandshakeStatus() == HandshakeStatus.FINISHED) {
+            onEngineHandshakeFinished();
+        }
+        flushNet(key);
+        return result.bytesConsumed() > 0 || result.bytesProduced() > 0;
+    }
+
+    /**
+     * Unwraps the next received record, passing any data on to the
+     * listeners; returns true if the engine made progress
+     */
+    private boolean unwrapEngine(SelectionKey key) throws IOException {
+        if (netIn == null || netInBuffer.position() == 0) {
+            return false;
+        }
+
+        PooledBuffer app = getEnginePool().lease(
+                Math.max(sslEngine.getSession().getApplicationBufferSize(),
+                        getReceiveBufferSize()));
+        ByteBuffer dst = app.byteBuffer(app.capacity());
+        SSLEngineResult result;
+        try {
+            netInBuffer.flip();
+            try {
+                result = sslEngine.unwrap(netInBuffer, dst);
+            } finally {
+                netInBuffer.compact();
+            }
+
+            if (result.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+                growNetIn();
+                return false;
+            }
+            if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                throw new SSLException("record larger than the receive buffer");
+            }
+            if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                // answer the peer's close_notify with our own
+                sslEngine.closeOutbound();
+            }
+            if (result.getHandshakeStatus() == HandshakeStatus.FINISHED) {
+                onEngineHandshakeFinished();
+            }
+            if (result.bytesProduced() > 0) {
+                setCurrentReceiveBuffer(app);
+                try {
+                    dispatchReceivedData(
+                            this,
+                            app.array(),
+                            result.bytesProduced());
+                } finally {
+                    setCurrentReceiveBuffer(null);
+                }
+            }
+            return result.bytesConsumed() > 0 || result.bytesProduced() > 0;
+        } finally {
+            app.release();
+            if (netIn != null && netInBuffer.position() == 0) {
+                releaseNetIn();
+            }
+        }
+    }
+
+    /** makes room for a record larger than the receive packet buffer */
+    private void growNetIn() throws SSLException {
+        if (netInBuffer.hasRemaining() == true) {
+            return;
+        }
+
+        int size = sslEngine.getSession().getPacketBufferSize();
+        if (size <= netIn.capacity()) {
+            throw new SSLException("record larger than " + netIn.capacity()
+                    + " bytes");
+        }
+        PooledBuffer tmp = getEnginePool().lease(size);
+        ByteBuffer buf = tmp.byteBuffer(tmp.capacity());
+        netInBuffer.flip();
+        buf.put(netInBuffer);
+        netIn.release();
+        netIn = tmp;
+        netInBuffer = buf;
+    }
+
+    private void releaseNetIn() {
+        PooledBuffer buf = netIn;
+
+        if (buf != null) {
+            netIn = null;
+            netInBuffer = null;
+            buf.release();
+        }
+    }
+
+    /**
+     * Writes the pending records with gathering writes; returns true if all
+     * of them have been written
+     */
+    private boolean flushNet(SelectionKey key) throws IOException {
+        SocketChannel ch = (SocketChannel) key.channel();
+
+        while (pendingNetBuffers.isEmpty() == false) {
+            int count = 0;
+            Iterator<ByteBuffer> it = pendingNetBuffers.iterator();
+            while (count < netGatherBuffers.length && it.hasNext()) {
+                netGatherBuffers[count++] = it.next();
+            }
+            ch.write(netGatherBuffers, 0, count);
+            Arrays.fill(netGatherBuffers, 0, count, null);
+            ByteBuffer buf;
+            while ((buf = pendingNetBuffers.peek()) != null
+                    && buf.hasRemaining() == false) {
+                pendingNetBuffers.poll();
+                pendingNet.poll().release();
+            }
+            if (buf != null && buf.hasRemaining()) {
+                // socket buffer is full, wait for OP_WRITE
+                break;
+            }
+        }
+
+        boolean drained = pendingNetBuffers.isEmpty();
+        if (drained == true) {
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        } else {
+            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+        }
+        return drained;
+    }
+
+    @Override
+    protected void onReceiveSuspendedChanged() {
+        NioEventLoop loop = getEventLoop();
+
+        if (loop != null) {
+            loop.execute(receiveInterestTask);
+        }
+    }
+
+    /** reads once from a ready channel; event loop thread only */
+    private void readChannel(SelectionKey key) throws IOException {
+        if (netIn == null) {
+            netIn = getEnginePool().lease(
+                    sslEngine.getSession().getPacketBufferSize());
+            netInBuffer = netIn.byteBuffer(netIn.capacity());
+        }
+
+        int len = ((SocketChannel) key.channel()).read(netInBuffer);
+        if (len < 0) {
+            try {
+                sslEngine.closeInbound();
+            } catch (SSLException e) {
+                log.debug("connection closed without close_notify", e);
+            }
+            getEventLoop().close(key, null);
+        } else if (len > 0) {
+            lastRxTime = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Notifies the listeners of a completed handshake, once per session (TLS
+     * 1.3 reports FINISHED again for post handshake messages). The event API
+     * needs an SSLSocket, the event of an engine carries an unconnected one
+     * shared by the connections of the SSLContext; use getSSLEngine() rather
+     * than event.getSocket()
+     */
+    private void onEngineHandshakeFinished() {
+        SSLSession session = sslEngine.getSession();
+        HandshakeCompletedEvent event;
+
+        if (session == notifiedSession) {
+            return;
+        }
+        notifiedSession = session;
+        recordHandshake(session);
+        try {
+            event = new HandshakeCompletedEvent(getEventSocket(sslContext),
+                    session);
+        } catch (IOException e) {
+            log.error("unable to create handshake completed event", e);
+            return;
+        }
+        onHandshakeCompleted(this, event);
+    }
+
+    /** gets the event socket of the context, creating it the first time */
+    private static SSLSocket getEventSocket(SSLContext context)
+            throws IOException {
+        synchronized (eventSockets) {
+            SSLSocket socket = eventSockets.get(context);
+
+            if (socket == null) {
+                socket = (SSLSocket) context.getSocketFactory().createSocket();
+                eventSockets.put(context, socket);
+            }
+            return socket;
+        }
+    }
+
+    /**
+     * Sends close_notify as far as the channel takes it right away and
+     * closes the channel; event loop thread only
+     */
+    private void closeEngine() {
+        SelectionKey key = selectionKey;
+
+        if (key == null || key.isValid() == false) {
+            return;
+        }
+        sslEngine.closeOutbound();
+        try {
+            processEngine();
+        } catch (IOException e) {
+            log.debug("error sending close_notify", e);
+        }
+        getEventLoop().close(key, null);
+    }
+
+    /** event loop callbacks for connections served by a NioEventLoop */
+    private final class NioHandler
+            implements
+            NioEventHandler {
+
+        @Override
+        public void onRegistered(NioEventLoop loop, SelectionKey key) {
+            selectionKey = key;
+            lastRxTime = System.currentTimeMillis();
+            clearFrameBuffer();
+            setIsRunningFlag();
+            if (isStarted() == false) {
+                loop.close(key, null);
+                return;
+            }
+            try {
+                sslEngine.beginHandshake();
+                processEngine();
+            } catch (IOException e) {
+                loop.close(key, e);
+            }
+        }
+
+        @Override
+        public void onSelected(SelectionKey key) throws IOException {
+            if (key.isWritable()) {
+                flushNet(key);
+            }
+            if (key.isValid() && key.isReadable()) {
+                readChannel(key);
+            }
+            if (key.isValid()) {
+                processEngine();
+            }
+        }
+
+        @Override
+        public void onTick(long currentTimeMillis) {
+            if (getInactivityTime() > 0
+                    && currentTimeMillis - lastRxTime > getInactivityTime()) {
+                getEventLoop().close(
+                        selectionKey,
+                        new SocketTimeoutException("Inactivity Timeout"));
+            }
+        }
+
+        @Override
+        public void onDeregistered(Exception error) {
+            selectionKey = null;
+            clearStartedFlag();
+            releaseNetIn();
+            PooledBuffer buf;
+            while ((buf = pendingNet.poll()) != null) {
+                buf.release();
+            }
+            pendingNetBuffers.clear();
+            long dropped = 0;
+            synchronized (appOut) {
+                for (ByteBuffer data : appOut) {
+                    dropped += data.remaining();
+                }
+                appOut.clear();
+            }
+            if (isAsyncSend()) {
+                onSendQueueWritten(dropped);
+                clearSendQueue();
+            }
+            sslEngine.closeOutbound();
+            CompletableFuture<TcpSSLConnection> f = handshakeFuture;
+            if (f != null) {
+                f.completeExceptionally((error == null)
+                        ? new ClosedChannelException() : error);
+            }
+            onConnectionTerminated(TcpSSLConnection.this, error);
+            clearIsRunningFlag();
+        }
     }
 
     @Override
     public void run() {
+        while (service() == true && reconnect() == true) {
+        }
+        clearIsRunningFlag();
+    }
+
+    /**
+     * Serves the socket until the connection is stopped or lost; returns
+     * true if it was lost and is to be reconnected
+     */
+    private boolean service() {
         byte[] buff = null;
         Exception error = null;
+        boolean lost = false;
         int len = 0;
-        long expire = 0;
-        boolean intr = false;
 
         SSLSocketFactory sslsocketfactory =
                 (SSLSocketFactory) SSLSocketFactory.getDefault();
@@ -257,58 +1222,45 @@ public class TcpSSLConnection
             }
         }
 
+        clearFrameBuffer();
         setIsRunningFlag();
+        startSendQueue();
+        startInactivityTimer();
 
         try {
+            getSocket().setSoTimeout(getSoTimeout());
             // loop
-            while (isStarted()) {
+            while (isStarted() && lost == false) {
                 try {
-                    if (intr == false) {
-                        if (getInactivityTime() > 0) {
-                            expire =
-                                    System.currentTimeMillis()
-                                            + getInactivityTime();
-                        }
-                    }
-                    getSocket().setSoTimeout(getSoTimeout());
-                    buff = new byte[getReceiveBufferSize()];
-                    len = getInputStream().read(buff);
-                } catch (InterruptedIOException ie) {
-                    if (getInactivityTime() > 0
-                            && System.currentTimeMillis() > expire) {
-                        stop();
-                        error = ie;
-                    }
-                    intr = true;
+                    buff = acquireReceiveBuffer();
+                    len = getInputStream().read(
+                            buff,
+                            0,
+                            getReceiveBufferSize());
+                } catch (SocketTimeoutException ie) {
+                    releaseReceiveBuffer();
                     continue;
                 }
-                if (len < 0) {
-                    stop();
-                } else if (len < getMinimumReceivePacketLength()) {
-                    onErrorReceivedSmallPacket(this, buff, 0, len);
-                    if (getInactivityTime() > 0)
-                        expire =
-                                System.currentTimeMillis()
-                                        + getInactivityTime();
-                } else if (len > getMaximumReceivePacketLength()) {
-                    onErrorReceivedLargePacket(this, buff, 0, len);
-                    if (getInactivityTime() > 0)
-                        expire =
-                                System.currentTimeMillis()
-                                        + getInactivityTime();
-                } else {
-                    onReceivedData(this, buff, 0, len);
-                    if (getInactivityTime() > 0)
-                        expire =
-                                System.currentTimeMillis()
-                                        + getInactivityTime();
+                try {
+                    if (len < 0) {
+                        lost = onConnectionLost();
+                    } else {
+                        refreshInactivityTimer();
+                        dispatchReceivedData(this, buff, len);
+                    }
+                } finally {
+                    releaseReceiveBuffer();
                 }
             }
         } catch (Exception e) {
-            error = e;
-            stop();
+            releaseReceiveBuffer();
+            error = getTerminationError(e);
+            if (isStarted() == true) {
+                lost = onConnectionLost();
+            }
         }
 
+        stopSendQueue();
         try {
             getInputStream().close();
             getOutputStream().close();
@@ -316,40 +1268,83 @@ public class TcpSSLConnection
             e.printStackTrace();
         }
         onConnectionTerminated(this, error);
-        clearIsRunningFlag();
+        return lost;
+    }
+
+    /**
+     * Reconnects with the SSL factory of the connection; the handshake is
+     * done here, within the connect timeout, so that a peer that accepts
+     * but fails the handshake counts as a failed attempt
+     */
+    @Override
+    protected void reconnectSocket(InetSocketAddress remote, int connectTimeout)
+            throws IOException {
+        SSLSocketFactory factory = getSSLFactory();
+        SSLSocket sock;
+
+        if (factory == null) {
+            factory = (SSLSocketFactory) SSLSocketFactory.getDefault();
+        }
+        sock = (SSLSocket) factory.createSocket();
+        setSocket(sock);
+        try {
+            sock.bind(new InetSocketAddress(getLocalAddressInternal(), 0));
+            sock.connect(remote, connectTimeout);
+            sock.addHandshakeCompletedListener(this);
+            startHandshakeTimer();
+            sock.setSoTimeout(connectTimeout);
+            sock.startHandshake();
+        } catch (IOException e) {
+            sock.close();
+            throw e;
+        }
+        setLocalPortInternal(sock.getLocalPort());
+        setLocalAddressInternal(sock.getLocalAddress());
+        setInputStream(new BufferedInputStream(sock.getInputStream()));
+        setOutputStream(new BufferedOutputStream(sock.getOutputStream()));
+    }
 
+    /** the plain socket underneath, the SSLSocket or the channel socket */
+    private Socket getBaseSocket() {
+        SSLSocket sock = getSocket();
+        SocketChannel ch = channel;
+
+        if (sock != null) {
+            return sock;
+        }
+        return (ch == null) ? null : ch.socket();
     }
 
     @Override
     public InetSocketAddress getLocalSocketAddress() {
-        return new InetSocketAddress(getSocket().getLocalAddress(), getSocket()
-                .getLocalPort());
+        return new InetSocketAddress(getBaseSocket().getLocalAddress(),
+                getBaseSocket().getLocalPort());
     }
 
     @Override
     public InetAddress getLocalIpAddress() {
-        return getSocket().getLocalAddress();
+        return getBaseSocket().getLocalAddress();
     }
 
     @Override
     public int getLocalPort() {
-        return getSocket().getLocalPort();
+        return getBaseSocket().getLocalPort();
     }
 
     @Override
     public InetSocketAddress getRemoteSocketAddress() {
-        return new InetSocketAddress(getSocket().getInetAddress(), getSocket()
-                .getPort());
+        return new InetSocketAddress(getBaseSocket().getInetAddress(),
+                getBaseSocket().getPort());
     }
 
     @Override
     public InetAddress getRemoteIpAddress() {
-        return getSocket().getInetAddress();
+        return getBaseSocket().getInetAddress();
     }
 
     @Override
     public int getRemotePort() {
-        return getSocket().getPort();
+        return getBaseSocket().getPort();
     }
 
     @Override
@@ -358,6 +1353,11 @@ public class TcpSSLConnection
             InetSocketAddress remote_sa) throws IOException {
         SSLSocket tmpSocket;
 
+        if (getEventLoop() != null) {
+            throw new UnsupportedOperationException(
+                    "connections served by an event loop cannot be rebound");
+        }
+
         if ((local_sa == null) && (remote_sa == null)) {
             return false;
         }
@@ -476,14 +1476,18 @@ public class TcpSSLConnection
 
     @Override
     protected void socketClose() throws IOException {
-        getSocket().close();
+        Socket sock = getBaseSocket();
+
+        if (sock != null) {
+            sock.close();
+        }
     }
 
     /** Gets a String representation of the Object */
     @Override
     public String toString() {
         return ("TCP SSL Connection:"
-                + getSocket().getLocalAddress().toString() + ":"
-                + getSocket().getLocalPort() + "\n" + super.toString());
+                + getBaseSocket().getLocalAddress().toString() + ":"
+                + getBaseSocket().getLocalPort() + "\n" + super.toString());
     }
 }
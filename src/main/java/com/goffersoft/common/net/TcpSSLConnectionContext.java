@@ -9,12 +9,18 @@
  **/
 package com.goffersoft.common.net;
 
+import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocketFactory;
 
 public class TcpSSLConnectionContext
         extends
         GenericConnectionContext<TcpSSLConnectionListener> {
     private SSLSocketFactory sslFactory;
+    private FrameDecoder frameDecoder = null;
+    private TcpSendPolicy sendPolicy = null;
+    private TcpDispatchPolicy dispatchPolicy = null;
+    private long connectTimeout = GenericTcpConnection.DEFAULT_CONNECT_TIMEOUT;
+    private SSLContext sslContext = null;
 
     public TcpSSLConnectionContext() {
         setSSLFactory(null);
@@ -31,4 +37,55 @@ public class TcpSSLConnectionContext
     public void setSSLFactory(SSLSocketFactory sslFactory) {
         this.sslFactory = sslFactory;
     }
+
+    /** Gets the frame decoder, null ==> reads are passed on as is */
+    public FrameDecoder getFrameDecoder() {
+        return frameDecoder;
+    }
+
+    public void setFrameDecoder(FrameDecoder frameDecoder) {
+        this.frameDecoder = frameDecoder;
+    }
+
+    /** Gets the asynchronous send settings, null ==> synchronous sends */
+    public TcpSendPolicy getSendPolicy() {
+        return sendPolicy;
+    }
+
+    public void setSendPolicy(TcpSendPolicy sendPolicy) {
+        this.sendPolicy = sendPolicy;
+    }
+
+    /**
+     * Gets the listener dispatch settings, null ==> the listeners are called
+     * on the I/O thread
+     */
+    public TcpDispatchPolicy getDispatchPolicy() {
+        return dispatchPolicy;
+    }
+
+    public void setDispatchPolicy(TcpDispatchPolicy dispatchPolicy) {
+        this.dispatchPolicy = dispatchPolicy;
+    }
+
+    /** Gets the connectAsync() timeout in milliseconds, 0 ==> none */
+    public long getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(long connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * Gets the context SSLEngines are created from for connections served by
+     * event loops, null ==> SSLContext.getDefault()
+     */
+    public SSLContext getSSLContext() {
+        return sslContext;
+    }
+
+    public void setSSLContext(SSLContext sslContext) {
+        this.sslContext = sslContext;
+    }
 }
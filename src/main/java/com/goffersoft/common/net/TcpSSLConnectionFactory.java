@@ -10,7 +10,12 @@ package com.goffersoft.common.net;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocket;
 
 //@formatter:off
@@ -31,6 +36,14 @@ public class TcpSSLConnectionFactory
         super(socketContext);
     }
 
+    @Override
+    protected TcpSSLConnection initConnection(TcpSSLConnection tcpConn) {
+        tcpConn.setFrameDecoder(getContext().getFrameDecoder());
+        tcpConn.setSendPolicy(getContext().getSendPolicy());
+        tcpConn.setDispatchPolicy(getContext().getDispatchPolicy());
+        return super.initConnection(tcpConn);
+    }
+
     @Override
     public TcpSSLConnection createConnection(int local_port) throws IOException {
         throw new UnsupportedOperationException();
@@ -49,7 +62,7 @@ public class TcpSSLConnectionFactory
             InetAddress local_addr,
             int remote_port,
             InetAddress remote_addr) throws IOException {
-        return new TcpSSLConnection(
+        TcpSSLConnection tcpConn = new TcpSSLConnection(
                 remote_port,
                 remote_addr,
                 local_port,
@@ -61,21 +74,123 @@ public class TcpSSLConnectionFactory
                 getContext().getMinRxPktLength(),
                 getContext().getMaxRxPktLength(),
                 getContext().getDefaultListener(),
-                getContext().getListOfListeners(),
-                getContext().isAutoStart());
+                null,
+                false);
+        // only connections set up from this side can be set up again
+        tcpConn.setReconnectPolicy(getContext().getReconnectPolicy());
+        return initConnection(tcpConn);
     }
 
     @Override
     public TcpSSLConnection createConnection(SSLSocket socket)
             throws IOException {
-        return new TcpSSLConnection(socket,
+        return initConnection(new TcpSSLConnection(socket,
                 getContext().getSocketTimeout(),
                 getContext().getRxBufferSize(),
                 getContext().getInactivityTimeout(),
                 getContext().getMinRxPktLength(),
                 getContext().getMaxRxPktLength(),
                 getContext().getDefaultListener(),
-                getContext().getListOfListeners(),
-                getContext().isAutoStart());
+                null,
+                false));
+    }
+
+    /**
+     * Creates a connection served by the specified event loop that runs TLS
+     * in an SSLEngine over the connected channel. clientMode selects the
+     * side of the handshake
+     */
+    public TcpSSLConnection createConnection(
+            SocketChannel channel,
+            NioEventLoop eventLoop,
+            boolean clientMode) throws IOException {
+        return createConnection(
+                channel,
+                eventLoop,
+                clientMode,
+                getContext().getSSLContext(),
+                null);
+    }
+
+    /**
+     * Creates a connection served by the specified event loop that runs TLS
+     * in an SSLEngine created from sslContext (null ==> context setting) and
+     * runs its handshake tasks on handshakeExecutor (null ==> default pool)
+     */
+    public TcpSSLConnection createConnection(
+            SocketChannel channel,
+            NioEventLoop eventLoop,
+            boolean clientMode,
+            SSLContext sslContext,
+            Executor handshakeExecutor) throws IOException {
+        TcpSSLConnection tcpConn = new TcpSSLConnection(channel,
+                (sslContext == null) ? getContext().getSSLContext()
+                        : sslContext,
+                clientMode,
+                eventLoop,
+                getContext().getSocketTimeout(),
+                getContext().getRxBufferSize(),
+                getContext().getInactivityTimeout(),
+                getContext().getMinRxPktLength(),
+                getContext().getMaxRxPktLength(),
+                getContext().getDefaultListener(),
+                null,
+                false);
+        tcpConn.setHandshakeExecutor(handshakeExecutor);
+        return initConnection(tcpConn);
+    }
+
+    /**
+     * Connects to the remote address and completes the client handshake
+     * without blocking the caller; the connection is served by the event
+     * loop, which must be running. The context connect timeout applies
+     */
+    public CompletableFuture<TcpSSLConnection> connectAsync(
+            InetSocketAddress remote,
+            NioEventLoop eventLoop) {
+        return connectAsync(remote,
+                null,
+                eventLoop,
+                null,
+                null,
+                getContext().getConnectTimeout());
+    }
+
+    /**
+     * Connects from the local address (null ==> any) to the remote address
+     * without blocking the caller. The future is completed on the event
+     * loop thread once the handshake has completed, or fails if the connect
+     * or the handshake fails or both take longer than connectTimeout
+     * milliseconds (0 ==> no timeout). The connection is started whether
+     * the context auto starts connections or not, since the handshake needs
+     * it running. See createConnection() for sslContext and
+     * handshakeExecutor
+     */
+    public CompletableFuture<TcpSSLConnection> connectAsync(
+            InetSocketAddress remote,
+            InetSocketAddress local,
+            final NioEventLoop eventLoop,
+            final SSLContext sslContext,
+            final Executor handshakeExecutor,
+            long connectTimeout) {
+        return new TcpConnector<TcpSSLConnection>(eventLoop,
+                remote,
+                local,
+                connectTimeout) {
+            @Override
+            protected TcpSSLConnection onConnected(SocketChannel channel)
+                    throws IOException {
+                TcpSSLConnection tcpConn = createConnection(channel,
+                        eventLoop,
+                        true,
+                        sslContext,
+                        handshakeExecutor);
+                tcpConn.setHandshakeFuture(future);
+                if (tcpConn.isStarted() == false) {
+                    tcpConn.start();
+                }
+                return tcpConn;
+            }
+        }.connect();
     }
 }
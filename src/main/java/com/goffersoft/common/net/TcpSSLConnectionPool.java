@@ -0,0 +1,46 @@
+/**
+ ** File: TcpSSLConnectionPool.java
+ **
+ ** Description : TcpSSLConnectionPool class - pool of client TcpSSLConnections
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The connections are opened with TcpSSLConnectionFactory.connectAsync(),
+ * handshake included, on the event loops of the group in turn; reusing a
+ * connection saves both
+ */
+public class TcpSSLConnectionPool
+        extends
+        GenericTcpConnectionPool<TcpSSLConnection> {
+    private final TcpSSLConnectionFactory factory;
+
+    private final NioEventLoopGroup eventLoops;
+
+    public TcpSSLConnectionPool(
+            TcpSSLConnectionFactory factory,
+            NioEventLoopGroup eventLoops) {
+        this.factory = factory;
+        this.eventLoops = eventLoops;
+    }
+
+    public TcpSSLConnectionFactory getFactory() {
+        return factory;
+    }
+
+    public NioEventLoopGroup getEventLoops() {
+        return eventLoops;
+    }
+
+    @Override
+    protected CompletableFuture<TcpSSLConnection> connect(
+            InetSocketAddress remote) {
+        return factory.connectAsync(remote, eventLoops.next());
+    }
+}
@@ -9,14 +9,20 @@
 package com.goffersoft.common.net;
 
 import java.io.IOException;
-import java.io.InterruptedIOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
 import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import javax.net.ssl.HandshakeCompletedEvent;
+import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLServerSocket;
 import javax.net.ssl.SSLServerSocketFactory;
 import javax.net.ssl.SSLSocket;
@@ -48,9 +54,31 @@ public class TcpSSLServer
      * send all new connections to this listener
      */
     static {
-        setFactoryDefaultListener(new TcpSSLServerListenerImpl());
+        setFactoryDefaultListener(TcpSSLServer.class, new TcpSSLServerListenerImpl());
     }
 
+    /**
+     * accepts the connections of a server whose connections are served by
+     * event loops, null ==> SSLServerSocket and one thread per connection
+     */
+    volatile private ServerSocketChannel serverChannel;
+
+    /** engines of the event loop connections, null ==> default context */
+    volatile private SSLContext sslContext;
+
+    volatile private int eventLoopThreads = 0;
+
+    volatile private int handshakeThreads = Runtime.getRuntime()
+            .availableProcessors();
+
+    /** event loops and handshake pool serving the connections while running */
+    volatile private NioEventLoopGroup eventLoopGroup;
+
+    volatile private ThreadPoolExecutor handshakeExecutor;
+
+    private final SSLHandshakeMetrics handshakeMetrics =
+            new SSLHandshakeMetrics();
+
     /**
      * Constructs a new TcpSSLServer
      * 
@@ -139,6 +167,44 @@ public class TcpSSLServer
                 startOnInit);
     }
 
+    /**
+     * Constructs a new TcpSSLServer accepting on a bound channel; the
+     * connections run TLS in SSLEngines created from sslContext (null ==>
+     * SSLContext.getDefault()) and are served by eventLoopThreads event
+     * loops instead of a thread each
+     * 
+     * @throws IOException
+     */
+    public TcpSSLServer(
+            ServerSocketChannel channel,
+            SSLContext sslContext,
+            int eventLoopThreads,
+            int backlog,
+            int sotimeout,
+            long inactivity_time,
+            TcpSSLServerListener defaultServerListener,
+            LinkedList<TcpSSLServerListener> listOfServerListeners,
+            TcpSSLConnectionContext connectionContext,
+            boolean startOnInit)
+            throws IOException {
+        if (channel == null || eventLoopThreads <= 0) {
+            throw new IllegalArgumentException(
+                    "event loop server needs a channel and event loops : "
+                            + eventLoopThreads);
+        }
+        this.serverChannel = channel;
+        this.sslContext = sslContext;
+        setEventLoopThreads(eventLoopThreads);
+        init(null,
+                backlog,
+                sotimeout,
+                inactivity_time,
+                defaultServerListener,
+                listOfServerListeners,
+                connectionContext,
+                startOnInit);
+    }
+
     public TcpSSLServer(
             SSLServerSocket socket,
             int backlog,
@@ -228,8 +294,8 @@ public class TcpSSLServer
             setConnectionFactory(connectionFactory);
             setSocket(sock);
 
-            setLocalPortInternal(sock.getLocalPort());
-            setLocalAddressInternal(sock.getInetAddress());
+            setLocalPortInternal(getBaseServerSocket().getLocalPort());
+            setLocalAddressInternal(getBaseServerSocket().getInetAddress());
 
             setSoTimeout(sotimeout);
             setBacklogInternal(backlog);
@@ -278,11 +344,10 @@ public class TcpSSLServer
                     throws IOException {
         try {
             TcpSSLConnectionContext connectionContext =
-                    new TcpSSLConnectionContext(sslSocketFactory);
-            connectionContext =
                     (TcpSSLConnectionContext) GenericConnectionContext
                             .getContext(TcpSSLConnectionContext.class
                                     .getName());
+            connectionContext.setSSLFactory(sslSocketFactory);
             connectionContext.clearAutoStart();
             connectionContext.setDefaultListener(defaultConnectionListener);
             connectionContext.setListOfListeners(listOfConnectionListeners);
@@ -315,28 +380,99 @@ public class TcpSSLServer
         this.sslServerFactory = sslServerFactory;
     }
 
+    /** Whether the connections are SSLEngines served by event loops */
+    public boolean isEventLoopServer() {
+        return serverChannel != null;
+    }
+
+    /** Gets the context the engines are created from (null ==> default) */
+    public SSLContext getSSLContext() {
+        return sslContext;
+    }
+
+    public void setSSLContext(SSLContext sslContext) {
+        this.sslContext = sslContext;
+    }
+
+    /** Gets the number of event loop threads serving the connections */
+    public int getEventLoopThreads() {
+        return eventLoopThreads;
+    }
+
+    /**
+     * Sets the number of event loop threads serving the connections of an
+     * event loop server. Takes effect the next time the server is started
+     */
+    public void setEventLoopThreads(int eventLoopThreads) {
+        this.eventLoopThreads = eventLoopThreads;
+    }
+
+    /** Gets the number of threads running handshake tasks */
+    public int getHandshakeThreads() {
+        return handshakeThreads;
+    }
+
+    /**
+     * Sets the number of threads running handshake tasks of an event loop
+     * server. Takes effect the next time the server is started
+     */
+    public void setHandshakeThreads(int handshakeThreads) {
+        this.handshakeThreads = handshakeThreads;
+    }
+
+    /** Gets the event loops serving the connections (null ==> none) */
+    public NioEventLoopGroup getEventLoopGroup() {
+        return eventLoopGroup;
+    }
+
+    /** the plain server socket, the SSLServerSocket or the channel socket */
+    private ServerSocket getBaseServerSocket() {
+        ServerSocketChannel ch = serverChannel;
+
+        return (ch == null) ? getSocket() : ch.socket();
+    }
+
+    /** binds a new server socket (or channel) */
+    private void bind(int local_port, InetAddress local_addr)
+            throws IOException {
+        if (isEventLoopServer()) {
+            serverChannel =
+                    TcpServer.createServerSocket(
+                            local_port,
+                            getBacklog(),
+                            local_addr,
+                            true).getChannel();
+        } else {
+            setSocket((SSLServerSocket) getSSLServerFactory().
+                    createServerSocket(
+                            local_port,
+                            getBacklog(),
+                            local_addr));
+        }
+    }
+
     @Override
     public boolean setLocalSocketAddress(InetSocketAddress sa, int backlog)
             throws IOException {
-        SSLServerSocket tmpSocket;
+        ServerSocket sock = getBaseServerSocket();
 
         if (sa == null) {
             return false;
         }
 
-        if (getSocket() != null) {
+        if (sock != null) {
             if ((sa.getAddress() != null)
-                    && (getSocket().getInetAddress() != null)) {
-                if ((sa.getPort() == getSocket().getLocalPort())
-                        && sa.getAddress().equals(getSocket().getInetAddress())) {
+                    && (sock.getInetAddress() != null)) {
+                if ((sa.getPort() == sock.getLocalPort())
+                        && sa.getAddress().equals(sock.getInetAddress())) {
                     if (backlog == getBacklog()) {
                         if (isConfigChanged() == false)
                             return true;
                     }
                 }
             } else if ((sa.getAddress() == null)
-                    && (getSocket().getInetAddress() == null)) {
-                if (sa.getPort() == getSocket().getLocalPort()) {
+                    && (sock.getInetAddress() == null)) {
+                if (sa.getPort() == sock.getLocalPort()) {
                     if (backlog == getBacklog()) {
                         if (isConfigChanged() == false)
                             return true;
@@ -350,19 +486,13 @@ public class TcpSSLServer
         if (isRunning()) {
             old_sa =
                     new InetSocketAddress(
-                            getSocket().getInetAddress(),
-                            getSocket().getLocalPort());
+                            sock.getInetAddress(),
+                            sock.getLocalPort());
             stop();
         }
 
         try {
-            tmpSocket =
-                    (SSLServerSocket) getSSLServerFactory().
-                            createServerSocket(
-                                    getLocalPortInternal(),
-                                    getBacklog(),
-                                    getLocalAddressInternal());
-            setSocket(tmpSocket);
+            bind(sa.getPort(), sa.getAddress());
             start();
             setLocalPortInternal(sa.getPort());
             setLocalAddressInternal(sa.getAddress());
@@ -370,13 +500,7 @@ public class TcpSSLServer
             return true;
         } catch (SocketException e) {
             if (old_sa != null) {
-                tmpSocket =
-                        (SSLServerSocket) getSSLServerFactory().
-                                createServerSocket(
-                                        old_sa.getPort(),
-                                        getBacklog(),
-                                        old_sa.getAddress());
-                setSocket(tmpSocket);
+                bind(old_sa.getPort(), old_sa.getAddress());
                 start();
             } else {
                 throw e;
@@ -385,90 +509,126 @@ public class TcpSSLServer
         }
     }
 
+    /** Gets the handshake counters and latency of this server */
+    public SSLHandshakeMetrics getHandshakeMetrics() {
+        return handshakeMetrics;
+    }
+
     @Override
     public void onHandshakeCompleted(
             TcpSSLConnection tcp,
             HandshakeCompletedEvent event) {
+        handshakeMetrics.recordHandshake(
+                tcp.isSessionResumed(),
+                tcp.getHandshakeLatency());
+    }
 
+    @Override
+    public void onConnectionTerminated(TcpSSLConnection tcp, Exception error) {
+        if (tcp.isHandshakeCompleted() == false) {
+            handshakeMetrics.recordFailure();
+        }
+        super.onConnectionTerminated(tcp, error);
     }
 
     @Override
     public void run() {
-        SSLSocket socket;
+        Socket socket;
         Exception error = null;
-        long expire = 0;
-        boolean intr = false;
 
-        if (getSocket() == null) {
+        if ((isEventLoopServer() && serverChannel.isOpen() == false)
+                || (isEventLoopServer() == false && getSocket() == null)) {
             try {
-
-                SSLServerSocket sock =
-                        (SSLServerSocket) getSSLServerFactory().
-                                createServerSocket(
-                                        getLocalPortInternal(),
-                                        getBacklog(),
-                                        getLocalAddressInternal());
-                setSocket(sock);
+                bind(getLocalPortInternal(), getLocalAddressInternal());
                 clearConfigChangedFlag();
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
 
+        if (isEventLoopServer()) {
+            try {
+                eventLoopGroup = new NioEventLoopGroup(getEventLoopThreads());
+                eventLoopGroup.start();
+                handshakeExecutor =
+                        TcpSSLConnection
+                                .newHandshakeExecutor(getHandshakeThreads());
+            } catch (Exception e) {
+                log.error("unable to create event loops", e);
+                if (eventLoopGroup != null) {
+                    eventLoopGroup.stop();
+                    eventLoopGroup = null;
+                }
+                clearStartedFlag();
+                onServerTerminated(this, e);
+                return;
+            }
+        }
+
         setIsRunningFlag();
+        startInactivityTimer();
 
         try {
+            getBaseServerSocket().setSoTimeout(getSoTimeout());
             // loop
             while (isStarted()) {
                 try {
-                    if (intr == false) {
-                        if (getInactivityTime() > 0) {
-                            expire =
-                                    System.currentTimeMillis()
-                                            + getInactivityTime();
-                        }
-                    }
-                    getSocket().setSoTimeout(getSoTimeout());
-                    socket = (SSLSocket) getSocket().accept();
-                } catch (InterruptedIOException ie) {
-                    if (getInactivityTime() > 0
-                            && System.currentTimeMillis() > expire) {
-
-                        stop();
-                    }
-                    intr = true;
+                    socket = getBaseServerSocket().accept();
+                } catch (SocketTimeoutException ie) {
                     continue;
                 }
-                onIncomingConnection(this, socket);
+                refreshInactivityTimer();
+                if (isEventLoopServer()) {
+                    onIncomingConnection(this, socket.getChannel());
+                } else {
+                    onIncomingConnection(this, (SSLSocket) socket);
+                }
             }
         } catch (Exception e) {
-            error = e;
-            stop();
+            // a server shut down for inactivity ends without an error
+            if (isStarted() == true && isInactivityExpired() == false) {
+                error = e;
+            }
+            if (isStarted() == true) {
+                stop();
+            }
         }
         onServerTerminated(this, error);
+        if (eventLoopGroup != null) {
+            eventLoopGroup.stop();
+            eventLoopGroup = null;
+        }
+        if (handshakeExecutor != null) {
+            handshakeExecutor.shutdown();
+            handshakeExecutor = null;
+        }
         clearIsRunningFlag();
 
     }
 
     @Override
     protected void socketClose() throws IOException {
-        getSocket().close();
+        ServerSocket sock = getBaseServerSocket();
+
+        if (sock != null) {
+            sock.close();
+        }
     }
 
     @Override
     public InetSocketAddress getLocalSocketAddress() {
-        return new InetSocketAddress(getSocket().getInetAddress(), getSocket()
-                .getLocalPort());
+        return new InetSocketAddress(getBaseServerSocket().getInetAddress(),
+                getBaseServerSocket().getLocalPort());
     }
 
     @Override
     public InetAddress getLocalIpAddress() {
-        return getSocket().getInetAddress();
+        return getBaseServerSocket().getInetAddress();
     }
 
     @Override
     public int getLocalPort() {
-        return getSocket().getLocalPort();
+        return getBaseServerSocket().getLocalPort();
     }
 
     @Override
@@ -478,11 +638,35 @@ public class TcpSSLServer
         try {
             TcpSSLConnection tcpConn =
                     getConnectionFactory().createConnection(socket);
-            getTcpConnectionList().add(tcpConn);
+            getConnectionRegistry().add(tcpConn);
+            tcpConn.addListener(
+                    Integer.toString(hashCode()).getBytes(),
+                    this,
+                    SearchType.NONE);
+            onIncomingConnection(tcp_server, tcpConn);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** serves an accepted channel from the next event loop */
+    protected void onIncomingConnection(
+            TcpSSLServer tcp_server,
+            SocketChannel channel) {
+        try {
+            TcpSSLConnection tcpConn =
+                    getConnectionFactory().createConnection(
+                            channel,
+                            eventLoopGroup.next(),
+                            false,
+                            getSSLContext(),
+                            handshakeExecutor);
+            getConnectionRegistry().add(tcpConn);
             tcpConn.addListener(
                     Integer.toString(hashCode()).getBytes(),
                     this,
                     SearchType.NONE);
+            tcpConn.start();
             onIncomingConnection(tcp_server, tcpConn);
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -496,8 +680,10 @@ public class TcpSSLServer
     public String toString() {
         StringBuffer sb =
                 new StringBuffer("TCP SSL Server:"
-                        + getSocket().getLocalSocketAddress().toString() + ":"
-                        + getSocket().getLocalPort() + "\n" + super.toString());
+                        + getBaseServerSocket().getLocalSocketAddress()
+                                .toString() + ":"
+                        + getBaseServerSocket().getLocalPort() + "\n"
+                        + super.toString());
 
         if (recurse_flag == false) {
             Iterator<TcpSSLConnection> it = getTcpConnectionListIterator();
@@ -9,6 +9,7 @@
  **/
 package com.goffersoft.common.net;
 
+import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLServerSocketFactory;
 
 import org.apache.log4j.Logger;
@@ -19,7 +20,23 @@ public class TcpSSLServerContext
     private static final Logger log = Logger
             .getLogger(TcpSSLServerContext.class);
 
+    /** Default number of sessions cached for resumption (JSSE default) */
+    public static final int DEFAULT_SESSION_CACHE_SIZE = 20480;
+
+    /** Default lifetime of a cached session in seconds (JSSE default) */
+    public static final int DEFAULT_SESSION_TIMEOUT = 86400;
+
+    /** system property switching stateless session tickets on/off */
+    public static final String SESSION_TICKETS_PROP_KEY =
+            "jdk.tls.server.enableSessionTicketExtension";
+
     private SSLServerSocketFactory sslFactory;
+    private int sessionCacheSize = DEFAULT_SESSION_CACHE_SIZE;
+    private int sessionTimeout = DEFAULT_SESSION_TIMEOUT;
+    /** engines for event loop servers, null ==> SSLContext.getDefault() */
+    private SSLContext sslContext = null;
+    /** threads running handshake tasks for event loop servers */
+    private int handshakeThreads = Runtime.getRuntime().availableProcessors();
 
     public TcpSSLServerContext() {
         setSSLFactory(null);
@@ -36,4 +53,74 @@ public class TcpSSLServerContext
     public void setSSLFactory(SSLServerSocketFactory sslFactory) {
         this.sslFactory = sslFactory;
     }
+
+    /**
+     * Gets the context SSLEngines are created from when the server runs on
+     * event loops, null ==> SSLContext.getDefault()
+     */
+    public SSLContext getSSLContext() {
+        return sslContext;
+    }
+
+    public void setSSLContext(SSLContext sslContext) {
+        this.sslContext = sslContext;
+    }
+
+    /** Gets the size of the handshake task pool of event loop servers */
+    public int getHandshakeThreads() {
+        return handshakeThreads;
+    }
+
+    public void setHandshakeThreads(int handshakeThreads) {
+        this.handshakeThreads = handshakeThreads;
+    }
+
+    public int getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    /**
+     * Sets the number of sessions the server caches for resumption, 0 ==> no
+     * limit. Once full, the least recently used session is evicted
+     */
+    public void setSessionCacheSize(int sessionCacheSize) {
+        if (sessionCacheSize < 0) {
+            throw new IllegalArgumentException("invalid session cache size : "
+                    + sessionCacheSize);
+        }
+        this.sessionCacheSize = sessionCacheSize;
+    }
+
+    public int getSessionTimeout() {
+        return sessionTimeout;
+    }
+
+    /**
+     * Sets the seconds a session may be resumed for after it was created
+     * (cached or ticket), 0 ==> no limit
+     */
+    public void setSessionTimeout(int sessionTimeout) {
+        if (sessionTimeout < 0) {
+            throw new IllegalArgumentException("invalid session timeout : "
+                    + sessionTimeout);
+        }
+        this.sessionTimeout = sessionTimeout;
+    }
+
+    /** Whether servers hand out stateless session tickets */
+    public static boolean isSessionTickets() {
+        return Boolean.parseBoolean(System.getProperty(
+                SESSION_TICKETS_PROP_KEY,
+                "true"));
+    }
+
+    /**
+     * Switches stateless session tickets on or off; tickets let clients
+     * resume without the server holding the session in its cache. This is
+     * JVM wide and only honoured if set before the first SSLContext is
+     * initialized
+     */
+    public static void setSessionTickets(boolean enabled) {
+        System.setProperty(SESSION_TICKETS_PROP_KEY, Boolean.toString(enabled));
+    }
 }
@@ -10,8 +10,17 @@ package com.goffersoft.common.net;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.channels.ServerSocketChannel;
+import java.security.NoSuchAlgorithmException;
 
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSessionContext;
+
+import org.apache.log4j.Logger;
 
 //@formatter:off
 public class TcpSSLServerFactory
@@ -24,6 +33,8 @@ public class TcpSSLServerFactory
       TcpSSLConnectionListener,
       TcpSSLConnectionContext> {
 //@formatter:on
+    private static final Logger log = Logger
+            .getLogger(TcpSSLServerFactory.class);
 
     public TcpSSLServerFactory() {
         super(null, null);
@@ -38,23 +49,39 @@ public class TcpSSLServerFactory
     @Override
     public TcpSSLServer createServer(int local_port, InetAddress local_addr)
             throws IOException {
-        return new TcpSSLServer(
+        if (getServerContext().getEventLoopThreads() > 0) {
+            ServerSocket socket =
+                    TcpServer.createServerSocket(
+                            local_port,
+                            getServerContext().getBacklog(),
+                            local_addr,
+                            true);
+            return createServer(socket.getChannel());
+        }
+        SSLServerSocketFactory sslFactory = getServerContext().getSSLFactory();
+        if (sslFactory == null && getServerContext().getSSLContext() != null) {
+            sslFactory =
+                    getServerContext().getSSLContext().getServerSocketFactory();
+        }
+        initSessionContext();
+        return initServer(new TcpSSLServer(
                 local_port,
                 local_addr,
-                getServerContext().getSSLFactory(),
+                sslFactory,
                 getServerContext().getBacklog(),
                 getServerContext().getSocketTimeout(),
                 getServerContext().getInactivityTimeout(),
                 getServerContext().getDefaultListener(),
                 getServerContext().getListOfListeners(),
                 getConnectionContext(),
-                getServerContext().isAutoStart());
+                false));
 
     }
 
     @Override
     public TcpSSLServer createServer(SSLServerSocket socket) throws IOException {
-        return new TcpSSLServer(
+        initSessionContext();
+        return initServer(new TcpSSLServer(
                 socket,
                 getServerContext().getBacklog(),
                 getServerContext().getSocketTimeout(),
@@ -62,6 +89,56 @@ public class TcpSSLServerFactory
                 getServerContext().getDefaultListener(),
                 getServerContext().getListOfListeners(),
                 getConnectionContext(),
-                getServerContext().isAutoStart());
+                false));
+    }
+
+    /**
+     * Creates a server accepting on a bound channel whose connections run
+     * TLS in SSLEngines served by the context's event loop threads
+     */
+    public TcpSSLServer createServer(ServerSocketChannel channel)
+            throws IOException {
+        initSessionContext();
+        TcpSSLServer server = new TcpSSLServer(
+                channel,
+                getServerContext().getSSLContext(),
+                Math.max(1, getServerContext().getEventLoopThreads()),
+                getServerContext().getBacklog(),
+                getServerContext().getSocketTimeout(),
+                getServerContext().getInactivityTimeout(),
+                getServerContext().getDefaultListener(),
+                getServerContext().getListOfListeners(),
+                getConnectionContext(),
+                false);
+        server.setHandshakeThreads(getServerContext().getHandshakeThreads());
+        return initServer(server);
+    }
+
+    /**
+     * Applies the session cache settings to the server sessions of the
+     * context's SSLContext, or of the default SSLContext if the servers use
+     * the default. A custom SSLServerSocketFactory without an SSLContext
+     * keeps its own settings
+     */
+    protected void initSessionContext() throws IOException {
+        SSLContext sslContext = getServerContext().getSSLContext();
+
+        if (sslContext == null) {
+            if (getServerContext().getSSLFactory() != null
+                    && getServerContext().getEventLoopThreads() <= 0) {
+                log.debug("session cache settings not applied to a custom "
+                        + "SSLServerSocketFactory");
+                return;
+            }
+            try {
+                sslContext = SSLContext.getDefault();
+            } catch (NoSuchAlgorithmException e) {
+                throw new SSLException(e);
+            }
+        }
+
+        SSLSessionContext sessions = sslContext.getServerSessionContext();
+        sessions.setSessionCacheSize(getServerContext().getSessionCacheSize());
+        sessions.setSessionTimeout(getServerContext().getSessionTimeout());
     }
 }
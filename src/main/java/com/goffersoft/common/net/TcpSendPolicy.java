@@ -0,0 +1,113 @@
+/**
+ ** File: TcpSendPolicy.java
+ **
+ ** Description : TcpSendPolicy class - settings for the asynchronous send
+ **               queue of a tcp connection (flush policy and watermarks)
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+public class TcpSendPolicy {
+    public static final int DEFAULT_FLUSH_BATCH_SIZE = 16 * 1024;
+    public static final long DEFAULT_FLUSH_MAX_LATENCY = 1;
+    public static final long DEFAULT_LOW_WATERMARK = 32 * 1024;
+    public static final long DEFAULT_HIGH_WATERMARK = 64 * 1024;
+
+    /** when the queued data is written to the socket */
+    public static enum FlushPolicy {
+        /** as soon as the I/O thread gets to it */
+        IMMEDIATE,
+        /** once FlushBatchSize bytes are queued (or flush() is called) */
+        BATCH_SIZE,
+        /**
+         * once the oldest queued message has waited FlushMaxLatency
+         * milliseconds or FlushBatchSize bytes are queued
+         */
+        MAX_LATENCY;
+    }
+
+    private FlushPolicy flushPolicy;
+    private int flushBatchSize;
+    private long flushMaxLatency;
+    private long lowWatermark;
+    private long highWatermark;
+
+    public TcpSendPolicy() {
+        this(FlushPolicy.IMMEDIATE);
+    }
+
+    public TcpSendPolicy(FlushPolicy flushPolicy) {
+        setFlushPolicy(flushPolicy);
+        setFlushBatchSize(DEFAULT_FLUSH_BATCH_SIZE);
+        setFlushMaxLatency(DEFAULT_FLUSH_MAX_LATENCY);
+        setWatermarks(DEFAULT_LOW_WATERMARK, DEFAULT_HIGH_WATERMARK);
+    }
+
+    public FlushPolicy getFlushPolicy() {
+        return flushPolicy;
+    }
+
+    public void setFlushPolicy(FlushPolicy flushPolicy) {
+        if (flushPolicy == null) {
+            throw new IllegalArgumentException("flush policy is null");
+        }
+        this.flushPolicy = flushPolicy;
+    }
+
+    /** Gets the number of queued bytes that triggers a write */
+    public int getFlushBatchSize() {
+        return flushBatchSize;
+    }
+
+    public void setFlushBatchSize(int flushBatchSize) {
+        if (flushBatchSize <= 0) {
+            throw new IllegalArgumentException("invalid flush batch size : "
+                    + flushBatchSize);
+        }
+        this.flushBatchSize = flushBatchSize;
+    }
+
+    /** Gets the longest time (milliseconds) data waits in MAX_LATENCY mode */
+    public long getFlushMaxLatency() {
+        return flushMaxLatency;
+    }
+
+    public void setFlushMaxLatency(long flushMaxLatency) {
+        if (flushMaxLatency <= 0) {
+            throw new IllegalArgumentException("invalid flush latency : "
+                    + flushMaxLatency);
+        }
+        this.flushMaxLatency = flushMaxLatency;
+    }
+
+    /** Gets the queued byte count at which the connection is writable again */
+    public long getLowWatermark() {
+        return lowWatermark;
+    }
+
+    /** Gets the queued byte count above which the connection is unwritable */
+    public long getHighWatermark() {
+        return highWatermark;
+    }
+
+    public void setWatermarks(long lowWatermark, long highWatermark) {
+        if (lowWatermark < 0 || highWatermark < lowWatermark) {
+            throw new IllegalArgumentException("invalid watermarks : "
+                    + lowWatermark + "/" + highWatermark);
+        }
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return ("TcpSendPolicy: FlushPolicy=" + getFlushPolicy()
+                + ", FlushBatchSize=" + getFlushBatchSize()
+                + ", FlushMaxLatency=" + getFlushMaxLatency()
+                + ", LowWatermark=" + getLowWatermark()
+                + ", HighWatermark=" + getHighWatermark());
+    }
+}
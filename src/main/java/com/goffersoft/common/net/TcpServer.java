@@ -14,9 +14,18 @@ import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.net.SocketOption;
 import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 
@@ -45,9 +54,61 @@ public class TcpServer
      * listener
      */
     static {
-        setFactoryDefaultListener(new TcpServerListenerImpl());
+        setFactoryDefaultListener(TcpServer.class, new TcpServerListenerImpl());
     }
 
+    /** Default number of threads accepting connections */
+    public static final int DEFAULT_ACCEPTOR_THREADS = 1;
+
+    /** Default number of connection setup threads, 0 ==> acceptor threads */
+    public static final int DEFAULT_SETUP_THREADS = 0;
+
+    /** Default number of accepted connections waiting for a setup thread */
+    public static final int DEFAULT_SETUP_QUEUE_LENGTH = 1024;
+
+    /** StandardSocketOptions.SO_REUSEPORT (java 9+); null ==> not supported */
+    private static final SocketOption<Boolean> SO_REUSEPORT;
+    static {
+        SocketOption<Boolean> reusePort;
+        try {
+            @SuppressWarnings("unchecked")
+            SocketOption<Boolean> option =
+                    (SocketOption<Boolean>) StandardSocketOptions.class
+                            .getField("SO_REUSEPORT").get(null);
+            reusePort = option;
+        } catch (Exception e) {
+            reusePort = null;
+        }
+        SO_REUSEPORT = reusePort;
+    }
+
+    /** 0 ==> one thread per connection, > 0 ==> selector event loops */
+    volatile private int eventLoopThreads = 0;
+
+    /** event loops serving the accepted connections while running */
+    volatile private NioEventLoopGroup eventLoopGroup;
+
+    /** number of threads accepting connections, the server thread included */
+    volatile private int acceptorThreads = DEFAULT_ACCEPTOR_THREADS;
+
+    /** 0 ==> connections are set up on the acceptor threads */
+    volatile private int setupThreads = DEFAULT_SETUP_THREADS;
+
+    /** pool setting up accepted connections while running */
+    volatile private ThreadPoolExecutor setupExecutor;
+
+    /**
+     * listeners of the additional acceptors while running, bound to the
+     * server port with SO_REUSEPORT (null entry ==> the acceptor shares the
+     * server socket)
+     */
+    volatile private ServerSocket[] shardSockets;
+
+    /** error that ended one of the additional acceptors */
+    volatile private Exception acceptorError;
+
+    private final TcpAcceptMetrics acceptMetrics = new TcpAcceptMetrics();
+
     /**
      * Constructs a new TcpServer
      * 
@@ -85,7 +146,8 @@ public class TcpServer
             TcpConnectionContext connectionContext,
             boolean startOnInit)
             throws IOException {
-        ServerSocket sock = new ServerSocket(local_port, backlog, local_addr);
+        ServerSocket sock =
+                createServerSocket(local_port, backlog, local_addr, false);
         init(sock,
                 backlog,
                 sotimeout,
@@ -152,7 +214,8 @@ public class TcpServer
             int tcpConnDefault_maxRxPacketLength,
             boolean startOnInit)
             throws IOException {
-        ServerSocket sock = new ServerSocket(local_port, backlog, local_addr);
+        ServerSocket sock =
+                createServerSocket(local_port, backlog, local_addr, false);
         init(sock,
                 backlog,
                 sotimeout,
@@ -251,8 +314,7 @@ public class TcpServer
                     boolean startOnInit)
                     throws IOException {
         try {
-            TcpConnectionContext connectionContext = new TcpConnectionContext();
-            connectionContext =
+            TcpConnectionContext connectionContext =
                     (TcpConnectionContext) GenericConnectionContext
                             .getContext(TcpConnectionContext.class
                                     .getName());
@@ -280,6 +342,144 @@ public class TcpServer
         }
     }
 
+    /**
+     * Creates a bound server socket. A channel backed server socket is
+     * required for the connections to be served by event loops
+     */
+    protected static ServerSocket createServerSocket(
+            int local_port,
+            int backlog,
+            InetAddress local_addr,
+            boolean channelBacked) throws IOException {
+        return createServerSocket(
+                local_port,
+                backlog,
+                local_addr,
+                channelBacked,
+                false);
+    }
+
+    /**
+     * Creates a bound server socket; with reusePort other sockets may bind
+     * the same port (SO_REUSEPORT, where supported) and the kernel spreads
+     * the incoming connections over them
+     */
+    protected static ServerSocket createServerSocket(
+            int local_port,
+            int backlog,
+            InetAddress local_addr,
+            boolean channelBacked,
+            boolean reusePort) throws IOException {
+        if (channelBacked == false && reusePort == false) {
+            return new ServerSocket(local_port, backlog, local_addr);
+        }
+
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        try {
+            if (reusePort == true) {
+                if (SO_REUSEPORT != null
+                        && channel.supportedOptions().contains(SO_REUSEPORT)) {
+                    channel.setOption(SO_REUSEPORT, true);
+                } else {
+                    log.debug("SO_REUSEPORT not supported");
+                }
+            }
+            channel.socket().bind(
+                    new InetSocketAddress(local_addr, local_port),
+                    backlog);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel.socket();
+    }
+
+    /** Gets the number of event loop threads serving the connections */
+    public int getEventLoopThreads() {
+        return eventLoopThreads;
+    }
+
+    /**
+     * Sets the number of event loop threads serving the connections. 0 ==>
+     * one thread per connection. Takes effect the next time the server is
+     * started
+     */
+    public void setEventLoopThreads(int eventLoopThreads) {
+        this.eventLoopThreads = eventLoopThreads;
+    }
+
+    /** Gets the event loops serving the connections (null ==> none) */
+    public NioEventLoopGroup getEventLoopGroup() {
+        return eventLoopGroup;
+    }
+
+    /** Whether the runtime supports SO_REUSEPORT */
+    public static boolean isReusePortSupported() {
+        return SO_REUSEPORT != null;
+    }
+
+    /** Gets the number of threads accepting connections */
+    public int getAcceptorThreads() {
+        return acceptorThreads;
+    }
+
+    /**
+     * Sets the number of threads accepting connections. Beyond the first,
+     * each acceptor listens on its own socket bound to the server port with
+     * SO_REUSEPORT, so every acceptor has its own backlog; where that is not
+     * supported the acceptors share the server socket. Takes effect the next
+     * time the server is started; the server socket must have been created
+     * with reusePort for the listeners to be sharded
+     */
+    public void setAcceptorThreads(int acceptorThreads) {
+        if (acceptorThreads < 1) {
+            throw new IllegalArgumentException("invalid acceptor threads : "
+                    + acceptorThreads);
+        }
+        this.acceptorThreads = acceptorThreads;
+    }
+
+    /** Gets the number of threads setting up accepted connections */
+    public int getSetupThreads() {
+        return setupThreads;
+    }
+
+    /**
+     * Sets the number of threads the accepted connections are handed off to
+     * for setup (factory, listeners, start). 0 ==> set up on the acceptor
+     * threads. Takes effect the next time the server is started
+     */
+    public void setSetupThreads(int setupThreads) {
+        if (setupThreads < 0) {
+            throw new IllegalArgumentException("invalid setup threads : "
+                    + setupThreads);
+        }
+        this.setupThreads = setupThreads;
+    }
+
+    /**
+     * Gets the number of acceptors listening on a socket of their own while
+     * running; the other acceptors beyond the first share the server socket
+     */
+    public int getShardedAcceptorCount() {
+        ServerSocket[] shards = shardSockets;
+        int count = 0;
+
+        if (shards != null) {
+            for (ServerSocket shard : shards) {
+                if (shard != null) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /** Gets the accept counters */
+    public TcpAcceptMetrics getAcceptMetrics() {
+        return acceptMetrics;
+    }
+
     @Override
     public InetSocketAddress getLocalSocketAddress() {
         return new InetSocketAddress(getSocket().getInetAddress(), getSocket()
@@ -336,8 +536,9 @@ public class TcpServer
 
         try {
 
-            tmpSocket = new ServerSocket(sa.getPort(), getBacklog(),
-                    sa.getAddress());
+            tmpSocket = createServerSocket(sa.getPort(), getBacklog(),
+                    sa.getAddress(), getEventLoopThreads() > 0,
+                    getAcceptorThreads() > 1);
             setSocket(tmpSocket);
             start();
             setLocalPortInternal(sa.getPort());
@@ -346,8 +547,10 @@ public class TcpServer
             return true;
         } catch (SocketException e) {
             if (old_sa != null) {
-                tmpSocket = new ServerSocket(old_sa.getPort(), getBacklog(),
-                        old_sa.getAddress());
+                tmpSocket = createServerSocket(old_sa.getPort(),
+                        getBacklog(), old_sa.getAddress(),
+                        getEventLoopThreads() > 0,
+                        getAcceptorThreads() > 1);
                 setSocket(tmpSocket);
                 start();
             } else {
@@ -359,54 +562,241 @@ public class TcpServer
 
     @Override
     public void run() {
-        Socket socket;
         Exception error = null;
-        long expire = 0;
-        boolean intr = false;
+        Thread[] acceptors;
 
         if (getSocket() == null) {
             try {
-                setSocket(new ServerSocket(getLocalPortInternal(),
-                        getBacklog(), getLocalAddressInternal()));
+                setSocket(createServerSocket(getLocalPortInternal(),
+                        getBacklog(), getLocalAddressInternal(),
+                        getEventLoopThreads() > 0,
+                        getAcceptorThreads() > 1));
                 clearConfigChangedFlag();
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
 
+        if (getEventLoopThreads() > 0) {
+            try {
+                eventLoopGroup = new NioEventLoopGroup(getEventLoopThreads());
+                eventLoopGroup.start();
+            } catch (IOException e) {
+                log.error("unable to create event loops, "
+                        + "falling back to one thread per connection", e);
+                eventLoopGroup = null;
+            }
+        }
+
+        if (getSetupThreads() > 0) {
+            setupExecutor = newSetupExecutor(getSetupThreads());
+        }
+
         setIsRunningFlag();
+        startInactivityTimer();
+        acceptors = startAcceptors();
         try {
-            // loop
-            while (isStarted()) {
+            getSocket().setSoTimeout(getSoTimeout());
+            acceptLoop(getSocket());
+        } catch (Exception e) {
+            // a server shut down for inactivity ends without an error
+            if (isStarted() == true && isInactivityExpired() == false) {
+                error = (acceptorError != null) ? acceptorError : e;
+                error.printStackTrace();
+            }
+            if (isStarted() == true) {
+                stop();
+            }
+        }
+        stopAcceptors(acceptors);
+        stopSetupExecutor();
+        onServerTerminated(this, error);
+        if (eventLoopGroup != null) {
+            eventLoopGroup.stop();
+            eventLoopGroup = null;
+        }
+        clearIsRunningFlag();
+    }
+
+    /** accepts connections on the socket until the server stops */
+    private void acceptLoop(ServerSocket sock) throws IOException {
+        Socket socket;
+
+        // loop
+        while (isStarted()) {
+            try {
+                socket = sock.accept();
+            } catch (SocketTimeoutException ie) {
+                continue;
+            }
+            refreshInactivityTimer();
+            dispatchIncoming(socket);
+        }
+    }
+
+    /** starts the acceptors beyond the server thread */
+    private Thread[] startAcceptors() {
+        int n = getAcceptorThreads() - 1;
+        Thread[] acceptors = new Thread[Math.max(n, 0)];
+        ServerSocket[] shards = new ServerSocket[acceptors.length];
+        boolean shard = isReusePortSupported();
+
+        acceptorError = null;
+        shardSockets = shards;
+        for (int i = 0; i < acceptors.length; i++) {
+            if (shard == true) {
                 try {
-                    if (intr == false) {
-                        if (getInactivityTime() > 0) {
-                            expire = System.currentTimeMillis()
-                                    + getInactivityTime();
+                    shards[i] = createServerSocket(
+                            getSocket().getLocalPort(),
+                            getBacklog(),
+                            getLocalAddressInternal(),
+                            getEventLoopThreads() > 0,
+                            true);
+                } catch (IOException e) {
+                    log.warn("unable to shard the listener on port "
+                            + getSocket().getLocalPort()
+                            + ", acceptors share the server socket", e);
+                    shard = false;
+                }
+            }
+
+            final ServerSocket sock =
+                    (shards[i] != null) ? shards[i] : getSocket();
+            Runnable acceptTask = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        sock.setSoTimeout(getSoTimeout());
+                        acceptLoop(sock);
+                    } catch (Exception e) {
+                        if (isStarted() == true) {
+                            // end the server thread with this error
+                            acceptorError = e;
+                            try {
+                                getSocket().close();
+                            } catch (IOException e1) {
+                                e1.printStackTrace();
+                            }
                         }
                     }
-                    getSocket().setSoTimeout(getSoTimeout());
-                    socket = getSocket().accept();
-                    onIncomingConnection(this, socket);
-                } catch (SocketTimeoutException ie) {
+                }
+            };
+            if (getThreadFactory() != null) {
+                acceptors[i] = getThreadFactory().newThread(acceptTask);
+            } else {
+                acceptors[i] = new Thread(acceptTask);
+            }
+            acceptors[i].setName(getClass().getName() + ".Acceptor"
+                    + (i + 1));
+            acceptors[i].start();
+        }
+        return acceptors;
+    }
 
-                    if (getInactivityTime() > 0
-                            && System.currentTimeMillis() > expire) {
+    /** waits for the acceptors, whose sockets socketClose() has closed */
+    private void stopAcceptors(Thread[] acceptors) {
+        for (int i = 0; i < acceptors.length; i++) {
+            while (acceptors[i].isAlive()) {
+                try {
+                    acceptors[i].join();
+                } catch (InterruptedException e) {
+                }
+            }
+        }
+        shardSockets = null;
+    }
 
-                        stop();
+    /**
+     * Creates a bounded pool of daemon threads (from the thread factory, if
+     * set) setting up accepted connections. Connections that do not fit
+     * into the queue are set up on the acceptor thread instead
+     */
+    protected ThreadPoolExecutor newSetupExecutor(int nThreads) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                nThreads,
+                nThreads,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(DEFAULT_SETUP_QUEUE_LENGTH),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread t;
+                        if (getThreadFactory() != null) {
+                            t = getThreadFactory().newThread(r);
+                        } else {
+                            t = new Thread(r);
+                        }
+                        t.setName(TcpServer.class.getName() + ".Setup"
+                                + threadCount.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
                     }
-                    intr = true;
-                    continue;
-                }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
 
+    /** waits for the connections handed off to the setup pool */
+    private void stopSetupExecutor() {
+        ThreadPoolExecutor executor = setupExecutor;
+
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        while (executor.isTerminated() == false) {
+            try {
+                executor.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
             }
-        } catch (Exception e) {
-            error = e;
-            error.printStackTrace();
-            stop();
         }
-        onServerTerminated(this, error);
-        clearIsRunningFlag();
+        setupExecutor = null;
+    }
+
+    /** hands an accepted connection off to the setup pool */
+    private void dispatchIncoming(final Socket socket) {
+        ThreadPoolExecutor executor = setupExecutor;
+
+        acceptMetrics.recordAccept();
+        if (executor != null) {
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        setupConnection(socket);
+                    }
+                });
+                return;
+            } catch (RejectedExecutionException e) {
+                acceptMetrics.recordSetupOverflow();
+            }
+        }
+        setupConnection(socket);
+    }
+
+    /** creates and starts the connection; failures only lose this socket */
+    private void setupConnection(Socket socket) {
+        if (isStarted() == false) {
+            closeQuietly(socket);
+            return;
+        }
+        try {
+            onIncomingConnection(this, socket);
+        } catch (RuntimeException e) {
+            acceptMetrics.recordSetupFailure();
+            log.error("unable to set up connection from "
+                    + socket.getRemoteSocketAddress(), e);
+            closeQuietly(socket);
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+        }
     }
 
     private boolean recurse_flag = false;
@@ -436,10 +826,16 @@ public class TcpServer
     @Override
     protected void onIncomingConnection(TcpServer tcp_server, Socket socket) {
         try {
-            TcpConnection tcpConn =
-                    (TcpConnection) getConnectionFactory().createConnection(
-                            socket);
-            getTcpConnectionList().add(tcpConn);
+            NioEventLoopGroup group = eventLoopGroup;
+            TcpConnection tcpConn;
+            if (group != null && socket.getChannel() != null) {
+                tcpConn = getConnectionFactory().createConnection(
+                        socket,
+                        group.next());
+            } else {
+                tcpConn = getConnectionFactory().createConnection(socket);
+            }
+            getConnectionRegistry().add(tcpConn);
             tcpConn.addListener(
                     Integer.toString(hashCode()).getBytes(),
                     this,
@@ -453,6 +849,18 @@ public class TcpServer
 
     @Override
     protected void socketClose() throws IOException {
-        getSocket().close();
+        ServerSocket sock = getSocket();
+        ServerSocket[] shards = shardSockets;
+
+        if (sock != null) {
+            sock.close();
+        }
+        if (shards != null) {
+            for (int i = 0; i < shards.length; i++) {
+                if (shards[i] != null) {
+                    shards[i].close();
+                }
+            }
+        }
     }
 }
\ No newline at end of file
@@ -17,7 +17,68 @@ public class TcpServerContext
     private static final Logger log = Logger
             .getLogger(TcpServerContext.class);
 
+    /** number of threads accepting connections (> 1 ==> sharded listeners) */
+    private int acceptorThreads = TcpServer.DEFAULT_ACCEPTOR_THREADS;
+
+    /** 0 ==> connections are set up on the acceptor threads */
+    private int setupThreads = TcpServer.DEFAULT_SETUP_THREADS;
+
     public TcpServerContext() {
 
     }
+
+    public int getAcceptorThreads() {
+        return acceptorThreads;
+    }
+
+    public void setAcceptorThreads(int acceptorThreads) {
+        if (acceptorThreads < 1) {
+            throw new IllegalArgumentException("invalid acceptor threads : "
+                    + acceptorThreads);
+        }
+        this.acceptorThreads = acceptorThreads;
+    }
+
+    public int getSetupThreads() {
+        return setupThreads;
+    }
+
+    public void setSetupThreads(int setupThreads) {
+        if (setupThreads < 0) {
+            throw new IllegalArgumentException("invalid setup threads : "
+                    + setupThreads);
+        }
+        this.setupThreads = setupThreads;
+    }
+
+    @Override
+    public String toString() {
+        return (super.toString() + " AcceptorThreads=" + acceptorThreads
+                + " SetupThreads=" + setupThreads);
+    }
+
+    public boolean equals(TcpServerContext o) {
+        if (getAcceptorThreads() == o.getAcceptorThreads()
+                && getSetupThreads() == o.getSetupThreads()) {
+            return super.equals((GenericServerContext<?>) o);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof TcpServerContext) {
+            return equals((TcpServerContext) o);
+        }
+        return false;
+    }
+
+    /** Hashes the settings equals() compares here, consistent with it */
+    @Override
+    public int hashCode() {
+        return 31 * getAcceptorThreads() + getSetupThreads();
+    }
 }
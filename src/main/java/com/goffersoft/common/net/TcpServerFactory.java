@@ -37,22 +37,19 @@ public class TcpServerFactory
     @Override
     public TcpServer createServer(int local_port, InetAddress local_addr)
             throws IOException {
-        return new TcpServer(
-                local_port,
-                local_addr,
-                getServerContext().getBacklog(),
-                getServerContext().getSocketTimeout(),
-                getServerContext().getInactivityTimeout(),
-                getServerContext().getDefaultListener(),
-                getServerContext().getListOfListeners(),
-                getConnectionContext(),
-                getServerContext().isAutoStart());
-
+        ServerSocket socket =
+                TcpServer.createServerSocket(
+                        local_port,
+                        getServerContext().getBacklog(),
+                        local_addr,
+                        getServerContext().getEventLoopThreads() > 0,
+                        getServerContext().getAcceptorThreads() > 1);
+        return createServer(socket);
     }
 
     @Override
     public TcpServer createServer(ServerSocket socket) throws IOException {
-        return new TcpServer(
+        TcpServer server = new TcpServer(
                 socket,
                 getServerContext().getBacklog(),
                 getServerContext().getSocketTimeout(),
@@ -60,6 +57,10 @@ public class TcpServerFactory
                 getServerContext().getDefaultListener(),
                 getServerContext().getListOfListeners(),
                 getConnectionContext(),
-                getServerContext().isAutoStart());
+                false);
+        server.setEventLoopThreads(getServerContext().getEventLoopThreads());
+        server.setAcceptorThreads(getServerContext().getAcceptorThreads());
+        server.setSetupThreads(getServerContext().getSetupThreads());
+        return initServer(server);
     }
 }
@@ -0,0 +1,30 @@
+/**
+ ** File: TcpTransferListener.java
+ **
+ ** Description : TcpTransferListener interface - progress and completion
+ **               callbacks of a file transfer on a tcp connection
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+public interface TcpTransferListener {
+    /**
+     * Called on the transferring thread each time a chunk has been handed
+     * to the socket; transferred of total bytes have been sent so far
+     */
+    public void onTransferProgress(
+            GenericTcpConnection<?, ?, ?> tcp,
+            long transferred,
+            long total);
+
+    /**
+     * Called once when the transfer ends; error is null if all bytes were
+     * sent
+     */
+    public void onTransferCompleted(
+            GenericTcpConnection<?, ?, ?> tcp,
+            long transferred,
+            Exception error);
+}
@@ -0,0 +1,21 @@
+/**
+ ** File: TcpWritabilityListener.java
+ **
+ ** Description : TcpWritabilityListener interface - backpressure callbacks
+ **               for tcp connections with an asynchronous send queue
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+public interface TcpWritabilityListener {
+    /**
+     * Called with writable == false when the queued data rises above the
+     * high watermark and with writable == true once it has drained to the
+     * low watermark. May be called from the sending or the I/O thread
+     */
+    public void onWritabilityChanged(
+            GenericTcpConnection<?, ?, ?> tcp,
+            boolean writable);
+}
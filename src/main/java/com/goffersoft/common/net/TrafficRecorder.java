@@ -0,0 +1,246 @@
+/**
+ ** File: TrafficRecorder.java
+ **
+ ** Description : TrafficRecorder class - appends the data received by
+ **               connections to memory mapped capture segments
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.log4j.Logger;
+
+/**
+ * A capture is a sequence of segment files &lt;prefix&gt;-&lt;n&gt;.cap in one
+ * directory. Each segment starts with a header (magic, version, capture
+ * start time in milliseconds since the epoch) followed by records of
+ * (payload length, nanoseconds since the capture started, stream id,
+ * payload); a zero length ends the segment. Records are copied straight
+ * from the receive buffer into the mapped segment; a new segment is
+ * mapped when the current one is full. record() may be called from any
+ * number of connection threads
+ */
+public class TrafficRecorder {
+    private static final Logger log = Logger.getLogger(TrafficRecorder.class);
+
+    /** "GCAP" */
+    public static final int MAGIC = 0x47434150;
+
+    public static final int VERSION = 1;
+
+    /** magic, version, capture start time */
+    public static final int SEGMENT_HEADER_LENGTH = 16;
+
+    /** length, timestamp, stream id */
+    public static final int RECORD_HEADER_LENGTH = 20;
+
+    /** Default segment file size in bytes */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    /** Default segment file name prefix */
+    public static final String DEFAULT_PREFIX = "capture";
+
+    /** Stream id of the packets of a UdpConnection */
+    public static final long UDP_STREAM_ID = 0;
+
+    private final Path directory;
+
+    private final String prefix;
+
+    private final int segmentSize;
+
+    private final long startTime = System.currentTimeMillis();
+
+    private final long startNanos = System.nanoTime();
+
+    /** current segment (guarded by this) */
+    private MappedByteBuffer segment;
+
+    private int segmentCount;
+
+    private long recordCount;
+
+    private long byteCount;
+
+    private long droppedCount;
+
+    volatile private boolean closed;
+
+    public TrafficRecorder(Path directory) throws IOException {
+        this(directory, DEFAULT_PREFIX, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /** Creates the directory if needed and maps the first segment */
+    public TrafficRecorder(Path directory, String prefix, int segmentSize)
+            throws IOException {
+        if (segmentSize <= SEGMENT_HEADER_LENGTH + RECORD_HEADER_LENGTH) {
+            throw new IllegalArgumentException("invalid segment size : "
+                    + segmentSize);
+        }
+        this.directory = directory;
+        this.prefix = prefix;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        nextSegment();
+    }
+
+    /** Gets the file name of segment n */
+    public static String getSegmentName(String prefix, int n) {
+        return String.format("%s-%06d.cap", prefix, n);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    /** Gets the largest payload a record can hold */
+    public int getMaximumRecordLength() {
+        return segmentSize - SEGMENT_HEADER_LENGTH - RECORD_HEADER_LENGTH - 4;
+    }
+
+    /**
+     * Appends a record of the data received on the stream (the connection
+     * id of a tcp connection); false if the recorder is closed or the data
+     * could not be recorded. Empty data (an empty datagram) is not recorded,
+     * a zero length ends a segment
+     */
+    public boolean record(long streamId, byte[] data, int offset, int length) {
+        long timestamp = System.nanoTime() - startNanos;
+
+        synchronized (this) {
+            if (closed == true || length <= 0
+                    || length > getMaximumRecordLength()) {
+                droppedCount++;
+                return false;
+            }
+            // keep room for the end of segment marker
+            if (segment.remaining() < RECORD_HEADER_LENGTH + length + 4) {
+                try {
+                    nextSegment();
+                } catch (IOException e) {
+                    log.error("unable to map capture segment, closing", e);
+                    closed = true;
+                    droppedCount++;
+                    return false;
+                }
+            }
+            segment.putInt(length);
+            segment.putLong(timestamp);
+            segment.putLong(streamId);
+            segment.put(data, offset, length);
+            recordCount++;
+            byteCount += length;
+        }
+        return true;
+    }
+
+    /** ends the current segment and maps the next one (holding this) */
+    private void nextSegment() throws IOException {
+        if (segment != null) {
+            segment.putInt(0);
+            segment.force();
+        }
+
+        Path file = directory.resolve(getSegmentName(prefix, segmentCount));
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            // the mapping stays valid after the channel is closed
+            segment = channel.map(FileChannel.MapMode.READ_WRITE,
+                    0,
+                    segmentSize);
+        } finally {
+            channel.close();
+        }
+        segment.putInt(MAGIC);
+        segment.putInt(VERSION);
+        segment.putLong(startTime);
+        segmentCount++;
+    }
+
+    /** Gets the number of records written */
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    /** Gets the number of payload bytes written */
+    public synchronized long getByteCount() {
+        return byteCount;
+    }
+
+    /** Gets the number of records that could not be written */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /** Gets the number of segment files */
+    public synchronized int getSegmentCount() {
+        return segmentCount;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Ends the capture, writes the last segment out to the file and deletes
+     * the segments an earlier, longer capture with the same prefix left
+     * behind
+     */
+    public synchronized void close() {
+        if (closed == true && segment == null) {
+            return;
+        }
+        closed = true;
+        if (segment != null) {
+            if (segment.remaining() >= 4) {
+                segment.putInt(0);
+            }
+            segment.force();
+            segment = null;
+        }
+        deleteStaleSegments();
+    }
+
+    /** deletes the segments numbered from segmentCount on (holding this) */
+    private void deleteStaleSegments() {
+        int n = segmentCount;
+
+        try {
+            while (Files.deleteIfExists(directory.resolve(getSegmentName(
+                    prefix, n))) == true) {
+                n++;
+            }
+        } catch (IOException e) {
+            log.error("unable to delete stale capture segment " + n, e);
+        }
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return ("TrafficRecorder: Directory=" + getDirectory() + ", Prefix="
+                + getPrefix() + ", Segments=" + getSegmentCount()
+                + ", Records=" + getRecordCount() + ", Bytes="
+                + getByteCount() + ", Dropped=" + getDroppedCount());
+    }
+}
@@ -0,0 +1,259 @@
+/**
+ ** File: TrafficReplayer.java
+ **
+ ** Description : TrafficReplayer class - sends the traffic captured by a
+ **               TrafficRecorder back to a server
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+
+/**
+ * The segments are mapped read only and each payload is sent from the
+ * mapping, without copying it to the heap. Records are sent in capture
+ * order from the calling thread, at the original pace scaled by the speed
+ * (0 ==> as fast as possible). Each tcp stream is replayed on a connection
+ * of its own; the connections are closed when the replay ends
+ */
+public class TrafficReplayer {
+    private static final Logger log = Logger.getLogger(TrafficReplayer.class);
+
+    private final Path directory;
+
+    private final String prefix;
+
+    volatile private double speed = 1.0;
+
+    private long recordCount;
+
+    private long byteCount;
+
+    public TrafficReplayer(Path directory) {
+        this(directory, TrafficRecorder.DEFAULT_PREFIX);
+    }
+
+    public TrafficReplayer(Path directory, String prefix) {
+        this.directory = directory;
+        this.prefix = prefix;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /** Gets the pace relative to the capture (0 ==> as fast as possible) */
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Sets the pace relative to the capture, e.g. 2 replays twice as fast;
+     * 0 ==> as fast as possible
+     */
+    public void setSpeed(double speed) {
+        if (speed < 0) {
+            throw new IllegalArgumentException("invalid speed : " + speed);
+        }
+        this.speed = speed;
+    }
+
+    /** Gets the number of records sent by the last replay */
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    /** Gets the number of payload bytes sent by the last replay */
+    public synchronized long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * Replays each captured stream on a connection to the server created
+     * by the factory (started if the context does not auto start it);
+     * returns the number of records sent
+     */
+    public long replayTcp(
+            final TcpConnectionFactory factory,
+            final InetSocketAddress server) throws IOException {
+        final Map<Long, TcpConnection> connections =
+                new HashMap<Long, TcpConnection>();
+
+        try {
+            return replay(new Sender() {
+                @Override
+                public void send(long streamId, ByteBuffer payload)
+                        throws IOException {
+                    TcpConnection conn = connections.get(streamId);
+
+                    if (conn == null) {
+                        SocketChannel channel = SocketChannel.open(server);
+                        conn = factory.createConnection(channel.socket());
+                        if (conn.isStarted() == false) {
+                            conn.start();
+                        }
+                        connections.put(streamId, conn);
+                    }
+                    conn.send(payload);
+                }
+            });
+        } finally {
+            for (TcpConnection conn : connections.values()) {
+                conn.stop();
+            }
+        }
+    }
+
+    /**
+     * Replays the captured packets from a connection created by the
+     * factory (started if the context does not auto start it) to the
+     * target; returns the number of records sent
+     */
+    public long replayUdp(
+            UdpConnectionFactory factory,
+            final InetSocketAddress target) throws IOException {
+        DatagramChannel channel = DatagramChannel.open();
+        channel.bind(null);
+
+        final UdpConnection conn = factory.createConnection(channel.socket());
+        if (conn.isStarted() == false) {
+            conn.start();
+        }
+        try {
+            return replay(new Sender() {
+                @Override
+                public void send(long streamId, ByteBuffer payload)
+                        throws IOException {
+                    conn.send(payload, target);
+                }
+            });
+        } finally {
+            conn.stop();
+        }
+    }
+
+    /**
+     * sends the records of all segments in order; a segment of another
+     * capture (a different start time) ends the replay
+     */
+    synchronized long replay(Sender sender) throws IOException {
+        long firstTimestamp = -1;
+        long startNanos = 0;
+        long captureStart = 0;
+        int n = 0;
+        Path file;
+
+        recordCount = 0;
+        byteCount = 0;
+        while (Files.exists(file = directory.resolve(TrafficRecorder
+                .getSegmentName(prefix, n)))) {
+            MappedByteBuffer segment = map(file);
+            long start = segment.getLong(8);
+            int length;
+
+            if (n == 0) {
+                captureStart = start;
+            } else if (start != captureStart) {
+                log.warn("segment " + file + " is not part of the capture"
+                        + " started at " + captureStart);
+                break;
+            }
+
+            while (segment.remaining() >= TrafficRecorder.RECORD_HEADER_LENGTH
+                    && (length = segment.getInt()) > 0) {
+                long timestamp = segment.getLong();
+                long streamId = segment.getLong();
+
+                if (length > segment.remaining()) {
+                    throw new IOException("truncated record in " + file);
+                }
+                if (firstTimestamp < 0) {
+                    firstTimestamp = timestamp;
+                    startNanos = System.nanoTime();
+                }
+                awaitDue(startNanos, timestamp - firstTimestamp);
+
+                ByteBuffer payload = segment.duplicate();
+                payload.limit(segment.position() + length);
+                segment.position(segment.position() + length);
+                sender.send(streamId, payload);
+                recordCount++;
+                byteCount += length;
+            }
+            n++;
+        }
+        if (n == 0) {
+            throw new IOException("no capture " + prefix + " in "
+                    + directory);
+        }
+        return recordCount;
+    }
+
+    /** waits until offsetNanos (scaled by the speed) after startNanos */
+    private void awaitDue(long startNanos, long offsetNanos) {
+        double s = speed;
+        long wait;
+
+        if (s == 0) {
+            return;
+        }
+
+        long due = startNanos + (long) (offsetNanos / s);
+        while ((wait = due - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, wait);
+        }
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        MappedByteBuffer segment;
+
+        try {
+            segment = channel.map(FileChannel.MapMode.READ_ONLY,
+                    0,
+                    channel.size());
+        } finally {
+            channel.close();
+        }
+        if (segment.remaining() < TrafficRecorder.SEGMENT_HEADER_LENGTH
+                || segment.getInt() != TrafficRecorder.MAGIC
+                || segment.getInt() != TrafficRecorder.VERSION) {
+            throw new IOException("not a capture segment : " + file);
+        }
+        segment.getLong();
+        return segment;
+    }
+
+    /** where the records are sent */
+    interface Sender {
+        void send(long streamId, ByteBuffer payload) throws IOException;
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return ("TrafficReplayer: Directory=" + getDirectory() + ", Prefix="
+                + getPrefix() + ", Speed=" + getSpeed() + ", Records="
+                + getRecordCount() + ", Bytes=" + getByteCount());
+    }
+}
@@ -0,0 +1,29 @@
+/**
+ ** File: UdpBatchListener.java
+ **
+ ** Description : UdpBatchListener interface - udp listener that accepts
+ **               all datagrams drained in one wakeup as a single batch
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.net.DatagramPacket;
+import java.util.List;
+
+/**
+ * When the connection receives in batches (see
+ * UdpConnection.setReceiveBatchSize) consecutive datagrams routed to the same
+ * listener implementing this interface are delivered in one call. The list
+ * and the packets in it are borrowed: they are only valid until the callback
+ * returns. Datagrams failing the minimum/maximum length checks still go to
+ * the small/large packet error callbacks one at a time.
+ */
+public interface UdpBatchListener
+        extends
+        UdpConnectionListener
+{
+    /** When one or more UDP datagrams are received. */
+    public void onReceivedBatch(UdpConnection udp, List<DatagramPacket> batch);
+}
@@ -0,0 +1,31 @@
+/**
+ ** File: UdpBorrowedPacketListener.java
+ **
+ ** Description : UdpBorrowedPacketListener interface - udp listener that
+ **               accepts packets lent from the connection's receive ring
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.net.DatagramPacket;
+
+/**
+ * When the connection receives into a packet ring (see
+ * UdpConnection.setReceiveRingSize) listeners implementing this interface are
+ * handed the ring slot itself instead of a private copy. The packet and its
+ * data stay valid until the ring wraps around, i.e. for the next
+ * (ring size - 1) datagrams; a listener that needs the data for longer must
+ * copy it. The small/large packet error callbacks of such a listener receive
+ * borrowed packets as well.
+ */
+public interface UdpBorrowedPacketListener
+        extends
+        UdpConnectionListener
+{
+    /** When a new UDP datagram is received into a ring slot. */
+    public void onReceivedBorrowedPacket(
+            UdpConnection udp,
+            DatagramPacket packet);
+}
@@ -10,13 +10,19 @@
 package com.goffersoft.common.net;
 
 import java.io.IOException;
-import java.io.InterruptedIOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -37,8 +43,39 @@ public class UdpConnection
     volatile private int local_port;
     volatile private InetAddress local_addr;
 
+    /** Default number of packets in the receive ring, 0 ==> no ring */
+    public static final int DEFAULT_RECEIVE_RING_SIZE = 0;
+
+    /** number of pre-allocated receive packets, 0 ==> new packet per read */
+    volatile private int receiveRingSize = DEFAULT_RECEIVE_RING_SIZE;
+
+    /** pre-allocated receive packets, reused in round robin order */
+    private DatagramPacket[] receiveRing;
+
+    /** Default maximum number of datagrams per batch, 0 ==> no batching */
+    public static final int DEFAULT_RECEIVE_BATCH_SIZE = 0;
+
+    /** maximum datagrams drained per wakeup, 0 ==> one receive per call */
+    volatile private int receiveBatchSize = DEFAULT_RECEIVE_BATCH_SIZE;
+
+    /** selector of the batch receive loop, woken up by socketClose() */
+    volatile private Selector batchSelector;
+
+    /** pre-allocated batch slots and the buffers backing them */
+    private DatagramPacket[] batchPackets;
+    private ByteBuffer[] batchBuffers;
+    private UdpConnectionListener[] batchListeners;
+    private final ArrayList<DatagramPacket> batchRun =
+            new ArrayList<DatagramPacket>();
+
+    /** serializes senders so a batch goes out without interleaving */
+    private final Object sendLock = new Object();
+
+    /** selector a sender waits on for room in the send buffer (sendLock) */
+    volatile private Selector sendSelector;
+
     static {
-        setFactoryDefaultListener(new UdpConnectionListenerImpl());
+        setFactoryDefaultListener(UdpConnection.class, new UdpConnectionListenerImpl());
     }
 
     /** Creates a new UdpConnection */
@@ -169,6 +206,42 @@ public class UdpConnection
         );
     }
 
+    /**
+     * Creates a bound datagram socket. A channel backed socket is required
+     * for batched receive
+     */
+    protected static DatagramSocket createDatagramSocket(
+            int port,
+            InetAddress bind_ipaddr,
+            boolean channelBacked) throws SocketException {
+        if (channelBacked == false) {
+            if (bind_ipaddr == null || bind_ipaddr.getAddress() == null) {
+                return new DatagramSocket(port);
+            }
+            return new DatagramSocket(port, bind_ipaddr);
+        }
+
+        DatagramChannel channel = null;
+        try {
+            channel = DatagramChannel.open();
+            channel.socket().bind(new InetSocketAddress(bind_ipaddr, port));
+            return channel.socket();
+        } catch (IOException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ce) {
+                }
+            }
+            if (e instanceof SocketException) {
+                throw (SocketException) e;
+            }
+            SocketException se = new SocketException(e.getMessage());
+            se.initCause(e);
+            throw se;
+        }
+    }
+
     public InetSocketAddress getLocalSocketAddress() {
         return new InetSocketAddress(getSocket().getLocalAddress(), getSocket()
                 .getLocalPort());
@@ -217,11 +290,10 @@ public class UdpConnection
         }
 
         try {
-            if (sa.getAddress() == null) {
-                tmpSocket = new DatagramSocket(sa.getPort());
-            } else {
-                tmpSocket = new DatagramSocket(sa.getPort(), sa.getAddress());
-            }
+            tmpSocket = createDatagramSocket(
+                    sa.getPort(),
+                    sa.getAddress(),
+                    getReceiveBatchSize() > 0);
             setSocket(tmpSocket);
             start();
             local_port = sa.getPort();
@@ -253,7 +325,157 @@ public class UdpConnection
 
     @Override
     protected void socketClose() throws IOException {
-        getSocket().close();
+        DatagramSocket sock = getSocket();
+        Selector selector = batchSelector;
+
+        if (sock != null) {
+            sock.close();
+        }
+        // the batch loop may be blocked in select()
+        if (selector != null) {
+            selector.wakeup();
+        }
+        // and a sender may be waiting for room in the send buffer
+        selector = sendSelector;
+        if (selector != null) {
+            selector.wakeup();
+        }
+        synchronized (sendLock) {
+            closeSendSelector();
+        }
+    }
+
+    /** Gets the number of packets in the receive ring (0 ==> no ring) */
+    public int getReceiveRingSize() {
+        return receiveRingSize;
+    }
+
+    /**
+     * Sets the number of pre-allocated packets datagrams are received into;
+     * 0 allocates a new packet for every datagram. Listeners implementing
+     * UdpBorrowedPacketListener are lent the ring slots, all others get a
+     * copy. Takes effect the next time the connection is started
+     */
+    public void setReceiveRingSize(int size) {
+        receiveRingSize = size;
+    }
+
+    /** Gets the maximum number of datagrams per batch (0 ==> no batching) */
+    public int getReceiveBatchSize() {
+        return receiveBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of datagrams drained from the socket per
+     * wakeup; 0 receives one datagram per call. Batching requires a socket
+     * obtained from a DatagramChannel (see UdpConnectionFactory) and takes
+     * precedence over the receive ring. Takes effect the next time the
+     * connection is started
+     */
+    public void setReceiveBatchSize(int size) {
+        receiveBatchSize = size;
+    }
+
+    /** allocates the receive ring, reusing the current one if it still fits */
+    private DatagramPacket[] allocateReceiveRing() {
+        int size = getReceiveRingSize();
+
+        if (size <= 0) {
+            return null;
+        }
+        if (receiveRing != null && receiveRing.length == size
+                && receiveRing[0].getData().length >= getReceiveBufferSize()) {
+            return receiveRing;
+        }
+
+        DatagramPacket[] ring = new DatagramPacket[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new DatagramPacket(
+                    new byte[getReceiveBufferSize()],
+                    getReceiveBufferSize());
+        }
+        receiveRing = ring;
+        return ring;
+    }
+
+    /** gives a listener that does not borrow packets a copy of its own */
+    private static DatagramPacket lendPacket(
+            UdpConnectionListener listener,
+            DatagramPacket packet) {
+        if (listener instanceof UdpBorrowedPacketListener
+                || listener instanceof UdpBatchListener) {
+            return packet;
+        }
+        return new DatagramPacket(
+                Arrays.copyOf(packet.getData(), packet.getLength()),
+                packet.getLength(),
+                packet.getSocketAddress());
+    }
+
+    /** Gets the listener a packet is routed to */
+    private UdpConnectionListener getPacketListener(DatagramPacket packet) {
+        UdpConnectionListener listener =
+                getConnectionListener(packet.getData(), 0, packet.getLength());
+
+        if (listener == null) {
+            return getDefaultListener();
+        }
+        return listener;
+    }
+
+    /** Whether a packet passes the minimum/maximum length checks */
+    private boolean isValidPacketLength(DatagramPacket packet) {
+        return (packet.getLength() >= getMinimumReceivePacketLength()
+                && packet.getLength() <= getMaximumReceivePacketLength());
+    }
+
+    /**
+     * counts a received packet, by the listener method it is routed to, and
+     * captures it if there is a recorder
+     */
+    private void recordReceived(
+            ConnectionMetrics metrics,
+            DatagramPacket packet) {
+        int length = packet.getLength();
+        TrafficRecorder recorder = getTrafficRecorder();
+
+        if (recorder != null) {
+            recorder.record(TrafficRecorder.UDP_STREAM_ID,
+                    packet.getData(),
+                    packet.getOffset(),
+                    length);
+        }
+        metrics.recordBytesReceived(length);
+        if (length < getMinimumReceivePacketLength()) {
+            metrics.recordSmallPacketError();
+        } else if (length > getMaximumReceivePacketLength()) {
+            metrics.recordLargePacketError();
+        } else {
+            metrics.recordPacketReceived();
+        }
+    }
+
+    /** routes a packet received into a ring slot to the listeners */
+    private void dispatchBorrowedPacket(DatagramPacket packet) {
+        dispatchBorrowedPacket(packet, getPacketListener(packet));
+    }
+
+    private void dispatchBorrowedPacket(
+            DatagramPacket packet,
+            UdpConnectionListener listener) {
+        if (packet.getLength() < getMinimumReceivePacketLength()) {
+            listener.onErrorReceivedSmallPacket(this,
+                    lendPacket(listener, packet));
+        } else if (packet.getLength() > getMaximumReceivePacketLength()) {
+            listener.onErrorReceivedLargePacket(this,
+                    lendPacket(listener, packet));
+        } else if (listener instanceof UdpBorrowedPacketListener) {
+            ((UdpBorrowedPacketListener) listener).onReceivedBorrowedPacket(
+                    this,
+                    packet);
+        } else {
+            listener.onReceivedPacket(this, lendPacket(listener, packet));
+        }
     }
 
     @Override
@@ -278,6 +500,7 @@ public class UdpConnection
             info.getListener().onServiceTerminated(udp, error);
         }
         getDefaultListener().onServiceTerminated(udp, error);
+        unregisterMetricsMBean();
     }
 
     @Override
@@ -308,14 +531,145 @@ public class UdpConnection
         }
     }
 
+    /** allocates the batch slots, reusing the current ones if they fit */
+    private void allocateBatch() {
+        int size = getReceiveBatchSize();
+
+        if (batchPackets != null && batchPackets.length == size
+                && batchBuffers[0].capacity() >= getReceiveBufferSize()) {
+            return;
+        }
+
+        batchPackets = new DatagramPacket[size];
+        batchBuffers = new ByteBuffer[size];
+        batchListeners = new UdpConnectionListener[size];
+        for (int i = 0; i < size; i++) {
+            batchBuffers[i] = ByteBuffer.allocate(getReceiveBufferSize());
+            batchPackets[i] = new DatagramPacket(
+                    batchBuffers[i].array(),
+                    getReceiveBufferSize());
+        }
+    }
+
+    /** drains up to a batch worth of ready datagrams; returns the count */
+    private int receiveBatch(DatagramChannel channel) throws IOException {
+        int count = 0;
+
+        while (count < batchPackets.length) {
+            ByteBuffer buf = batchBuffers[count];
+            buf.clear();
+            buf.limit(getReceiveBufferSize());
+
+            SocketAddress sa = channel.receive(buf);
+            if (sa == null) {
+                break;
+            }
+            batchPackets[count].setLength(buf.position());
+            batchPackets[count].setSocketAddress(sa);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * delivers runs of consecutive datagrams routed to the same batch
+     * listener in one call, everything else one datagram at a time
+     */
+    private void dispatchBatch(int count) {
+        for (int i = 0; i < count; i++) {
+            batchListeners[i] = getPacketListener(batchPackets[i]);
+        }
+
+        int i = 0;
+        while (i < count) {
+            UdpConnectionListener listener = batchListeners[i];
+
+            if (!(listener instanceof UdpBatchListener)
+                    || isValidPacketLength(batchPackets[i]) == false) {
+                dispatchBorrowedPacket(batchPackets[i], listener);
+                i++;
+                continue;
+            }
+
+            batchRun.clear();
+            while (i < count && batchListeners[i] == listener
+                    && isValidPacketLength(batchPackets[i])) {
+                batchRun.add(batchPackets[i]);
+                i++;
+            }
+            ((UdpBatchListener) listener).onReceivedBatch(this, batchRun);
+        }
+        batchRun.clear();
+        Arrays.fill(batchListeners, 0, count, null);
+    }
+
+    /** receive loop used when batching over a DatagramChannel */
+    private void runBatched() {
+        DatagramChannel channel = getSocket().getChannel();
+        Selector selector = null;
+        Exception error = null;
+        ConnectionMetrics metrics = getMetrics();
+        long dispatchStart;
+        int count;
+
+        setIsRunningFlag();
+        startInactivityTimer();
+
+        try {
+            allocateBatch();
+            selector = Selector.open();
+            batchSelector = selector;
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ);
+
+            // loop
+            while (isStarted()) {
+                if (selector.select(getSoTimeout()) > 0) {
+                    selector.selectedKeys().clear();
+                }
+
+                count = receiveBatch(channel);
+                if (count == 0) {
+                    continue;
+                }
+
+                refreshInactivityTimer();
+                for (int i = 0; i < count; i++) {
+                    recordReceived(metrics, batchPackets[i]);
+                }
+                dispatchStart = System.nanoTime();
+                dispatchBatch(count);
+                metrics.recordDispatch(dispatchStart);
+            }
+        } catch (Exception e) {
+            error = getTerminationError(e);
+            if (isStarted() == true) {
+                stop();
+            }
+        } finally {
+            batchSelector = null;
+            if (selector != null) {
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        onServiceTerminated(this, error);
+        clearIsRunningFlag();
+    }
+
     /** The main thread */
     @Override
     public void run() {
         DatagramPacket packet = null;
+        DatagramPacket[] ring = allocateReceiveRing();
+        int ringIndex = 0;
         Exception error = null;
-        long expire = 0;
+        ConnectionMetrics metrics = getMetrics();
+        long dispatchStart;
         DatagramSocket tmpSocket;
-        boolean intr = false;
 
         if (getSocket() == null) {
             try {
@@ -330,22 +684,27 @@ public class UdpConnection
             }
         }
 
+        if (getReceiveBatchSize() > 0 && getSocket() != null
+                && getSocket().getChannel() != null) {
+            runBatched();
+            return;
+        }
+
         setIsRunningFlag();
+        startInactivityTimer();
 
         try {
+            getSocket().setSoTimeout(getSoTimeout());
             // loop
             while (isStarted()) {
 
                 try {
-                    if (getInactivityTime() > 0) {
-                        if (intr == false) {
-                            expire =
-                                    System.currentTimeMillis()
-                                            + getInactivityTime();
+                    if (ring != null) {
+                        packet = ring[ringIndex];
+                        if (++ringIndex == ring.length) {
+                            ringIndex = 0;
                         }
-                    }
-
-                    if ((packet == null)
+                    } else if ((packet == null)
                             || (packet.getLength() < getReceiveBufferSize())) {
                         packet =
                                 new DatagramPacket(
@@ -353,51 +712,152 @@ public class UdpConnection
                                         getReceiveBufferSize());
                     }
                     packet.setLength(getReceiveBufferSize());
-                    getSocket().setSoTimeout(getSoTimeout());
                     getSocket().receive(packet);
-                } catch (InterruptedIOException ie) {
-                    if (getInactivityTime() > 0
-                            && System.currentTimeMillis() > expire) {
-                        error = ie;
-                        stop();
-                    }
-                    intr = true;
+                } catch (SocketTimeoutException ie) {
                     continue;
                 }
 
-                if (packet.getLength() < getMinimumReceivePacketLength()) {
+                refreshInactivityTimer();
+                recordReceived(metrics, packet);
+                dispatchStart = System.nanoTime();
+                if (ring != null) {
+                    dispatchBorrowedPacket(packet);
+                } else if (packet.getLength() < getMinimumReceivePacketLength()) {
                     onErrorReceivedSmallPacket(this, packet);
-                    if (getInactivityTime() > 0)
-                        expire =
-                                System.currentTimeMillis()
-                                        + getInactivityTime();
                 } else if (packet.getLength() > getMaximumReceivePacketLength()) {
                     onErrorReceivedLargePacket(this, packet);
-                    if (getInactivityTime() > 0)
-                        expire =
-                                System.currentTimeMillis()
-                                        + getInactivityTime();
                 } else {
                     onReceivedPacket(this, packet);
-                    if (getInactivityTime() > 0)
-                        expire =
-                                System.currentTimeMillis()
-                                        + getInactivityTime();
                 }
+                metrics.recordDispatch(dispatchStart);
                 packet = null;
             }
         } catch (Exception e) {
-            error = e;
-            stop();
+            error = getTerminationError(e);
+            if (isStarted() == true) {
+                stop();
+            }
         }
         onServiceTerminated(this, error);
         clearIsRunningFlag();
     }
 
+    /** sends one packet; the caller holds sendLock */
+    private void sendPacket(DatagramPacket packet) throws IOException {
+        DatagramChannel channel = getSocket().getChannel();
+
+        if (channel == null || channel.isBlocking()) {
+            getSocket().send(packet);
+            getMetrics().recordSent(packet.getLength());
+            return;
+        }
+
+        sendNonBlocking(channel, ByteBuffer.wrap(
+                packet.getData(),
+                packet.getOffset(),
+                packet.getLength()), packet.getSocketAddress());
+        getMetrics().recordSent(packet.getLength());
+    }
+
+    /**
+     * sends src as one datagram on a non-blocking channel (batch mode),
+     * waiting for OP_WRITE while the socket send buffer has no room; an
+     * empty datagram is sent once. The caller holds sendLock
+     */
+    private void sendNonBlocking(
+            DatagramChannel channel,
+            ByteBuffer src,
+            SocketAddress sa) throws IOException {
+        sendDatagram(channel, src, sa);
+        while (src.hasRemaining()) {
+            if (isStarted() == false) {
+                throw new IOException("connection closed");
+            }
+            if (sendSelector == null) {
+                sendSelector = Selector.open();
+            }
+            channel.register(sendSelector, SelectionKey.OP_WRITE);
+            sendSelector.select(100);
+            sendSelector.selectedKeys().clear();
+            sendDatagram(channel, src, sa);
+        }
+    }
+
+    /** sends a datagram on the channel; 0 ==> no room in the send buffer */
+    int sendDatagram(DatagramChannel channel, ByteBuffer src, SocketAddress sa)
+            throws IOException {
+        return channel.send(src, sa);
+    }
+
+    /** closes the selector senders wait on (holding sendLock) */
+    private void closeSendSelector() {
+        if (sendSelector != null) {
+            try {
+                sendSelector.close();
+            } catch (IOException e) {
+                log.debug("unable to close send selector", e);
+            }
+            sendSelector = null;
+        }
+    }
+
     /** Sends a UdpPacket */
     public void send(DatagramPacket packet) throws java.io.IOException {
-        if (isRunning())
-            getSocket().send(packet);
+        if (isRunning()) {
+            synchronized (sendLock) {
+                sendPacket(packet);
+            }
+        }
+    }
+
+    /**
+     * Sends a list of UdpPackets back to back, taking the send lock once for
+     * the whole list. Returns the number of packets sent
+     */
+    public int sendBatch(List<DatagramPacket> packets)
+            throws java.io.IOException {
+        int count = 0;
+
+        if (isRunning() == false || packets == null) {
+            return 0;
+        }
+        synchronized (sendLock) {
+            for (int i = 0; i < packets.size(); i++) {
+                sendPacket(packets.get(i));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sends the remaining bytes of src as one packet; direct (e.g. mapped)
+     * buffers are sent without a copy if the socket has a channel
+     */
+    public void send(ByteBuffer src, SocketAddress sa)
+            throws java.io.IOException {
+        DatagramChannel channel;
+
+        if (isRunning() == false) {
+            return;
+        }
+        channel = getSocket().getChannel();
+        if (channel == null) {
+            byte[] data = new byte[src.remaining()];
+            src.get(data);
+            send(data, 0, data.length, sa);
+            return;
+        }
+        synchronized (sendLock) {
+            int length = src.remaining();
+
+            if (channel.isBlocking()) {
+                channel.send(src, sa);
+            } else {
+                sendNonBlocking(channel, src, sa);
+            }
+            getMetrics().recordSent(length);
+        }
     }
 
     /** Sends a UdpPacket */
@@ -405,8 +865,7 @@ public class UdpConnection
             throws java.io.IOException {
         DatagramPacket packet = new DatagramPacket(data, offset, datalen, sa);
 
-        if (isRunning())
-            getSocket().send(packet);
+        send(packet);
     }
 
     /** Sends a UdpPacket */
@@ -419,8 +878,7 @@ public class UdpConnection
         DatagramPacket packet =
                 new DatagramPacket(data, offset, datalen, ipaddr, port);
 
-        if (isRunning())
-            getSocket().send(packet);
+        send(packet);
     }
 
     /** Gets a String representation of the Object */
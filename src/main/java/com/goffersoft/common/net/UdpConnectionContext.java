@@ -17,7 +17,62 @@ public class UdpConnectionContext
     private static final Logger log = Logger
             .getLogger(UdpConnectionContext.class);
 
+    private int receiveRingSize = UdpConnection.DEFAULT_RECEIVE_RING_SIZE;
+    private int receiveBatchSize = UdpConnection.DEFAULT_RECEIVE_BATCH_SIZE;
+
     public UdpConnectionContext() {
 
     }
+
+    /** Gets the number of packets in the receive ring, 0 ==> no ring */
+    public int getReceiveRingSize() {
+        return receiveRingSize;
+    }
+
+    public void setReceiveRingSize(int receiveRingSize) {
+        this.receiveRingSize = receiveRingSize;
+    }
+
+    /** Gets the maximum datagrams per receive batch, 0 ==> no batching */
+    public int getReceiveBatchSize() {
+        return receiveBatchSize;
+    }
+
+    public void setReceiveBatchSize(int receiveBatchSize) {
+        this.receiveBatchSize = receiveBatchSize;
+    }
+
+    @Override
+    public String toString() {
+        StringBuffer str = new StringBuffer();
+        str.append(super.toString());
+        str.append(String.format(
+                " ,ReceiveRingSize=%d, ReceiveBatchSize=%d \n",
+                getReceiveRingSize(),
+                getReceiveBatchSize()));
+        return str.toString();
+    }
+
+    public boolean equals(UdpConnectionContext ctxt) {
+        return (getReceiveRingSize() == ctxt.getReceiveRingSize()
+                && getReceiveBatchSize() == ctxt.getReceiveBatchSize()
+                && super.equals(ctxt));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof UdpConnectionContext) {
+            return equals((UdpConnectionContext) o);
+        }
+        return false;
+    }
+
+    /** Hashes the settings equals() compares here, consistent with it */
+    @Override
+    public int hashCode() {
+        return 31 * getReceiveRingSize() + getReceiveBatchSize();
+    }
 }
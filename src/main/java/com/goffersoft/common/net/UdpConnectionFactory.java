@@ -35,6 +35,13 @@ public class UdpConnectionFactory
         super(socketContext);
     }
 
+    @Override
+    protected UdpConnection initConnection(UdpConnection udp) {
+        udp.setReceiveRingSize(getContext().getReceiveRingSize());
+        udp.setReceiveBatchSize(getContext().getReceiveBatchSize());
+        return super.initConnection(udp);
+    }
+
     @Override
     public UdpConnection createConnection(int local_port)
             throws IOException {
@@ -45,16 +52,22 @@ public class UdpConnectionFactory
     public UdpConnection createConnection(
             int local_port,
             InetAddress local_addr) throws IOException {
+        if (getContext().getReceiveBatchSize() > 0) {
+            return createConnection(UdpConnection.createDatagramSocket(
+                    local_port,
+                    local_addr,
+                    true));
+        }
 
-        return new UdpConnection(local_port, local_addr,
+        return initConnection(new UdpConnection(local_port, local_addr,
                 getContext().getSocketTimeout(),
                 getContext().getRxBufferSize(),
                 getContext().getInactivityTimeout(),
                 getContext().getMinRxPktLength(),
                 getContext().getMaxRxPktLength(),
-                getContext().getListOfListeners(),
+                null,
                 getContext().getDefaultListener(),
-                getContext().isAutoStart());
+                false));
     }
 
     @Override
@@ -69,14 +82,14 @@ public class UdpConnectionFactory
     @Override
     public UdpConnection createConnection(DatagramSocket socket)
             throws IOException {
-        return new UdpConnection(socket,
+        return initConnection(new UdpConnection(socket,
                 getContext().getSocketTimeout(),
                 getContext().getRxBufferSize(),
                 getContext().getInactivityTimeout(),
                 getContext().getMinRxPktLength(),
                 getContext().getMaxRxPktLength(),
-                getContext().getListOfListeners(),
+                null,
                 getContext().getDefaultListener(),
-                getContext().isAutoStart());
+                false));
     }
 }
@@ -0,0 +1,108 @@
+/**
+ ** File: VirtualThreadFactory.java
+ **
+ ** Description : VirtualThreadFactory class - ThreadFactory creating virtual
+ **               threads where the runtime supports them (java 21+) and
+ **               platform threads otherwise
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ **/
+package com.goffersoft.common.net;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+public class VirtualThreadFactory
+        implements
+        ThreadFactory {
+    private static final Logger log = Logger
+            .getLogger(VirtualThreadFactory.class);
+
+    /** Thread.ofVirtual(), looked up once; null ==> not supported */
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_FACTORY;
+    static {
+        Method ofVirtual = null;
+        Method builderFactory = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            builderFactory = Class.forName("java.lang.Thread$Builder")
+                    .getMethod("factory");
+        } catch (Exception e) {
+            ofVirtual = null;
+            builderFactory = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_FACTORY = builderFactory;
+    }
+
+    private final String namePrefix;
+    private final ThreadFactory virtualFactory;
+    private final AtomicLong threadCount = new AtomicLong();
+
+    public VirtualThreadFactory() {
+        this("VirtualThread");
+    }
+
+    public VirtualThreadFactory(String namePrefix) {
+        this.namePrefix = namePrefix;
+        this.virtualFactory = createVirtualFactory();
+        if (virtualFactory == null) {
+            log.warn("virtual threads are not supported by this runtime,"
+                    + " falling back to platform threads");
+        }
+    }
+
+    /** Whether the runtime supports virtual threads */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    private static ThreadFactory createVirtualFactory() {
+        if (isSupported() == false) {
+            return null;
+        }
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+        } catch (Exception e) {
+            log.warn("unable to create a virtual thread factory", e);
+            return null;
+        }
+    }
+
+    /** Whether this factory hands out virtual threads */
+    public boolean isVirtual() {
+        return virtualFactory != null;
+    }
+
+    /** Gets the number of threads created so far */
+    public long getThreadCount() {
+        return threadCount.get();
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+        Thread t;
+
+        if (virtualFactory != null) {
+            t = virtualFactory.newThread(r);
+        } else {
+            t = new Thread(r);
+        }
+        t.setName(namePrefix + ".T" + threadCount.getAndIncrement());
+        return t;
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return ("VirtualThreadFactory: NamePrefix=" + namePrefix
+                + ", isVirtual=" + isVirtual() + ", Threads="
+                + getThreadCount());
+    }
+}
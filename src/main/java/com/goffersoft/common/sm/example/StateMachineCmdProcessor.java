@@ -26,6 +26,7 @@ public class StateMachineCmdProcessor {
     public static void main(String[] args) {
         try {
             UdpConnectionContext udpctxt = new UdpConnectionContext();
+            udpctxt.setReceiveRingSize(16);
             udpctxt.addListener(
                     "Cmd".getBytes(),
                     new StateMachineListenerImpl(),
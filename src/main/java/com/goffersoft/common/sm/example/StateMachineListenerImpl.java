@@ -14,13 +14,16 @@ import java.net.DatagramPacket;
 
 import org.apache.log4j.Logger;
 
+import com.goffersoft.common.net.UdpBorrowedPacketListener;
 import com.goffersoft.common.net.UdpConnection;
 import com.goffersoft.common.net.UdpConnectionListenerImpl;
 import com.goffersoft.common.utils.PrintUtils;
 
 public class StateMachineListenerImpl
         extends
-        UdpConnectionListenerImpl {
+        UdpConnectionListenerImpl
+        implements
+        UdpBorrowedPacketListener {
 
     private ExampleStateMachine sm = new ExampleStateMachine();
     private static final Logger log = Logger
@@ -159,6 +162,14 @@ public class StateMachineListenerImpl
         }
     }
 
+    /** commands are fully processed before returning */
+    @Override
+    public void onReceivedBorrowedPacket(
+            UdpConnection udp,
+            DatagramPacket packet) {
+        onReceivedPacket(udp, packet);
+    }
+
     @Override
     public void onServiceTerminated(UdpConnection udp, Exception error) {
         log.debug("State Machine Listener Installed : Service Terminated ");
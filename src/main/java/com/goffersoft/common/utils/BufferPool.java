@@ -0,0 +1,191 @@
+/**
+ ** File: BufferPool.java
+ **
+ ** Description : This File contains a bounded pool of reusable byte arrays
+ **               organized in power of two size classes (slabs)
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ */
+package com.goffersoft.common.utils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+public class BufferPool {
+    private static final Logger log = Logger.getLogger(BufferPool.class);
+
+    /** Default size of the smallest size class in bytes */
+    public static final int DEFAULT_MIN_BUFFER_SIZE = 256;
+
+    /** Default size of the largest size class in bytes */
+    public static final int DEFAULT_MAX_BUFFER_SIZE = 65536;
+
+    /** Default number of free buffers retained per size class */
+    public static final int DEFAULT_MAX_BUFFERS_PER_CLASS = 256;
+
+    private static volatile BufferPool defaultPool;
+
+    private final int minBufferSize;
+    private final int maxBufferSize;
+    private final int maxBuffersPerClass;
+    private final ArrayBlockingQueue<PooledBuffer>[] freeLists;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong returnCount = new AtomicLong();
+    private final AtomicLong discardCount = new AtomicLong();
+
+    public BufferPool() {
+        this(DEFAULT_MIN_BUFFER_SIZE,
+                DEFAULT_MAX_BUFFER_SIZE,
+                DEFAULT_MAX_BUFFERS_PER_CLASS);
+    }
+
+    /**
+     * Creates a pool; the buffer sizes are rounded up to the next power of
+     * two.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public BufferPool(
+            int minBufferSize,
+            int maxBufferSize,
+            int maxBuffersPerClass) {
+        if (minBufferSize <= 0 || maxBufferSize < minBufferSize
+                || maxBuffersPerClass <= 0) {
+            throw new IllegalArgumentException("invalid pool dimensions : "
+                    + minBufferSize + "/" + maxBufferSize + "/"
+                    + maxBuffersPerClass);
+        }
+        this.minBufferSize = roundUp(minBufferSize);
+        this.maxBufferSize = roundUp(maxBufferSize);
+        this.maxBuffersPerClass = maxBuffersPerClass;
+
+        int numClasses = Integer.numberOfTrailingZeros(this.maxBufferSize)
+                - Integer.numberOfTrailingZeros(this.minBufferSize) + 1;
+        freeLists = new ArrayBlockingQueue[numClasses];
+        for (int i = 0; i < numClasses; i++) {
+            freeLists[i] =
+                    new ArrayBlockingQueue<PooledBuffer>(maxBuffersPerClass);
+        }
+    }
+
+    /** Gets the pool shared by all users that do not bring their own */
+    public static BufferPool getDefault() {
+        if (defaultPool == null) {
+            synchronized (BufferPool.class) {
+                if (defaultPool == null) {
+                    defaultPool = new BufferPool();
+                }
+            }
+        }
+        return defaultPool;
+    }
+
+    private static int roundUp(int size) {
+        int n = Integer.highestOneBit(size);
+        return (n == size) ? n : n << 1;
+    }
+
+    private int sizeClass(int size) {
+        if (size <= minBufferSize) {
+            return 0;
+        }
+        return Integer.numberOfTrailingZeros(roundUp(size))
+                - Integer.numberOfTrailingZeros(minBufferSize);
+    }
+
+    /**
+     * Leases a buffer of at least size bytes with a reference count of 1.
+     * Requests larger than the largest size class are served by an unpooled
+     * buffer
+     */
+    public PooledBuffer lease(int size) {
+        if (size > maxBufferSize) {
+            missCount.incrementAndGet();
+            return new PooledBuffer(new byte[size], null);
+        }
+
+        int sclass = sizeClass(size);
+        PooledBuffer buf = freeLists[sclass].poll();
+        if (buf == null) {
+            missCount.incrementAndGet();
+            return new PooledBuffer(new byte[minBufferSize << sclass], this);
+        }
+        hitCount.incrementAndGet();
+        buf.reset();
+        return buf;
+    }
+
+    /** returns a buffer whose reference count dropped to 0 */
+    void recycle(PooledBuffer buf) {
+        int sclass = sizeClass(buf.capacity());
+
+        if ((minBufferSize << sclass) == buf.capacity()
+                && freeLists[sclass].offer(buf)) {
+            returnCount.incrementAndGet();
+        } else {
+            discardCount.incrementAndGet();
+        }
+    }
+
+    /** Gets the number of leases served from a free buffer */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /** Gets the number of leases that had to allocate a new buffer */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /** Gets the number of buffers returned to the pool */
+    public long getReturnCount() {
+        return returnCount.get();
+    }
+
+    /** Gets the number of released buffers dropped because the pool was full */
+    public long getDiscardCount() {
+        return discardCount.get();
+    }
+
+    /** Gets the number of free buffers currently held by the pool */
+    public int getFreeCount() {
+        int count = 0;
+        for (int i = 0; i < freeLists.length; i++) {
+            count += freeLists[i].size();
+        }
+        return count;
+    }
+
+    public int getMinBufferSize() {
+        return minBufferSize;
+    }
+
+    public int getMaxBufferSize() {
+        return maxBufferSize;
+    }
+
+    public int getMaxBuffersPerClass() {
+        return maxBuffersPerClass;
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return String.format(
+                "BufferPool: BufferSize=%d..%d, MaxBuffersPerClass=%d, "
+                        + "Free=%d, Hits=%d, Misses=%d, Returns=%d, "
+                        + "Discards=%d",
+                getMinBufferSize(),
+                getMaxBufferSize(),
+                getMaxBuffersPerClass(),
+                getFreeCount(),
+                getHitCount(),
+                getMissCount(),
+                getReturnCount(),
+                getDiscardCount());
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ ** File: LatencyHistogram.java
+ **
+ ** Description : LatencyHistogram class - a lock free histogram of
+ **               non-negative values (e.g. latencies) with log-linear buckets
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ */
+package com.goffersoft.common.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Values below 2^subBucketBits are counted exactly; larger values share a
+ * bucket with values that differ by less than 1 part in 2^subBucketBits, so
+ * the relative error of any percentile is bounded by that. Values are unit
+ * agnostic; record() may be called from any number of threads.
+ */
+public class LatencyHistogram {
+    private static final Logger log = Logger.getLogger(LatencyHistogram.class);
+
+    /** Default precision, about 3% */
+    public static final int DEFAULT_SUB_BUCKET_BITS = 5;
+
+    private final int subBucketBits;
+    private final int subBucketCount;
+    private final AtomicLongArray counts;
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalSum = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    public LatencyHistogram() {
+        this(DEFAULT_SUB_BUCKET_BITS);
+    }
+
+    /** Creates a histogram with 2^subBucketBits buckets per power of two */
+    public LatencyHistogram(int subBucketBits) {
+        if (subBucketBits < 1 || subBucketBits > 16) {
+            throw new IllegalArgumentException("invalid sub bucket bits : "
+                    + subBucketBits);
+        }
+        this.subBucketBits = subBucketBits;
+        this.subBucketCount = 1 << subBucketBits;
+        this.counts =
+                new AtomicLongArray(subBucketCount + (63 - subBucketBits)
+                        * subBucketCount);
+    }
+
+    public int getSubBucketBits() {
+        return subBucketBits;
+    }
+
+    private int bucketIndex(long value) {
+        if (value < subBucketCount) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - subBucketBits;
+        return subBucketCount + shift * subBucketCount
+                + (int) ((value >>> shift) - subBucketCount);
+    }
+
+    /** Gets the largest value counted in the bucket */
+    private long bucketHighValue(int index) {
+        if (index < subBucketCount) {
+            return index;
+        }
+        int shift = (index - subBucketCount) / subBucketCount;
+        long sub = (index - subBucketCount) % subBucketCount;
+        return ((subBucketCount + sub) << shift) + (1L << shift) - 1;
+    }
+
+    /** Records a value; negative values are counted as 0 */
+    public void record(long value) {
+        long max;
+
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.incrementAndGet();
+        totalSum.addAndGet(value);
+        while ((max = maxValue.get()) < value
+                && maxValue.compareAndSet(max, value) == false) {
+        }
+    }
+
+    /**
+     * Adds the values recorded by other (which must have the same precision)
+     * to this histogram, e.g. to sum up the histograms of several threads
+     */
+    public void add(LatencyHistogram other) {
+        long max;
+        long value;
+
+        if (other.subBucketBits != subBucketBits) {
+            throw new IllegalArgumentException("sub bucket bits differ : "
+                    + subBucketBits + "/" + other.subBucketBits);
+        }
+        for (int i = 0; i < counts.length(); i++) {
+            value = other.counts.get(i);
+            if (value != 0) {
+                counts.addAndGet(i, value);
+            }
+        }
+        totalCount.addAndGet(other.totalCount.get());
+        totalSum.addAndGet(other.totalSum.get());
+        value = other.maxValue.get();
+        while ((max = maxValue.get()) < value
+                && maxValue.compareAndSet(max, value) == false) {
+        }
+    }
+
+    /** Gets the number of values recorded */
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    /** Gets the largest value recorded */
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    /** Gets the mean of the values recorded (0 if there are none) */
+    public double getMean() {
+        long count = totalCount.get();
+
+        return (count == 0) ? 0 : (double) totalSum.get() / count;
+    }
+
+    /**
+     * Gets the value at the percentile (0..100), i.e. the highest value
+     * equivalent to the smallest recorded value that at least percentile %
+     * of all values are less than or equal to; 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("invalid percentile : "
+                    + percentile);
+        }
+
+        long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketHighValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /** Clears all counts; values recorded concurrently may be lost */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalSum.set(0);
+        maxValue.set(0);
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return String.format(
+                "LatencyHistogram: Count=%d, Mean=%.1f, P50=%d, P99=%d, "
+                        + "P99.9=%d, Max=%d",
+                getCount(),
+                getMean(),
+                getValueAtPercentile(50),
+                getValueAtPercentile(99),
+                getValueAtPercentile(99.9),
+                getMax());
+    }
+}
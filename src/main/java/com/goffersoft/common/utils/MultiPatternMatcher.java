@@ -0,0 +1,284 @@
+/**
+ ** File: MultiPatternMatcher.java
+ **
+ ** Description : MultiPatternMatcher class - matches a byte sequence against
+ **               many contains/startswith/endswith patterns in one pass
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ */
+package com.goffersoft.common.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Patterns are added with an id and compiled into an Aho-Corasick automaton
+ * (contains), a trie (startswith) and a trie of the reversed patterns
+ * (endswith). match() returns the lowest id among all matching patterns, so
+ * ids double as priorities. Not thread safe while patterns are added; once
+ * compiled, match() may be called from any number of threads.
+ */
+public class MultiPatternMatcher {
+    private static final Logger log = Logger
+            .getLogger(MultiPatternMatcher.class);
+
+    private static final int NO_MATCH = Integer.MAX_VALUE;
+    private static final int ALPHABET = 256;
+
+    private final List<byte[]> containsPatterns = new ArrayList<byte[]>();
+    private final List<Integer> containsIds = new ArrayList<Integer>();
+    private final List<byte[]> prefixPatterns = new ArrayList<byte[]>();
+    private final List<Integer> prefixIds = new ArrayList<Integer>();
+    private final List<byte[]> suffixPatterns = new ArrayList<byte[]>();
+    private final List<Integer> suffixIds = new ArrayList<Integer>();
+
+    /** complete automaton: transitions (state * 256 + byte) and outputs */
+    private int[] containsGoto;
+    private int[] containsOut;
+    private int minContainsId = NO_MATCH;
+
+    /** tries: transitions (-1 ==> none) and the id ending at each node */
+    private int[] prefixGoto;
+    private int[] prefixOut;
+    private int minPrefixId = NO_MATCH;
+    private int[] suffixGoto;
+    private int[] suffixOut;
+    private int minSuffixId = NO_MATCH;
+
+    private boolean compiled;
+
+    public MultiPatternMatcher() {
+    }
+
+    /** Adds a pattern matching anywhere in the data */
+    public void addContains(byte[] pattern, int id) {
+        add(containsPatterns, containsIds, pattern, id);
+    }
+
+    /** Adds a pattern matching at the start of the data */
+    public void addStartsWith(byte[] pattern, int id) {
+        add(prefixPatterns, prefixIds, pattern, id);
+    }
+
+    /** Adds a pattern matching at the end of the data */
+    public void addEndsWith(byte[] pattern, int id) {
+        add(suffixPatterns, suffixIds, pattern, id);
+    }
+
+    private void add(
+            List<byte[]> patterns,
+            List<Integer> ids,
+            byte[] pattern,
+            int id) {
+        if (pattern == null || id < 0) {
+            throw new IllegalArgumentException("invalid pattern/id : " + id);
+        }
+        patterns.add(pattern.clone());
+        ids.add(id);
+        compiled = false;
+    }
+
+    /** Gets the number of patterns added */
+    public int getPatternCount() {
+        return containsPatterns.size() + prefixPatterns.size()
+                + suffixPatterns.size();
+    }
+
+    /** Gets the number of automaton/trie states (memory is 1K per state) */
+    public int getStateCount() {
+        return length(containsOut) + length(prefixOut) + length(suffixOut);
+    }
+
+    private static int length(int[] a) {
+        return (a == null) ? 0 : a.length;
+    }
+
+    /** Builds the automata; must be called after the last pattern is added */
+    public void compile() {
+        prefixGoto = null;
+        prefixOut = null;
+        suffixGoto = null;
+        suffixOut = null;
+        containsGoto = null;
+        containsOut = null;
+
+        minPrefixId = minId(prefixIds);
+        if (prefixPatterns.isEmpty() == false) {
+            Trie t = new Trie(prefixPatterns, prefixIds, false);
+            prefixGoto = t.next;
+            prefixOut = t.out;
+        }
+
+        minSuffixId = minId(suffixIds);
+        if (suffixPatterns.isEmpty() == false) {
+            Trie t = new Trie(suffixPatterns, suffixIds, true);
+            suffixGoto = t.next;
+            suffixOut = t.out;
+        }
+
+        minContainsId = minId(containsIds);
+        if (containsPatterns.isEmpty() == false) {
+            Trie t = new Trie(containsPatterns, containsIds, false);
+            buildFailureLinks(t.next, t.out);
+            containsGoto = t.next;
+            containsOut = t.out;
+        }
+        compiled = true;
+    }
+
+    private static int minId(List<Integer> ids) {
+        int min = NO_MATCH;
+
+        for (int id : ids) {
+            min = Math.min(min, id);
+        }
+        return min;
+    }
+
+    /**
+     * Turns the trie into a complete automaton: missing transitions follow
+     * the failure links and every state inherits the output of its failure
+     * state
+     */
+    private static void buildFailureLinks(int[] next, int[] out) {
+        int states = out.length;
+        int[] fail = new int[states];
+        int[] queue = new int[states];
+        int head = 0;
+        int tail = 0;
+
+        for (int c = 0; c < ALPHABET; c++) {
+            int s = next[c];
+            if (s < 0) {
+                next[c] = 0;
+            } else {
+                fail[s] = 0;
+                queue[tail++] = s;
+            }
+        }
+
+        // breadth first, so the failure state of r is complete before r
+        while (head < tail) {
+            int r = queue[head++];
+            out[r] = Math.min(out[r], out[fail[r]]);
+            for (int c = 0; c < ALPHABET; c++) {
+                int s = next[r * ALPHABET + c];
+                int f = next[fail[r] * ALPHABET + c];
+                if (s < 0) {
+                    next[r * ALPHABET + c] = f;
+                } else {
+                    fail[s] = f;
+                    queue[tail++] = s;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the lowest id of the patterns matching data[offset, offset +
+     * length); -1 if none match
+     */
+    public int match(byte[] data, int offset, int length) {
+        if (compiled == false) {
+            throw new IllegalStateException("patterns not compiled");
+        }
+        if (data == null || offset < 0 || length < 0
+                || offset + length > data.length) {
+            return -1;
+        }
+
+        int end = offset + length;
+        int best = NO_MATCH;
+        int s;
+
+        if (minPrefixId < best) {
+            s = 0;
+            best = Math.min(best, prefixOut[0]);
+            for (int i = offset; i < end; i++) {
+                s = prefixGoto[s * ALPHABET + (data[i] & 0xff)];
+                if (s < 0) {
+                    break;
+                }
+                best = Math.min(best, prefixOut[s]);
+            }
+        }
+
+        if (minSuffixId < best) {
+            s = 0;
+            best = Math.min(best, suffixOut[0]);
+            for (int i = end - 1; i >= offset; i--) {
+                s = suffixGoto[s * ALPHABET + (data[i] & 0xff)];
+                if (s < 0) {
+                    break;
+                }
+                best = Math.min(best, suffixOut[s]);
+            }
+        }
+
+        if (minContainsId < best) {
+            s = 0;
+            best = Math.min(best, containsOut[0]);
+            for (int i = offset; i < end && best > minContainsId; i++) {
+                s = containsGoto[s * ALPHABET + (data[i] & 0xff)];
+                if (containsOut[s] < best) {
+                    best = containsOut[s];
+                }
+            }
+        }
+
+        return (best == NO_MATCH) ? -1 : best;
+    }
+
+    /** Gets the lowest id of the patterns matching data; -1 if none match */
+    public int match(byte[] data) {
+        return match(data, 0, (data == null) ? 0 : data.length);
+    }
+
+    /** a byte trie with 256 way nodes held in flat arrays */
+    private static final class Trie {
+        private int[] next;
+        private int[] out;
+        private int count;
+
+        Trie(List<byte[]> patterns, List<Integer> ids, boolean reversed) {
+            int capacity = 1;
+            for (byte[] p : patterns) {
+                capacity += p.length;
+            }
+            next = new int[capacity * ALPHABET];
+            out = new int[capacity];
+            Arrays.fill(next, -1);
+            Arrays.fill(out, NO_MATCH);
+            count = 1;
+
+            for (int i = 0; i < patterns.size(); i++) {
+                byte[] p = patterns.get(i);
+                int s = 0;
+                for (int j = 0; j < p.length; j++) {
+                    int c = p[reversed ? p.length - 1 - j : j] & 0xff;
+                    if (next[s * ALPHABET + c] < 0) {
+                        next[s * ALPHABET + c] = count++;
+                    }
+                    s = next[s * ALPHABET + c];
+                }
+                out[s] = Math.min(out[s], ids.get(i));
+            }
+
+            if (count < capacity) {
+                next = Arrays.copyOf(next, count * ALPHABET);
+                out = Arrays.copyOf(out, count);
+            }
+        }
+    }
+
+    /** Gets a String representation of the Object */
+    @Override
+    public String toString() {
+        return ("MultiPatternMatcher: Patterns=" + getPatternCount()
+                + ", States=" + getStateCount() + ", Compiled=" + compiled);
+    }
+}
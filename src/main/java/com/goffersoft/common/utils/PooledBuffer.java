@@ -0,0 +1,95 @@
+/**
+ ** File: PooledBuffer.java
+ **
+ ** Description : This File contains a reference counted byte array leased
+ **               from a BufferPool
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ */
+package com.goffersoft.common.utils;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A leased buffer starts with a reference count of 1. Every retain() must be
+ * matched by a release(); the buffer goes back to its pool when the count
+ * drops to 0 and must not be touched afterwards.
+ */
+public class PooledBuffer {
+    private final byte[] array;
+    private final BufferPool pool;
+    private final AtomicInteger refCount;
+    private ByteBuffer byteBuffer;
+
+    PooledBuffer(byte[] array, BufferPool pool) {
+        this.array = array;
+        this.pool = pool;
+        this.refCount = new AtomicInteger(1);
+    }
+
+    void reset() {
+        refCount.set(1);
+    }
+
+    /** Gets the backing array */
+    public byte[] array() {
+        return array;
+    }
+
+    /** Gets the size of the backing array */
+    public int capacity() {
+        return array.length;
+    }
+
+    /**
+     * Gets a ByteBuffer view of the backing array, cleared and limited to
+     * length bytes. The view is cached and shared by all users of the buffer
+     */
+    public ByteBuffer byteBuffer(int length) {
+        if (byteBuffer == null) {
+            byteBuffer = ByteBuffer.wrap(array);
+        }
+        byteBuffer.clear();
+        byteBuffer.limit(length);
+        return byteBuffer;
+    }
+
+    /** Gets the current reference count */
+    public int refCount() {
+        return refCount.get();
+    }
+
+    /** Increments the reference count */
+    public PooledBuffer retain() {
+        int count;
+        do {
+            count = refCount.get();
+            if (count <= 0) {
+                throw new IllegalStateException(
+                        "buffer has already been released");
+            }
+        } while (refCount.compareAndSet(count, count + 1) == false);
+        return this;
+    }
+
+    /**
+     * Decrements the reference count; returns true if the buffer was handed
+     * back to its pool
+     */
+    public boolean release() {
+        int count = refCount.decrementAndGet();
+
+        if (count < 0) {
+            refCount.incrementAndGet();
+            throw new IllegalStateException(
+                    "buffer has already been released");
+        }
+        if (count == 0 && pool != null) {
+            pool.recycle(this);
+            return true;
+        }
+        return false;
+    }
+}
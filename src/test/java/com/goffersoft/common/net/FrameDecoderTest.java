@@ -0,0 +1,310 @@
+/**
+ ** File: FrameDecoderTest.java
+ **
+ ** Description : Test Cases For the FrameDecoder implementations and the
+ **               frame reassembly of GenericTcpConnection
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ */
+package com.goffersoft.common.net;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class FrameDecoderTest {
+
+    private static final Logger log = Logger
+            .getLogger(FrameDecoderTest.class);
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private ServerSocket server;
+    private Socket client;
+    private Socket accepted;
+
+    private TcpConnection connection;
+
+    /** the frames passed to the listener */
+    private final List<byte[]> frames = new ArrayList<byte[]>();
+
+    @Before
+    public void setUp() throws IOException {
+        InetAddress loopback = InetAddress.getByName("127.0.0.1");
+
+        server = new ServerSocket(0, 1, loopback);
+        client = new Socket(loopback, server.getLocalPort());
+        accepted = server.accept();
+        connection = new TcpConnection(accepted,
+                0,
+                1024,
+                0,
+                0,
+                Integer.MAX_VALUE,
+                new TcpConnectionListener() {
+                    @Override
+                    public void onReceivedData(
+                            TcpConnection tcp,
+                            byte[] data,
+                            int offset,
+                            int length) {
+                        frames.add(Arrays.copyOfRange(data,
+                                offset,
+                                offset + length));
+                    }
+
+                    @Override
+                    public void onConnectionTerminated(
+                            TcpConnection tcp,
+                            Exception error) {
+                    }
+
+                    @Override
+                    public void onErrorReceivedSmallPacket(
+                            TcpConnection tcp,
+                            byte[] data,
+                            int offset,
+                            int length) {
+                    }
+
+                    @Override
+                    public void onErrorReceivedLargePacket(
+                            TcpConnection tcp,
+                            byte[] data,
+                            int offset,
+                            int length) {
+                    }
+                },
+                null,
+                false);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        accepted.close();
+        client.close();
+        server.close();
+    }
+
+    /** a frame with a 2 byte type and a 2 byte length of the whole frame */
+    private static byte[] lengthFrame(int type, int payloadLength) {
+        byte[] frame = new byte[4 + payloadLength];
+
+        frame[0] = (byte) (type >> 8);
+        frame[1] = (byte) type;
+        frame[2] = (byte) (frame.length >> 8);
+        frame[3] = (byte) frame.length;
+        for (int i = 4; i < frame.length; i++) {
+            frame[i] = (byte) (type + i);
+        }
+        return frame;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        for (byte[] part : parts) {
+            out.write(part, 0, part.length);
+        }
+        return out.toByteArray();
+    }
+
+    /** passes data to the connection in reads ending at the offsets */
+    private void receive(byte[] data, int... splits) throws IOException {
+        int pos = 0;
+
+        for (int i = 0; i <= splits.length; i++) {
+            int end = (i < splits.length) ? splits[i] : data.length;
+            byte[] read = Arrays.copyOfRange(data, pos, end);
+            connection.dispatchReceivedData(connection, read, read.length);
+            pos = end;
+        }
+    }
+
+    private void assertFrames(byte[]... expected) {
+        assertEquals(expected.length, frames.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals(expected[i], frames.get(i));
+        }
+    }
+
+    @Test
+    public void testLengthFieldSeveralFramesPerRead() throws IOException {
+        byte[] f1 = lengthFrame(1, 0);
+        byte[] f2 = lengthFrame(2, 10);
+        byte[] f3 = lengthFrame(3, 300);
+
+        connection.setFrameDecoder(new LengthFieldFrameDecoder(2, 2, 0, 1024));
+        receive(concat(f1, f2, f3));
+        assertFrames(f1, f2, f3);
+    }
+
+    @Test
+    public void testLengthFieldSplitAtEveryOffset() throws IOException {
+        byte[] f1 = lengthFrame(1, 5);
+        byte[] f2 = lengthFrame(2, 700);
+        byte[] f3 = lengthFrame(3, 1);
+        byte[] stream = concat(f1, f2, f3);
+
+        connection.setFrameDecoder(new LengthFieldFrameDecoder(2, 2, 0, 1024));
+        for (int split = 1; split < stream.length; split++) {
+            frames.clear();
+            receive(stream, split);
+            assertFrames(f1, f2, f3);
+        }
+    }
+
+    @Test
+    public void testLengthFieldOneByteReads() throws IOException {
+        byte[] f1 = lengthFrame(1, 20);
+        byte[] f2 = lengthFrame(2, 3);
+        byte[] stream = concat(f1, f2);
+        int[] splits = new int[stream.length - 1];
+
+        for (int i = 0; i < splits.length; i++) {
+            splits[i] = i + 1;
+        }
+        connection.setFrameDecoder(new LengthFieldFrameDecoder(2, 2, 0, 1024));
+        receive(stream, splits);
+        assertFrames(f1, f2);
+    }
+
+    @Test
+    public void testLengthFieldAdjustment() throws IOException {
+        // a one byte field holding the payload length after a 3 byte header
+        LengthFieldFrameDecoder decoder =
+                new LengthFieldFrameDecoder(2, 1, 3, 64);
+        byte[] data = { 9, 9, 4, 1, 2, 3, 4, 7 };
+
+        assertEquals(0, decoder.decode(data, 0, 2));
+        assertEquals(0, decoder.decode(data, 0, 6));
+        assertEquals(7, decoder.decode(data, 0, 7));
+        assertEquals(7, decoder.decode(data, 0, data.length));
+    }
+
+    @Test
+    public void testLengthFieldOversized() throws IOException {
+        byte[] frame = lengthFrame(1, 100);
+
+        connection.setFrameDecoder(new LengthFieldFrameDecoder(2, 2, 0, 64));
+        thrown.expect(IOException.class);
+        thrown.expectMessage("invalid frame length : 104");
+        receive(frame);
+    }
+
+    @Test
+    public void testLengthFieldOversizedInPendingFrame() throws IOException {
+        byte[] frame = lengthFrame(1, 100);
+
+        connection.setFrameDecoder(new LengthFieldFrameDecoder(2, 2, 0, 64));
+        receive(Arrays.copyOf(frame, 3));
+        assertEquals(0, frames.size());
+        thrown.expect(IOException.class);
+        receive(Arrays.copyOfRange(frame, 3, frame.length));
+    }
+
+    @Test
+    public void testLengthFieldShorterThanHeader() throws IOException {
+        LengthFieldFrameDecoder decoder =
+                new LengthFieldFrameDecoder(2, 2, 0, 64);
+
+        thrown.expect(IOException.class);
+        thrown.expectMessage("invalid frame length : 3");
+        decoder.decode(new byte[] { 0, 0, 0, 3, 0 }, 0, 5);
+    }
+
+    @Test
+    public void testLengthFieldInvalidSettings() {
+        thrown.expect(IllegalArgumentException.class);
+        new LengthFieldFrameDecoder(0, 5, 0, 64);
+    }
+
+    @Test
+    public void testDelimiterSplitAtEveryOffset() throws IOException {
+        byte[] stream = "one\r\ntwo\r\n\r\nthree\r\n".getBytes();
+
+        connection.setFrameDecoder(new DelimiterFrameDecoder("\r\n", 64, true));
+        for (int split = 1; split < stream.length; split++) {
+            frames.clear();
+            receive(stream, split);
+            assertFrames("one".getBytes(),
+                    "two".getBytes(),
+                    new byte[0],
+                    "three".getBytes());
+        }
+    }
+
+    @Test
+    public void testDelimiterKept() throws IOException {
+        connection.setFrameDecoder(new DelimiterFrameDecoder("\n", 64, false));
+        receive("a\nbc\nd".getBytes());
+        assertFrames("a\n".getBytes(), "bc\n".getBytes());
+        receive("\n".getBytes());
+        assertFrames("a\n".getBytes(), "bc\n".getBytes(), "d\n".getBytes());
+    }
+
+    @Test
+    public void testDelimiterMissing() throws IOException {
+        DelimiterFrameDecoder decoder =
+                new DelimiterFrameDecoder("\r\n", 8, true);
+        byte[] data = "abcdefg\r\n".getBytes();
+
+        // not found yet, but there is still room for it
+        assertEquals(0, decoder.decode(data, 0, 7));
+        assertEquals(9, new DelimiterFrameDecoder("\r\n", 9, true).decode(
+                data,
+                0,
+                data.length));
+        thrown.expect(IOException.class);
+        thrown.expectMessage("no delimiter found within 8 bytes");
+        decoder.decode(data, 0, data.length);
+    }
+
+    @Test
+    public void testDelimiterMissingAcrossReads() throws IOException {
+        connection.setFrameDecoder(new DelimiterFrameDecoder("\n", 8, true));
+        receive("abcd".getBytes());
+        receive("efg".getBytes());
+        assertEquals(0, frames.size());
+        thrown.expect(IOException.class);
+        receive("hij\n".getBytes());
+    }
+
+    @Test
+    public void testFixedLengthSplitAtEveryOffset() throws IOException {
+        byte[] stream = "aaaabbbbccccdd".getBytes();
+
+        connection.setFrameDecoder(new FixedLengthFrameDecoder(4));
+        for (int split = 1; split < stream.length; split++) {
+            frames.clear();
+            connection.clearFrameBuffer();
+            receive(stream, split);
+            assertFrames("aaaa".getBytes(),
+                    "bbbb".getBytes(),
+                    "cccc".getBytes());
+        }
+    }
+
+    @Test
+    public void testNoDecoderPassesReads() throws IOException {
+        receive("abcdef".getBytes(), 2);
+        assertFrames("ab".getBytes(), "cdef".getBytes());
+    }
+}
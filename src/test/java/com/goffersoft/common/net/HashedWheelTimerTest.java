@@ -0,0 +1,309 @@
+/**
+ ** File: HashedWheelTimerTest.java
+ **
+ ** Description : Test Cases For HashedWheelTimer.java
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ */
+package com.goffersoft.common.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.goffersoft.common.net.HashedWheelTimer.Timeout;
+
+public class HashedWheelTimerTest {
+
+    private static final Logger log = Logger
+            .getLogger(HashedWheelTimerTest.class);
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    /** tick of the timers under test in milliseconds */
+    private static final long TICK = 10;
+
+    /** slots of the timers under test, one rotation is TICK * WHEEL ms */
+    private static final int WHEEL = 8;
+
+    /** upper bound of any wait in milliseconds, far above the delays used */
+    private static final long WAIT = 5000;
+
+    private HashedWheelTimer timer;
+
+    @Before
+    public void setUp() {
+        timer = new HashedWheelTimer(TICK, WHEEL);
+    }
+
+    @After
+    public void tearDown() {
+        timer.stop();
+    }
+
+    /** a task recording when it ran */
+    private static final class Task
+            implements
+            Runnable {
+        private final CountDownLatch done;
+        private final AtomicInteger runs = new AtomicInteger();
+        volatile private long firedAt;
+
+        Task(CountDownLatch done) {
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            firedAt = System.currentTimeMillis();
+            runs.incrementAndGet();
+            done.countDown();
+        }
+    }
+
+    private static void await(CountDownLatch done) throws Exception {
+        assertTrue("timeouts did not fire",
+                done.await(WAIT, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testWheelSizeRoundedUp() {
+        assertEquals(8, new HashedWheelTimer(TICK, 5).getWheelSize());
+        assertEquals(8, new HashedWheelTimer(TICK, 8).getWheelSize());
+        assertEquals(1, new HashedWheelTimer(TICK, 1).getWheelSize());
+        assertEquals(TICK, timer.getTickDuration());
+    }
+
+    @Test
+    public void testInvalidTickDuration() {
+        thrown.expect(IllegalArgumentException.class);
+        new HashedWheelTimer(0, WHEEL);
+    }
+
+    @Test
+    public void testInvalidWheelSize() {
+        thrown.expect(IllegalArgumentException.class);
+        new HashedWheelTimer(TICK, 0);
+    }
+
+    @Test
+    public void testNullTask() {
+        thrown.expect(IllegalArgumentException.class);
+        timer.newTimeout(null, TICK);
+    }
+
+    @Test
+    public void testNewTimeoutStartsTimer() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+
+        assertFalse(timer.isStarted());
+        timer.newTimeout(new Task(done), 0);
+        assertTrue(timer.isStarted());
+        await(done);
+        assertEquals(0, timer.getPendingCount());
+    }
+
+    @Test
+    public void testFiresNoEarlierThanRequested() throws Exception {
+        long[] delays = { 0, 1, 9, 10, 11, 25, 37, 50, 79 };
+        CountDownLatch done = new CountDownLatch(delays.length);
+        Task[] tasks = new Task[delays.length];
+        Timeout[] timeouts = new Timeout[delays.length];
+
+        for (int i = 0; i < delays.length; i++) {
+            tasks[i] = new Task(done);
+            timeouts[i] = timer.newTimeout(tasks[i], delays[i]);
+        }
+        await(done);
+        for (int i = 0; i < delays.length; i++) {
+            assertTrue(timeouts[i].isExpired());
+            assertFalse(timeouts[i].isPending());
+            assertEquals(1, tasks[i].runs.get());
+            assertTrue("delay " + delays[i] + " fired "
+                    + (timeouts[i].getDeadline() - tasks[i].firedAt)
+                    + " ms early",
+                    tasks[i].firedAt >= timeouts[i].getDeadline());
+        }
+        assertEquals(0, timer.getPendingCount());
+    }
+
+    @Test
+    public void testFiresInDeadlineOrder() throws Exception {
+        CountDownLatch done = new CountDownLatch(2);
+        Task late = new Task(done);
+        Task early = new Task(done);
+
+        timer.newTimeout(late, 6 * TICK);
+        timer.newTimeout(early, 2 * TICK);
+        await(done);
+        assertTrue(early.firedAt <= late.firedAt);
+    }
+
+    @Test
+    public void testDeadlineBeyondOneRotation() throws Exception {
+        long rotation = TICK * WHEEL;
+        CountDownLatch done = new CountDownLatch(3);
+        Task near = new Task(done);
+        Task far = new Task(done);
+        Task farther = new Task(done);
+
+        // all three hash to the same slot, rounds 0, 2 and 3 of the wheel
+        Timeout n = timer.newTimeout(near, 3 * TICK);
+        Timeout f = timer.newTimeout(far, 3 * TICK + 2 * rotation);
+        Timeout ff = timer.newTimeout(farther, 3 * TICK + 3 * rotation);
+
+        await(done);
+        assertTrue(near.firedAt >= n.getDeadline());
+        assertTrue(far.firedAt >= f.getDeadline());
+        assertTrue(farther.firedAt >= ff.getDeadline());
+        assertEquals(1, far.runs.get());
+        assertEquals(1, farther.runs.get());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        Task cancelled = new Task(new CountDownLatch(1));
+        Task sentinel = new Task(done);
+        Timeout t = timer.newTimeout(cancelled, 3 * TICK);
+
+        timer.newTimeout(sentinel, 3 * TICK + 2 * TICK * WHEEL);
+        assertEquals(2, timer.getPendingCount());
+        assertTrue(t.cancel());
+        assertFalse(t.cancel());
+        assertTrue(t.isCancelled());
+        assertFalse(t.isPending());
+        assertFalse(t.refresh(TICK));
+        assertEquals(1, timer.getPendingCount());
+
+        // the sentinel shares the slot and fires two rotations later
+        await(done);
+        assertEquals(0, cancelled.runs.get());
+        assertFalse(t.isExpired());
+        assertEquals(0, timer.getPendingCount());
+    }
+
+    @Test
+    public void testCancelAfterExpiry() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        Timeout t = timer.newTimeout(new Task(done), TICK);
+
+        await(done);
+        assertFalse(t.cancel());
+        assertTrue(t.isExpired());
+        assertFalse(t.isCancelled());
+    }
+
+    @Test
+    public void testRefreshToLaterDeadline() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        Task task = new Task(done);
+        Timeout t = timer.newTimeout(task, 2 * TICK);
+
+        assertTrue(t.refresh(2 * TICK * WHEEL));
+        await(done);
+        assertTrue(task.firedAt >= t.getDeadline());
+    }
+
+    @Test
+    public void testRefreshToEarlierDeadline() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        Task task = new Task(done);
+        Timeout t = timer.newTimeout(task, 60000);
+        long deadline = t.getDeadline();
+
+        assertTrue(t.refresh(2 * TICK));
+        await(done);
+        assertTrue(task.firedAt >= t.getDeadline());
+        assertTrue(task.firedAt < deadline);
+    }
+
+    @Test
+    public void testTaskFailureDoesNotStopTimer() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+
+        timer.newTimeout(new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("task failure");
+            }
+        }, TICK);
+        timer.newTimeout(new Task(done), 3 * TICK);
+        await(done);
+        assertTrue(timer.isRunning());
+    }
+
+    @Test
+    public void testStop() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        Task task = new Task(new CountDownLatch(1));
+        Timeout t;
+
+        timer.newTimeout(new Task(done), 0);
+        await(done);
+        t = timer.newTimeout(task, 60000);
+        assertTrue(timer.isRunning());
+
+        timer.stop();
+        assertFalse(timer.isRunning());
+        assertFalse(timer.isStarted());
+        assertEquals(0, timer.getPendingCount());
+        assertEquals(0, task.runs.get());
+        assertFalse(t.isExpired());
+
+        // stopping again is harmless
+        timer.stop();
+        assertFalse(timer.isRunning());
+    }
+
+    @Test
+    public void testStopRightAfterStart() {
+        timer.start();
+        timer.stop();
+        // the timer thread has exited, not merely been asked to
+        assertFalse(timer.isRunning());
+    }
+
+    @Test
+    public void testStopFromTask() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+
+        timer.newTimeout(new Runnable() {
+            @Override
+            public void run() {
+                timer.stop();
+                done.countDown();
+            }
+        }, TICK);
+        await(done);
+        assertFalse(timer.isStarted());
+    }
+
+    @Test
+    public void testStartAfterStop() {
+        timer.start();
+        timer.stop();
+        thrown.expect(IllegalStateException.class);
+        timer.start();
+    }
+
+    @Test
+    public void testNewTimeoutAfterStop() {
+        timer.stop();
+        thrown.expect(IllegalStateException.class);
+        timer.newTimeout(new Task(new CountDownLatch(1)), TICK);
+    }
+}
@@ -0,0 +1,247 @@
+/**
+ ** File: ReconnectPolicyTest.java
+ **
+ ** Description : Test Cases For ReconnectPolicy.java
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ */
+package com.goffersoft.common.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+import org.apache.log4j.Logger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.goffersoft.common.net.ReconnectPolicy.CircuitState;
+
+public class ReconnectPolicyTest {
+
+    private static final Logger log = Logger
+            .getLogger(ReconnectPolicyTest.class);
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private static final InetSocketAddress REMOTE = InetSocketAddress
+            .createUnresolved("peer", 6633);
+
+    private static final InetSocketAddress OTHER = InetSocketAddress
+            .createUnresolved("other", 6633);
+
+    /** the time read by the policy, in milliseconds */
+    private long now;
+
+    private ReconnectPolicy policy;
+
+    @Before
+    public void setUp() {
+        now = 1000000;
+        policy = new ReconnectPolicy(new Random(7), new LongSupplier() {
+            @Override
+            public long getAsLong() {
+                return now;
+            }
+        });
+        policy.setInitialDelay(100);
+        policy.setMaxDelay(5000);
+        policy.setMultiplier(2.0);
+        policy.setFailureThreshold(3);
+        policy.setOpenDuration(10000);
+    }
+
+    @Test
+    public void testBackoffWithoutJitter() {
+        policy.setJitter(false);
+
+        assertEquals(100, policy.getBackoffDelay(0));
+        assertEquals(200, policy.getBackoffDelay(1));
+        assertEquals(3200, policy.getBackoffDelay(5));
+        assertEquals(5000, policy.getBackoffDelay(6));
+        assertEquals(5000, policy.getBackoffDelay(1000));
+    }
+
+    @Test
+    public void testFullJitterWithinBounds() {
+        for (int attempt = 0; attempt < 20; attempt++) {
+            long bound = Math.min(5000, 100L << attempt);
+            Set<Long> seen = new HashSet<Long>();
+
+            for (int i = 0; i < 1000; i++) {
+                long delay = policy.getBackoffDelay(attempt);
+                assertTrue(delay >= 0 && delay <= bound);
+                seen.add(delay);
+            }
+            // spread over the range, not the bound every time
+            assertTrue(seen.size() > 50);
+        }
+    }
+
+    @Test
+    public void testJitterReplaysWithSeed() {
+        ReconnectPolicy other = new ReconnectPolicy(new Random(7), null);
+
+        other.setInitialDelay(100);
+        other.setMaxDelay(5000);
+
+        for (int attempt = 0; attempt < 10; attempt++) {
+            assertEquals(other.getBackoffDelay(attempt),
+                    policy.getBackoffDelay(attempt));
+        }
+    }
+
+    @Test
+    public void testZeroDelay() {
+        policy.setInitialDelay(0);
+        assertEquals(0, policy.getBackoffDelay(3));
+    }
+
+    @Test
+    public void testOpensAfterThreshold() {
+        assertEquals(CircuitState.CLOSED, policy.getCircuitState(REMOTE));
+        for (int i = 0; i < 2; i++) {
+            assertTrue(policy.tryAttempt(REMOTE));
+            policy.recordFailure(REMOTE);
+            assertEquals(CircuitState.CLOSED, policy.getCircuitState(REMOTE));
+        }
+        assertTrue(policy.tryAttempt(REMOTE));
+        policy.recordFailure(REMOTE);
+
+        assertEquals(CircuitState.OPEN, policy.getCircuitState(REMOTE));
+        assertFalse(policy.tryAttempt(REMOTE));
+        assertEquals(1, policy.getCircuitOpenCount());
+        assertEquals(3, policy.getAttemptCount());
+        assertEquals(3, policy.getFailureCount());
+
+        // other addresses have circuits of their own
+        assertEquals(CircuitState.CLOSED, policy.getCircuitState(OTHER));
+        assertTrue(policy.tryAttempt(OTHER));
+    }
+
+    @Test
+    public void testDelayWhileOpen() {
+        policy.setJitter(false);
+        for (int i = 0; i < 3; i++) {
+            policy.recordFailure(REMOTE);
+        }
+
+        assertEquals(10000 + 100, policy.getDelay(REMOTE, 0));
+        now += 4000;
+        assertEquals(6000 + 200, policy.getDelay(REMOTE, 1));
+        now += 6000;
+        assertEquals(200, policy.getDelay(REMOTE, 1));
+        assertEquals(100, policy.getDelay(OTHER, 0));
+    }
+
+    @Test
+    public void testHalfOpenLetsOneProbeThrough() {
+        for (int i = 0; i < 3; i++) {
+            policy.recordFailure(REMOTE);
+        }
+        now += 9999;
+        assertFalse(policy.tryAttempt(REMOTE));
+        assertEquals(CircuitState.OPEN, policy.getCircuitState(REMOTE));
+
+        now += 1;
+        assertTrue(policy.tryAttempt(REMOTE));
+        assertEquals(CircuitState.HALF_OPEN, policy.getCircuitState(REMOTE));
+        for (int i = 0; i < 10; i++) {
+            assertFalse(policy.tryAttempt(REMOTE));
+        }
+        now += 60000;
+        assertFalse(policy.tryAttempt(REMOTE));
+    }
+
+    @Test
+    public void testFailedProbeReopens() {
+        for (int i = 0; i < 3; i++) {
+            policy.recordFailure(REMOTE);
+        }
+        now += 10000;
+        assertTrue(policy.tryAttempt(REMOTE));
+        policy.recordFailure(REMOTE);
+
+        assertEquals(CircuitState.OPEN, policy.getCircuitState(REMOTE));
+        assertEquals(2, policy.getCircuitOpenCount());
+        // open for another full duration from the failed probe
+        now += 9999;
+        assertFalse(policy.tryAttempt(REMOTE));
+        now += 1;
+        assertTrue(policy.tryAttempt(REMOTE));
+    }
+
+    @Test
+    public void testSuccessResets() {
+        for (int i = 0; i < 3; i++) {
+            policy.recordFailure(REMOTE);
+        }
+        now += 10000;
+        assertTrue(policy.tryAttempt(REMOTE));
+        policy.recordSuccess(REMOTE);
+
+        assertEquals(CircuitState.CLOSED, policy.getCircuitState(REMOTE));
+        assertTrue(policy.tryAttempt(REMOTE));
+        assertTrue(policy.tryAttempt(REMOTE));
+
+        // the failures before the success no longer count
+        policy.recordFailure(REMOTE);
+        policy.recordFailure(REMOTE);
+        assertEquals(CircuitState.CLOSED, policy.getCircuitState(REMOTE));
+        policy.recordFailure(REMOTE);
+        assertEquals(CircuitState.OPEN, policy.getCircuitState(REMOTE));
+    }
+
+    @Test
+    public void testSuccessWhileClosedResetsFailures() {
+        policy.recordFailure(REMOTE);
+        policy.recordFailure(REMOTE);
+        policy.recordSuccess(REMOTE);
+        policy.recordFailure(REMOTE);
+        policy.recordFailure(REMOTE);
+        assertEquals(CircuitState.CLOSED, policy.getCircuitState(REMOTE));
+    }
+
+    @Test
+    public void testZeroThresholdNeverOpens() {
+        policy.setFailureThreshold(0);
+        for (int i = 0; i < 100; i++) {
+            policy.recordFailure(REMOTE);
+        }
+        assertEquals(CircuitState.CLOSED, policy.getCircuitState(REMOTE));
+        assertTrue(policy.tryAttempt(REMOTE));
+    }
+
+    @Test
+    public void testResetCircuit() {
+        for (int i = 0; i < 3; i++) {
+            policy.recordFailure(REMOTE);
+        }
+        policy.resetCircuit(REMOTE);
+        assertEquals(CircuitState.CLOSED, policy.getCircuitState(REMOTE));
+        assertTrue(policy.tryAttempt(REMOTE));
+    }
+
+    @Test
+    public void testInvalidMultiplier() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("invalid multiplier : 0.5");
+        policy.setMultiplier(0.5);
+    }
+
+    @Test
+    public void testInvalidMaxAttempts() {
+        thrown.expect(IllegalArgumentException.class);
+        policy.setMaxAttempts(-1);
+    }
+}
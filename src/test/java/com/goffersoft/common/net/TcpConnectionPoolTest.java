@@ -0,0 +1,426 @@
+/**
+ ** File: TcpConnectionPoolTest.java
+ **
+ ** Description : Test Cases For GenericTcpConnectionPool.java, run against
+ **               a TcpServer on the loopback address
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ */
+package com.goffersoft.common.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class TcpConnectionPoolTest {
+
+    private static final Logger log = Logger
+            .getLogger(TcpConnectionPoolTest.class);
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private static final String LOOPBACK = "127.0.0.1";
+
+    static {
+        // loads TcpServer after TcpConnection, as when connections are
+        // created before any server; each installs a factory default
+        // listener from its static initializer
+        try {
+            Class.forName(TcpConnection.class.getName());
+            Class.forName(TcpServer.class.getName());
+        } catch (ClassNotFoundException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** upper bound of any wait in milliseconds */
+    private static final long WAIT = 5000;
+
+    /** connections accepted by the servers */
+    private final List<TcpConnection> accepted = Collections
+            .synchronizedList(new ArrayList<TcpConnection>());
+
+    private TcpServer server;
+    private TcpServer otherServer;
+    private InetSocketAddress remote;
+    private InetSocketAddress otherRemote;
+    private NioEventLoopGroup eventLoops;
+    private HashedWheelTimer timer;
+    private TcpConnectionPool pool;
+
+    /** pooled connections whose listener was told they terminated */
+    private final AtomicInteger terminated = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        server = createServer();
+        otherServer = createServer();
+        remote = new InetSocketAddress(LOOPBACK, server.getLocalPort());
+        otherRemote = new InetSocketAddress(LOOPBACK,
+                otherServer.getLocalPort());
+
+        eventLoops = new NioEventLoopGroup(1);
+        eventLoops.start();
+        timer = new HashedWheelTimer(10, 64);
+        TcpConnectionContext cc = new TcpConnectionContext();
+        cc.setDefaultListener(new TcpConnectionListenerImpl() {
+            @Override
+            public void onConnectionTerminated(TcpConnection c, Exception e) {
+                terminated.incrementAndGet();
+            }
+        });
+        pool = new TcpConnectionPool(new TcpConnectionFactory(cc), eventLoops);
+        pool.setTimer(timer);
+    }
+
+    @After
+    public void tearDown() {
+        pool.close();
+        eventLoops.stop();
+        server.stop();
+        otherServer.stop();
+        timer.stop();
+
+        // the event loops log failed tasks and callbacks and carry on
+        assertEquals(0, eventLoops.getFailureCount());
+        // stopping the event loops closed the connections still open
+        assertEquals(pool.getCreateCount(), terminated.get());
+    }
+
+    private TcpServer createServer() throws IOException {
+        TcpServerContext sc = new TcpServerContext();
+        TcpConnectionContext cc = new TcpConnectionContext();
+
+        sc.setDefaultListener(new TcpServerListenerImpl() {
+            @Override
+            public void onIncomingConnection(TcpServer s, TcpConnection c) {
+                accepted.add(c);
+            }
+        });
+        cc.setAutoStart();
+        return new TcpServerFactory(sc, cc).createServer(0,
+                InetAddress.getByName(LOOPBACK));
+    }
+
+    /** waits for the number of idle connections to the address */
+    private void awaitIdleCount(InetSocketAddress addr, int expected)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT;
+
+        while (pool.getIdleCount(addr) != expected
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, pool.getIdleCount(addr));
+    }
+
+    /** waits for the servers to have accepted the number of connections */
+    private void awaitAcceptedCount(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT;
+
+        while (accepted.size() < expected
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, accepted.size());
+    }
+
+    private static TcpConnection get(CompletableFuture<TcpConnection> f)
+            throws Exception {
+        return f.get(WAIT, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testLeaseAndRelease() throws Exception {
+        TcpConnection c = pool.lease(remote);
+
+        assertTrue(c.isStarted());
+        assertEquals(1, pool.getLeasedCount());
+        assertEquals(1, pool.getCreateCount());
+
+        pool.release(c);
+        assertEquals(0, pool.getLeasedCount());
+        assertEquals(1, pool.getIdleCount(remote));
+
+        // the idle connection is leased again
+        assertSame(c, pool.lease(remote));
+        assertEquals(1, pool.getHitCount());
+        assertEquals(1, pool.getCreateCount());
+        assertEquals(0, pool.getIdleCount(remote));
+    }
+
+    @Test
+    public void testFactoryDefaultListener() throws Exception {
+        TcpConnectionPool plain = new TcpConnectionPool(
+                new TcpConnectionFactory(new TcpConnectionContext()),
+                eventLoops);
+        plain.setTimer(timer);
+
+        // not the default of TcpServer, which was loaded first
+        TcpConnection c = plain.lease(remote);
+        assertTrue(c.getDefaultListener() instanceof TcpConnectionListenerImpl);
+        plain.invalidate(c);
+        plain.close();
+    }
+
+    @Test
+    public void testMaxTotalPerKey() throws Exception {
+        pool.setMaxTotal(2);
+
+        TcpConnection c1 = pool.lease(remote);
+        TcpConnection c2 = pool.lease(remote);
+        CompletableFuture<TcpConnection> waiter = pool.leaseAsync(remote);
+
+        assertNotSame(c1, c2);
+        Thread.sleep(50);
+        assertFalse(waiter.isDone());
+
+        // the limit is per address, another one is not held up
+        TcpConnection c3 = pool.lease(otherRemote);
+        TcpConnection c4 = pool.lease(otherRemote);
+        assertTrue(c3.isStarted());
+        assertTrue(c4.isStarted());
+        assertEquals(4, pool.getLeasedCount());
+        assertEquals(4, pool.getCreateCount());
+        assertFalse(waiter.isDone());
+
+        pool.release(c1);
+        assertSame(c1, get(waiter));
+        assertEquals(4, pool.getCreateCount());
+    }
+
+    @Test
+    public void testWaiterHandOff() throws Exception {
+        pool.setMaxTotal(1);
+
+        TcpConnection c = pool.lease(remote);
+        CompletableFuture<TcpConnection> w1 = pool.leaseAsync(remote);
+        CompletableFuture<TcpConnection> w2 = pool.leaseAsync(remote);
+
+        assertFalse(w1.isDone());
+        assertFalse(w2.isDone());
+
+        // released straight to the first waiter, never idle
+        pool.release(c);
+        assertSame(c, get(w1));
+        assertFalse(w2.isDone());
+        assertEquals(0, pool.getIdleCount(remote));
+        assertEquals(1, pool.getLeasedCount());
+
+        pool.release(c);
+        assertSame(c, get(w2));
+        assertEquals(2, pool.getHitCount());
+        assertEquals(1, pool.getCreateCount());
+
+        pool.release(c);
+        assertEquals(1, pool.getIdleCount(remote));
+        assertEquals(0, pool.getLeasedCount());
+    }
+
+    @Test
+    public void testLeaseTimeout() throws Exception {
+        pool.setMaxTotal(1);
+        pool.setLeaseTimeout(50);
+
+        TcpConnection c = pool.lease(remote);
+        long start = System.currentTimeMillis();
+
+        try {
+            pool.lease(remote);
+            fail("lease did not time out");
+        } catch (SocketTimeoutException e) {
+            assertTrue(System.currentTimeMillis() - start >= 50);
+        }
+        assertEquals(1, pool.getLeaseTimeoutCount());
+
+        // the timed out waiter is not handed the connection
+        pool.release(c);
+        assertEquals(1, pool.getIdleCount(remote));
+        assertSame(c, pool.lease(remote));
+    }
+
+    @Test
+    public void testSweeperEvictsIdle() throws Exception {
+        TcpConnection[] conns = new TcpConnection[3];
+
+        pool.setIdleTimeout(50);
+        pool.setEvictionInterval(20);
+        for (int i = 0; i < conns.length; i++) {
+            conns[i] = pool.lease(remote);
+        }
+        for (int i = 0; i < conns.length; i++) {
+            pool.release(conns[i]);
+        }
+        assertEquals(3, pool.getIdleCount(remote));
+
+        awaitIdleCount(remote, 0);
+        assertEquals(3, pool.getEvictionCount());
+        for (int i = 0; i < conns.length; i++) {
+            assertFalse(conns[i].isStarted());
+        }
+    }
+
+    @Test
+    public void testSweeperKeepsMinIdle() throws Exception {
+        TcpConnection[] conns = new TcpConnection[3];
+
+        pool.setIdleTimeout(50);
+        pool.setMinIdle(1);
+        pool.setEvictionInterval(20);
+        for (int i = 0; i < conns.length; i++) {
+            conns[i] = pool.lease(remote);
+        }
+        for (int i = 0; i < conns.length; i++) {
+            pool.release(conns[i]);
+        }
+
+        awaitIdleCount(remote, 1);
+        Thread.sleep(200);
+        assertEquals(1, pool.getIdleCount(remote));
+        assertEquals(2, pool.getEvictionCount());
+
+        // the most recently released one is kept
+        assertSame(conns[2], pool.lease(remote));
+    }
+
+    @Test
+    public void testSweeperDropsIdleClosedByPeer() throws Exception {
+        TcpConnection c1 = pool.lease(remote);
+        TcpConnection c2 = pool.lease(remote);
+
+        pool.setEvictionInterval(20);
+        pool.release(c1);
+        pool.release(c2);
+        awaitAcceptedCount(2);
+        synchronized (accepted) {
+            for (TcpConnection c : accepted) {
+                c.stop();
+            }
+        }
+
+        awaitIdleCount(remote, 0);
+        assertFalse(c1.isStarted());
+        assertFalse(c2.isStarted());
+
+        TcpConnection c3 = pool.lease(remote);
+        assertTrue(c3.isStarted());
+        assertEquals(3, pool.getCreateCount());
+    }
+
+    @Test
+    public void testReleaseStoppedConnection() throws Exception {
+        pool.setMaxTotal(1);
+
+        TcpConnection c = pool.lease(remote);
+
+        c.stop();
+        pool.release(c);
+        assertEquals(0, pool.getLeasedCount());
+        assertEquals(0, pool.getIdleCount(remote));
+
+        // its place under max total is free again
+        TcpConnection next = pool.lease(remote);
+        assertNotSame(c, next);
+        assertTrue(next.isStarted());
+        assertEquals(2, pool.getCreateCount());
+    }
+
+    @Test
+    public void testReleaseStoppedConnectionServesWaiter() throws Exception {
+        pool.setMaxTotal(1);
+
+        TcpConnection c = pool.lease(remote);
+        CompletableFuture<TcpConnection> waiter = pool.leaseAsync(remote);
+
+        c.stop();
+        pool.release(c);
+
+        // the waiter gets a new connection, not the stopped one
+        TcpConnection next = get(waiter);
+        assertNotSame(c, next);
+        assertTrue(next.isStarted());
+        assertEquals(1, pool.getLeasedCount());
+        assertEquals(2, pool.getCreateCount());
+    }
+
+    @Test
+    public void testReleaseNotLeased() throws Exception {
+        TcpConnection c = pool.lease(remote);
+
+        pool.release(c);
+        pool.release(c);
+        assertEquals(1, pool.getIdleCount(remote));
+        assertEquals(0, pool.getLeasedCount());
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        pool.setMaxTotal(1);
+
+        TcpConnection c = pool.lease(remote);
+
+        pool.invalidate(c);
+        assertFalse(c.isStarted());
+        assertEquals(0, pool.getLeasedCount());
+        assertNotSame(c, pool.lease(remote));
+    }
+
+    @Test
+    public void testCloseFailsWaiters() throws Exception {
+        pool.setMaxTotal(1);
+
+        TcpConnection c = pool.lease(remote);
+        CompletableFuture<TcpConnection> waiter = pool.leaseAsync(remote);
+
+        pool.close();
+        assertTrue(pool.isClosed());
+        try {
+            get(waiter);
+            fail("waiter not failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        // leased connections are closed when released
+        pool.release(c);
+        assertFalse(c.isStarted());
+        assertEquals(0, pool.getIdleCount(remote));
+    }
+
+    @Test
+    public void testLeaseAfterClose() throws Exception {
+        pool.close();
+        thrown.expect(IOException.class);
+        pool.lease(remote);
+    }
+
+    @Test
+    public void testInvalidMaxTotal() {
+        thrown.expect(IllegalArgumentException.class);
+        pool.setMaxTotal(0);
+    }
+}
@@ -0,0 +1,356 @@
+/**
+ ** File: TcpConnectorTest.java
+ **
+ ** Description : Test Cases For TcpConnector.java through the connectAsync()
+ **               of TcpConnectionFactory.java and TcpSSLConnectionFactory.java,
+ **               run against servers on the loopback address
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ */
+package com.goffersoft.common.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class TcpConnectorTest {
+
+    private static final Logger log = Logger.getLogger(TcpConnectorTest.class);
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private static final String LOOPBACK = "127.0.0.1";
+
+    /** upper bound of any wait in milliseconds */
+    private static final long WAIT = 10000;
+
+    /** timeout of the connects that are not meant to complete */
+    private static final long CONNECT_TIMEOUT = 300;
+
+    /** connections accepted by the servers */
+    private final List<GenericConnection<?, ?>> accepted = Collections
+            .synchronizedList(new ArrayList<GenericConnection<?, ?>>());
+
+    /** sockets filling the accept queue of the blackhole */
+    private final List<Socket> backlog = new ArrayList<Socket>();
+
+    private InetAddress loopback;
+    private NioEventLoop loop;
+    private TcpServer server;
+    private TcpSSLServer sslServer;
+    private ServerSocket blackhole;
+    private GenericConnection<?, ?> client;
+
+    @Before
+    public void setUp() throws IOException {
+        loopback = InetAddress.getByName(LOOPBACK);
+        loop = new NioEventLoop();
+        loop.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (client != null) {
+            client.stop();
+        }
+        if (server != null) {
+            server.stop();
+        }
+        if (sslServer != null) {
+            sslServer.stop();
+        }
+        for (Socket s : backlog) {
+            s.close();
+        }
+        if (blackhole != null) {
+            blackhole.close();
+        }
+        loop.stop();
+        assertEquals(0, loop.getFailureCount());
+    }
+
+    private InetSocketAddress startServer() throws IOException {
+        TcpServerContext sc = new TcpServerContext();
+        TcpConnectionContext cc = new TcpConnectionContext();
+
+        sc.setDefaultListener(new TcpServerListenerImpl() {
+            @Override
+            public void onIncomingConnection(TcpServer s, TcpConnection c) {
+                accepted.add(c);
+            }
+        });
+        cc.setAutoStart();
+        server = new TcpServerFactory(sc, cc).createServer(0, loopback);
+        return new InetSocketAddress(loopback, server.getLocalPort());
+    }
+
+    private InetSocketAddress startSSLServer() throws Exception {
+        TcpSSLServerContext sc = new TcpSSLServerContext();
+        TcpSSLConnectionContext cc = new TcpSSLConnectionContext();
+
+        sc.setSSLContext(TcpSSLConnectionTest.createSSLContext());
+        sc.setEventLoopThreads(1);
+        sc.setDefaultListener(new TcpSSLServerListenerImpl() {
+            @Override
+            public void onIncomingConnection(
+                    TcpSSLServer s,
+                    TcpSSLConnection c) {
+                accepted.add(c);
+            }
+        });
+        cc.setAutoStart();
+        sslServer = new TcpSSLServerFactory(sc, cc).createServer(0, loopback);
+        return new InetSocketAddress(loopback, sslServer.getLocalPort());
+    }
+
+    /** a port nothing listens on */
+    private InetSocketAddress refusedAddress() throws IOException {
+        ServerSocket s = new ServerSocket(0, 1, loopback);
+        int port = s.getLocalPort();
+
+        s.close();
+        return new InetSocketAddress(loopback, port);
+    }
+
+    /**
+     * a listening socket whose accept queue is full, so that the SYN of a
+     * further connect is dropped as on a blackholed route
+     */
+    private InetSocketAddress blackholeAddress() throws IOException {
+        InetSocketAddress addr;
+
+        blackhole = new ServerSocket(0, 1, loopback);
+        addr = new InetSocketAddress(loopback, blackhole.getLocalPort());
+        for (int i = 0; i < 64; i++) {
+            Socket s = new Socket();
+            backlog.add(s);
+            try {
+                s.connect(addr, (int) CONNECT_TIMEOUT);
+            } catch (SocketTimeoutException e) {
+                return addr;
+            }
+        }
+        throw new AssertionError("accept queue of the blackhole not full");
+    }
+
+    private static <T> T get(CompletableFuture<T> future) throws Exception {
+        return future.get(WAIT, TimeUnit.MILLISECONDS);
+    }
+
+    /** the cause the future failed with */
+    private static Throwable failure(CompletableFuture<?> future)
+            throws Exception {
+        try {
+            get(future);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        throw new AssertionError("connect succeeded");
+    }
+
+    private void awaitAccepted(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT;
+
+        while (accepted.size() < count
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, accepted.size());
+    }
+
+    /** waits until no channel is registered with the loop */
+    private void awaitNoChannels() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT;
+
+        while (loop.getRegisteredCount() > 0
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, loop.getRegisteredCount());
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testConnect() throws Exception {
+        InetSocketAddress remote = startServer();
+        TcpConnection conn = get(new TcpConnectionFactory(
+                new TcpConnectionContext())
+                .connectAsync(remote, loop));
+
+        client = conn;
+        assertSame(loop, conn.getEventLoop());
+        assertEquals(remote, conn.getRemoteSocketAddress());
+        awaitAccepted(1);
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testConnectFromLocalAddress() throws Exception {
+        InetSocketAddress remote = startServer();
+        InetSocketAddress local = refusedAddress();
+        TcpConnection conn = get(new TcpConnectionFactory(
+                new TcpConnectionContext())
+                .connectAsync(remote, local, loop, WAIT));
+
+        client = conn;
+        assertEquals(local.getPort(), conn.getLocalPort());
+        awaitAccepted(1);
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testConnectRefused() throws Exception {
+        CompletableFuture<TcpConnection> future = new TcpConnectionFactory(
+                new TcpConnectionContext())
+                .connectAsync(refusedAddress(), loop);
+        Throwable error = failure(future);
+
+        assertTrue(String.valueOf(error), error instanceof ConnectException);
+        awaitNoChannels();
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testConnectTimeout() throws Exception {
+        long start = System.currentTimeMillis();
+        CompletableFuture<TcpConnection> future = new TcpConnectionFactory(
+                new TcpConnectionContext())
+                .connectAsync(blackholeAddress(), null, loop, CONNECT_TIMEOUT);
+        Throwable error = failure(future);
+
+        assertTrue(String.valueOf(error),
+                error instanceof SocketTimeoutException);
+        assertTrue(System.currentTimeMillis() - start >= CONNECT_TIMEOUT);
+        awaitNoChannels();
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testConnectTimeoutFromContext() throws Exception {
+        TcpConnectionContext cc = new TcpConnectionContext();
+
+        cc.setConnectTimeout(CONNECT_TIMEOUT);
+        Throwable error = failure(new TcpConnectionFactory(cc).connectAsync(
+                blackholeAddress(), loop));
+        assertTrue(String.valueOf(error),
+                error instanceof SocketTimeoutException);
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testCancelClosesChannel() throws Exception {
+        InetSocketAddress remote = blackholeAddress();
+        InetSocketAddress local = refusedAddress();
+        CompletableFuture<TcpConnection> future = new TcpConnectionFactory(
+                new TcpConnectionContext())
+                .connectAsync(remote, local, loop, 0);
+
+        // wait for the connect to be pending on the local port
+        long deadline = System.currentTimeMillis() + WAIT;
+        while (loop.getRegisteredCount() == 0
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, loop.getRegisteredCount());
+
+        assertTrue(future.cancel(true));
+        try {
+            get(future);
+            fail("cancelled connect completed");
+        } catch (CancellationException e) {
+        }
+        awaitNoChannels();
+
+        // the channel is closed, so its local port can be bound again
+        Socket s = new Socket();
+        try {
+            s.bind(local);
+        } finally {
+            s.close();
+        }
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testConnectUnresolved() throws Exception {
+        Throwable error = failure(new TcpConnectionFactory(
+                new TcpConnectionContext()).connectAsync(
+                InetSocketAddress.createUnresolved("unresolved.invalid", 80),
+                loop));
+
+        assertFalse(error instanceof SocketTimeoutException);
+        awaitNoChannels();
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testSSLConnect() throws Exception {
+        InetSocketAddress remote = startSSLServer();
+        SSLContext context = TcpSSLConnectionTest.createSSLContext();
+        TcpSSLConnection conn = get(new TcpSSLConnectionFactory(
+                new TcpSSLConnectionContext())
+                .connectAsync(remote, null, loop, context, null, WAIT));
+
+        client = conn;
+        // completed by the handshake, not by the tcp connect
+        assertTrue(conn.isHandshakeCompleted());
+        assertTrue(conn.getHandshakeLatency() >= 0);
+        assertTrue(conn.getSSLEngine().getSession().isValid());
+        assertSame(loop, conn.getEventLoop());
+        awaitAccepted(1);
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testSSLConnectWaitsForHandshake() throws Exception {
+        // a plain tcp server accepts but never answers the client hello
+        InetSocketAddress remote = startServer();
+        Throwable error = failure(new TcpSSLConnectionFactory(
+                new TcpSSLConnectionContext()).connectAsync(
+                remote,
+                null,
+                loop,
+                TcpSSLConnectionTest.createSSLContext(),
+                null,
+                CONNECT_TIMEOUT));
+
+        assertTrue(String.valueOf(error),
+                error instanceof SocketTimeoutException);
+        awaitAccepted(1);
+        awaitNoChannels();
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testSSLConnectRefused() throws Exception {
+        Throwable error = failure(new TcpSSLConnectionFactory(
+                new TcpSSLConnectionContext()).connectAsync(
+                refusedAddress(),
+                null,
+                loop,
+                TcpSSLConnectionTest.createSSLContext(),
+                null,
+                WAIT));
+
+        assertTrue(String.valueOf(error), error instanceof ConnectException);
+        awaitNoChannels();
+    }
+}
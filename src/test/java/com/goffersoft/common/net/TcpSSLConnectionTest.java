@@ -0,0 +1,393 @@
+/**
+ ** File: TcpSSLConnectionTest.java
+ **
+ ** Description : Test Cases For TcpSSLConnection.java and TcpSSLServer.java,
+ **               SSLSocket (thread) and SSLEngine (event loop) connections
+ **               on the loopback address with a self-signed certificate
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ */
+package com.goffersoft.common.net;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.HandshakeCompletedEvent;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class TcpSSLConnectionTest {
+
+    private static final Logger log = Logger
+            .getLogger(TcpSSLConnectionTest.class);
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private static final String LOOPBACK = "127.0.0.1";
+
+    /** self-signed localhost key and certificate, also the trust store */
+    private static final String KEYSTORE = "test.p12";
+
+    private static final char[] KEYSTORE_PASSWORD = "secret".toCharArray();
+
+    /** upper bound of any wait in milliseconds */
+    private static final long WAIT = 10000;
+
+    /**
+     * Creates an SSLContext holding the test key that trusts only the test
+     * certificate, for both ends of a loopback connection
+     */
+    static SSLContext createSSLContext() throws IOException,
+            GeneralSecurityException {
+        KeyStore ks = KeyStore.getInstance("PKCS12");
+        InputStream in = TcpSSLConnectionTest.class
+                .getResourceAsStream(KEYSTORE);
+
+        try {
+            ks.load(in, KEYSTORE_PASSWORD);
+        } finally {
+            in.close();
+        }
+
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory
+                .getDefaultAlgorithm());
+        kmf.init(ks, KEYSTORE_PASSWORD);
+        TrustManagerFactory tmf = TrustManagerFactory
+                .getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        tmf.init(ks);
+
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(kmf.getKeyManagers(), tmf.getTrustManagers(), null);
+        return context;
+    }
+
+    /** records the callbacks of one end of a connection */
+    private static class Peer
+            extends
+            TcpSSLConnectionListenerImpl {
+        final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        final List<HandshakeCompletedEvent> handshakes = Collections
+                .synchronizedList(new ArrayList<HandshakeCompletedEvent>());
+        final List<Exception> errors = Collections
+                .synchronizedList(new ArrayList<Exception>());
+        final CountDownLatch handshake;
+        final CountDownLatch terminated;
+
+        Peer(int connections) {
+            handshake = new CountDownLatch(connections);
+            terminated = new CountDownLatch(connections);
+        }
+
+        @Override
+        public void onReceivedData(
+                TcpSSLConnection tcp,
+                byte[] data,
+                int offset,
+                int length) {
+            synchronized (received) {
+                received.write(data, offset, length);
+                received.notifyAll();
+            }
+        }
+
+        @Override
+        public void onHandshakeCompleted(
+                TcpSSLConnection tcp,
+                HandshakeCompletedEvent event) {
+            handshakes.add(event);
+            handshake.countDown();
+        }
+
+        @Override
+        public void onConnectionTerminated(
+                TcpSSLConnection tcp,
+                Exception error) {
+            if (error != null) {
+                errors.add(error);
+            }
+            terminated.countDown();
+        }
+
+        /** waits for length bytes and returns them */
+        byte[] await(int length) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + WAIT;
+
+            synchronized (received) {
+                long wait;
+                while (received.size() < length
+                        && (wait = deadline - System.currentTimeMillis()) > 0) {
+                    received.wait(wait);
+                }
+                return received.toByteArray();
+            }
+        }
+    }
+
+    /** the server end, which sends back whatever it receives */
+    private static final class EchoPeer
+            extends
+            Peer {
+        EchoPeer(int connections) {
+            super(connections);
+        }
+
+        @Override
+        public void onReceivedData(
+                TcpSSLConnection tcp,
+                byte[] data,
+                int offset,
+                int length) {
+            super.onReceivedData(tcp, data, offset, length);
+            try {
+                tcp.send(data, offset, length);
+            } catch (IOException e) {
+                errors.add(e);
+            }
+        }
+    }
+
+    private SSLContext sslContext;
+    private TcpSSLServer server;
+    private InetSocketAddress remote;
+    private NioEventLoopGroup eventLoops;
+    private final List<TcpSSLConnection> clients =
+            new ArrayList<TcpSSLConnection>();
+
+    @Before
+    public void setUp() throws Exception {
+        sslContext = createSSLContext();
+        eventLoops = new NioEventLoopGroup(1);
+        eventLoops.start();
+    }
+
+    @After
+    public void tearDown() {
+        for (TcpSSLConnection client : clients) {
+            client.stop();
+        }
+        if (server != null) {
+            server.stop();
+        }
+        eventLoops.stop();
+        assertEquals(0, eventLoops.getFailureCount());
+    }
+
+    private static void await(CountDownLatch latch) throws Exception {
+        assertTrue("timed out", latch.await(WAIT, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * starts a server whose connections run in threads of their own
+     * (eventLoopThreads == 0) or are served by event loops
+     */
+    private void startServer(Peer serverPeer, int eventLoopThreads)
+            throws IOException {
+        TcpSSLServerContext sc = new TcpSSLServerContext();
+        TcpSSLConnectionContext cc = new TcpSSLConnectionContext();
+
+        sc.setSSLContext(sslContext);
+        sc.setEventLoopThreads(eventLoopThreads);
+        cc.setDefaultListener(serverPeer);
+        cc.setAutoStart();
+        server = new TcpSSLServerFactory(sc, cc).createServer(0,
+                InetAddress.getByName(LOOPBACK));
+        if (server.isStarted() == false) {
+            server.start();
+        }
+        assertEquals(eventLoopThreads > 0, server.isEventLoopServer());
+        remote = new InetSocketAddress(LOOPBACK, server.getLocalPort());
+    }
+
+    /** connects an SSLSocket connection served by a thread of its own */
+    private TcpSSLConnection connectThread(Peer clientPeer)
+            throws IOException {
+        TcpSSLConnectionContext cc = new TcpSSLConnectionContext(
+                sslContext.getSocketFactory());
+        TcpSSLConnection client;
+
+        cc.setDefaultListener(clientPeer);
+        client = new TcpSSLConnectionFactory(cc).createConnection(0, null,
+                remote.getPort(), remote.getAddress());
+        clients.add(client);
+        if (client.isStarted() == false) {
+            client.start();
+        }
+        return client;
+    }
+
+    /** connects an SSLEngine connection served by the event loop */
+    private TcpSSLConnection connectEventLoop(
+            Peer clientPeer,
+            SSLContext context) throws Exception {
+        TcpSSLConnectionContext cc = new TcpSSLConnectionContext();
+        TcpSSLConnection client;
+
+        cc.setDefaultListener(clientPeer);
+        client = new TcpSSLConnectionFactory(cc).connectAsync(remote, null,
+                eventLoops.next(), context, null, WAIT).get(WAIT,
+                TimeUnit.MILLISECONDS);
+        clients.add(client);
+        return client;
+    }
+
+    private static byte[] message(int length) {
+        byte[] data = new byte[length];
+
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+
+    /** sends a message, checks the echo, stops the client */
+    private void echoAndClose(
+            TcpSSLConnection client,
+            Peer clientPeer,
+            Peer serverPeer) throws Exception {
+        byte[] data = message(40000);
+
+        client.send(data, 0, 1000);
+        client.send(data, 1000, data.length - 1000);
+        assertArrayEquals(data, clientPeer.await(data.length));
+        assertArrayEquals(data, serverPeer.await(data.length));
+
+        await(clientPeer.handshake);
+        await(serverPeer.handshake);
+        assertTrue(client.isHandshakeCompleted());
+        assertTrue(client.getHandshakeLatency() >= 0);
+
+        client.stop();
+        await(clientPeer.terminated);
+        await(serverPeer.terminated);
+        assertEquals(Collections.emptyList(), serverPeer.errors);
+        assertEquals(1, server.getHandshakeMetrics().getFullHandshakes());
+        assertEquals(0, server.getHandshakeMetrics().getFailedHandshakes());
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testThreadEcho() throws Exception {
+        EchoPeer serverPeer = new EchoPeer(1);
+        Peer clientPeer = new Peer(1);
+
+        startServer(serverPeer, 0);
+        TcpSSLConnection client = connectThread(clientPeer);
+
+        SSLSocket socket = client.getSocket();
+
+        assertNull(client.getEventLoop());
+        echoAndClose(client, clientPeer, serverPeer);
+        // a thread connection reports the socket it runs on
+        assertSame(socket, clientPeer.handshakes.get(0).getSocket());
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testEventLoopEcho() throws Exception {
+        EchoPeer serverPeer = new EchoPeer(1);
+        Peer clientPeer = new Peer(1);
+
+        startServer(serverPeer, 1);
+        TcpSSLConnection client = connectEventLoop(clientPeer, sslContext);
+
+        assertNotNull(client.getEventLoop());
+        // the future completes only once the handshake has
+        assertTrue(client.isHandshakeCompleted());
+        echoAndClose(client, clientPeer, serverPeer);
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testThreadClientEventLoopServer() throws Exception {
+        EchoPeer serverPeer = new EchoPeer(1);
+        Peer clientPeer = new Peer(1);
+
+        startServer(serverPeer, 1);
+        echoAndClose(connectThread(clientPeer), clientPeer, serverPeer);
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testEventLoopClientThreadServer() throws Exception {
+        EchoPeer serverPeer = new EchoPeer(1);
+        Peer clientPeer = new Peer(1);
+
+        startServer(serverPeer, 0);
+        echoAndClose(connectEventLoop(clientPeer, sslContext),
+                clientPeer,
+                serverPeer);
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testEngineHandshakeEventsShareSocket() throws Exception {
+        EchoPeer serverPeer = new EchoPeer(2);
+
+        startServer(serverPeer, 1);
+        connectEventLoop(new Peer(1), sslContext);
+        connectEventLoop(new Peer(1), sslContext);
+        await(serverPeer.handshake);
+
+        // one unconnected socket per SSLContext, not one per handshake
+        HandshakeCompletedEvent first = serverPeer.handshakes.get(0);
+        HandshakeCompletedEvent second = serverPeer.handshakes.get(1);
+        assertSame(first.getSocket(), second.getSocket());
+        assertFalse(first.getSocket().isConnected());
+        assertNotSame(first.getSession(), second.getSession());
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testFailedHandshake() throws Exception {
+        EchoPeer serverPeer = new EchoPeer(1);
+        Peer clientPeer = new Peer(1);
+
+        startServer(serverPeer, 1);
+        try {
+            // the default trust store does not hold the test certificate
+            connectEventLoop(clientPeer, SSLContext.getDefault());
+            fail("handshake with an untrusted certificate completed");
+        } catch (ExecutionException e) {
+            assertTrue(String.valueOf(e.getCause()),
+                    e.getCause() instanceof SSLException);
+        }
+
+        await(serverPeer.terminated);
+        assertEquals(0, serverPeer.handshakes.size());
+        assertEquals(0, clientPeer.handshakes.size());
+        long deadline = System.currentTimeMillis() + WAIT;
+        while (server.getHandshakeMetrics().getFailedHandshakes() == 0
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, server.getHandshakeMetrics().getFailedHandshakes());
+        assertEquals(0, server.getHandshakeMetrics().getFullHandshakes());
+    }
+}
@@ -0,0 +1,193 @@
+/**
+ ** File: TcpServerAcceptorTest.java
+ **
+ ** Description : Test Cases For the acceptor and setup threads of
+ **               TcpServer.java, run on the loopback address
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ */
+package com.goffersoft.common.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class TcpServerAcceptorTest {
+
+    private static final Logger log = Logger
+            .getLogger(TcpServerAcceptorTest.class);
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private static final String LOOPBACK = "127.0.0.1";
+
+    /** upper bound of any wait in milliseconds */
+    private static final long WAIT = 10000;
+
+    /** acceptors of the servers under test, the server thread included */
+    private static final int ACCEPTORS = 3;
+
+    private static final int CLIENTS = 32;
+
+    /** the threads the servers were given by their thread factory */
+    private final List<Thread> created = Collections
+            .synchronizedList(new ArrayList<Thread>());
+
+    private final AtomicInteger accepted = new AtomicInteger();
+
+    private final List<Socket> clients = new ArrayList<Socket>();
+
+    /** threads left running by earlier tests */
+    private Set<Thread> before;
+
+    private InetAddress loopback;
+    private TcpServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        loopback = InetAddress.getByName(LOOPBACK);
+        before = new HashSet<Thread>(Thread.getAllStackTraces().keySet());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (Socket s : clients) {
+            s.close();
+        }
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    private TcpServerFactory factory() {
+        TcpServerContext sc = new TcpServerContext();
+        TcpConnectionContext cc = new TcpConnectionContext();
+
+        sc.setDefaultListener(new TcpServerListenerImpl() {
+            @Override
+            public void onIncomingConnection(TcpServer s, TcpConnection c) {
+                accepted.incrementAndGet();
+            }
+        });
+        sc.setAcceptorThreads(ACCEPTORS);
+        sc.setSetupThreads(2);
+        sc.setThreadFactory(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r);
+                created.add(t);
+                return t;
+            }
+        });
+        cc.setDefaultListener(new TcpConnectionListenerImpl());
+        cc.setAutoStart();
+        return new TcpServerFactory(sc, cc);
+    }
+
+    /** connects the clients and waits until the server has set them up */
+    private void connectClients() throws Exception {
+        for (int i = 0; i < CLIENTS; i++) {
+            clients.add(new Socket(loopback, server.getLocalPort()));
+        }
+
+        long deadline = System.currentTimeMillis() + WAIT;
+        while (accepted.get() < CLIENTS
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(CLIENTS, accepted.get());
+        assertEquals(CLIENTS, server.getAcceptMetrics().getAccepted());
+    }
+
+    /** counts the live threads of the server whose name has the suffix */
+    private static int countThreads(String suffix, List<Thread> threads) {
+        int count = 0;
+
+        for (Thread t : threads) {
+            if (t.isAlive() && t.getName().startsWith(TcpServer.class
+                    .getName() + suffix)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** the acceptor and setup threads all come from the thread factory */
+    private void assertThreadsFromFactory() {
+        List<Thread> all = new ArrayList<Thread>(Thread.getAllStackTraces()
+                .keySet());
+
+        all.removeAll(before);
+        assertEquals(ACCEPTORS - 1, countThreads(".Acceptor", created));
+        assertEquals(ACCEPTORS - 1, countThreads(".Acceptor", all));
+        assertTrue(countThreads(".Setup", created) > 0);
+        assertEquals(countThreads(".Setup", all),
+                countThreads(".Setup", created));
+    }
+
+    private void stopServer() {
+        List<Thread> threads = new ArrayList<Thread>(created);
+
+        server.stop();
+        assertFalse(server.isRunning());
+        assertEquals(0, server.getShardedAcceptorCount());
+        assertEquals(0, countThreads(".Acceptor", threads));
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testShardedAcceptors() throws Exception {
+        Assume.assumeTrue(TcpServer.isReusePortSupported());
+
+        server = factory().createServer(0, loopback);
+        connectClients();
+
+        // each additional acceptor listens on a SO_REUSEPORT socket
+        assertEquals(ACCEPTORS - 1, server.getShardedAcceptorCount());
+        assertThreadsFromFactory();
+        stopServer();
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testSharedSocketAcceptors() throws Exception {
+        // bound without SO_REUSEPORT, so the port cannot be shared
+        ServerSocket socket = new ServerSocket(0, 50, loopback);
+
+        server = factory().createServer(socket);
+        connectClients();
+
+        // the acceptors fall back to the server socket
+        assertEquals(0, server.getShardedAcceptorCount());
+        assertThreadsFromFactory();
+        stopServer();
+    }
+
+    @Test
+    public void testInvalidAcceptorThreads() throws Exception {
+        TcpServerContext sc = new TcpServerContext();
+
+        thrown.expect(IllegalArgumentException.class);
+        sc.setAcceptorThreads(0);
+    }
+}
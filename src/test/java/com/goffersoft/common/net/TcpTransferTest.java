@@ -0,0 +1,408 @@
+/**
+ ** File: TcpTransferTest.java
+ **
+ ** Description : Test Cases For the file transfers of GenericTcpConnection.java
+ **               (transferFrom, sendFile) and TcpConnection.java
+ **               (transferChunk), run against a TcpServer on the loopback
+ **               address
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ */
+package com.goffersoft.common.net;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+public class TcpTransferTest {
+
+    private static final Logger log = Logger.getLogger(TcpTransferTest.class);
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String LOOPBACK = "127.0.0.1";
+
+    /** upper bound of any wait in milliseconds */
+    private static final long WAIT = 10000;
+
+    /** several transfer chunks, the last one partly filled */
+    private static final int FILE_SIZE =
+            4 * GenericTcpConnection.TRANSFER_CHUNK_SIZE + 12345;
+
+    /** what the server received */
+    private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+
+    private byte[] content;
+    private Path file;
+    private FileChannel src;
+    private TcpServer server;
+    private InetSocketAddress remote;
+    private NioEventLoopGroup eventLoops;
+    private TcpConnection client;
+
+    /** records the callbacks of a transfer */
+    private static final class Transfer
+            implements
+            TcpTransferListener {
+        private final List<Long> progress = Collections
+                .synchronizedList(new ArrayList<Long>());
+        private final AtomicInteger completions = new AtomicInteger();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        volatile private long transferred = -1;
+        volatile private long total = -1;
+        volatile private Exception error;
+
+        @Override
+        public void onTransferProgress(
+                GenericTcpConnection<?, ?, ?> tcp,
+                long transferred,
+                long total) {
+            progress.add(transferred);
+            this.total = total;
+        }
+
+        @Override
+        public void onTransferCompleted(
+                GenericTcpConnection<?, ?, ?> tcp,
+                long transferred,
+                Exception error) {
+            this.transferred = transferred;
+            this.error = error;
+            completions.incrementAndGet();
+            completed.countDown();
+        }
+
+        /** waits for the completion, checks the progress reported */
+        void awaitCompleted(long count) throws InterruptedException {
+            assertTrue("transfer did not complete",
+                    completed.await(WAIT, TimeUnit.MILLISECONDS));
+            assertEquals(1, completions.get());
+
+            long last = 0;
+            for (long p : progress) {
+                assertTrue("progress " + p + " after " + last, p > last);
+                last = p;
+            }
+            assertEquals(transferred, last);
+            if (progress.isEmpty() == false) {
+                assertEquals(count, total);
+            }
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        content = new byte[FILE_SIZE];
+        new Random(18).nextBytes(content);
+        file = folder.newFile("transfer.bin").toPath();
+        Files.write(file, content);
+        src = FileChannel.open(file, StandardOpenOption.READ);
+
+        TcpServerContext sc = new TcpServerContext();
+        TcpConnectionContext cc = new TcpConnectionContext();
+        cc.setDefaultListener(new TcpConnectionListenerImpl() {
+            @Override
+            public void onReceivedData(
+                    TcpConnection tcp,
+                    byte[] data,
+                    int offset,
+                    int length) {
+                synchronized (received) {
+                    received.write(data, offset, length);
+                    received.notifyAll();
+                }
+            }
+        });
+        cc.setAutoStart();
+        server = new TcpServerFactory(sc, cc).createServer(0,
+                InetAddress.getByName(LOOPBACK));
+        remote = new InetSocketAddress(LOOPBACK, server.getLocalPort());
+
+        eventLoops = new NioEventLoopGroup(1);
+        eventLoops.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (client != null) {
+            client.stop();
+        }
+        server.stop();
+        eventLoops.stop();
+        src.close();
+        assertEquals(0, eventLoops.getFailureCount());
+    }
+
+    /** waits for length bytes at the server and returns what it got */
+    private byte[] awaitReceived(int length) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT;
+
+        synchronized (received) {
+            long wait;
+            while (received.size() < length
+                    && (wait = deadline - System.currentTimeMillis()) > 0) {
+                received.wait(wait);
+            }
+            return received.toByteArray();
+        }
+    }
+
+    /** gives stray bytes time to arrive, then checks there were none */
+    private void assertReceivedOnly(byte[] expected) throws Exception {
+        assertArrayEquals(expected, awaitReceived(expected.length));
+        Thread.sleep(100);
+        assertArrayEquals(expected, awaitReceived(expected.length));
+    }
+
+    private static TcpConnectionContext context(TcpSendPolicy policy) {
+        TcpConnectionContext cc = new TcpConnectionContext();
+
+        cc.setDefaultListener(new TcpConnectionListenerImpl());
+        cc.setSendPolicy(policy);
+        return cc;
+    }
+
+    private static TcpConnection started(TcpConnection tcp) {
+        if (tcp.isStarted() == false) {
+            tcp.start();
+        }
+        return tcp;
+    }
+
+    /** thread mode over a plain socket, the file is copied through */
+    private TcpConnection connectSocket(TcpSendPolicy policy)
+            throws IOException {
+        return started(new TcpConnectionFactory(context(policy))
+                .createConnection(0, null, remote.getPort(),
+                        remote.getAddress()));
+    }
+
+    /** thread mode over a socket channel, the file is sent with transferTo */
+    private TcpConnection connectChannel(TcpSendPolicy policy)
+            throws IOException {
+        SocketChannel channel = SocketChannel.open(remote);
+
+        return started(new TcpConnectionFactory(context(policy))
+                .createConnection(channel.socket()));
+    }
+
+    /** event loop mode */
+    private TcpConnection connectEventLoop(TcpSendPolicy policy)
+            throws Exception {
+        return started(new TcpConnectionFactory(context(policy))
+                .connectAsync(remote, eventLoops.next()).get(WAIT,
+                        TimeUnit.MILLISECONDS));
+    }
+
+    /** transfers the whole file and checks what arrived */
+    private void transferWholeFile() throws Exception {
+        Transfer transfer = new Transfer();
+
+        assertEquals(FILE_SIZE, client.transferFrom(src, 0, FILE_SIZE,
+                transfer));
+        transfer.awaitCompleted(FILE_SIZE);
+        assertNull(transfer.error);
+        assertEquals(FILE_SIZE, transfer.transferred);
+        assertTrue(transfer.progress.size() >= 5);
+        assertReceivedOnly(content);
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testTransferThreadSocket() throws Exception {
+        client = connectSocket(null);
+        transferWholeFile();
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testTransferThreadChannel() throws Exception {
+        client = connectChannel(null);
+        transferWholeFile();
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testTransferEventLoop() throws Exception {
+        client = connectEventLoop(null);
+        transferWholeFile();
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testTransferAsyncSendThreadChannel() throws Exception {
+        client = connectChannel(new TcpSendPolicy());
+        transferWholeFile();
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testTransferAsyncSendThreadSocket() throws Exception {
+        client = connectSocket(new TcpSendPolicy(
+                TcpSendPolicy.FlushPolicy.BATCH_SIZE));
+        transferWholeFile();
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testTransferAsyncSendEventLoop() throws Exception {
+        client = connectEventLoop(new TcpSendPolicy());
+        transferWholeFile();
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testDataSentEarlierGoesFirst() throws Exception {
+        byte[] head = { 1, 2, 3, 4, 5 };
+        byte[] expected = new byte[head.length + FILE_SIZE];
+
+        // a batch flush policy holds the head back until the transfer
+        client = connectChannel(new TcpSendPolicy(
+                TcpSendPolicy.FlushPolicy.BATCH_SIZE));
+        client.send(head);
+        assertEquals(FILE_SIZE, client.transferFrom(src, 0, FILE_SIZE));
+
+        System.arraycopy(head, 0, expected, 0, head.length);
+        System.arraycopy(content, 0, expected, head.length, FILE_SIZE);
+        assertReceivedOnly(expected);
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testTransferRange() throws Exception {
+        Transfer transfer = new Transfer();
+
+        client = connectEventLoop(null);
+        assertEquals(5000, client.transferFrom(src, 1000, 5000, transfer));
+        transfer.awaitCompleted(5000);
+        assertReceivedOnly(Arrays.copyOfRange(content, 1000, 6000));
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testTransferEndOfFileThread() throws Exception {
+        client = connectSocket(null);
+        transferPastEndOfFile();
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testTransferEndOfFileEventLoop() throws Exception {
+        client = connectEventLoop(null);
+        transferPastEndOfFile();
+    }
+
+    /** asks for more than the file holds past the position */
+    private void transferPastEndOfFile() throws Exception {
+        Transfer transfer = new Transfer();
+        long position = FILE_SIZE - 1000;
+
+        try {
+            client.transferFrom(src, position, 3000, transfer);
+            fail("transfer past the end of the file succeeded");
+        } catch (EOFException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("1000 of 3000"));
+        }
+        transfer.awaitCompleted(3000);
+        assertTrue(transfer.error instanceof EOFException);
+        assertEquals(1000, transfer.transferred);
+        // the bytes there were are sent, the connection stays usable
+        client.send(new byte[] { 9 });
+
+        byte[] expected = Arrays.copyOf(Arrays.copyOfRange(content,
+                (int) position, FILE_SIZE), 1001);
+        expected[1000] = 9;
+        assertReceivedOnly(expected);
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testSendFile() throws Exception {
+        Transfer transfer = new Transfer();
+
+        client = connectEventLoop(null);
+        client.sendFile(file, 0, FILE_SIZE, transfer);
+        transfer.awaitCompleted(FILE_SIZE);
+        assertNull(transfer.error);
+        assertEquals(FILE_SIZE, transfer.transferred);
+        assertReceivedOnly(content);
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testSendFileThread() throws Exception {
+        Transfer transfer = new Transfer();
+
+        client = connectSocket(null);
+        client.sendFile(file, 100, 200000, transfer);
+        transfer.awaitCompleted(200000);
+        assertNull(transfer.error);
+        assertReceivedOnly(Arrays.copyOfRange(content, 100, 200100));
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testSendFileMissing() throws Exception {
+        Transfer transfer = new Transfer();
+
+        client = connectEventLoop(null);
+        client.sendFile(file.resolveSibling("missing.bin"), 0, 10, transfer);
+        transfer.awaitCompleted(10);
+        assertTrue(String.valueOf(transfer.error),
+                transfer.error instanceof NoSuchFileException);
+        assertEquals(0, transfer.transferred);
+        assertTrue(transfer.progress.isEmpty());
+        assertReceivedOnly(new byte[0]);
+    }
+
+    @Test
+    public void testSendFileWithoutListener() throws Exception {
+        client = connectSocket(null);
+        thrown.expect(IllegalArgumentException.class);
+        client.sendFile(file, 0, FILE_SIZE, null);
+    }
+
+    @Test
+    public void testTransferInvalidCount() throws Exception {
+        client = connectSocket(null);
+        thrown.expect(IllegalArgumentException.class);
+        client.transferFrom(src, 0, -1);
+    }
+
+    @Test(timeout = 3 * WAIT)
+    public void testTransferAfterStop() throws Exception {
+        Transfer transfer = new Transfer();
+
+        client = connectEventLoop(null);
+        client.stop();
+        try {
+            client.transferFrom(src, 0, FILE_SIZE, transfer);
+            fail("transfer on a stopped connection succeeded");
+        } catch (IOException e) {
+        }
+        transfer.awaitCompleted(FILE_SIZE);
+        assertEquals(0, transfer.transferred);
+    }
+}
@@ -0,0 +1,254 @@
+/**
+ ** File: TrafficRecorderTest.java
+ **
+ ** Description : Test Cases For TrafficRecorder.java and the replay of its
+ **               captures by TrafficReplayer.java
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ */
+package com.goffersoft.common.net;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+public class TrafficRecorderTest {
+
+    private static final Logger log = Logger
+            .getLogger(TrafficRecorderTest.class);
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** room for two records of PAYLOAD bytes per segment */
+    private static final int SEGMENT_SIZE = 256;
+
+    private static final int PAYLOAD = 60;
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = folder.getRoot().toPath().resolve("capture");
+    }
+
+    /** collects the replayed records */
+    private static final class Collector
+            implements
+            TrafficReplayer.Sender {
+        private final List<Long> streams = new ArrayList<Long>();
+        private final List<byte[]> payloads = new ArrayList<byte[]>();
+
+        @Override
+        public void send(long streamId, ByteBuffer payload) {
+            byte[] data = new byte[payload.remaining()];
+
+            payload.get(data);
+            streams.add(streamId);
+            payloads.add(data);
+        }
+    }
+
+    private static byte[] payload(int n, int length) {
+        byte[] data = new byte[length];
+
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (n + i);
+        }
+        return data;
+    }
+
+    private TrafficRecorder record(int records) throws IOException {
+        TrafficRecorder recorder = new TrafficRecorder(directory, "test",
+                SEGMENT_SIZE);
+
+        for (int i = 0; i < records; i++) {
+            assertTrue(recorder.record(i % 3, payload(i, PAYLOAD), 0,
+                    PAYLOAD));
+        }
+        return recorder;
+    }
+
+    private Collector replay() throws IOException {
+        TrafficReplayer replayer = new TrafficReplayer(directory, "test");
+        Collector collector = new Collector();
+
+        replayer.setSpeed(0);
+        replayer.replay(collector);
+        assertEquals(collector.payloads.size(), replayer.getRecordCount());
+        return collector;
+    }
+
+    private Path segment(int n) {
+        return directory.resolve(TrafficRecorder.getSegmentName("test", n));
+    }
+
+    private static void sleepPastMillisecond() throws InterruptedException {
+        // the segments of a capture are told apart by the start time in ms
+        Thread.sleep(5);
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        TrafficRecorder recorder = new TrafficRecorder(directory, "test",
+                SEGMENT_SIZE);
+        byte[] data = { 0, 1, 2, 3, 4, 5, 6, 7 };
+
+        assertTrue(recorder.record(7, data, 2, 4));
+        assertTrue(recorder.record(9, data, 1, 1));
+        // a zero length would end the segment, so it is not recorded
+        assertFalse(recorder.record(9, data, 0, 0));
+        assertTrue(recorder.record(7, data, 0, data.length));
+        recorder.close();
+        assertEquals(3, recorder.getRecordCount());
+        assertEquals(13, recorder.getByteCount());
+        assertEquals(1, recorder.getDroppedCount());
+        assertEquals(1, recorder.getSegmentCount());
+
+        Collector collector = replay();
+        assertEquals(3, collector.payloads.size());
+        assertEquals(Long.valueOf(7), collector.streams.get(0));
+        assertEquals(Long.valueOf(9), collector.streams.get(1));
+        assertEquals(Long.valueOf(7), collector.streams.get(2));
+        assertArrayEquals(new byte[] { 2, 3, 4, 5 }, collector.payloads.get(0));
+        assertArrayEquals(new byte[] { 1 }, collector.payloads.get(1));
+        assertArrayEquals(data, collector.payloads.get(2));
+    }
+
+    @Test
+    public void testSegmentRollover() throws Exception {
+        TrafficRecorder recorder = record(5);
+
+        recorder.close();
+        assertEquals(3, recorder.getSegmentCount());
+        assertTrue(Files.exists(segment(2)));
+        assertFalse(Files.exists(segment(3)));
+
+        Collector collector = replay();
+        assertEquals(5, collector.payloads.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Long.valueOf(i % 3), collector.streams.get(i));
+            assertArrayEquals(payload(i, PAYLOAD), collector.payloads.get(i));
+        }
+    }
+
+    @Test
+    public void testRecordTooLarge() throws Exception {
+        TrafficRecorder recorder = new TrafficRecorder(directory, "test",
+                SEGMENT_SIZE);
+        int max = recorder.getMaximumRecordLength();
+        byte[] data = new byte[max + 1];
+
+        assertFalse(recorder.record(1, data, 0, max + 1));
+        assertTrue(recorder.record(1, data, 0, max));
+        recorder.close();
+        assertEquals(1, recorder.getDroppedCount());
+        assertEquals(1, replay().payloads.size());
+    }
+
+    @Test
+    public void testRecordAfterClose() throws Exception {
+        TrafficRecorder recorder = record(1);
+
+        recorder.close();
+        assertTrue(recorder.isClosed());
+        assertFalse(recorder.record(1, new byte[1], 0, 1));
+        assertEquals(1, recorder.getDroppedCount());
+        recorder.close();
+    }
+
+    @Test
+    public void testCloseDeletesSegmentsOfLongerCapture() throws Exception {
+        record(7).close();
+        assertTrue(Files.exists(segment(3)));
+        sleepPastMillisecond();
+
+        TrafficRecorder recorder = record(3);
+        recorder.close();
+        assertEquals(2, recorder.getSegmentCount());
+        assertTrue(Files.exists(segment(1)));
+        assertFalse(Files.exists(segment(2)));
+        assertFalse(Files.exists(segment(3)));
+        assertEquals(3, replay().payloads.size());
+    }
+
+    @Test
+    public void testReplayStopsAtSegmentOfOtherCapture() throws Exception {
+        record(7).close();
+        sleepPastMillisecond();
+
+        // not closed, as after a crash, so the older segments 1 to 3 remain
+        TrafficRecorder recorder = record(1);
+        assertTrue(Files.exists(segment(3)));
+
+        Collector collector = replay();
+        assertEquals(1, collector.payloads.size());
+        assertArrayEquals(payload(0, PAYLOAD), collector.payloads.get(0));
+        recorder.close();
+    }
+
+    @Test
+    public void testTruncatedRecord() throws Exception {
+        record(1).close();
+
+        // cut the file in the middle of the payload of the first record
+        FileChannel channel = FileChannel.open(segment(0),
+                StandardOpenOption.WRITE);
+        try {
+            channel.truncate(TrafficRecorder.SEGMENT_HEADER_LENGTH
+                    + TrafficRecorder.RECORD_HEADER_LENGTH + PAYLOAD / 2);
+        } finally {
+            channel.close();
+        }
+
+        thrown.expect(IOException.class);
+        thrown.expectMessage("truncated record");
+        replay();
+    }
+
+    @Test
+    public void testNotACaptureSegment() throws Exception {
+        Files.createDirectories(directory);
+        Files.write(segment(0), new byte[TrafficRecorder.SEGMENT_HEADER_LENGTH]);
+
+        thrown.expect(IOException.class);
+        thrown.expectMessage("not a capture segment");
+        replay();
+    }
+
+    @Test
+    public void testNoCapture() throws Exception {
+        thrown.expect(IOException.class);
+        thrown.expectMessage("no capture");
+        replay();
+    }
+
+    @Test
+    public void testInvalidSegmentSize() throws Exception {
+        thrown.expect(IllegalArgumentException.class);
+        new TrafficRecorder(directory, "test",
+                TrafficRecorder.SEGMENT_HEADER_LENGTH
+                        + TrafficRecorder.RECORD_HEADER_LENGTH);
+    }
+}
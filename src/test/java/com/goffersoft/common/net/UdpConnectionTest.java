@@ -0,0 +1,252 @@
+/**
+ ** File: UdpConnectionTest.java
+ **
+ ** Description : Test Cases For the batch mode (non-blocking channel)
+ **               sends of UdpConnection.java
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ */
+package com.goffersoft.common.net;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class UdpConnectionTest {
+
+    private static final Logger log = Logger
+            .getLogger(UdpConnectionTest.class);
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    /** upper bound of any wait in milliseconds */
+    private static final int WAIT = 5000;
+
+    private DatagramSocket receiver;
+    private SocketAddress receiverAddress;
+    private FullBufferConnection connection;
+
+    /**
+     * reports no room in the send buffer for the first getFull() attempts,
+     * as a non-blocking channel does while the send buffer is full; a full
+     * buffer cannot be produced on the loopback address
+     */
+    private static final class FullBufferConnection
+            extends
+            UdpConnection {
+        private final AtomicInteger full = new AtomicInteger();
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        FullBufferConnection(DatagramSocket sock) throws IOException {
+            super(sock, 100, 2048, 0, 0, 65535, null,
+                    new UdpConnectionListenerImpl(), false);
+        }
+
+        @Override
+        int sendDatagram(
+                DatagramChannel channel,
+                ByteBuffer src,
+                SocketAddress sa) throws IOException {
+            attempts.incrementAndGet();
+            if (full.get() > 0) {
+                full.decrementAndGet();
+                return 0;
+            }
+            return super.sendDatagram(channel, src, sa);
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        InetAddress loopback = InetAddress.getByName("127.0.0.1");
+
+        receiver = new DatagramSocket(0, loopback);
+        receiver.setSoTimeout(WAIT);
+        receiverAddress = new InetSocketAddress(loopback,
+                receiver.getLocalPort());
+
+        connection = new FullBufferConnection(
+                UdpConnection.createDatagramSocket(0, loopback, true));
+        connection.setReceiveBatchSize(8);
+        connection.start();
+
+        // batch mode switches the channel to non-blocking once running
+        DatagramChannel channel = connection.getSocket().getChannel();
+        long deadline = System.currentTimeMillis() + WAIT;
+        while ((connection.isRunning() == false || channel.isBlocking())
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertFalse(channel.isBlocking());
+    }
+
+    @After
+    public void tearDown() {
+        connection.stop();
+        receiver.close();
+    }
+
+    private byte[] receive() throws IOException {
+        DatagramPacket packet = new DatagramPacket(new byte[2048], 2048);
+
+        receiver.receive(packet);
+        return Arrays.copyOf(packet.getData(), packet.getLength());
+    }
+
+    private void assertNothingReceived() throws IOException {
+        receiver.setSoTimeout(100);
+        try {
+            byte[] data = receive();
+            throw new AssertionError("unexpected datagram of "
+                    + data.length + " bytes");
+        } catch (SocketTimeoutException e) {
+        }
+    }
+
+    @Test(timeout = WAIT)
+    public void testSendEmptyPacket() throws Exception {
+        connection.send(new byte[0], 0, 0, receiverAddress);
+
+        assertEquals(0, receive().length);
+        assertEquals(1, connection.attempts.get());
+        assertEquals(1, connection.getMetrics().getPacketsSent());
+        assertNothingReceived();
+    }
+
+    @Test(timeout = WAIT)
+    public void testSendEmptyByteBuffer() throws Exception {
+        connection.send(ByteBuffer.allocate(0), receiverAddress);
+
+        assertEquals(0, receive().length);
+        assertEquals(1, connection.attempts.get());
+        assertNothingReceived();
+    }
+
+    @Test(timeout = WAIT)
+    public void testSendBatchWithEmptyPackets() throws Exception {
+        List<DatagramPacket> batch = new ArrayList<DatagramPacket>();
+
+        batch.add(new DatagramPacket(new byte[0], 0, receiverAddress));
+        batch.add(new DatagramPacket(new byte[] { 1, 2 }, 2, receiverAddress));
+        batch.add(new DatagramPacket(new byte[0], 0, receiverAddress));
+
+        assertEquals(3, connection.sendBatch(batch));
+        assertEquals(0, receive().length);
+        assertArrayEquals(new byte[] { 1, 2 }, receive());
+        assertEquals(0, receive().length);
+        assertNothingReceived();
+    }
+
+    @Test(timeout = WAIT)
+    public void testSendIntoFullBuffer() throws Exception {
+        byte[] data = { 1, 2, 3 };
+
+        connection.full.set(5);
+        connection.send(data, 0, data.length, receiverAddress);
+
+        // retried once room was reported, sent exactly once
+        assertEquals(6, connection.attempts.get());
+        assertArrayEquals(data, receive());
+        assertNothingReceived();
+    }
+
+    @Test(timeout = WAIT)
+    public void testSendByteBufferIntoFullBuffer() throws Exception {
+        connection.full.set(3);
+        connection.send(ByteBuffer.wrap(new byte[] { 4, 5 }), receiverAddress);
+
+        assertEquals(4, connection.attempts.get());
+        assertArrayEquals(new byte[] { 4, 5 }, receive());
+    }
+
+    @Test(timeout = WAIT)
+    public void testFullBufferSendersQueueBehindTheLock() throws Exception {
+        final AtomicReference<Exception> error =
+                new AtomicReference<Exception>();
+        Thread other = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    connection.send(new byte[] { 2 }, 0, 1, receiverAddress);
+                } catch (Exception e) {
+                    error.set(e);
+                }
+            }
+        };
+
+        connection.full.set(20);
+        Thread first = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    connection.send(new byte[] { 1 }, 0, 1, receiverAddress);
+                } catch (Exception e) {
+                    error.set(e);
+                }
+            }
+        };
+        first.start();
+        while (connection.attempts.get() == 0) {
+            Thread.sleep(1);
+        }
+        other.start();
+        first.join();
+        other.join();
+
+        assertEquals(null, error.get());
+        assertArrayEquals(new byte[] { 1 }, receive());
+        assertArrayEquals(new byte[] { 2 }, receive());
+    }
+
+    @Test(timeout = WAIT)
+    public void testStopEndsSendIntoFullBuffer() throws Exception {
+        final AtomicReference<Exception> error =
+                new AtomicReference<Exception>();
+        Thread sender = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    connection.send(new byte[] { 1 }, 0, 1, receiverAddress);
+                } catch (Exception e) {
+                    error.set(e);
+                }
+            }
+        };
+
+        connection.full.set(Integer.MAX_VALUE);
+        sender.start();
+        while (connection.attempts.get() < 2) {
+            Thread.sleep(1);
+        }
+
+        connection.stop();
+        sender.join();
+        assertTrue(error.get() instanceof IOException);
+        assertNothingReceived();
+    }
+}
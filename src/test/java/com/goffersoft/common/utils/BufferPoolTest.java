@@ -0,0 +1,171 @@
+/**
+ ** File: BufferPoolTest.java
+ **
+ ** Description : Test Cases For BufferPool.java and PooledBuffer.java
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ */
+package com.goffersoft.common.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.log4j.Logger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class BufferPoolTest {
+
+    private static final Logger log = Logger.getLogger(BufferPoolTest.class);
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private BufferPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new BufferPool(256, 4096, 2);
+    }
+
+    @Test
+    public void testDimensionsRoundedUp() {
+        BufferPool p = new BufferPool(200, 3000, 1);
+
+        assertEquals(256, p.getMinBufferSize());
+        assertEquals(4096, p.getMaxBufferSize());
+    }
+
+    @Test
+    public void testInvalidDimensions() {
+        thrown.expect(IllegalArgumentException.class);
+        new BufferPool(1024, 512, 1);
+    }
+
+    @Test
+    public void testLeaseRoundsToSizeClass() {
+        int[][] sizes = { { 0, 256 }, { 1, 256 }, { 256, 256 },
+                { 257, 512 }, { 512, 512 }, { 513, 1024 },
+                { 2049, 4096 }, { 4096, 4096 } };
+
+        for (int i = 0; i < sizes.length; i++) {
+            PooledBuffer buf = pool.lease(sizes[i][0]);
+            assertEquals(sizes[i][1], buf.capacity());
+            assertEquals(1, buf.refCount());
+        }
+    }
+
+    @Test
+    public void testOversizedLeaseIsUnpooled() {
+        PooledBuffer buf = pool.lease(5000);
+
+        assertEquals(5000, buf.capacity());
+        assertFalse(buf.release());
+        assertEquals(0, pool.getFreeCount());
+        assertEquals(0, pool.getReturnCount());
+    }
+
+    @Test
+    public void testReleasedBufferIsReused() {
+        PooledBuffer buf = pool.lease(300);
+
+        assertTrue(buf.release());
+        assertEquals(1, pool.getFreeCount());
+
+        // same class, any size within it
+        PooledBuffer again = pool.lease(512);
+        assertSame(buf, again);
+        assertEquals(1, again.refCount());
+        assertEquals(1, pool.getHitCount());
+        assertEquals(1, pool.getMissCount());
+
+        // other classes are not served from it
+        assertNotSame(buf, pool.lease(256));
+    }
+
+    @Test
+    public void testRetainRelease() {
+        PooledBuffer buf = pool.lease(100);
+
+        assertSame(buf, buf.retain());
+        buf.retain();
+        assertEquals(3, buf.refCount());
+        assertFalse(buf.release());
+        assertFalse(buf.release());
+        assertEquals(0, pool.getFreeCount());
+        assertTrue(buf.release());
+        assertEquals(0, buf.refCount());
+        assertEquals(1, pool.getFreeCount());
+    }
+
+    @Test
+    public void testDoubleRelease() {
+        PooledBuffer buf = pool.lease(100);
+
+        buf.release();
+        try {
+            buf.release();
+        } catch (IllegalStateException e) {
+            // the count is left as it was and the buffer pooled once
+            assertEquals(0, buf.refCount());
+            assertEquals(1, pool.getFreeCount());
+            assertEquals(1, pool.getReturnCount());
+            return;
+        }
+        throw new AssertionError("double release not detected");
+    }
+
+    @Test
+    public void testRetainAfterRelease() {
+        PooledBuffer buf = pool.lease(100);
+
+        buf.release();
+        thrown.expect(IllegalStateException.class);
+        thrown.expectMessage("buffer has already been released");
+        buf.retain();
+    }
+
+    @Test
+    public void testPerClassCap() {
+        PooledBuffer[] bufs = new PooledBuffer[4];
+
+        for (int i = 0; i < bufs.length; i++) {
+            bufs[i] = pool.lease(1000);
+        }
+        PooledBuffer other = pool.lease(100);
+        for (int i = 0; i < bufs.length; i++) {
+            bufs[i].release();
+        }
+        other.release();
+
+        // 2 of the 1024 byte buffers are kept, the cap is per class
+        assertEquals(3, pool.getFreeCount());
+        assertEquals(3, pool.getReturnCount());
+        assertEquals(2, pool.getDiscardCount());
+
+        assertSame(bufs[0], pool.lease(1000));
+        assertSame(bufs[1], pool.lease(1000));
+        assertEquals(1024, pool.lease(1000).capacity());
+        assertEquals(2, pool.getHitCount());
+        assertEquals(6, pool.getMissCount());
+        assertEquals(1, pool.getFreeCount());
+    }
+
+    @Test
+    public void testByteBufferView() {
+        PooledBuffer buf = pool.lease(100);
+
+        assertEquals(0, buf.byteBuffer(10).position());
+        assertEquals(10, buf.byteBuffer(10).limit());
+        buf.byteBuffer(10).position(5);
+        assertEquals(0, buf.byteBuffer(20).position());
+        assertEquals(20, buf.byteBuffer(20).limit());
+        assertSame(buf.array(), buf.byteBuffer(1).array());
+    }
+}
@@ -13,8 +13,26 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
+import com.goffersoft.common.net.FrameDecoderTest;
+import com.goffersoft.common.net.HashedWheelTimerTest;
+import com.goffersoft.common.net.ReconnectPolicyTest;
+import com.goffersoft.common.net.TcpConnectionPoolTest;
+import com.goffersoft.common.net.TcpConnectorTest;
+import com.goffersoft.common.net.TcpSSLConnectionTest;
+import com.goffersoft.common.net.TcpServerAcceptorTest;
+import com.goffersoft.common.net.TcpTransferTest;
+import com.goffersoft.common.net.TrafficRecorderTest;
+import com.goffersoft.common.net.UdpConnectionTest;
+
 @RunWith(Suite.class)
-@SuiteClasses({ BitUtilsTest.class, EndianConversionTest.class })
+@SuiteClasses({ BitUtilsTest.class, EndianConversionTest.class,
+        MultiPatternMatcherTest.class, LatencyHistogramTest.class,
+        BufferPoolTest.class, FrameDecoderTest.class,
+        ReconnectPolicyTest.class, HashedWheelTimerTest.class,
+        TcpConnectionPoolTest.class, UdpConnectionTest.class,
+        TrafficRecorderTest.class, TcpSSLConnectionTest.class,
+        TcpTransferTest.class, TcpConnectorTest.class,
+        TcpServerAcceptorTest.class })
 public class CommonUtilsTestSuite {
     private static final Logger log = Logger
             .getLogger(CommonUtilsTestSuite.class);
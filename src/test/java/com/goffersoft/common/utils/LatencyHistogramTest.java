@@ -0,0 +1,132 @@
+/**
+ ** File: LatencyHistogramTest.java
+ **
+ ** Description : Test Cases For LatencyHistogram.java
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ */
+package com.goffersoft.common.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.log4j.Logger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class LatencyHistogramTest {
+
+    private static final Logger log = Logger
+            .getLogger(LatencyHistogramTest.class);
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private LatencyHistogram histogram;
+
+    @Before
+    public void setUp() {
+        histogram = new LatencyHistogram();
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0.0, histogram.getMean(), 0);
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        for (int i = 1; i <= 10; i++) {
+            histogram.record(i);
+        }
+        histogram.record(-5);
+
+        assertEquals(11, histogram.getCount());
+        assertEquals(10, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(0));
+        assertEquals(5, histogram.getValueAtPercentile(50));
+        assertEquals(10, histogram.getValueAtPercentile(100));
+        assertEquals(5.0, histogram.getMean(), 0);
+    }
+
+    /** compares the percentiles against the sorted values */
+    @Test
+    public void testRelativeError() {
+        Random r = new Random(11);
+        long[] values = new long[10000];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(r.nextDouble() * 40);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        double[] percentiles = { 1, 10, 50, 90, 99, 99.9, 100 };
+        for (int i = 0; i < percentiles.length; i++) {
+            int rank = (int) Math.ceil(percentiles[i] / 100 * values.length);
+            long expected = values[rank - 1];
+            long actual = histogram.getValueAtPercentile(percentiles[i]);
+            assertTrue(actual >= expected);
+            assertTrue(actual - expected <= expected
+                    >> LatencyHistogram.DEFAULT_SUB_BUCKET_BITS);
+        }
+        assertEquals(values[values.length - 1], histogram.getMax());
+        log.debug(histogram);
+    }
+
+    @Test
+    public void testLargestValue() {
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void testReset() {
+        histogram.record(100);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void testAdd() {
+        LatencyHistogram other = new LatencyHistogram();
+
+        for (int i = 1; i <= 5; i++) {
+            histogram.record(i);
+        }
+        for (int i = 6; i <= 10; i++) {
+            other.record(i);
+        }
+        histogram.add(other);
+
+        assertEquals(10, histogram.getCount());
+        assertEquals(10, histogram.getMax());
+        assertEquals(5, histogram.getValueAtPercentile(50));
+        assertEquals(5.5, histogram.getMean(), 0);
+        assertEquals(5, other.getCount());
+    }
+
+    @Test
+    public void testAddDifferentPrecision() {
+        thrown.expect(IllegalArgumentException.class);
+        histogram.add(new LatencyHistogram(3));
+    }
+
+    @Test
+    public void testInvalidPercentile() {
+        thrown.expect(IllegalArgumentException.class);
+        histogram.getValueAtPercentile(101);
+    }
+}
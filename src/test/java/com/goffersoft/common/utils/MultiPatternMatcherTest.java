@@ -0,0 +1,142 @@
+/**
+ ** File: MultiPatternMatcherTest.java
+ **
+ ** Description : Test Cases For MultiPatternMatcher.java
+ **
+ ** Date           Author                          Comments
+ ** 10/18/2026     Prakash Easwar                  Created
+ */
+package com.goffersoft.common.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.apache.log4j.Logger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class MultiPatternMatcherTest {
+
+    private static final Logger log = Logger
+            .getLogger(MultiPatternMatcherTest.class);
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private MultiPatternMatcher matcher;
+
+    @Before
+    public void setUp() {
+        matcher = new MultiPatternMatcher();
+    }
+
+    @Test
+    public void testContains() {
+        matcher.addContains("he".getBytes(), 3);
+        matcher.addContains("she".getBytes(), 1);
+        matcher.addContains("hers".getBytes(), 0);
+        matcher.compile();
+
+        assertEquals(0, matcher.match("ushers".getBytes()));
+        assertEquals(1, matcher.match("ushe".getBytes()));
+        assertEquals(3, matcher.match("ahem".getBytes()));
+        assertEquals(-1, matcher.match("hsr".getBytes()));
+        assertEquals(-1, matcher.match("ushers".getBytes(), 2, 1));
+        assertEquals(3, matcher.match("ushers".getBytes(), 2, 2));
+    }
+
+    @Test
+    public void testStartsAndEndsWith() {
+        matcher.addStartsWith("GET ".getBytes(), 2);
+        matcher.addStartsWith("GE".getBytes(), 4);
+        matcher.addEndsWith("\r\n".getBytes(), 3);
+        matcher.addEndsWith("\n".getBytes(), 5);
+        matcher.compile();
+
+        assertEquals(2, matcher.match("GET /\r\n".getBytes()));
+        assertEquals(3, matcher.match("GEX /\r\n".getBytes()));
+        assertEquals(4, matcher.match("GEX /".getBytes()));
+        assertEquals(5, matcher.match("PUT\n".getBytes()));
+        assertEquals(-1, matcher.match("PUT".getBytes()));
+        assertEquals(-1, matcher.match("xGET \r".getBytes()));
+    }
+
+    @Test
+    public void testFirstRegisteredWins() {
+        matcher.addEndsWith("z".getBytes(), 0);
+        matcher.addContains("a".getBytes(), 1);
+        matcher.addStartsWith("a".getBytes(), 2);
+        matcher.compile();
+
+        assertEquals(1, matcher.match("abc".getBytes()));
+        assertEquals(0, matcher.match("abz".getBytes()));
+        assertEquals(-1, matcher.match("bcd".getBytes()));
+    }
+
+    @Test
+    public void testNotCompiled() {
+        matcher.addContains("a".getBytes(), 0);
+        thrown.expect(IllegalStateException.class);
+        matcher.match("a".getBytes());
+    }
+
+    /** compares against matching each pattern in turn with PatternUtils */
+    @Test
+    public void testAgainstPatternUtils() {
+        Random r = new Random(7);
+        byte[][] patterns = new byte[40][];
+        int[] types = new int[patterns.length];
+
+        for (int i = 0; i < patterns.length; i++) {
+            patterns[i] = randomBytes(r, 1 + r.nextInt(4));
+            types[i] = r.nextInt(3);
+            if (types[i] == 0) {
+                matcher.addContains(patterns[i], i);
+            } else if (types[i] == 1) {
+                matcher.addStartsWith(patterns[i], i);
+            } else {
+                matcher.addEndsWith(patterns[i], i);
+            }
+        }
+        matcher.compile();
+
+        for (int n = 0; n < 2000; n++) {
+            byte[] data = randomBytes(r, r.nextInt(64));
+            int offset = (data.length == 0) ? 0 : r.nextInt(data.length);
+            int length = r.nextInt(data.length - offset + 1);
+            int expected = -1;
+
+            for (int i = 0; i < patterns.length && expected < 0; i++) {
+                int pos;
+                if (types[i] == 0) {
+                    pos = PatternUtils.contains(data, offset, length,
+                            patterns[i]);
+                } else if (types[i] == 1) {
+                    pos = PatternUtils.startsWith(data, offset, length,
+                            patterns[i]);
+                } else {
+                    pos = PatternUtils.endsWith(data, offset, length,
+                            patterns[i]);
+                }
+                if (pos != -1) {
+                    expected = i;
+                }
+            }
+            assertEquals(expected, matcher.match(data, offset, length));
+        }
+        log.debug(matcher);
+    }
+
+    /** small alphabet so that patterns overlap and match often */
+    private static byte[] randomBytes(Random r, int length) {
+        byte[] b = new byte[length];
+
+        for (int i = 0; i < length; i++) {
+            b[i] = (byte) ("abc\r\n".charAt(r.nextInt(5)));
+        }
+        return b;
+    }
+}